@@ -0,0 +1,34 @@
+package com.example.flowmerceproject.AnalyticsManagement.controller;
+
+import com.example.flowmerceproject.AnalyticsManagement.dto.AnalyticsDTOs;
+import com.example.flowmerceproject.AnalyticsManagement.service.SalesRollupService;
+import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
+import com.example.flowmerceproject.common.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/admin/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class AnalyticsAdminController {
+
+    private final SalesRollupService rollupService;
+
+    // POST /admin/analytics/rebuild?from=&to= — replays the rollups of every store from the order tables
+    @PostMapping("/rebuild")
+    public ResponseEntity<ApiResponse<AnalyticsDTOs.RebuildResponse>> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        if (from.isAfter(end)) {
+            throw new BadRequestException("'from' must not be after 'to'.");
+        }
+        return ResponseEntity.ok(ApiResponse.ok(rollupService.rebuild(from, end), "Analytics rebuilt"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.flowmerceproject.AnalyticsManagement.controller;
+
+import com.example.flowmerceproject.AnalyticsManagement.dto.AnalyticsDTOs;
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import com.example.flowmerceproject.AnalyticsManagement.service.StoreAnalyticsService;
+import com.example.flowmerceproject.common.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/stores/{storeId}/analytics")
+@PreAuthorize("hasRole('MERCHANT')")
+@RequiredArgsConstructor
+public class StoreAnalyticsController {
+
+    private final StoreAnalyticsService analyticsService;
+
+    // GET /stores/{storeId}/analytics?from=&to=&granularity=HOUR|DAY&top=
+    @GetMapping
+    public ResponseEntity<ApiResponse<AnalyticsDTOs.StoreAnalyticsResponse>> getAnalytics(
+            Principal principal,
+            @PathVariable Integer storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") Granularity granularity,
+            @RequestParam(required = false) Integer top) {
+        return ResponseEntity.ok(ApiResponse.ok(analyticsService.getStoreAnalytics(
+                principal.getName(), storeId, from, to, granularity, top)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.flowmerceproject.AnalyticsManagement.dto;
+
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AnalyticsDTOs {
+
+    // ── RESPONSES
+
+    /**
+     * GMV is gross sales minus cancelled sales; AOV is GMV over the orders
+     * that were not cancelled (0 when there are none).
+     */
+    @Data
+    @Builder
+    public static class SalesBucket {
+        private LocalDateTime bucketStart;
+        private Integer orders;
+        private Integer cancellations;
+        private BigDecimal grossSales;
+        private BigDecimal cancelledSales;
+        private BigDecimal gmv;
+        private BigDecimal aov;
+        private BigDecimal paidSales;
+        private Integer refunds;
+    }
+
+    @Data
+    @Builder
+    public static class TopProduct {
+        private Integer productId;
+        private String name;
+        private Long units;
+    }
+
+    @Data
+    @Builder
+    public static class StoreAnalyticsResponse {
+        private Integer storeId;
+        private Granularity granularity;
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private SalesBucket totals;
+        private List<SalesBucket> buckets;   // one per bucket in [from, to], empty ones zero-filled
+        private List<TopProduct> topProducts;
+    }
+
+    @Data
+    @Builder
+    public static class RebuildResponse {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private Integer salesRows;
+        private Integer productRows;
+    }
+}
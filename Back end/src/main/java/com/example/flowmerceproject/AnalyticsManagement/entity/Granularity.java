@@ -0,0 +1,32 @@
+package com.example.flowmerceproject.AnalyticsManagement.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** Bucket width of a sales rollup row. */
+public enum Granularity {
+    HOUR("hour", ChronoUnit.HOURS),
+    DAY("day", ChronoUnit.DAYS);
+
+    // date_trunc() field name for the replay queries
+    private final String sqlUnit;
+    private final ChronoUnit unit;
+
+    Granularity(String sqlUnit, ChronoUnit unit) {
+        this.sqlUnit = sqlUnit;
+        this.unit = unit;
+    }
+
+    public String sqlUnit() {
+        return sqlUnit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    /** Start of the bucket {@code time} falls in. */
+    public LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.flowmerceproject.AnalyticsManagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Units of one product sold by one store in one hour or day, net of cancelled
+ * orders — the source of the "top products" ranking.
+ */
+@Entity
+@Table(name = "store_product_rollups")
+@IdClass(StoreProductRollup.Key.class)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StoreProductRollup {
+
+    @Id
+    @Column(name = "store_id")
+    private Integer storeId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "units", nullable = false)
+    private Integer units;
+
+    @Data
+    @NoArgsConstructor @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer storeId;
+        private Granularity granularity;
+        private LocalDateTime bucketStart;
+        private Integer productId;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.flowmerceproject.AnalyticsManagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Order and payment totals of one store for one hour or day. Every amount is
+ * attributed to the bucket of the order's order_date, so a later cancellation
+ * or payment lands in the same bucket as the order and a replay from the
+ * order tables reproduces the row exactly. Written only through the upserts
+ * in RollupBatchRepository.
+ */
+@Entity
+@Table(name = "store_sales_rollups")
+@IdClass(StoreSalesRollup.Key.class)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StoreSalesRollup {
+
+    @Id
+    @Column(name = "store_id")
+    private Integer storeId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 10)
+    private Granularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    // All orders placed in the bucket, cancelled included
+    @Column(name = "orders_count", nullable = false)
+    private Integer ordersCount;
+
+    @Column(name = "gross_sales", nullable = false, precision = 14, scale = 2)
+    private BigDecimal grossSales;
+
+    @Column(name = "cancelled_count", nullable = false)
+    private Integer cancelledCount;
+
+    @Column(name = "cancelled_sales", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cancelledSales;
+
+    // Amount of payments that succeeded (later refunds included)
+    @Column(name = "paid_sales", nullable = false, precision = 14, scale = 2)
+    private BigDecimal paidSales;
+
+    // Payments that ended fully REFUNDED
+    @Column(name = "refunded_count", nullable = false)
+    private Integer refundedCount;
+
+    @Data
+    @NoArgsConstructor @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer storeId;
+        private Granularity granularity;
+        private LocalDateTime bucketStart;
+    }
+}
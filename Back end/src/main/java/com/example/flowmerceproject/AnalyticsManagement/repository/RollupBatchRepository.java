@@ -0,0 +1,39 @@
+package com.example.flowmerceproject.AnalyticsManagement.repository;
+
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Additive upserts for the rollup tables: each delta is added to its bucket
+ * row, creating the row if needed, all in one JDBC batch per table. Adding
+ * rather than overwriting lets several nodes flush into the same bucket.
+ */
+public interface RollupBatchRepository {
+
+    record SalesDelta(Integer storeId, Granularity granularity, LocalDateTime bucketStart,
+                      int orders, BigDecimal grossSales, int cancelled, BigDecimal cancelledSales,
+                      BigDecimal paidSales, int refunded) {
+
+        public SalesDelta plus(SalesDelta other) {
+            return new SalesDelta(storeId, granularity, bucketStart,
+                    orders + other.orders, grossSales.add(other.grossSales),
+                    cancelled + other.cancelled, cancelledSales.add(other.cancelledSales),
+                    paidSales.add(other.paidSales), refunded + other.refunded);
+        }
+    }
+
+    record UnitsDelta(Integer storeId, Granularity granularity, LocalDateTime bucketStart,
+                      Integer productId, int units) {
+
+        public UnitsDelta plus(UnitsDelta other) {
+            return new UnitsDelta(storeId, granularity, bucketStart, productId, units + other.units);
+        }
+    }
+
+    void addSales(List<SalesDelta> deltas);
+
+    void addUnits(List<UnitsDelta> deltas);
+}
@@ -0,0 +1,59 @@
+package com.example.flowmerceproject.AnalyticsManagement.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class RollupBatchRepositoryImpl implements RollupBatchRepository {
+
+    private static final String SALES_SQL =
+            "INSERT INTO store_sales_rollups AS r (store_id, granularity, bucket_start, orders_count, "
+                    + "gross_sales, cancelled_count, cancelled_sales, paid_sales, refunded_count) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (store_id, granularity, bucket_start) DO UPDATE SET "
+                    + "orders_count = r.orders_count + EXCLUDED.orders_count, "
+                    + "gross_sales = r.gross_sales + EXCLUDED.gross_sales, "
+                    + "cancelled_count = r.cancelled_count + EXCLUDED.cancelled_count, "
+                    + "cancelled_sales = r.cancelled_sales + EXCLUDED.cancelled_sales, "
+                    + "paid_sales = r.paid_sales + EXCLUDED.paid_sales, "
+                    + "refunded_count = r.refunded_count + EXCLUDED.refunded_count";
+
+    private static final String UNITS_SQL =
+            "INSERT INTO store_product_rollups AS r (store_id, granularity, bucket_start, product_id, units) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (store_id, granularity, bucket_start, product_id) DO UPDATE SET "
+                    + "units = r.units + EXCLUDED.units";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void addSales(List<SalesDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        jdbcTemplate.batchUpdate(SALES_SQL, deltas, deltas.size(), (ps, d) -> {
+            ps.setInt(1, d.storeId());
+            ps.setString(2, d.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(d.bucketStart()));
+            ps.setInt(4, d.orders());
+            ps.setBigDecimal(5, d.grossSales());
+            ps.setInt(6, d.cancelled());
+            ps.setBigDecimal(7, d.cancelledSales());
+            ps.setBigDecimal(8, d.paidSales());
+            ps.setInt(9, d.refunded());
+        });
+    }
+
+    @Override
+    public void addUnits(List<UnitsDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        jdbcTemplate.batchUpdate(UNITS_SQL, deltas, deltas.size(), (ps, d) -> {
+            ps.setInt(1, d.storeId());
+            ps.setString(2, d.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(d.bucketStart()));
+            ps.setInt(4, d.productId());
+            ps.setInt(5, d.units());
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.flowmerceproject.AnalyticsManagement.repository;
+
+import com.example.flowmerceproject.AnalyticsManagement.entity.StoreProductRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StoreProductRollupRepository
+        extends JpaRepository<StoreProductRollup, StoreProductRollup.Key> {
+
+    @Query(value = "SELECT r.product_id AS \"productId\", p.name AS \"name\", SUM(r.units) AS \"units\" " +
+            "FROM store_product_rollups r " +
+            "LEFT JOIN products p ON p.product_id = r.product_id " +
+            "WHERE r.store_id = :storeId AND r.granularity = :granularity " +
+            "AND r.bucket_start BETWEEN :from AND :to " +
+            "GROUP BY r.product_id, p.name " +
+            "HAVING SUM(r.units) > 0 " +
+            "ORDER BY SUM(r.units) DESC, r.product_id " +
+            "LIMIT :limit", nativeQuery = true)
+    List<TopProductView> findTopProducts(@Param("storeId") Integer storeId,
+                                         @Param("granularity") String granularity,
+                                         @Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM store_product_rollups WHERE granularity = :granularity " +
+            "AND bucket_start >= :from AND bucket_start < :to", nativeQuery = true)
+    int deleteRange(@Param("granularity") String granularity,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query(value = "INSERT INTO store_product_rollups (store_id, granularity, bucket_start, product_id, units) " +
+            "SELECT o.store_id, :granularity, date_trunc(:unit, o.order_date), i.product_id, SUM(i.quantity) " +
+            "FROM orders o JOIN order_items i ON i.order_id = o.order_id " +
+            "WHERE o.status <> 'CANCELLED' AND o.order_date >= :from AND o.order_date < :to " +
+            "GROUP BY o.store_id, 3, i.product_id " +
+            "ON CONFLICT (store_id, granularity, bucket_start, product_id) DO UPDATE SET units = EXCLUDED.units",
+            nativeQuery = true)
+    int replay(@Param("granularity") String granularity,
+               @Param("unit") String unit,
+               @Param("from") LocalDateTime from,
+               @Param("to") LocalDateTime to);
+}
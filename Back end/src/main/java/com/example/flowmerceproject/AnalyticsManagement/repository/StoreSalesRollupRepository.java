@@ -0,0 +1,66 @@
+package com.example.flowmerceproject.AnalyticsManagement.repository;
+
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import com.example.flowmerceproject.AnalyticsManagement.entity.StoreSalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoreSalesRollupRepository
+        extends JpaRepository<StoreSalesRollup, StoreSalesRollup.Key>, RollupBatchRepository {
+
+    // Primary-key range scan: one row per non-empty bucket.
+    @Query("SELECT r FROM StoreSalesRollup r WHERE r.storeId = :storeId AND r.granularity = :granularity " +
+            "AND r.bucketStart BETWEEN :from AND :to ORDER BY r.bucketStart")
+    List<StoreSalesRollup> findBuckets(@Param("storeId") Integer storeId,
+                                       @Param("granularity") Granularity granularity,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM store_sales_rollups)", nativeQuery = true)
+    boolean hasAnyRows();
+
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    Optional<LocalDateTime> findFirstOrderDate();
+
+    @Modifying
+    @Query(value = "DELETE FROM store_sales_rollups WHERE granularity = :granularity " +
+            "AND bucket_start >= :from AND bucket_start < :to", nativeQuery = true)
+    int deleteRange(@Param("granularity") String granularity,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+
+    // Recomputes the buckets of [from, to) for every store from orders and
+    // payments, with the same attribution rules as the live listener.
+    @Modifying
+    @Query(value = "INSERT INTO store_sales_rollups (store_id, granularity, bucket_start, orders_count, " +
+            "gross_sales, cancelled_count, cancelled_sales, paid_sales, refunded_count) " +
+            "SELECT o.store_id, :granularity, date_trunc(:unit, o.order_date), COUNT(*), " +
+            "COALESCE(SUM(o.total), 0), " +
+            "COUNT(*) FILTER (WHERE o.status = 'CANCELLED'), " +
+            "COALESCE(SUM(o.total) FILTER (WHERE o.status = 'CANCELLED'), 0), " +
+            "COALESCE(SUM(p.paid), 0), COALESCE(SUM(p.refunded), 0) " +
+            "FROM orders o " +
+            "LEFT JOIN (SELECT order_id, " +
+            "     SUM(amount) FILTER (WHERE payment_status IN ('COMPLETED', 'REFUNDED', 'PARTIALLY_REFUNDED')) AS paid, " +
+            "     COUNT(*) FILTER (WHERE payment_status = 'REFUNDED') AS refunded " +
+            "   FROM payments GROUP BY order_id) p ON p.order_id = o.order_id " +
+            "WHERE o.order_date >= :from AND o.order_date < :to " +
+            "GROUP BY o.store_id, 3 " +
+            "ON CONFLICT (store_id, granularity, bucket_start) DO UPDATE SET " +
+            "orders_count = EXCLUDED.orders_count, gross_sales = EXCLUDED.gross_sales, " +
+            "cancelled_count = EXCLUDED.cancelled_count, cancelled_sales = EXCLUDED.cancelled_sales, " +
+            "paid_sales = EXCLUDED.paid_sales, refunded_count = EXCLUDED.refunded_count",
+            nativeQuery = true)
+    int replay(@Param("granularity") String granularity,
+               @Param("unit") String unit,
+               @Param("from") LocalDateTime from,
+               @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,8 @@
+package com.example.flowmerceproject.AnalyticsManagement.repository;
+
+/** One row of the top-products ranking: units summed over the queried buckets. */
+public interface TopProductView {
+    Integer getProductId();
+    String getName();
+    Long getUnits();
+}
@@ -0,0 +1,215 @@
+package com.example.flowmerceproject.AnalyticsManagement.service;
+
+import com.example.flowmerceproject.AnalyticsManagement.dto.AnalyticsDTOs;
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import com.example.flowmerceproject.AnalyticsManagement.repository.RollupBatchRepository.SalesDelta;
+import com.example.flowmerceproject.AnalyticsManagement.repository.RollupBatchRepository.UnitsDelta;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreProductRollupRepository;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreSalesRollupRepository;
+import com.example.flowmerceproject.OrderManagement.entity.Order;
+import com.example.flowmerceproject.OrderManagement.event.OrderChangedEvent;
+import com.example.flowmerceproject.OrderManagement.repository.OrderItemRepository;
+import com.example.flowmerceproject.OrderManagement.repository.ProductUnitsView;
+import com.example.flowmerceproject.PaymentManagement.entity.Payment;
+import com.example.flowmerceproject.PaymentManagement.event.PaymentChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maintains the hourly and daily sales rollups (store_sales_rollups,
+ * store_product_rollups) from OrderChangedEvent and PaymentChangedEvent.
+ *
+ * Each committed event becomes a handful of deltas that are summed in memory
+ * per bucket and written every {@code app.analytics.flush-interval-ms} as
+ * additive upserts, so a busy store's current bucket is written once per
+ * flush instead of locking its row inside every checkout transaction.
+ *
+ * Deltas still in memory when a node dies are lost; {@link #rebuild} replays
+ * any range from orders, order_items and payments and is the repair path.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SalesRollupService {
+
+    private static final String CANCELLED = Order.OrderStatus.CANCELLED.name();
+    private static final String COMPLETED = Payment.PaymentStatus.COMPLETED.name();
+    private static final String REFUNDED = Payment.PaymentStatus.REFUNDED.name();
+
+    private final StoreSalesRollupRepository salesRollupRepository;
+    private final StoreProductRollupRepository productRollupRepository;
+    private final OrderItemRepository orderItemRepository;
+
+    @Value("${app.analytics.enabled:true}")
+    private boolean enabled;
+
+    private record BucketKey(Integer storeId, Granularity granularity, LocalDateTime bucketStart) { }
+
+    private record ProductBucketKey(Integer storeId, Granularity granularity,
+                                    LocalDateTime bucketStart, Integer productId) { }
+
+    private final ConcurrentMap<BucketKey, SalesDelta> pendingSales = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ProductBucketKey, UnitsDelta> pendingUnits = new ConcurrentHashMap<>();
+
+    // ── EVENTS ────────────────────────────────────────────────────────────────
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled) return;
+        Integer storeId = event.getStoreId();
+        LocalDateTime orderDate = orderDate(event.getOrderDate());
+        BigDecimal total = event.getTotal() != null ? event.getTotal() : BigDecimal.ZERO;
+        boolean cancelled = CANCELLED.equals(event.getNewStatus());
+
+        if (event.isCreated()) {
+            addSales(storeId, orderDate, 1, total,
+                    cancelled ? 1 : 0, cancelled ? total : BigDecimal.ZERO, BigDecimal.ZERO, 0);
+            if (!cancelled) {
+                event.getLines().forEach(l -> addUnits(storeId, orderDate, l.productId(), l.quantity()));
+            }
+            return;
+        }
+
+        // Only entering or leaving CANCELLED changes the rollups.
+        if (cancelled == CANCELLED.equals(event.getOldStatus())) return;
+        int sign = cancelled ? 1 : -1;
+        addSales(storeId, orderDate, 0, BigDecimal.ZERO,
+                sign, total.multiply(BigDecimal.valueOf(sign)), BigDecimal.ZERO, 0);
+        for (ProductUnitsView line : orderItemRepository.sumUnitsByProduct(event.getOrderId())) {
+            addUnits(storeId, orderDate, line.getProductId(), -sign * line.getUnits().intValue());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        if (!enabled) return;
+        LocalDateTime orderDate = orderDate(event.getOrderDate());
+        if (COMPLETED.equals(event.getStatus())) {
+            addSales(event.getStoreId(), orderDate, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO,
+                    event.getAmount() != null ? event.getAmount() : BigDecimal.ZERO, 0);
+        } else if (REFUNDED.equals(event.getStatus())) {
+            addSales(event.getStoreId(), orderDate, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO, BigDecimal.ZERO, 1);
+        }
+    }
+
+    private static LocalDateTime orderDate(LocalDateTime orderDate) {
+        return orderDate != null ? orderDate : LocalDateTime.now();
+    }
+
+    private void addSales(Integer storeId, LocalDateTime orderDate, int orders, BigDecimal gross,
+                          int cancelled, BigDecimal cancelledSales, BigDecimal paid, int refunded) {
+        for (Granularity g : Granularity.values()) {
+            LocalDateTime bucket = g.bucketOf(orderDate);
+            pendingSales.merge(new BucketKey(storeId, g, bucket),
+                    new SalesDelta(storeId, g, bucket, orders, gross, cancelled, cancelledSales, paid, refunded),
+                    SalesDelta::plus);
+        }
+    }
+
+    private void addUnits(Integer storeId, LocalDateTime orderDate, Integer productId, int units) {
+        for (Granularity g : Granularity.values()) {
+            LocalDateTime bucket = g.bucketOf(orderDate);
+            pendingUnits.merge(new ProductBucketKey(storeId, g, bucket, productId),
+                    new UnitsDelta(storeId, g, bucket, productId, units),
+                    UnitsDelta::plus);
+        }
+    }
+
+    // ── FLUSH ─────────────────────────────────────────────────────────────────
+
+    /** Writes the buffered deltas, both tables in one transaction. */
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-ms:1000}")
+    @Transactional
+    public synchronized void flush() {
+        List<SalesDelta> sales = drain(pendingSales);
+        List<UnitsDelta> units = drain(pendingUnits);
+        if (sales.isEmpty() && units.isEmpty()) return;
+
+        try {
+            salesRollupRepository.addSales(sales);
+            salesRollupRepository.addUnits(units);
+        } catch (RuntimeException e) {
+            sales.forEach(d -> pendingSales.merge(
+                    new BucketKey(d.storeId(), d.granularity(), d.bucketStart()), d, SalesDelta::plus));
+            units.forEach(d -> pendingUnits.merge(
+                    new ProductBucketKey(d.storeId(), d.granularity(), d.bucketStart(), d.productId()),
+                    d, UnitsDelta::plus));
+            log.error("Analytics: flush of {} sales / {} product deltas failed — will retry",
+                    sales.size(), units.size(), e);
+            throw e;
+        }
+        log.debug("Analytics: flushed {} sales / {} product deltas", sales.size(), units.size());
+    }
+
+    private static <K, V> List<V> drain(ConcurrentMap<K, V> pending) {
+        List<V> drained = new ArrayList<>();
+        for (K key : pending.keySet()) {
+            V value = pending.remove(key);
+            if (value != null) drained.add(value);
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Analytics: final flush failed — run a rebuild for the last minutes", e);
+        }
+    }
+
+    // ── REPLAY ────────────────────────────────────────────────────────────────
+
+    /**
+     * Recomputes every store's rollups for the whole days covering
+     * [from, to] from the order tables. Deltas buffered on this node are
+     * flushed first; an event committed on another node while the replay runs
+     * can be counted twice, so replay closed ranges where that matters.
+     */
+    @Transactional
+    public synchronized AnalyticsDTOs.RebuildResponse rebuild(LocalDateTime from, LocalDateTime to) {
+        flush();
+        LocalDateTime start = Granularity.DAY.bucketOf(from);
+        LocalDateTime end = Granularity.DAY.bucketOf(to).plusDays(1);
+
+        int salesRows = 0;
+        int productRows = 0;
+        for (Granularity g : Granularity.values()) {
+            salesRollupRepository.deleteRange(g.name(), start, end);
+            productRollupRepository.deleteRange(g.name(), start, end);
+            salesRows += salesRollupRepository.replay(g.name(), g.sqlUnit(), start, end);
+            productRows += productRollupRepository.replay(g.name(), g.sqlUnit(), start, end);
+        }
+        log.info("Analytics: rebuilt [{}, {}) — {} sales rows, {} product rows", start, end, salesRows, productRows);
+        return AnalyticsDTOs.RebuildResponse.builder()
+                .from(start).to(end).salesRows(salesRows).productRows(productRows)
+                .build();
+    }
+
+    /** Seeds the rollups from the full order history the first time they are switched on. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (!enabled || salesRollupRepository.hasAnyRows()) return;
+        salesRollupRepository.findFirstOrderDate().ifPresent(first -> {
+            log.info("Analytics: rollups are empty — backfilling from {}", first);
+            rebuild(first, LocalDateTime.now());
+        });
+    }
+}
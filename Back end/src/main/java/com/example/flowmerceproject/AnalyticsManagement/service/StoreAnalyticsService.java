@@ -0,0 +1,145 @@
+package com.example.flowmerceproject.AnalyticsManagement.service;
+
+import com.example.flowmerceproject.AnalyticsManagement.dto.AnalyticsDTOs;
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import com.example.flowmerceproject.AnalyticsManagement.entity.StoreSalesRollup;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreProductRollupRepository;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreSalesRollupRepository;
+import com.example.flowmerceproject.StoreMangement.entity.Store;
+import com.example.flowmerceproject.StoreMangement.repository.StoreRepository;
+import com.example.flowmerceproject.UserManagement.entity.User;
+import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
+import com.example.flowmerceproject.UserManagement.exception.ForbiddenException;
+import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundException;
+import com.example.flowmerceproject.UserManagement.repository.MerchantRepository;
+import com.example.flowmerceproject.UserManagement.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the sales rollups: a series, its totals and the top products
+ * for a range, built from one row per bucket — the cost depends on the number
+ * of buckets, never on the number of orders.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoreAnalyticsService {
+
+    static final int DEFAULT_BUCKETS = 30;
+    static final int MAX_BUCKETS = 1000;
+    static final int DEFAULT_TOP = 10;
+    static final int MAX_TOP = 50;
+
+    private final StoreSalesRollupRepository salesRollupRepository;
+    private final StoreProductRollupRepository productRollupRepository;
+    private final StoreRepository storeRepository;
+    private final UserRepository userRepository;
+    private final MerchantRepository merchantRepository;
+
+    /**
+     * {@code from} and {@code to} are snapped to their buckets and both
+     * included. Without {@code to} the range ends now; without {@code from}
+     * it covers the last 30 buckets.
+     */
+    @Transactional(readOnly = true)
+    public AnalyticsDTOs.StoreAnalyticsResponse getStoreAnalytics(String email, Integer storeId,
+                                                                 LocalDateTime from, LocalDateTime to,
+                                                                 Granularity granularity, Integer top) {
+        verifyMerchantOwnsStore(email, storeId);
+
+        Granularity g = granularity != null ? granularity : Granularity.DAY;
+        LocalDateTime end = g.bucketOf(to != null ? to : LocalDateTime.now());
+        LocalDateTime start = from != null ? g.bucketOf(from) : end.minus(DEFAULT_BUCKETS - 1, g.unit());
+        if (start.isAfter(end)) {
+            throw new BadRequestException("'from' must not be after 'to'.");
+        }
+        if (g.unit().between(start, end) + 1 > MAX_BUCKETS) {
+            throw new BadRequestException("Range too large: at most " + MAX_BUCKETS + " "
+                    + g.name().toLowerCase() + " buckets per request.");
+        }
+        int topLimit = top == null || top <= 0 ? DEFAULT_TOP : Math.min(top, MAX_TOP);
+
+        Map<LocalDateTime, StoreSalesRollup> rows = salesRollupRepository
+                .findBuckets(storeId, g, start, end).stream()
+                .collect(Collectors.toMap(StoreSalesRollup::getBucketStart, Function.identity()));
+
+        List<AnalyticsDTOs.SalesBucket> buckets = new ArrayList<>();
+        int orders = 0, cancelled = 0, refunds = 0;
+        BigDecimal gross = BigDecimal.ZERO, cancelledSales = BigDecimal.ZERO, paid = BigDecimal.ZERO;
+        for (LocalDateTime b = start; !b.isAfter(end); b = b.plus(1, g.unit())) {
+            StoreSalesRollup r = rows.get(b);
+            if (r == null) {
+                buckets.add(bucket(b, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 0));
+                continue;
+            }
+            buckets.add(bucket(b, r.getOrdersCount(), r.getCancelledCount(), r.getGrossSales(),
+                    r.getCancelledSales(), r.getPaidSales(), r.getRefundedCount()));
+            orders += r.getOrdersCount();
+            cancelled += r.getCancelledCount();
+            refunds += r.getRefundedCount();
+            gross = gross.add(r.getGrossSales());
+            cancelledSales = cancelledSales.add(r.getCancelledSales());
+            paid = paid.add(r.getPaidSales());
+        }
+
+        List<AnalyticsDTOs.TopProduct> topProducts = productRollupRepository
+                .findTopProducts(storeId, g.name(), start, end, topLimit).stream()
+                .map(p -> AnalyticsDTOs.TopProduct.builder()
+                        .productId(p.getProductId()).name(p.getName()).units(p.getUnits())
+                        .build())
+                .toList();
+
+        return AnalyticsDTOs.StoreAnalyticsResponse.builder()
+                .storeId(storeId)
+                .granularity(g)
+                .from(start)
+                .to(end)
+                .totals(bucket(null, orders, cancelled, gross, cancelledSales, paid, refunds))
+                .buckets(buckets)
+                .topProducts(topProducts)
+                .build();
+    }
+
+    private static AnalyticsDTOs.SalesBucket bucket(LocalDateTime bucketStart, int orders, int cancelled,
+                                                    BigDecimal gross, BigDecimal cancelledSales,
+                                                    BigDecimal paid, int refunds) {
+        BigDecimal gmv = gross.subtract(cancelledSales);
+        int kept = orders - cancelled;
+        BigDecimal aov = kept > 0
+                ? gmv.divide(BigDecimal.valueOf(kept), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+        return AnalyticsDTOs.SalesBucket.builder()
+                .bucketStart(bucketStart)
+                .orders(orders)
+                .cancellations(cancelled)
+                .grossSales(gross)
+                .cancelledSales(cancelledSales)
+                .gmv(gmv)
+                .aov(aov)
+                .paidSales(paid)
+                .refunds(refunds)
+                .build();
+    }
+
+    private void verifyMerchantOwnsStore(String email, Integer storeId) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        var merchant = merchantRepository.findByUser_UserId(user.getUserId())
+                .orElseThrow(() -> new ResourceNotFoundException("Merchant profile not found"));
+        Store store = storeRepository.findById(storeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Store not found: " + storeId));
+        if (!store.getMerchant().getMerchantId().equals(merchant.getMerchantId())) {
+            throw new ForbiddenException("You do not own this store.");
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -196,13 +197,17 @@ public class CartService {
     }
 
     public CartDTOs.CartResponse toResponse(ShoppingCart cart) {
+        Map<Long, Integer> available = Map.of();
+        try {
+            available = inventoryService.getAvailableQuantities(cart.getItems().stream()
+                    .map(item -> item.getProduct().getProductId().longValue())
+                    .toList());
+        } catch (Exception ignored) {}
+        Map<Long, Integer> stock = available;
         List<CartDTOs.CartItemResponse> itemResponses = cart.getItems().stream()
                 .map(item -> {
-                    int availableStock = 0;
-                    try {
-                        availableStock = inventoryService.getAvailableQuantity(
-                                item.getProduct().getProductId().longValue());
-                    } catch (Exception ignored) {}
+                    int availableStock = stock.getOrDefault(
+                            item.getProduct().getProductId().longValue(), 0);
 
                     String imageUrl = null;
                     if (item.getProduct().getMediaList() != null
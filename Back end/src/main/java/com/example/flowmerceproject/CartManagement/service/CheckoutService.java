@@ -4,6 +4,8 @@ import com.example.flowmerceproject.CartManagement.dto.CartDTOs;
 import com.example.flowmerceproject.CartManagement.entity.CartItem;
 import com.example.flowmerceproject.CartManagement.entity.ShoppingCart;
 import com.example.flowmerceproject.CartManagement.repository.ShoppingCartRepository;
+import com.example.flowmerceproject.InventoryManagement.dto.StockReservationResult;
+import com.example.flowmerceproject.InventoryManagement.service.FlashSaleService;
 import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
 import com.example.flowmerceproject.StoreMangement.entity.Store;
 import com.example.flowmerceproject.StoreMangement.repository.StoreRepository;
@@ -21,7 +23,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -34,6 +38,7 @@ public class CheckoutService {
     private final StoreRepository storeRepository;
     private final CartService cartService;
     private final InventoryService inventoryService;
+    private final FlashSaleService flashSaleService;
 
     @Value("${app.shipping.flat-rate:25.00}")
     private BigDecimal shippingFlatRate;
@@ -79,42 +84,61 @@ public class CheckoutService {
             throw new BadRequestException("Your cart is empty. Add items before checkout.");
         }
 
-        List<String> stockErrors = new ArrayList<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (CartItem item : cart.getItems()) {
             if (!item.getProduct().getIsActive()) {
                 throw new BadRequestException(
                         "Product '" + item.getProduct().getName() + "' is no longer available.");
             }
-            boolean available = inventoryService.checkAvailability(
-                    item.getProduct().getProductId().longValue(), item.getQuantity());
-            if (!available) {
-                int currentStock = inventoryService.getAvailableQuantity(
-                        item.getProduct().getProductId().longValue());
-                stockErrors.add(item.getProduct().getName()
-                        + " — requested: " + item.getQuantity()
-                        + ", available: " + currentStock);
-            }
+            quantities.merge(item.getProduct().getProductId().longValue(), item.getQuantity(), Integer::sum);
         }
 
-        if (!stockErrors.isEmpty()) {
-            throw new BadRequestException(
-                    "Stock issues found:\n" + String.join("\n", stockErrors));
+        // Lines on an armed flash sale go to the sharded flash pool; the rest
+        // are reserved all-or-nothing in a single Lua call.
+        Map<Long, StockReservationResult> reservations = new LinkedHashMap<>();
+        Map<Long, Integer> flashHeld = new LinkedHashMap<>();
+        Map<Long, Integer> normal = new LinkedHashMap<>();
+        try {
+            // reserve() throws on the per-customer cap — give back the earlier lines' units too
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                StockReservationResult flash = flashSaleService.isArmed(line.getKey())
+                        ? flashSaleService.reserve(line.getKey(), customer.getCustomerId(), line.getValue())
+                        : null;
+                if (flash == null) {
+                    normal.put(line.getKey(), line.getValue());
+                    continue;
+                }
+                reservations.put(line.getKey(), flash);
+                if (flash.isReserved()) flashHeld.put(line.getKey(), line.getValue());
+            }
+            if (!normal.isEmpty()) reservations.putAll(inventoryService.reserveStock(normal));
+        } catch (RuntimeException e) {
+            flashHeld.forEach((pid, qty) -> flashSaleService.release(pid, customer.getCustomerId(), qty));
+            throw e;
         }
 
-        List<CartItem> reservedItems = new ArrayList<>();
-        for (CartItem item : cart.getItems()) {
-            boolean reserved = inventoryService.reserveStock(
-                    item.getProduct().getProductId().longValue(), item.getQuantity());
-            if (!reserved) {
-                for (CartItem r : reservedItems) {
-                    inventoryService.releaseStock(
-                            r.getProduct().getProductId().longValue(), r.getQuantity());
+        boolean allReserved = reservations.values().stream().allMatch(StockReservationResult::isReserved);
+        if (!allReserved) {
+            flashHeld.forEach((pid, qty) -> flashSaleService.release(pid, customer.getCustomerId(), qty));
+            reservations.forEach((pid, result) -> {
+                if (result.isReserved() && !flashHeld.containsKey(pid)) {
+                    inventoryService.releaseStock(pid, result.getRequestedQuantity());
+                }
+            });
+            List<String> stockErrors = new ArrayList<>();
+            for (CartItem item : cart.getItems()) {
+                StockReservationResult result = reservations.get(item.getProduct().getProductId().longValue());
+                if (result.getAvailableQuantity() < result.getRequestedQuantity()) {
+                    stockErrors.add(item.getProduct().getName()
+                            + " — requested: " + item.getQuantity()
+                            + ", available: " + result.getAvailableQuantity());
                 }
-                throw new BadRequestException(
-                        "Failed to reserve stock for: " + item.getProduct().getName()
-                                + ". Please try again.");
             }
-            reservedItems.add(item);
+            if (stockErrors.isEmpty()) {
+                throw new BadRequestException("Failed to reserve stock. Please try again.");
+            }
+            throw new BadRequestException(
+                    "Stock issues found:\n" + String.join("\n", stockErrors));
         }
 
         BigDecimal subtotal     = cartService.calculateSubtotal(cart);
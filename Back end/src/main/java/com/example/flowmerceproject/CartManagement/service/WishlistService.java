@@ -21,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -99,15 +100,18 @@ public class WishlistService {
     }
 
     private WishlistDTOs.WishlistResponse toResponse(Integer customerId, List<Wishlist> items) {
+        Map<Long, Integer> available = Map.of();
+        try {
+            available = inventoryService.getAvailableQuantities(items.stream()
+                    .map(w -> w.getProduct().getProductId().longValue())
+                    .toList());
+        } catch (Exception ignored) {}
+        Map<Long, Integer> stockByProduct = available;
         List<WishlistDTOs.WishlistItemResponse> itemResponses = items.stream()
                 .map(w -> {
                     Product p = w.getProduct();
 
-                    int stock = 0;
-                    try {
-                        stock = inventoryService.getAvailableQuantity(
-                                p.getProductId().longValue());
-                    } catch (Exception ignored) {}
+                    int stock = stockByProduct.getOrDefault(p.getProductId().longValue(), 0);
 
                     String imageUrl = null;
                     if (p.getMediaList() != null && !p.getMediaList().isEmpty()) {
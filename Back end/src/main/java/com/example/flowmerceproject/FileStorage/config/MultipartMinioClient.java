@@ -0,0 +1,80 @@
+package com.example.flowmerceproject.FileStorage.config;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioAsyncClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link MinioAsyncClient} with the S3 multipart calls opened up, so parts
+ * can be sent one by one as they are read instead of through
+ * {@code putObject}, which sends them sequentially. Every method returns a
+ * future; client-side errors fail the future rather than being thrown.
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /** Single PUT of {@code length} bytes of {@code data}. */
+    public CompletableFuture<ObjectWriteResponse> put(String bucket, String object, String contentType,
+                                                      byte[] data, int length) {
+        try {
+            return putObject(PutObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(object)
+                    .stream(new ByteArrayInputStream(data, 0, length), length, -1)
+                    .contentType(contentType)
+                    .build());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Starts a multipart upload; completes with its upload id. */
+    public CompletableFuture<String> createUpload(String bucket, String object, String contentType) {
+        try {
+            Multimap<String, String> headers = HashMultimap.create();
+            if (contentType != null) headers.put("Content-Type", contentType);
+            return createMultipartUploadAsync(bucket, null, object, headers, null)
+                    .thenApply(response -> response.result().uploadId());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** Sends one part; {@code data} must hold exactly the part's bytes. */
+    public CompletableFuture<Part> uploadPart(String bucket, String object, String uploadId,
+                                              int partNumber, byte[] data) {
+        try {
+            return uploadPartAsync(bucket, null, object, data, data.length, uploadId, partNumber, null, null)
+                    .thenApply(response -> new Part(partNumber, response.etag()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<ObjectWriteResponse> completeUpload(String bucket, String object, String uploadId,
+                                                                 Part[] parts) {
+        try {
+            return completeMultipartUploadAsync(bucket, null, object, uploadId, parts, null, null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> abortUpload(String bucket, String object, String uploadId) {
+        try {
+            return abortMultipartUploadAsync(bucket, null, object, uploadId, null, null)
+                    .thenApply(response -> null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -3,11 +3,11 @@ package com.example.flowmerceproject.FileStorage.controller;
 import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
 import com.example.flowmerceproject.FileStorage.service.FileStorageService;
 import com.example.flowmerceproject.FileStorage.util.StorageFolder;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.security.Principal;
 import java.util.List;
@@ -28,8 +28,9 @@ public class FileUploadController {
             Principal principal,
             @PathVariable Integer storeId,
             @PathVariable Integer productId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -49,8 +50,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadStoreLogo(
             Principal principal,
             @PathVariable Integer storeId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -70,8 +72,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadStoreBanner(
             Principal principal,
             @PathVariable Integer storeId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -91,8 +94,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadThemeAsset(
             Principal principal,
             @PathVariable Integer storeId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -112,8 +116,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadProfilePicture(
             Principal principal,
             @PathVariable Integer userId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -133,8 +138,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadInvoice(
             Principal principal,
             @PathVariable Integer orderId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -153,9 +159,10 @@ public class FileUploadController {
     @PreAuthorize("hasRole('MERCHANT') or hasRole('ADMIN')")
     public ResponseEntity<FileMetadata> uploadAttachment(
             Principal principal,
-            @RequestParam("file") MultipartFile file,
+            HttpServletRequest request,
             @RequestParam(required = false) Integer entityId) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -175,8 +182,9 @@ public class FileUploadController {
     public ResponseEntity<FileMetadata> uploadStorefrontImage(
             Principal principal,
             @PathVariable Integer storeId,
-            @RequestParam("file") MultipartFile file) {
+            HttpServletRequest request) {
 
+        FileStorageService.IncomingFile file = fileStorageService.openUpload(request);
         fileStorageService.validateImageFile(file);
         FileMetadata meta = fileStorageService.uploadFile(
                 file,
@@ -200,11 +208,12 @@ public class FileUploadController {
     }
 
     // ── DELETE FILE ───────────────────────────────
-    // DELETE /api/files?url=...
-    @DeleteMapping
+    // DELETE /api/files/{fileId}
+    // By metadata id, not URL: uploads of the same content share one URL.
+    @DeleteMapping("/{fileId}")
     @PreAuthorize("hasRole('MERCHANT') or hasRole('ADMIN')")
-    public ResponseEntity<String> deleteFile(@RequestParam String url) {
-        fileStorageService.deleteFile(url);
+    public ResponseEntity<String> deleteFile(Principal principal, @PathVariable Long fileId) {
+        fileStorageService.deleteFile(fileId, principal.getName());
         return ResponseEntity.ok("File deleted successfully.");
     }
 }
\ No newline at end of file
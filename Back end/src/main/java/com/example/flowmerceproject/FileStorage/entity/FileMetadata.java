@@ -1,6 +1,7 @@
 package com.example.flowmerceproject.FileStorage.entity;
 
 import com.example.flowmerceproject.UserManagement.entity.User;
+import com.fasterxml.jackson.annotation.JsonRawValue;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -46,6 +47,11 @@ public class FileMetadata {
     @Column(name = "content_type")
     private String contentType;
 
+    // Hex SHA-256 of the content; rows with the same hash share one object
+    // (see StoredObject). Null for files stored before deduplication.
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @ManyToOne
     @JoinColumn(name = "uploaded_by")
     private User uploadedBy;
@@ -53,6 +59,15 @@ public class FileMetadata {
     @Column(name = "is_deleted", nullable = false)
     private Boolean isDeleted;
 
+    /**
+     * Resized copies of an image, as JSON: format → {"<width>w": url}, so a
+     * client can build a srcset from it directly. Filled in after upload by
+     * ImageVariantService; null until then, and for non-images.
+     */
+    @JsonRawValue
+    @Column(name = "variants", columnDefinition = "TEXT")
+    private String variants;
+
     public enum FileType {
         IMAGE, PDF, VIDEO, DOCUMENT
     }
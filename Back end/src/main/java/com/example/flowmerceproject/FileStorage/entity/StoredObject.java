@@ -0,0 +1,40 @@
+package com.example.flowmerceproject.FileStorage.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One stored copy of some content, shared by every FileMetadata row with
+ * its content hash. {@code refCount} is the number of live rows; the object
+ * is removed from MinIO when it drops to zero. Written only through the
+ * queries in StoredObjectRepository.
+ */
+@Entity
+@Table(name = "stored_objects")
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StoredObject {
+
+    // Hex SHA-256 of the content
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "object_name", nullable = false, length = 200)
+    private String objectName;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.example.flowmerceproject.FileStorage.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/** Published once an uploaded file is stored in MinIO and its metadata row saved. */
+@Getter
+public class FileUploadedEvent extends ApplicationEvent {
+
+    private final Long fileId;
+    private final String contentType;
+
+    public FileUploadedEvent(Object source, Long fileId, String contentType) {
+        super(source);
+        this.fileId      = fileId;
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.flowmerceproject.FileStorage.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the resized variants of an uploaded image have been stored
+ * and recorded on its metadata. Anything that embeds the file's URL in a
+ * cached response can refresh it.
+ */
+@Getter
+public class FileVariantsReadyEvent extends ApplicationEvent {
+
+    private final Long fileId;
+    private final String fileUrl;
+
+    public FileVariantsReadyEvent(Object source, Long fileId, String fileUrl) {
+        super(source);
+        this.fileId  = fileId;
+        this.fileUrl = fileUrl;
+    }
+}
@@ -2,8 +2,13 @@ package com.example.flowmerceproject.FileStorage.repository;
 
 import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +23,23 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long
             Boolean isDeleted
     );
 
-    // Get file by URL — used when deleting
-    Optional<FileMetadata> findByFileUrl(String fileUrl);
+    // A row with the same content whose variants are already made
+    Optional<FileMetadata> findFirstByContentHashAndVariantsIsNotNull(String contentHash);
+
+    // Files behind a batch of URLs — used to attach image variants to responses
+    List<FileMetadata> findByFileUrlIn(Collection<String> fileUrls);
+
+    // Record the variants of an image without rewriting the rest of the row
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileMetadata f SET f.variants = :variants WHERE f.id = :id")
+    int updateVariants(@Param("id") Long id, @Param("variants") String variants);
+
+    // Same, for every row sharing the content
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileMetadata f SET f.variants = :variants WHERE f.contentHash = :contentHash")
+    int updateVariantsByContentHash(@Param("contentHash") String contentHash, @Param("variants") String variants);
 
     // Get all files uploaded by a user
     List<FileMetadata> findByUploadedBy_UserIdAndIsDeleted(
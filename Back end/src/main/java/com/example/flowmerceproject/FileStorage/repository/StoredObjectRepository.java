@@ -0,0 +1,35 @@
+package com.example.flowmerceproject.FileStorage.repository;
+
+import com.example.flowmerceproject.FileStorage.entity.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    // One more reference; the first one creates the row
+    @Modifying
+    @Query(value = "INSERT INTO stored_objects AS o " +
+            "(content_hash, object_name, size_bytes, content_type, ref_count, created_at) " +
+            "VALUES (:hash, :objectName, :size, :contentType, 1, now()) " +
+            "ON CONFLICT (content_hash) DO UPDATE SET ref_count = o.ref_count + 1",
+            nativeQuery = true)
+    int addReference(@Param("hash") String hash,
+                     @Param("objectName") String objectName,
+                     @Param("size") long size,
+                     @Param("contentType") String contentType);
+
+    @Query("SELECT o.refCount FROM StoredObject o WHERE o.contentHash = :hash")
+    Integer findRefCount(@Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount - 1 WHERE o.contentHash = :hash AND o.refCount > 0")
+    int removeReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("DELETE FROM StoredObject o WHERE o.contentHash = :hash AND o.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
@@ -1,20 +1,42 @@
 package com.example.flowmerceproject.FileStorage.service;
 
 import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
+import com.example.flowmerceproject.FileStorage.event.FileUploadedEvent;
 import com.example.flowmerceproject.FileStorage.repository.FileMetadataRepository;
 import com.example.flowmerceproject.FileStorage.util.StorageFolder;
+import com.example.flowmerceproject.UserManagement.entity.Role;
 import com.example.flowmerceproject.UserManagement.entity.User;
+import com.example.flowmerceproject.UserManagement.exception.ForbiddenException;
+import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundException;
 import com.example.flowmerceproject.UserManagement.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.minio.*;
 import io.minio.http.Method;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -25,6 +47,31 @@ public class FileStorageService {
     private final MinioClient minioClient;
     private final FileMetadataRepository metadataRepository;
     private final UserRepository userRepository;
+    private final MinioStreamUploader streamUploader;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final StoredObjectRegistry objectRegistry;
+
+    /** The form field uploads arrive in. */
+    public static final String UPLOAD_FIELD = "file";
+
+    public static final long MAX_UPLOAD_BYTES = 10 * 1024 * 1024;
+
+    /** Where every file's content lives, once, under its SHA-256. */
+    static final String CONTENT_FOLDER = "cas";
+
+    /** Multipart bodies in flight, until their hash is known. */
+    static final String STAGING_FOLDER = "staging";
+
+    /** One file part of a multipart request, positioned at its first byte. */
+    public record IncomingFile(String originalFilename, String contentType, InputStream stream) { }
+
+    private static final TypeReference<Map<String, Map<String, String>>> VARIANTS_TYPE = new TypeReference<>() { };
+
+    // Background lookups that overlap with streaming
+    private final ExecutorService background = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean bucketReady;
 
     @Value("${minio.bucket-name}")
     private String bucketName;
@@ -38,95 +85,191 @@ public class FileStorageService {
     @Value("${minio.public-url}")
     private String minioPublicUrl;
 
+    @Value("${minio.upload.timeout-seconds:60}")
+    private long uploadTimeoutSeconds;
+
+    // ─────────────────────────────────────────────
+    // OPEN UPLOAD
+    // Positions the request stream at the "file" part.
+    // Servlet multipart parsing is off, so nothing has
+    // been buffered or written to disk yet.
+    // ─────────────────────────────────────────────
+    @SuppressWarnings("rawtypes")
+    public IncomingFile openUpload(HttpServletRequest request) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new IllegalArgumentException("Expected a multipart/form-data request with a \"file\" part.");
+        }
+        try {
+            FileItemInputIterator items = new JakartaServletFileUpload().getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (!item.isFormField() && UPLOAD_FIELD.equals(item.getFieldName())) {
+                    return new IncomingFile(item.getName(), item.getContentType(), item.getInputStream());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed multipart request: " + e.getMessage());
+        }
+        throw new IllegalArgumentException("No \"file\" part in the request.");
+    }
+
     // ─────────────────────────────────────────────
     // UPLOAD FILE
-    // Uploads to MinIO and saves metadata to DB
+    // Streams to MinIO and saves metadata to DB.
+    // Content is stored once, under its SHA-256
+    // (hashed while streaming); a body already stored
+    // is not sent again. folder is kept on the row;
+    // neither it nor subPath shapes the key any more.
+    // The uploader lookup runs while the bytes stream
+    // and the insert while MinIO completes the object.
     // ─────────────────────────────────────────────
-    public FileMetadata uploadFile(MultipartFile file,
+    public FileMetadata uploadFile(IncomingFile file,
                                    StorageFolder folder,
                                    String subPath,
                                    FileMetadata.EntityType entityType,
                                    Integer entityId,
                                    String uploaderEmail) {
-        try {
-            ensureBucketExists();
-
-            String extension  = getExtension(file.getOriginalFilename());
-            String uniqueName = UUID.randomUUID() + extension;
-            String objectName = folder.getPath() + "/" + subPath + "/" + uniqueName;
+        ensureBucketReady();
 
-            // 1. Upload to MinIO
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .stream(file.getInputStream(), file.getSize(), -1)
-                            .contentType(file.getContentType())
-                            .build()
-            );
+        // Only bodies too large for one part land here, to be moved under their hash
+        String stagingName = STAGING_FOLDER + "/" + UUID.randomUUID();
 
-            String fileUrl = minioPublicUrl + "/" + bucketName + "/" + objectName;
+        CompletableFuture<User> uploader = uploaderEmail == null
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(
+                        () -> userRepository.findByEmail(uploaderEmail).orElse(null), background);
 
-            // 2. Determine file type
-            FileMetadata.FileType fileType = resolveFileType(file.getContentType());
+        // 1. Stream to MinIO — a small body is referenced first, and written
+        //    only if its content is not stored yet
+        MinioStreamUploader.PendingUpload upload;
+        try {
+            upload = streamUploader.upload(bucketName, stagingName, file.contentType(),
+                    file.stream(), MAX_UPLOAD_BYTES, (sha256, size) -> {
+                        String key = contentKey(sha256);
+                        boolean shared = objectRegistry.acquire(sha256, key, size, file.contentType());
+                        return shared && objectExists(key) ? null : key;
+                    });
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Upload failed: {}", e.getMessage());
+            throw new RuntimeException("File upload failed: " + e.getMessage());
+        }
 
-            // 3. Get uploader
-            User uploader = null;
-            if (uploaderEmail != null) {
-                uploader = userRepository.findByEmail(uploaderEmail).orElse(null);
-            }
+        String hash       = upload.sha256();
+        String objectName = contentKey(hash);
+        String fileUrl    = publicUrlOf(objectName);
+        boolean staged    = stagingName.equals(upload.objectName());
 
-            // 4. Save metadata to DB
-            FileMetadata metadata = FileMetadata.builder()
-                    .fileName(file.getOriginalFilename())
-                    .fileUrl(fileUrl)
-                    .fileType(fileType)
-                    .entityType(entityType)
-                    .entityId(entityId)
-                    .bucketName(bucketName)
-                    .folder(folder.getPath())
-                    .sizeBytes(file.getSize())
-                    .contentType(file.getContentType())
-                    .uploadedBy(uploader)
-                    .isDeleted(false)
-                    .build();
+        // Same content uploaded before: its variants are ours too
+        String variants = metadataRepository.findFirstByContentHashAndVariantsIsNotNull(hash)
+                .map(FileMetadata::getVariants)
+                .orElse(null);
 
+        // 2. Save metadata to DB while the last parts finish
+        FileMetadata metadata = FileMetadata.builder()
+                .fileName(file.originalFilename())
+                .fileUrl(fileUrl)
+                .fileType(resolveFileType(file.contentType()))
+                .entityType(entityType)
+                .entityId(entityId)
+                .bucketName(bucketName)
+                .folder(folder.getPath())
+                .sizeBytes(upload.size())
+                .contentType(file.contentType())
+                .contentHash(hash)
+                .uploadedBy(uploader.join())
+                .isDeleted(false)
+                .variants(variants)
+                .build();
+        try {
             metadataRepository.save(metadata);
+        } catch (RuntimeException e) {
+            upload.completion().handle((done, failure) -> null).thenRun(() -> {
+                if (staged) removeObjectQuietly(stagingName);
+                else releaseQuietly(hash, objectName);
+            });
+            throw e;
+        }
 
-            log.info("File uploaded: url={}, entity={}, id={}",
-                    fileUrl, entityType, entityId);
+        // 3. Wait for MinIO to have the object; a staged body is then
+        //    referenced and copied under its hash, unless already stored
+        boolean referenced = !staged;
+        try {
+            upload.completion().get(uploadTimeoutSeconds, TimeUnit.SECONDS);
+            if (staged) {
+                boolean shared = objectRegistry.acquire(hash, objectName, upload.size(), file.contentType());
+                referenced = true;
+                if (!(shared && objectExists(objectName))) {
+                    minioClient.copyObject(CopyObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .source(CopySource.builder().bucket(bucketName).object(stagingName).build())
+                            .build());
+                }
+            }
+        } catch (Exception e) {
+            metadataRepository.delete(metadata);
+            if (referenced) releaseQuietly(hash, objectName);
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Upload failed: {}", cause.getMessage());
+            throw new RuntimeException("File upload failed: " + cause.getMessage());
+        } finally {
+            if (staged) {
+                upload.completion().handle((done, failure) -> null)
+                        .thenRun(() -> removeObjectQuietly(stagingName));
+            }
+        }
 
-            return metadata;
+        log.info("File uploaded: url={}, entity={}, id={}, bytes={}, sent={}",
+                fileUrl, entityType, entityId, upload.size(), upload.objectName() != null);
 
-        } catch (Exception e) {
-            log.error("Upload failed: {}", e.getMessage());
-            throw new RuntimeException("File upload failed: " + e.getMessage());
+        // 4. Resized variants are made off the request path
+        if (variants == null) {
+            eventPublisher.publishEvent(new FileUploadedEvent(this, metadata.getId(), metadata.getContentType()));
         }
+
+        return metadata;
     }
 
     // ─────────────────────────────────────────────
     // DELETE FILE
-    // Soft deletes from DB + removes from MinIO
+    // Soft deletes one reference from DB — the row
+    // itself, by id: with deduplication many rows
+    // share a URL. Only its uploader or an admin may.
+    // The object (and its resized variants) is removed
+    // from MinIO with the last reference to its content.
     // ─────────────────────────────────────────────
-    public void deleteFile(String fileUrl) {
+    @Transactional
+    public void deleteFile(Long fileId, String requesterEmail) {
+        FileMetadata meta = metadataRepository.findById(fileId)
+                .filter(m -> !Boolean.TRUE.equals(m.getIsDeleted()))
+                .orElseThrow(() -> new ResourceNotFoundException("File not found: " + fileId));
+        User requester = userRepository.findByEmail(requesterEmail)
+                .orElseThrow(() -> new ForbiddenException("You do not have access to this file."));
+        boolean uploader = meta.getUploadedBy() != null
+                && meta.getUploadedBy().getUserId().equals(requester.getUserId());
+        if (!uploader && requester.getRole() != Role.ADMIN) {
+            throw new ForbiddenException("You do not have access to this file.");
+        }
+
         try {
             // 1. Soft delete in DB
-            metadataRepository.findByFileUrl(fileUrl).ifPresent(meta -> {
-                meta.setIsDeleted(true);
-                metadataRepository.save(meta);
-            });
+            meta.setIsDeleted(true);
+            metadataRepository.save(meta);
 
             // 2. Remove from MinIO
-            String objectName = fileUrl.replace(
-                    minioPublicUrl + "/" + bucketName + "/", "");
-            minioClient.removeObject(
-                    RemoveObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build()
-            );
+            String fileUrl = meta.getFileUrl();
+            String objectName = objectNameOf(fileUrl);
+            if (meta.getContentHash() != null) {
+                objectRegistry.release(meta.getContentHash(),
+                        () -> removeObject(objectName, fileUrl, meta.getVariants()));
+            } else if (!objectName.startsWith(CONTENT_FOLDER + "/")) {
+                // Stored before deduplication: the object is this row's alone
+                removeObject(objectName, fileUrl, meta.getVariants());
+            }
 
-            log.info("File deleted: {}", fileUrl);
+            log.info("File deleted: id={}, url={}", fileId, fileUrl);
 
         } catch (Exception e) {
             log.error("Delete failed: {}", e.getMessage());
@@ -144,6 +287,21 @@ public class FileStorageService {
                 entityType, entityId, false);
     }
 
+    // ─────────────────────────────────────────────
+    // GET VARIANTS — srcset-ready, per file URL
+    // format → {"<width>w": url}; URLs without
+    // variants (yet) are left out
+    // ─────────────────────────────────────────────
+    public Map<String, Map<String, Map<String, String>>> variantsFor(Collection<String> fileUrls) {
+        if (fileUrls.isEmpty()) return Map.of();
+        Map<String, Map<String, Map<String, String>>> byUrl = new HashMap<>();
+        for (FileMetadata meta : metadataRepository.findByFileUrlIn(fileUrls)) {
+            Map<String, Map<String, String>> variants = parseVariants(meta.getVariants());
+            if (!variants.isEmpty()) byUrl.put(meta.getFileUrl(), variants);
+        }
+        return byUrl;
+    }
+
     // ─────────────────────────────────────────────
     // GET PRESIGNED URL — temporary URL (1 hour)
     // Use for private files like invoices
@@ -165,23 +323,45 @@ public class FileStorageService {
 
     // ─────────────────────────────────────────────
     // VALIDATE FILE
+    // Size is enforced while streaming (MAX_UPLOAD_BYTES)
     // ─────────────────────────────────────────────
-    public void validateImageFile(MultipartFile file) {
-        String contentType = file.getContentType();
+    public void validateImageFile(IncomingFile file) {
+        String contentType = file.contentType();
         if (contentType == null ||
                 (!contentType.startsWith("image/") &&
                         !contentType.equals("application/pdf"))) {
             throw new IllegalArgumentException(
                     "Only image files and PDFs are allowed.");
         }
-        if (file.getSize() > 10 * 1024 * 1024) {
-            throw new IllegalArgumentException("File size exceeds 10MB limit.");
-        }
     }
 
     // ─────────────────────────────────────────────
     // HELPERS
     // ─────────────────────────────────────────────
+    // Bucket and policy are set up once at startup; if MinIO was not
+    // reachable then, the first upload retries.
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareBucket() {
+        try {
+            ensureBucketReady();
+        } catch (RuntimeException e) {
+            log.warn("MinIO bucket setup deferred to first upload: {}", e.getMessage());
+        }
+    }
+
+    private void ensureBucketReady() {
+        if (bucketReady) return;
+        synchronized (this) {
+            if (bucketReady) return;
+            try {
+                ensureBucketExists();
+            } catch (Exception e) {
+                throw new RuntimeException("File storage unavailable: " + e.getMessage());
+            }
+            bucketReady = true;
+        }
+    }
+
     private void ensureBucketExists() throws Exception {
         boolean exists = minioClient.bucketExists(
                 BucketExistsArgs.builder().bucket(bucketName).build());
@@ -193,7 +373,7 @@ public class FileStorageService {
 
         // Files are served by handing their MinIO URL straight to the browser
         // (product images, logos, etc.), so the bucket must allow anonymous GETs.
-        // Idempotent — safe to re-apply on every upload, and covers buckets that
+        // Idempotent — re-applied on every start, which covers buckets that
         // already existed before this policy was introduced.
         minioClient.setBucketPolicy(
                 SetBucketPolicyArgs.builder()
@@ -218,9 +398,82 @@ public class FileStorageService {
                 """.formatted(bucket);
     }
 
-    private String getExtension(String filename) {
-        if (filename == null || !filename.contains(".")) return ".bin";
-        return filename.substring(filename.lastIndexOf("."));
+    /** Public URL of an object in the bucket. */
+    public String publicUrlOf(String objectName) {
+        return minioPublicUrl + "/" + bucketName + "/" + objectName;
+    }
+
+    /** Object name behind a public file URL. */
+    public String objectNameOf(String fileUrl) {
+        return fileUrl.replace(minioPublicUrl + "/" + bucketName + "/", "");
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    private Map<String, Map<String, String>> parseVariants(String json) {
+        if (json == null || json.isBlank()) return Map.of();
+        try {
+            return objectMapper.readValue(json, VARIANTS_TYPE);
+        } catch (IOException e) {
+            log.warn("Unreadable variants JSON ignored: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /** Content-addressed key: spread over 256 prefixes by the first hash byte. */
+    static String contentKey(String sha256) {
+        return CONTENT_FOLDER + "/" + sha256.substring(0, 2) + "/" + sha256;
+    }
+
+    private boolean objectExists(String objectName) {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            return true;
+        } catch (Exception e) {
+            // Missing, or unknown — either way the bytes are (re)written
+            return false;
+        }
+    }
+
+    private void releaseQuietly(String hash, String objectName) {
+        try {
+            objectRegistry.release(hash, () -> removeObjectQuietly(objectName));
+        } catch (RuntimeException e) {
+            log.warn("Could not release reference to {}: {}", objectName, e.getMessage());
+        }
+    }
+
+    /** Removes an object and its variants; a failure on the object itself is thrown. */
+    private void removeObject(String objectName, String fileUrl, String variants) {
+        parseVariants(variants).values().stream()
+                .flatMap(byWidth -> byWidth.values().stream())
+                .filter(url -> !url.equals(fileUrl))
+                .forEach(url -> removeObjectQuietly(objectNameOf(url)));
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()
+            );
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private void removeObjectQuietly(String objectName) {
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .build()
+            );
+        } catch (Exception e) {
+            log.warn("Could not remove orphaned object {}: {}", objectName, e.getMessage());
+        }
     }
 
     private FileMetadata.FileType resolveFileType(String contentType) {
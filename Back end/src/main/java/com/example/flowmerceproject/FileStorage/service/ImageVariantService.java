@@ -0,0 +1,304 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
+import com.example.flowmerceproject.FileStorage.event.FileUploadedEvent;
+import com.example.flowmerceproject.FileStorage.event.FileVariantsReadyEvent;
+import com.example.flowmerceproject.FileStorage.repository.FileMetadataRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resized copies of uploaded images, made off the request path.
+ *
+ * Every image upload is queued on a small fixed pool
+ * ({@code files.images.workers}, queue {@code files.images.queue-capacity};
+ * when full the upload simply has no variants). A worker downloads the
+ * original, checks its dimensions before decoding it, and writes one copy per
+ * {@code files.images.widths} narrower than the original, in each of
+ * {@code files.images.formats} — {@code webp} and/or {@code original} (JPEG
+ * stays JPEG, anything else becomes PNG). Copies sit next to the original
+ * under {@code <name>@<width>w.<ext>}, so re-running overwrites rather than
+ * duplicates — and content stored once is resized once.
+ *
+ * The result is recorded on {@link FileMetadata#getVariants()} as
+ * format → {"<width>w": url}, the original included at its own width, and a
+ * {@link FileVariantsReadyEvent} is published.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+
+    static final String WEBP = "webp";
+    static final String ORIGINAL = "original";
+
+    private final MinioClient minioClient;
+    private final FileMetadataRepository metadataRepository;
+    private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+
+    @Value("${files.images.widths:200,480,1200}")
+    private List<Integer> widths;
+
+    @Value("${files.images.formats:webp,original}")
+    private List<String> formats;
+
+    @Value("${files.images.workers:2}")
+    private int workers;
+
+    @Value("${files.images.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${files.images.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @Value("${files.images.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    private ThreadPoolExecutor pool;
+    private boolean webpAvailable;
+
+    /** One copy to write: {@code format} is the ImageIO writer name. */
+    record Variant(String format, int width, String objectName) { }
+
+    /** A decoded image and the ImageIO name of the format it was in. */
+    record Decoded(BufferedImage image, String format) { }
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "image-variants-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        webpAvailable = ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+        if (formats.contains(WEBP) && !webpAvailable) {
+            log.warn("Image variants: no WebP encoder on the classpath — WebP variants are skipped");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /** After the metadata row is committed, so the worker can read it. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileUploaded(FileUploadedEvent event) {
+        if (event.getContentType() == null || !event.getContentType().startsWith("image/")) return;
+        try {
+            pool.execute(() -> process(event.getFileId()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image variants skipped for file {}: queue full", event.getFileId());
+        }
+    }
+
+    void process(Long fileId) {
+        FileMetadata meta = metadataRepository.findById(fileId).orElse(null);
+        if (meta == null || Boolean.TRUE.equals(meta.getIsDeleted())) return;
+        String objectName = fileStorageService.objectNameOf(meta.getFileUrl());
+        try {
+            byte[] original;
+            try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(fileStorageService.getBucketName())
+                    .object(objectName)
+                    .build())) {
+                original = in.readAllBytes();
+            }
+            Decoded decoded = decode(original, maxSourcePixels);
+            if (decoded == null) {
+                log.info("Image variants skipped for file {}: unreadable or too large", fileId);
+                return;
+            }
+
+            BufferedImage source = decoded.image();
+            Map<String, Map<String, String>> variants = new LinkedHashMap<>();
+            String originalFormat = originalFormat(decoded.format());
+            if (originalFormat.equals(decoded.format())) {
+                variants.computeIfAbsent(originalFormat, f -> new LinkedHashMap<>())
+                        .put(source.getWidth() + "w", meta.getFileUrl());
+            }
+            for (Variant variant : plan(objectName, source.getWidth(), decoded.format())) {
+                byte[] bytes = encode(scale(source, variant.width(), "jpg".equals(variant.format())),
+                        variant.format(), jpegQuality);
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(fileStorageService.getBucketName())
+                        .object(variant.objectName())
+                        .stream(new ByteArrayInputStream(bytes), bytes.length, -1)
+                        .contentType(contentType(variant.format()))
+                        .build());
+                variants.computeIfAbsent(variant.format(), f -> new LinkedHashMap<>())
+                        .put(variant.width() + "w", fileStorageService.publicUrlOf(variant.objectName()));
+            }
+
+            String json = objectMapper.writeValueAsString(variants);
+            if (meta.getContentHash() != null) {
+                // every upload of the same content shares these copies
+                metadataRepository.updateVariantsByContentHash(meta.getContentHash(), json);
+            } else {
+                metadataRepository.updateVariants(fileId, json);
+            }
+            eventPublisher.publishEvent(new FileVariantsReadyEvent(this, fileId, meta.getFileUrl()));
+            log.info("Image variants stored for file {}: {}", fileId, variants.keySet());
+        } catch (Exception e) {
+            log.warn("Image variants failed for file {}: {}", fileId, e.getMessage());
+        }
+    }
+
+    /** Every copy to write, widest first: each configured width below the source's, in each output format. */
+    List<Variant> plan(String objectName, int sourceWidth, String sourceFormat) {
+        int dot = objectName.lastIndexOf('.');
+        String base = dot > objectName.lastIndexOf('/') ? objectName.substring(0, dot) : objectName;
+
+        List<String> outputs = new ArrayList<>();
+        for (String format : formats) {
+            if (WEBP.equals(format) && webpAvailable) outputs.add(WEBP);
+            if (ORIGINAL.equals(format)) outputs.add(originalFormat(sourceFormat));
+        }
+
+        List<Variant> plan = new ArrayList<>();
+        widths.stream().distinct().sorted((a, b) -> b - a)
+                .filter(width -> width > 0 && width < sourceWidth)
+                .forEach(width -> outputs.forEach(format ->
+                        plan.add(new Variant(format, width, base + "@" + width + "w." + format))));
+        return plan;
+    }
+
+    // ── CODECS ────────────────────────────────────────────────────────────────
+
+    /**
+     * Decodes {@code data}, or returns null if no reader knows the format or
+     * the image has more than {@code maxPixels} pixels — checked from the
+     * header, before any pixel memory is allocated.
+     */
+    static Decoded decode(byte[] data, long maxPixels) throws IOException {
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) return null;
+                return new Decoded(reader.read(0), normalize(reader.getFormatName()));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Downscales to {@code width}, keeping the aspect ratio, by halving
+     * repeatedly with bilinear filtering — close to area averaging in
+     * quality, at a fraction of its cost. {@code opaque} flattens
+     * transparency onto white (for JPEG).
+     */
+    static BufferedImage scale(BufferedImage source, int width, boolean opaque) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (opaque) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) throw new IOException("No " + format + " encoder");
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!"png".equals(format) && param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (param.getCompressionType() == null && param.getCompressionTypes() != null) {
+                    param.setCompressionType(param.getCompressionTypes()[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // ── HELPERS ───────────────────────────────────────────────────────────────
+
+    /** JPEG stays JPEG; every other format (PNG, GIF, BMP, …) is written as PNG. */
+    private static String originalFormat(String sourceFormat) {
+        return "jpg".equals(sourceFormat) ? "jpg" : "png";
+    }
+
+    private static String normalize(String formatName) {
+        String format = formatName.toLowerCase(Locale.ROOT);
+        return format.equals("jpeg") ? "jpg" : format;
+    }
+
+    private static String contentType(String format) {
+        return switch (format) {
+            case "jpg" -> "image/jpeg";
+            case WEBP  -> "image/webp";
+            default    -> "image/png";
+        };
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.config.MultipartMinioClient;
+import io.minio.messages.Part;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams an upload to MinIO as it is read — no temp file, no full copy.
+ *
+ * The stream is cut into part-size buffers. A file that fits in one buffer
+ * goes up in a single PUT; anything larger becomes an S3 multipart upload
+ * whose parts are sent the moment each buffer fills, while the next one is
+ * being read. Each upload reads into its own buffer; only a filled buffer
+ * takes one of the node's {@code minio.upload.max-parts-in-flight} send
+ * permits, which bound concurrent part PUTs and the memory they pin. A slow
+ * client therefore holds no permit while it trickles bytes in, and a reader
+ * that gets ahead of the network waits for a part to finish.
+ *
+ * Every byte is fed to a SHA-256 digest as it is read, so the content hash
+ * is known the moment the stream ends, at no extra pass. A body that fits in
+ * one buffer is hashed before it is sent, and a {@link Placement} decides
+ * where it goes — or that it need not be sent at all.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MinioStreamUploader {
+
+    /** S3's minimum size for every part but the last. */
+    static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final MultipartMinioClient minioClient;
+
+    @Value("${minio.upload.part-size-mb:5}")
+    private int partSizeMb;
+
+    @Value("${minio.upload.max-parts-in-flight:8}")
+    private int maxPartsInFlight;
+
+    @Value("${minio.upload.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    private int partSize;
+    private Semaphore permits;
+    private final Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * An upload whose bytes have all been read and handed to MinIO.
+     * {@code objectName} is where they are going, null if the placement
+     * chose not to write them. {@code completion} finishes once the object
+     * exists; if it fails, the multipart upload has been aborted.
+     */
+    public record PendingUpload(long size, String sha256, String objectName, CompletableFuture<Void> completion) { }
+
+    /**
+     * Where a single-part body goes, given its hex SHA-256 and size; null to
+     * write nothing. Multipart bodies are sent as they are read, before the
+     * hash is known, so they always go to the name passed to {@code upload}.
+     */
+    @FunctionalInterface
+    public interface Placement {
+        String objectNameFor(String sha256, long size) throws Exception;
+    }
+
+    @PostConstruct
+    void init() {
+        partSize = Math.max(MIN_PART_SIZE, partSizeMb * 1024 * 1024);
+        permits = new Semaphore(maxPartsInFlight);
+    }
+
+    /**
+     * Reads {@code in} to the end and sends it to {@code bucket/objectName}.
+     * Returns once every byte has been read; the last parts and the
+     * completing request may still be in flight.
+     *
+     * @throws IllegalArgumentException if the stream is empty or longer than {@code maxBytes}
+     */
+    public PendingUpload upload(String bucket, String objectName, String contentType,
+                                InputStream in, long maxBytes) throws Exception {
+        return upload(bucket, objectName, contentType, in, maxBytes, (sha256, size) -> objectName);
+    }
+
+    /**
+     * As above, but a body that fits in one part goes wherever
+     * {@code placement} says; a larger one goes to {@code objectName}.
+     */
+    public PendingUpload upload(String bucket, String objectName, String contentType,
+                                InputStream in, long maxBytes, Placement placement) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] first = takeBuffer();
+        int length;
+        try {
+            length = in.readNBytes(first, 0, partSize);
+            if (length == 0) throw new IllegalArgumentException("File is empty.");
+            if (length > maxBytes) throw tooLarge(maxBytes);
+        } catch (Exception e) {
+            recycle(first);
+            throw e;
+        }
+
+        if (length < partSize) {
+            int size = length;
+            String sha256;
+            String target;
+            try {
+                digest.update(first, 0, size);
+                sha256 = HexFormat.of().formatHex(digest.digest());
+                target = placement.objectNameFor(sha256, size);
+                if (target != null) acquireSendPermit();
+            } catch (Exception e) {
+                recycle(first);
+                throw e;
+            }
+            if (target == null) {
+                recycle(first);
+                return new PendingUpload(size, sha256, null, CompletableFuture.completedFuture(null));
+            }
+            CompletableFuture<Void> put = minioClient.put(bucket, target, contentType, first, size)
+                    .whenComplete((response, e) -> sent(first))
+                    .thenApply(response -> null);
+            return new PendingUpload(size, sha256, target, put);
+        }
+
+        String uploadId;
+        try {
+            uploadId = minioClient.createUpload(bucket, objectName, contentType)
+                    .get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            recycle(first);
+            throw e;
+        }
+
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        long total = 0;
+        byte[] buffer = first;
+        try {
+            while (true) {
+                total += length;
+                if (total > maxBytes) throw tooLarge(maxBytes);
+                digest.update(buffer, 0, length);
+                acquireSendPermit();
+                parts.add(sendPart(bucket, objectName, uploadId, parts.size() + 1, buffer, length));
+                buffer = null;
+                if (length < partSize) break;
+
+                buffer = takeBuffer();
+                length = in.readNBytes(buffer, 0, partSize);
+                if (length == 0) break;
+            }
+        } catch (Exception e) {
+            abortAfter(parts, bucket, objectName, uploadId);
+            throw e;
+        } finally {
+            // a buffer still held here was never handed to a part
+            if (buffer != null) recycle(buffer);
+        }
+
+        CompletableFuture<Void> completion = CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .thenCompose(done -> minioClient.completeUpload(bucket, objectName, uploadId,
+                        parts.stream().map(CompletableFuture::join).toArray(Part[]::new)))
+                .thenApply(response -> null);
+        completion.whenComplete((done, e) -> {
+            if (e != null) abort(bucket, objectName, uploadId);
+        });
+        return new PendingUpload(total, HexFormat.of().formatHex(digest.digest()), objectName, completion);
+    }
+
+    private CompletableFuture<Part> sendPart(String bucket, String objectName, String uploadId,
+                                             int partNumber, byte[] buffer, int length) {
+        // Only the last part is short; it alone is copied to an exact-size array
+        byte[] body = length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        return minioClient.uploadPart(bucket, objectName, uploadId, partNumber, body)
+                .whenComplete((part, e) -> sent(buffer));
+    }
+
+    /** Aborts once the parts already sent have settled, so none lands after the abort. */
+    private void abortAfter(List<CompletableFuture<Part>> parts, String bucket, String objectName, String uploadId) {
+        CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new))
+                .handle((done, e) -> null)
+                .thenRun(() -> abort(bucket, objectName, uploadId));
+    }
+
+    private void abort(String bucket, String objectName, String uploadId) {
+        minioClient.abortUpload(bucket, objectName, uploadId).whenComplete((done, e) -> {
+            if (e != null) log.warn("Abort of multipart upload {} for {} failed: {}", uploadId, objectName, e.getMessage());
+        });
+    }
+
+    // ── BUFFER POOL ───────────────────────────────────────────────────────────
+
+    private byte[] takeBuffer() {
+        byte[] buffer = freeBuffers.poll();
+        return buffer != null ? buffer : new byte[partSize];
+    }
+
+    // Keeps as many idle buffers as can be in flight; extra read buffers are left to the GC
+    private void recycle(byte[] buffer) {
+        if (freeBuffers.size() < maxPartsInFlight) freeBuffers.offer(buffer);
+    }
+
+    /** Taken once a buffer is full and about to be sent, never while reading the client. */
+    private void acquireSendPermit() throws InterruptedException, TimeoutException {
+        if (!permits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+            throw new TimeoutException("No upload slot free within " + timeoutSeconds + "s");
+        }
+    }
+
+    private void sent(byte[] buffer) {
+        recycle(buffer);
+        permits.release();
+    }
+
+    private static IllegalArgumentException tooLarge(long maxBytes) {
+        return new IllegalArgumentException("File size exceeds " + (maxBytes / (1024 * 1024)) + "MB limit.");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.repository.StoredObjectRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reference counts of content-addressed objects.
+ *
+ * A reference is taken before the bytes are written, and the last one is
+ * released in the same transaction that removes the object: the row stays
+ * locked until the removal is done, so an upload of the same content either
+ * keeps the row alive or finds it gone and writes the object again — it can
+ * never be left pointing at a removed object.
+ */
+@Service
+@RequiredArgsConstructor
+public class StoredObjectRegistry {
+
+    private final StoredObjectRepository storedObjectRepository;
+
+    /** Takes a reference; true if the content was already referenced (so may already be stored). */
+    @Transactional
+    public boolean acquire(String hash, String objectName, long size, String contentType) {
+        storedObjectRepository.addReference(hash, objectName, size, contentType);
+        Integer refs = storedObjectRepository.findRefCount(hash);
+        return refs != null && refs > 1;
+    }
+
+    /**
+     * Drops a reference. If it was the last, runs {@code removeObject} before
+     * committing; if that throws, the reference is kept.
+     */
+    @Transactional
+    public void release(String hash, Runnable removeObject) {
+        storedObjectRepository.removeReference(hash);
+        if (storedObjectRepository.deleteIfUnreferenced(hash) > 0) {
+            removeObject.run();
+        }
+    }
+}
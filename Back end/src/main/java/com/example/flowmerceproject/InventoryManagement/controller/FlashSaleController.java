@@ -0,0 +1,40 @@
+package com.example.flowmerceproject.InventoryManagement.controller;
+
+import com.example.flowmerceproject.InventoryManagement.dto.FlashSaleDTOs.ArmFlashSaleRequest;
+import com.example.flowmerceproject.InventoryManagement.dto.FlashSaleDTOs.FlashSaleStatus;
+import com.example.flowmerceproject.InventoryManagement.service.FlashSaleService;
+import com.example.flowmerceproject.common.ApiResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/flash-sales")
+@PreAuthorize("hasRole('ADMIN')")
+@RequiredArgsConstructor
+public class FlashSaleController {
+
+    private final FlashSaleService flashSaleService;
+
+    // POST /admin/flash-sales/{productId} — moves stock into a sharded flash-sale pool
+    @PostMapping("/{productId}")
+    public ResponseEntity<ApiResponse<FlashSaleStatus>> arm(
+            @PathVariable Long productId,
+            @Valid @RequestBody ArmFlashSaleRequest request) {
+        return ResponseEntity.ok(ApiResponse.ok(flashSaleService.arm(productId, request), "Flash sale armed"));
+    }
+
+    // DELETE /admin/flash-sales/{productId} — ends the sale and returns unsold units
+    @DeleteMapping("/{productId}")
+    public ResponseEntity<ApiResponse<FlashSaleStatus>> disarm(@PathVariable Long productId) {
+        return ResponseEntity.ok(ApiResponse.ok(flashSaleService.disarm(productId), "Flash sale ended"));
+    }
+
+    // GET /admin/flash-sales/{productId}
+    @GetMapping("/{productId}")
+    public ResponseEntity<ApiResponse<FlashSaleStatus>> status(@PathVariable Long productId) {
+        return ResponseEntity.ok(ApiResponse.ok(flashSaleService.getStatus(productId)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.flowmerceproject.InventoryManagement.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+public class FlashSaleDTOs {
+
+    @Data
+    public static class ArmFlashSaleRequest {
+        /** Units moved out of normal stock into the flash-sale pool. */
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+
+        /** Defaults to inventory.flash.max-per-customer. */
+        @Min(value = 1, message = "Max per customer must be at least 1")
+        private Integer maxPerCustomer;
+
+        /** Redis sub-counters the pool is split across. Defaults to inventory.flash.shards. */
+        @Min(value = 1, message = "Shards must be at least 1")
+        @Max(value = 64, message = "Shards must be at most 64")
+        private Integer shards;
+
+        @NotNull(message = "Duration is required")
+        @Min(value = 1, message = "Duration must be at least 1 minute")
+        private Integer durationMinutes;
+    }
+
+    @Data
+    @Builder
+    public static class FlashSaleStatus {
+        private Long productId;
+        private boolean armed;
+        private Integer allocated;
+        private Integer remaining;
+        private Integer maxPerCustomer;
+        private Integer shards;
+        private LocalDateTime endsAt;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.flowmerceproject.InventoryManagement.dto;
+
+import lombok.*;
+
+/** Outcome of one line of a multi-product stock reservation. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class StockReservationResult {
+    private Long productId;
+    private Integer requestedQuantity;
+    /** Stock available when the reservation was attempted. */
+    private Integer availableQuantity;
+    private boolean reserved;
+}
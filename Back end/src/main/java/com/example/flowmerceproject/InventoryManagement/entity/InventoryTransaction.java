@@ -49,4 +49,8 @@ public class InventoryTransaction {
 
     @Column(name = "created_by", length = 255)
     private String createdBy;
+
+    /** Redis Stream entry this row was buffered under; makes ledger replays idempotent. */
+    @Column(name = "ledger_entry_id", length = 40, unique = true)
+    private String ledgerEntryId;
 }
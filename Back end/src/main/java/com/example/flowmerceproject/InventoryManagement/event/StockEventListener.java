@@ -1,55 +1,98 @@
 package com.example.flowmerceproject.InventoryManagement.event;
 
-import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
 import com.example.flowmerceproject.UserManagement.service.SseService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns stock changes into private STOCK_ALERT events for the owning merchant.
+ *
+ * Every reserve, release and confirm publishes a {@link StockChangedEvent};
+ * the listener only records the latest one per product. Every
+ * {@code inventory.stock-alerts.window-ms} the latest state of each touched
+ * product is compared with the level last seen for it, and an alert is sent
+ * only when it moves into LOW or OUT. A product bouncing around inside one
+ * level during a sale produces no further alerts.
+ *
+ * The product → merchant email lookup is cached for
+ * {@code inventory.stock-alerts.merchant-cache-minutes}.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class StockEventListener {
 
+    enum Level { NORMAL, LOW, OUT }
+
     private final SseService sseService;
-    private final InventoryRepository inventoryRepository;
+    private final ProductRepository productRepository;
 
-    @Async
-    @EventListener
-    public void handleStockChanged(StockChangedEvent event) {
+    @Value("${inventory.stock-alerts.merchant-cache-minutes:10}")
+    private long merchantCacheMinutes;
 
-        log.info("Stock event received: product={}, qty={}, type={}",
-                event.getProductId(), event.getNewQuantity(), event.getChangeType());
+    // Latest event per product since the last flush (productId → event)
+    private final Map<Long, StockChangedEvent> pending = new ConcurrentHashMap<>();
 
-        if (event.getNewQuantity() <= event.getThreshold()
-                && event.getNewQuantity() > 0) {
+    // Level last alerted per product; products back at NORMAL are dropped
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
 
-            log.warn("LOW STOCK: product={}, remaining={}",
-                    event.getProductId(), event.getNewQuantity());
+    private Cache<Long, Optional<String>> merchantEmails;
 
-            sseService.broadcast("STOCK_ALERT", new java.util.HashMap<>() {{
-                put("productId",   event.getProductId());
-                put("newQuantity", event.getNewQuantity());
-                put("alertLevel",  "LOW_STOCK");
-                put("message",     "Low stock: only " + event.getNewQuantity() + " units left");
-            }});
-        }
+    @PostConstruct
+    void init() {
+        merchantEmails = Caffeine.newBuilder()
+                .maximumSize(50_000)
+                .expireAfterWrite(Duration.ofMinutes(merchantCacheMinutes))
+                .build();
+    }
 
-        if (event.getNewQuantity() == 0) {
-            log.warn("OUT OF STOCK: product={}", event.getProductId());
+    @EventListener
+    public void handleStockChanged(StockChangedEvent event) {
+        log.debug("Stock event received: product={}, qty={}, type={}",
+                event.getProductId(), event.getNewQuantity(), event.getChangeType());
+        pending.put(event.getProductId(), event);
+    }
 
-            sseService.broadcast("STOCK_ALERT", new java.util.HashMap<>() {{
-                put("productId",   event.getProductId());
-                put("newQuantity", 0);
-                put("alertLevel",  "OUT_OF_STOCK");
-                put("message",     "Product #" + event.getProductId() + " is OUT OF STOCK!");
-            }});
-        }
+    @Scheduled(fixedDelayString = "${inventory.stock-alerts.window-ms:2000}")
+    public void flush() {
+        for (Long productId : pending.keySet()) {
+            StockChangedEvent event = pending.remove(productId);
+            if (event == null) continue;
 
-        if ("CONFIRMED".equals(event.getChangeType())) {
-            log.info("Order confirmed for product={}", event.getProductId());
+            Level level = levelOf(event);
+            Level previous = level == Level.NORMAL ? levels.remove(productId) : levels.put(productId, level);
+            if (level == Level.NORMAL || level == previous) continue;
+
+            Optional<String> merchantEmail = merchantEmails.get(productId,
+                    id -> productRepository.findMerchantEmailByProductId(Math.toIntExact(id)));
+            if (merchantEmail.isEmpty()) {
+                log.warn("Stock alert dropped, no merchant for product={}", productId);
+                continue;
+            }
+            try {
+                sseService.sendStockUpdate(event, merchantEmail.get());
+            } catch (RuntimeException e) {
+                log.warn("Stock alert failed for product={}: {}", productId, e.getMessage());
+            }
         }
     }
+
+    static Level levelOf(StockChangedEvent event) {
+        if (event.getNewQuantity() <= 0) return Level.OUT;
+        if (event.getNewQuantity() <= event.getThreshold()) return Level.LOW;
+        return Level.NORMAL;
+    }
 }
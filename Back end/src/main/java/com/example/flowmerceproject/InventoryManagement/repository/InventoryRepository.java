@@ -2,8 +2,13 @@ package com.example.flowmerceproject.InventoryManagement.repository;
 
 import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,9 +17,24 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findByProductId(Integer productId);
 
+    List<Inventory> findByProductIdIn(Collection<Integer> productIds);
+
     List<Inventory> findByStoreId(Integer storeId);
 
     List<Inventory> findByQuantityLessThanEqual(Integer threshold);
 
     List<Inventory> findByQuantity(Integer quantity);
+
+    /**
+     * Moves {@code delta} units in or out of reservedQuantity with a single
+     * in-place UPDATE, so concurrent writers don't collide on @Version.
+     * Returns 0 if the result would fall outside [0, quantity].
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Inventory i SET i.reservedQuantity = i.reservedQuantity + :delta, " +
+            "i.version = i.version + 1, i.updatedAt = LOCAL DATETIME " +
+            "WHERE i.productId = :productId " +
+            "AND i.reservedQuantity + :delta >= 0 AND i.reservedQuantity + :delta <= i.quantity")
+    int shiftReservedQuantity(@Param("productId") Integer productId, @Param("delta") int delta);
 }
@@ -0,0 +1,17 @@
+package com.example.flowmerceproject.InventoryManagement.repository;
+
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
+
+import java.util.List;
+
+/**
+ * Bulk insert path for the inventory ledger.
+ *
+ * {@link InventoryTransaction} uses IDENTITY ids, which stops Hibernate from
+ * batching inserts, so multi-line writes go through a single JDBC batch instead.
+ * Rows whose {@code ledgerEntryId} was already written are skipped.
+ */
+public interface InventoryTransactionBatchRepository {
+
+    void insertAll(List<InventoryTransaction> transactions);
+}
@@ -0,0 +1,41 @@
+package com.example.flowmerceproject.InventoryManagement.repository;
+
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class InventoryTransactionBatchRepositoryImpl implements InventoryTransactionBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_transactions (product_id, store_id, type, quantity_change, "
+                    + "qty_before, qty_after, reference_id, note, created_at, created_by, ledger_entry_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (ledger_entry_id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<InventoryTransaction> transactions) {
+        if (transactions.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, transactions, transactions.size(), (ps, txn) -> {
+            LocalDateTime createdAt = txn.getCreatedAt() != null ? txn.getCreatedAt() : LocalDateTime.now();
+            ps.setLong(1, txn.getProductId());
+            ps.setInt(2, txn.getStoreId());
+            ps.setString(3, txn.getType().name());
+            ps.setInt(4, txn.getQuantityChange());
+            ps.setInt(5, txn.getQtyBefore());
+            ps.setInt(6, txn.getQtyAfter());
+            ps.setObject(7, txn.getReferenceId(), Types.VARCHAR);
+            ps.setObject(8, txn.getNote(), Types.VARCHAR);
+            ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+            ps.setObject(10, txn.getCreatedBy(), Types.VARCHAR);
+            ps.setObject(11, txn.getLedgerEntryId(), Types.VARCHAR);
+        });
+    }
+}
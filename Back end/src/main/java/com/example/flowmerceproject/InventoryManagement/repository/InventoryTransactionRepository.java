@@ -4,12 +4,16 @@ import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransact
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
+public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long>,
+        InventoryTransactionBatchRepository {
 
     List<InventoryTransaction> findByProductIdOrderByCreatedAtDesc(Long productId);
 
     List<InventoryTransaction> findByStoreIdOrderByCreatedAtDesc(Integer storeId);
+
+    List<InventoryTransaction> findByLedgerEntryIdIn(Collection<String> ledgerEntryIds);
 }
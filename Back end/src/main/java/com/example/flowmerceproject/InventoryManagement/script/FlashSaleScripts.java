@@ -0,0 +1,36 @@
+package com.example.flowmerceproject.InventoryManagement.script;
+
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Lua scripts backing the flash-sale engine. Key layout:
+ *
+ *   flash:armed                      set of armed product ids
+ *   {flash:<id>}                     config hash {allocated, maxPerCustomer, shards, endsAt}
+ *   {flash:<id>}:shard:<n>           shard hash {stock, sold}
+ *   {flash:<id>}:buyer:<customerId>  units held by one customer
+ *
+ * The per-sale keys share the {flash:<id>} hash tag, so reserve and release
+ * touch a single cluster slot. Arm and drain also touch flash:armed and the
+ * product's stock counter; running them on Redis Cluster is out of scope.
+ */
+public final class FlashSaleScripts {
+
+    /** See flash_arm.lua. */
+    public static final RedisScript<Long> ARM = StockScripts.load("flash_arm.lua", Long.class);
+
+    /** See flash_reserve.lua. */
+    public static final RedisScript<Long> RESERVE = StockScripts.load("flash_reserve.lua", Long.class);
+
+    /** See flash_release.lua. */
+    public static final RedisScript<Long> RELEASE = StockScripts.load("flash_release.lua", Long.class);
+
+    /** See flash_drain.lua. */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> DRAIN = StockScripts.load("flash_drain.lua", List.class);
+
+    private FlashSaleScripts() {
+    }
+}
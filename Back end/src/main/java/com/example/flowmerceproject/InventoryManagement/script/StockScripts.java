@@ -0,0 +1,46 @@
+package com.example.flowmerceproject.InventoryManagement.script;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * Server-side Lua scripts operating on the {@code product:%d:stock} keys.
+ *
+ * Scripts are loaded once from {@code classpath:scripts/inventory/} and run
+ * via EVALSHA, so each call is a single atomic Redis round trip.
+ */
+public final class StockScripts {
+
+    /** Conditional decrement for one product; never goes below zero. See reserve.lua. */
+    public static final RedisScript<Long> RESERVE = load("reserve.lua", Long.class);
+
+    /** Signed, zero-floored adjustment used by release and confirm. See shift.lua. */
+    public static final RedisScript<Long> SHIFT = load("shift.lua", Long.class);
+
+    /** Set-if-absent seed from the DB on a cache miss. See seed.lua. */
+    public static final RedisScript<Long> SEED = load("seed.lua", Long.class);
+
+    /** {@link #SEED} for several keys at once. See seed_batch.lua. */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> SEED_BATCH = load("seed_batch.lua", List.class);
+
+    /** All-or-nothing reservation for several products. See reserve_batch.lua. */
+    @SuppressWarnings("rawtypes")
+    public static final RedisScript<List> RESERVE_BATCH = load("reserve_batch.lua", List.class);
+
+    /** Gives stock back to several products at once. See release_batch.lua. */
+    public static final RedisScript<Long> RELEASE_BATCH = load("release_batch.lua", Long.class);
+
+    private StockScripts() {
+    }
+
+    static <T> RedisScript<T> load(String name, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/inventory/" + name));
+        script.setResultType(resultType);
+        return script;
+    }
+}
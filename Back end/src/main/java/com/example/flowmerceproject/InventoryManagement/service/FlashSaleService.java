@@ -0,0 +1,341 @@
+package com.example.flowmerceproject.InventoryManagement.service;
+
+import com.example.flowmerceproject.InventoryManagement.dto.FlashSaleDTOs.ArmFlashSaleRequest;
+import com.example.flowmerceproject.InventoryManagement.dto.FlashSaleDTOs.FlashSaleStatus;
+import com.example.flowmerceproject.InventoryManagement.dto.StockReservationResult;
+import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction.Type;
+import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
+import com.example.flowmerceproject.InventoryManagement.script.FlashSaleScripts;
+import com.example.flowmerceproject.InventoryManagement.script.StockScripts;
+import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
+import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Hot-SKU flash-sale engine.
+ *
+ * Arming a product moves an allocation out of its normal Redis stock counter
+ * and into {@code reservedQuantity} in the DB (one atomic UPDATE), then splits
+ * it across N Redis shard hashes. Buyers then only touch Redis: each
+ * reservation runs flash_reserve.lua against one randomly picked shard, which
+ * also enforces the per-customer cap. No JPA entity is loaded or saved per
+ * buyer, so there is nothing for the @Version lock to reject.
+ *
+ * Units sold on the shards are drained every
+ * {@code inventory.flash.reconcile-interval-ms} and written to the ledger as
+ * one aggregated row per product. On disarm (manual or at {@code endsAt}) the
+ * unsold remainder goes back to reservedQuantity and the normal counter, and
+ * the per-customer counters are deleted so a re-armed sale starts fresh.
+ *
+ * Flash units stay "reserved" in the DB once sold, so the usual
+ * confirmOrder/releaseStock path handles them like any other reservation.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FlashSaleService {
+
+    private static final String ARMED_KEY = "flash:armed";
+    // One hash tag per sale, so reserve/release (config + shard + buyer) stay in one cluster slot
+    private static final String CONFIG_KEY = "{flash:%d}";
+    private static final String SHARD_KEY = "{flash:%d}:shard:%d";
+    private static final String BUYER_KEY = "{flash:%d}:buyer:%d";
+    private static final String BUYERS_KEY = "{flash:%d}:buyers";
+    private static final String STOCK_KEY = "product:%d:stock";
+    // Buyer counters expire this long after endsAt; disarm deletes them anyway
+    private static final long BUYER_GRACE_SECONDS = 3600;
+
+    // Sentinel replies from the flash_*.lua scripts
+    private static final long SHARD_SHORT = -1L;
+    private static final long NOT_ARMED = -2L;
+    private static final long LIMIT_REACHED = -3L;
+
+    private final StringRedisTemplate redisTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLedgerService ledgerService;
+
+    @Value("${inventory.flash.shards:8}")
+    private int defaultShards;
+
+    @Value("${inventory.flash.max-per-customer:2}")
+    private int defaultMaxPerCustomer;
+
+    /** Shard count and cap of each sale this node has seen, so buyers skip an HGET. */
+    private final Map<Long, SaleConfig> configs = new ConcurrentHashMap<>();
+    /** Armed products, refreshed from Redis on every reconcile tick. */
+    private volatile Set<Long> armed = ConcurrentHashMap.newKeySet();
+
+    private record SaleConfig(int shards, int maxPerCustomer) { }
+
+    private static String configKey(Long productId) {
+        return String.format(CONFIG_KEY, productId);
+    }
+
+    private static List<String> shardKeys(Long productId, int shards) {
+        List<String> keys = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) keys.add(String.format(SHARD_KEY, productId, i));
+        return keys;
+    }
+
+    private static String buyerKey(Long productId, Integer customerId) {
+        return String.format(BUYER_KEY, productId, customerId);
+    }
+
+    public boolean isArmed(Long productId) {
+        return armed.contains(productId);
+    }
+
+    @Transactional
+    public FlashSaleStatus arm(Long productId, ArmFlashSaleRequest request) {
+        Inventory inv = inventoryRepository.findByProductId(productId.intValue())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Inventory not found for product: " + productId));
+
+        int allocation = request.getQuantity();
+        int shards = Math.min(request.getShards() != null ? request.getShards() : defaultShards, allocation);
+        int maxPerCustomer = request.getMaxPerCustomer() != null
+                ? request.getMaxPerCustomer() : defaultMaxPerCustomer;
+        long endsAt = System.currentTimeMillis() + request.getDurationMinutes() * 60_000L;
+
+        List<String> keys = new ArrayList<>();
+        keys.add(ARMED_KEY);
+        keys.add(configKey(productId));
+        keys.add(String.format(STOCK_KEY, productId));
+        keys.addAll(shardKeys(productId, shards));
+
+        Long result = redisTemplate.execute(FlashSaleScripts.ARM, keys,
+                String.valueOf(productId), String.valueOf(allocation), String.valueOf(maxPerCustomer),
+                String.valueOf(endsAt), String.valueOf(inv.getQuantity() - inv.getReservedQuantity()));
+        if (result == null || result == SHARD_SHORT) {
+            throw new BadRequestException(
+                    "Not enough available stock to arm a flash sale of " + allocation
+                            + " units for product: " + productId);
+        }
+        if (result == LIMIT_REACHED) {
+            throw new BadRequestException("A flash sale is already armed for product: " + productId);
+        }
+
+        if (inventoryRepository.shiftReservedQuantity(productId.intValue(), allocation) == 0) {
+            // DB disagrees with Redis about what's free — undo the arm.
+            drain(productId, shards, true);
+            redisTemplate.execute(StockScripts.RELEASE_BATCH,
+                    List.of(String.format(STOCK_KEY, productId)), String.valueOf(allocation));
+            throw new BadRequestException(
+                    "Not enough available stock to arm a flash sale of " + allocation
+                            + " units for product: " + productId);
+        }
+
+        ledgerService.append(ledgerRow(inv, 0, Type.ADJUSTMENT,
+                "Flash sale armed: " + allocation + " units allocated"));
+        configs.put(productId, new SaleConfig(shards, maxPerCustomer));
+        armed.add(productId);
+        log.info("Flash sale armed: product={}, units={}, shards={}, maxPerCustomer={}",
+                productId, allocation, shards, maxPerCustomer);
+        return getStatus(productId);
+    }
+
+    @Transactional
+    public FlashSaleStatus disarm(Long productId) {
+        SaleConfig config = loadConfig(productId);
+        if (config == null) {
+            throw new BadRequestException("No flash sale is armed for product: " + productId);
+        }
+        long[] drained = drain(productId, config.shards(), true);
+        configs.remove(productId);
+        armed.remove(productId);
+
+        Inventory inv = inventoryRepository.findByProductId(productId.intValue())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Inventory not found for product: " + productId));
+        recordSold(inv, drained[0]);
+
+        int unsold = (int) drained[1];
+        if (unsold > 0) {
+            inventoryRepository.shiftReservedQuantity(productId.intValue(), -unsold);
+            // The bulk UPDATE bypassed the loaded entity; mirror it for the seed value.
+            inv.setReservedQuantity(inv.getReservedQuantity() - unsold);
+            redisTemplate.execute(StockScripts.SHIFT, List.of(String.format(STOCK_KEY, productId)),
+                    String.valueOf(unsold), String.valueOf(inv.getQuantity() - inv.getReservedQuantity()));
+            ledgerService.append(ledgerRow(inv, unsold, Type.RETURN,
+                    "Flash sale ended: " + unsold + " unsold units returned"));
+        }
+        log.info("Flash sale disarmed: product={}, unsoldReturned={}", productId, unsold);
+        return FlashSaleStatus.builder().productId(productId).armed(false).remaining(0).build();
+    }
+
+    /**
+     * Reserves {@code quantity} flash units for {@code customerId}. Returns
+     * {@code null} if the product has no armed sale, so the caller can fall
+     * back to the normal reservation path.
+     */
+    public StockReservationResult reserve(Long productId, Integer customerId, int quantity) {
+        SaleConfig config = configs.computeIfAbsent(productId, this::loadConfig);
+        if (config == null) return null;
+
+        List<String> shards = shardKeys(productId, config.shards());
+        String buyer = buyerKey(productId, customerId);
+        String buyers = String.format(BUYERS_KEY, productId);
+        String grace = String.valueOf(BUYER_GRACE_SECONDS);
+        int start = ThreadLocalRandom.current().nextInt(config.shards());
+
+        for (int k = 0; k < config.shards(); k++) {
+            String shard = shards.get((start + k) % config.shards());
+            Long result = redisTemplate.execute(FlashSaleScripts.RESERVE,
+                    List.of(configKey(productId), shard, buyer, buyers), String.valueOf(quantity), grace);
+            if (result == null || result == NOT_ARMED) {
+                configs.remove(productId);
+                armed.remove(productId);
+                return null;
+            }
+            if (result == LIMIT_REACHED) {
+                throw new BadRequestException("Flash sale limit: max " + config.maxPerCustomer()
+                        + " units per customer for product: " + productId);
+            }
+            if (result >= 0) {
+                return StockReservationResult.builder()
+                        .productId(productId).requestedQuantity(quantity)
+                        .availableQuantity((int) (result + quantity)).reserved(true).build();
+            }
+            // SHARD_SHORT: this shard can't cover it, try the next one
+        }
+        return StockReservationResult.builder()
+                .productId(productId).requestedQuantity(quantity)
+                .availableQuantity(remaining(productId, config.shards())).reserved(false).build();
+    }
+
+    /** Gives back flash units reserved by a checkout that then failed. */
+    public void release(Long productId, Integer customerId, int quantity) {
+        SaleConfig config = configs.get(productId);
+        if (config == null) return;
+        String shard = shardKeys(productId, config.shards())
+                .get(ThreadLocalRandom.current().nextInt(config.shards()));
+        redisTemplate.execute(FlashSaleScripts.RELEASE,
+                List.of(configKey(productId), shard, buyerKey(productId, customerId)),
+                String.valueOf(quantity));
+    }
+
+    public FlashSaleStatus getStatus(Long productId) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(configKey(productId));
+        if (hash.isEmpty()) {
+            return FlashSaleStatus.builder().productId(productId).armed(false).remaining(0).build();
+        }
+        int shards = Integer.parseInt((String) hash.get("shards"));
+        return FlashSaleStatus.builder()
+                .productId(productId)
+                .armed(true)
+                .allocated(Integer.parseInt((String) hash.get("allocated")))
+                .remaining(remaining(productId, shards))
+                .maxPerCustomer(Integer.parseInt((String) hash.get("maxPerCustomer")))
+                .shards(shards)
+                .endsAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(Long.parseLong((String) hash.get("endsAt"))),
+                        ZoneId.systemDefault()))
+                .build();
+    }
+
+    /**
+     * Folds units sold since the last tick into the ledger (one row per
+     * product) and disarms sales past their end time.
+     */
+    @Scheduled(fixedDelayString = "${inventory.flash.reconcile-interval-ms:1000}")
+    public void reconcile() {
+        Set<String> members;
+        try {
+            members = redisTemplate.opsForSet().members(ARMED_KEY);
+        } catch (RuntimeException e) {
+            log.warn("Flash sale: could not read armed set", e);
+            return;
+        }
+        Set<Long> current = members == null ? Set.of()
+                : members.stream().map(Long::valueOf).collect(Collectors.toSet());
+        Set<Long> fresh = ConcurrentHashMap.newKeySet();
+        fresh.addAll(current);
+        armed = fresh;
+        configs.keySet().retainAll(current);
+
+        for (Long productId : current) {
+            try {
+                FlashSaleStatus status = getStatus(productId);
+                if (!status.isArmed()) continue;
+                if (status.getEndsAt().isBefore(LocalDateTime.now())) {
+                    disarm(productId);
+                    continue;
+                }
+                long sold = drain(productId, status.getShards(), false)[0];
+                if (sold != 0) {
+                    inventoryRepository.findByProductId(productId.intValue())
+                            .ifPresent(inv -> recordSold(inv, sold));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Flash sale: reconcile failed for product={}", productId, e);
+            }
+        }
+    }
+
+    private SaleConfig loadConfig(Long productId) {
+        List<Object> values = redisTemplate.opsForHash()
+                .multiGet(configKey(productId), List.of("shards", "maxPerCustomer"));
+        if (values == null || values.get(0) == null) return null;
+        return new SaleConfig(Integer.parseInt((String) values.get(0)),
+                Integer.parseInt((String) values.get(1)));
+    }
+
+    private long[] drain(Long productId, int shards, boolean disarm) {
+        List<String> keys = new ArrayList<>();
+        keys.add(ARMED_KEY);
+        keys.add(configKey(productId));
+        keys.add(String.format(BUYERS_KEY, productId));
+        keys.addAll(shardKeys(productId, shards));
+        List<?> reply = redisTemplate.execute(FlashSaleScripts.DRAIN, keys,
+                String.valueOf(productId), disarm ? "1" : "0");
+        if (reply == null) return new long[] { 0, 0 };
+        return new long[] { ((Number) reply.get(0)).longValue(), ((Number) reply.get(1)).longValue() };
+    }
+
+    private int remaining(Long productId, int shards) {
+        int total = 0;
+        for (String shard : shardKeys(productId, shards)) {
+            Object stock = redisTemplate.opsForHash().get(shard, "stock");
+            if (stock != null) total += Integer.parseInt((String) stock);
+        }
+        return total;
+    }
+
+    private void recordSold(Inventory inv, long sold) {
+        if (sold == 0) return;
+        ledgerService.append(ledgerRow(inv, (int) sold, Type.SALE,
+                "Flash sale: " + sold + " units reserved (aggregated)"));
+    }
+
+    private InventoryTransaction ledgerRow(Inventory inv, int quantityChange, Type type, String note) {
+        return InventoryTransaction.builder()
+                .productId(inv.getProductId().longValue())
+                .storeId(inv.getStoreId())
+                .type(type)
+                .quantityChange(quantityChange)
+                .qtyBefore(inv.getQuantity())
+                .qtyAfter(inv.getQuantity())
+                .createdBy("system")
+                .note(note)
+                .build();
+    }
+}
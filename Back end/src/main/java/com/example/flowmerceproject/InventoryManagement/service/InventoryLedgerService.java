@@ -0,0 +1,433 @@
+package com.example.flowmerceproject.InventoryManagement.service;
+
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
+import com.example.flowmerceproject.InventoryManagement.repository.InventoryTransactionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for the inventory ledger ({@code inventory_transactions}).
+ *
+ * Stock mutations hand their ledger rows to this bean instead of INSERTing them
+ * inside the caller's transaction.
+ *
+ * Flow:
+ *   1. After the caller commits, the rows are XADDed as one entry to the
+ *      {@code inventory:ledger} Redis Stream (the durability buffer) and queued
+ *      in memory. The caller returns straight away.
+ *   2. The queue is written to PostgreSQL in one JDBC batch once it holds
+ *      {@code inventory.ledger.batch-size} rows, or every
+ *      {@code inventory.ledger.flush-interval-ms}.
+ *   3. Flushed entries are XDELed from the stream.
+ *
+ * Entries left behind by a node that died before flushing are replayed by
+ * {@link #recoverOrphans()}. Every row carries its stream entry id in
+ * {@code ledger_entry_id} and the insert skips ids already present, so a
+ * replay never writes a row twice.
+ *
+ * Each product keeps the ids of its unflushed entries in a small set,
+ * {@code inventory:ledger:pending:<productId>}, so {@link #pendingFor} reads
+ * only that product's entries instead of the whole stream.
+ *
+ * The stream only covers rows once they are in it. The XADD runs after the
+ * caller commits, so rows are lost if their node dies between that commit
+ * and the XADD, or while Redis is unreachable and they are held only in
+ * memory. Stock levels are unaffected; only those ledger rows are missing.
+ *
+ * A batch that fails {@code inventory.ledger.max-flush-attempts} times in a
+ * row is retried one entry at a time. An entry that still fails with a
+ * non-transient error is moved to the {@code inventory:ledger:dead} stream
+ * with the error, so it cannot hold up the rows queued behind it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryLedgerService {
+
+    static final String STREAM_KEY = "inventory:ledger";
+    static final String DEAD_LETTER_KEY = "inventory:ledger:dead";
+    private static final String PENDING_INDEX_KEY = "inventory:ledger:pending:%d";
+    private static final String ROWS_FIELD = "rows";
+    private static final String ERROR_FIELD = "error";
+    private static final TypeReference<List<InventoryTransaction>> ROWS_TYPE = new TypeReference<>() { };
+    // Stream ids ("ms-seq") in the order XADD assigned them
+    private static final Comparator<String> STREAM_ORDER = Comparator
+            .comparingLong((String id) -> Long.parseLong(id.substring(0, id.indexOf('-'))))
+            .thenComparingLong(id -> Long.parseLong(id.substring(id.indexOf('-') + 1)));
+
+    private final InventoryTransactionRepository transactionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${inventory.ledger.batch-size:200}")
+    private int batchSize;
+
+    @Value("${inventory.ledger.orphan-age-ms:60000}")
+    private long orphanAgeMs;
+
+    // Stream entries read per XRANGE when scanning for orphans
+    @Value("${inventory.ledger.max-pending-read:1000}")
+    private int maxPendingRead;
+
+    @Value("${inventory.ledger.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    private final Deque<PendingEntry> buffer = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger bufferedRows = new AtomicInteger();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    // Consecutive failures of the head batch / of the orphan replay; guarded by this
+    private int flushFailures;
+    private int orphanFailures;
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "inventory-ledger-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** One stream entry: the ledger rows produced by a single stock mutation. */
+    private record PendingEntry(String recordId, List<InventoryTransaction> rows) { }
+
+    public void append(InventoryTransaction txn) {
+        appendAll(List.of(txn));
+    }
+
+    /**
+     * Buffers {@code txns} for asynchronous persistence. Inside a transaction
+     * the rows are only buffered once it commits, so a rolled-back mutation
+     * never reaches the ledger.
+     */
+    public void appendAll(List<InventoryTransaction> txns) {
+        if (txns.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        txns.forEach(t -> {
+            if (t.getCreatedAt() == null) t.setCreatedAt(now);
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(txns);
+                }
+            });
+        } else {
+            enqueue(txns);
+        }
+    }
+
+    private void enqueue(List<InventoryTransaction> txns) {
+        String recordId = null;
+        try {
+            RecordId id = redisTemplate.opsForStream()
+                    .add(STREAM_KEY, Map.of(ROWS_FIELD, objectMapper.writeValueAsString(txns)));
+            recordId = id != null ? id.getValue() : null;
+        } catch (Exception e) {
+            log.warn("Ledger: stream append failed for {} rows — buffering in memory only", txns.size(), e);
+        }
+        assignEntryIds(recordId, txns);
+        PendingEntry entry = new PendingEntry(recordId, txns);
+        index(List.of(entry), true);
+        buffer.addLast(entry);
+
+        if (bufferedRows.addAndGet(txns.size()) >= batchSize && flushQueued.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+    }
+
+    private static String indexKey(Long productId) {
+        return String.format(PENDING_INDEX_KEY, productId);
+    }
+
+    /**
+     * Adds entries to (or removes them from) their products' pending sets,
+     * one SADD/SREM per product. A missed add only hides the rows from
+     * {@link #pendingFor} until they are flushed; a missed remove is cleaned
+     * up by the next {@link #pendingFor} of that product.
+     */
+    private void index(List<PendingEntry> entries, boolean add) {
+        Map<Long, List<String>> byProduct = new HashMap<>();
+        for (PendingEntry entry : entries) {
+            if (entry.recordId() == null) continue;
+            entry.rows().stream().map(InventoryTransaction::getProductId).filter(Objects::nonNull).distinct()
+                    .forEach(p -> byProduct.computeIfAbsent(p, k -> new ArrayList<>()).add(entry.recordId()));
+        }
+        try {
+            byProduct.forEach((productId, ids) -> {
+                if (add) redisTemplate.opsForSet().add(indexKey(productId), ids.toArray(String[]::new));
+                else redisTemplate.opsForSet().remove(indexKey(productId), ids.toArray());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Ledger: could not update the pending index for {} entries", entries.size(), e);
+        }
+    }
+
+    private static void assignEntryIds(String recordId, List<InventoryTransaction> rows) {
+        if (recordId == null) return;
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).setLedgerEntryId(recordId + "/" + i);
+        }
+    }
+
+    /** Writes everything buffered on this node, one JDBC batch per {@code batch-size} rows. */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public synchronized void flush() {
+        int limit = Math.max(batchSize, 1);
+        while (!buffer.isEmpty()) {
+            List<PendingEntry> drained = new ArrayList<>();
+            List<InventoryTransaction> rows = new ArrayList<>();
+            PendingEntry entry;
+            while (rows.size() < limit && (entry = buffer.pollFirst()) != null) {
+                drained.add(entry);
+                rows.addAll(entry.rows());
+            }
+
+            try {
+                transactionRepository.insertAll(rows);
+            } catch (RuntimeException e) {
+                if (++flushFailures < maxFlushAttempts) {
+                    putBack(drained);
+                    log.error("Ledger: flush of {} rows failed (attempt {}) — will retry", rows.size(), flushFailures, e);
+                    return;
+                }
+                log.error("Ledger: flush of {} rows failed {} times — writing entry by entry", rows.size(), flushFailures, e);
+                flushFailures = 0;
+                List<PendingEntry> unwritten = insertEach(drained);
+                bufferedRows.addAndGet(-drained.subList(0, drained.size() - unwritten.size()).stream()
+                        .mapToInt(d -> d.rows().size()).sum());
+                if (!unwritten.isEmpty()) {
+                    putBack(unwritten);
+                    return;
+                }
+                continue;
+            }
+            flushFailures = 0;
+            bufferedRows.addAndGet(-rows.size());
+            deleteFromStream(drained);
+            log.debug("Ledger: flushed {} rows", rows.size());
+        }
+    }
+
+    private void putBack(List<PendingEntry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) buffer.addFirst(entries.get(i));
+    }
+
+    /**
+     * Inserts {@code entries} one at a time, dead-lettering any that fail
+     * with a non-transient error, and trims the handled ones from the stream.
+     * Stops at the first transient failure; returns the entries not handled,
+     * which are always the tail of {@code entries}.
+     */
+    private List<PendingEntry> insertEach(List<PendingEntry> entries) {
+        List<PendingEntry> handled = new ArrayList<>();
+        int i = 0;
+        for (; i < entries.size(); i++) {
+            PendingEntry entry = entries.get(i);
+            try {
+                transactionRepository.insertAll(entry.rows());
+            } catch (RuntimeException e) {
+                if (isTransient(e) || !deadLetter(entry, e)) break;
+            }
+            handled.add(entry);
+        }
+        deleteFromStream(handled);
+        return new ArrayList<>(entries.subList(i, entries.size()));
+    }
+
+    private boolean deadLetter(PendingEntry entry, RuntimeException cause) {
+        Map<Object, Object> fields = new HashMap<>();
+        try {
+            fields.put(ROWS_FIELD, objectMapper.writeValueAsString(entry.rows()));
+        } catch (Exception e) {
+            log.error("Ledger: could not dead-letter entry {} — will retry", entry.recordId(), e);
+            return false;
+        }
+        return deadLetter(entry.recordId(), fields, cause);
+    }
+
+    /** XADDs {@code fields} plus the error to the dead-letter stream; false if that fails. */
+    private boolean deadLetter(String recordId, Map<Object, Object> fields, Exception cause) {
+        String error = String.valueOf(cause.getMessage());
+        fields.put(ERROR_FIELD, error.length() > 1000 ? error.substring(0, 1000) : error);
+        try {
+            redisTemplate.opsForStream().add(DEAD_LETTER_KEY, fields);
+        } catch (Exception e) {
+            log.error("Ledger: could not dead-letter entry {} — will retry", recordId, e);
+            return false;
+        }
+        log.error("Ledger: entry {} moved to {}: {}", recordId, DEAD_LETTER_KEY, error);
+        return true;
+    }
+
+    // A lost connection or lock timeout says nothing about the rows themselves
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * Replays stream entries older than {@code inventory.ledger.orphan-age-ms}
+     * that no live node has flushed, e.g. because their node crashed.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${inventory.ledger.orphan-age-ms:60000}")
+    public synchronized void recoverOrphans() {
+        String cutoff = (System.currentTimeMillis() - orphanAgeMs) + "-0";
+        Set<String> local = buffer.stream().map(PendingEntry::recordId).collect(Collectors.toSet());
+        String after = null;
+        List<MapRecord<String, Object, Object>> page;
+        do {
+            try {
+                page = readPage(after, Range.Bound.inclusive(cutoff));
+            } catch (RuntimeException e) {
+                log.warn("Ledger: orphan scan failed", e);
+                return;
+            }
+            if (page.isEmpty()) return;
+            after = page.get(page.size() - 1).getId().getValue();
+
+            List<PendingEntry> orphans = new ArrayList<>();
+            for (MapRecord<String, Object, Object> record : page) {
+                String recordId = record.getId().getValue();
+                if (local.contains(recordId)) continue;
+                try {
+                    orphans.add(new PendingEntry(recordId, readRows(record)));
+                } catch (IOException | RuntimeException e) {
+                    // Kept as-is in the dead-letter stream; only trimmed once it is there
+                    if (deadLetter(recordId, new HashMap<>(record.getValue()), e)) {
+                        deleteFromStream(List.of(new PendingEntry(recordId, List.of())));
+                    }
+                }
+            }
+            if (orphans.isEmpty()) continue;
+            List<InventoryTransaction> rows = orphans.stream().flatMap(o -> o.rows().stream()).toList();
+
+            try {
+                transactionRepository.insertAll(rows);
+            } catch (RuntimeException e) {
+                if (++orphanFailures < maxFlushAttempts) {
+                    log.error("Ledger: replay of {} orphaned rows failed (attempt {})", rows.size(), orphanFailures, e);
+                    return;
+                }
+                orphanFailures = 0;
+                if (!insertEach(orphans).isEmpty()) return;
+                continue;
+            }
+            orphanFailures = 0;
+            deleteFromStream(orphans);
+            log.info("Ledger: recovered {} orphaned rows from {} stream entries", rows.size(), orphans.size());
+        } while (page.size() == maxPendingRead);
+    }
+
+    /**
+     * Ledger rows for {@code productId} that have been acknowledged but may not
+     * be in PostgreSQL yet, across every node. Read from the stream entries in
+     * the product's pending set, plus any rows this node could only buffer in
+     * memory.
+     */
+    public List<InventoryTransaction> pendingFor(Long productId) {
+        List<InventoryTransaction> pending = new ArrayList<>();
+        try {
+            Set<String> ids = redisTemplate.opsForSet().members(indexKey(productId));
+            List<String> gone = new ArrayList<>();
+            List<String> ordered = ids == null ? List.of()
+                    : ids.stream().sorted(STREAM_ORDER).toList();
+            for (String id : ordered) {
+                List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                        .range(STREAM_KEY, Range.closed(id, id), Limit.limit().count(1));
+                if (records == null || records.isEmpty()) {
+                    gone.add(id);
+                    continue;
+                }
+                try {
+                    pending.addAll(readRows(records.get(0)));
+                } catch (IOException | RuntimeException e) {
+                    // Left for recoverOrphans to dead-letter
+                    log.warn("Ledger: unreadable stream entry {} — skipping", id, e);
+                }
+            }
+            // Flushed by a node whose SREM did not get through
+            if (!gone.isEmpty()) redisTemplate.opsForSet().remove(indexKey(productId), gone.toArray());
+        } catch (RuntimeException e) {
+            log.warn("Ledger: could not read pending entries for product={}", productId, e);
+        }
+        for (PendingEntry entry : buffer) {
+            if (entry.recordId() == null) pending.addAll(entry.rows());
+        }
+        return pending.stream().filter(t -> productId.equals(t.getProductId())).toList();
+    }
+
+    /** Up to {@code max-pending-read} entries after {@code after} (null: from the start), oldest first. */
+    private List<MapRecord<String, Object, Object>> readPage(String after, Range.Bound<String> upper) {
+        Range.Bound<String> lower = after == null ? Range.Bound.unbounded() : Range.Bound.inclusive(nextId(after));
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .range(STREAM_KEY, Range.of(lower, upper), Limit.limit().count(maxPendingRead));
+        return records != null ? records : List.of();
+    }
+
+    // The smallest stream id greater than recordId ("ms-seq")
+    static String nextId(String recordId) {
+        int dash = recordId.indexOf('-');
+        return recordId.substring(0, dash + 1) + (Long.parseLong(recordId.substring(dash + 1)) + 1);
+    }
+
+    private List<InventoryTransaction> readRows(MapRecord<String, Object, Object> record) throws IOException {
+        List<InventoryTransaction> rows = objectMapper.readValue(
+                (String) record.getValue().get(ROWS_FIELD), ROWS_TYPE);
+        assignEntryIds(record.getId().getValue(), rows);
+        return rows;
+    }
+
+    private void deleteFromStream(List<PendingEntry> entries) {
+        String[] ids = entries.stream().map(PendingEntry::recordId).filter(Objects::nonNull).toArray(String[]::new);
+        if (ids.length == 0) return;
+        try {
+            redisTemplate.opsForStream().delete(STREAM_KEY, ids);
+        } catch (RuntimeException e) {
+            // Harmless: the rows are in the DB and a replay is skipped by ledger_entry_id.
+            log.warn("Ledger: could not trim {} flushed stream entries", ids.length, e);
+        }
+        index(entries, false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        flush();
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.flowmerceproject.InventoryManagement.service;
 
 import com.example.flowmerceproject.InventoryManagement.dto.InventoryResponse;
+import com.example.flowmerceproject.InventoryManagement.dto.StockReservationResult;
 import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface InventoryService {
 
@@ -18,10 +21,23 @@ public interface InventoryService {
 
     boolean reserveStock(Long productId, int quantity);
 
+    /**
+     * Reserves every product in {@code quantities} (productId → qty) or none of them.
+     * The returned map has one entry per product, in the caller's iteration order.
+     */
+    Map<Long, StockReservationResult> reserveStock(Map<Long, Integer> quantities);
+
     void releaseStock(Long productId, int quantity);
 
     int getAvailableQuantity(Long productId);
 
+    /**
+     * Available quantity for each of {@code productIds} (0 for a product with
+     * no inventory row), in at most one Redis read, one DB query and one
+     * Redis write however many products are asked for.
+     */
+    Map<Long, Integer> getAvailableQuantities(Collection<Long> productIds);
+
     boolean checkAvailability(Long productId, int requiredQty);
 
     InventoryResponse getInventoryDetails(Long productId);
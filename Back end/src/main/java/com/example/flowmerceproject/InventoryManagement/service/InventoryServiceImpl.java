@@ -1,12 +1,14 @@
 package com.example.flowmerceproject.InventoryManagement.service;
 
 import com.example.flowmerceproject.InventoryManagement.dto.InventoryResponse;
+import com.example.flowmerceproject.InventoryManagement.dto.StockReservationResult;
 import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
 import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
 import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction.Type;
 import com.example.flowmerceproject.InventoryManagement.event.StockChangedEvent;
 import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
 import com.example.flowmerceproject.InventoryManagement.repository.InventoryTransactionRepository;
+import com.example.flowmerceproject.InventoryManagement.script.StockScripts;
 import com.example.flowmerceproject.InventoryManagement.strategy.InventoryStrategy;
 import com.example.flowmerceproject.InventoryManagement.strategy.InventoryStrategyFactory;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
@@ -27,7 +29,16 @@ import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,6 +48,7 @@ public class InventoryServiceImpl implements InventoryService {
 
     private final InventoryRepository inventoryRepository;
     private final InventoryTransactionRepository transactionRepository;
+    private final InventoryLedgerService ledgerService;
     private final StringRedisTemplate redisTemplate;
     private final InventoryStrategyFactory strategyFactory;
     private final ApplicationEventPublisher eventPublisher;
@@ -49,10 +61,24 @@ public class InventoryServiceImpl implements InventoryService {
 
     private static final String STOCK_KEY = "product:%d:stock";
 
+    // Sentinel replies from reserve.lua
+    private static final long INSUFFICIENT_STOCK = -1L;
+    private static final long KEY_MISSING = -2L;
+
     private String key(Long productId) {
         return String.format(STOCK_KEY, productId);
     }
 
+    private static int available(Inventory inv) {
+        return inv.getQuantity() - inv.getReservedQuantity();
+    }
+
+    /** Applies a signed delta to the cached stock, seeding from {@code inv} only if the key is gone. */
+    private void shiftCachedStock(Long productId, int delta, Inventory inv) {
+        redisTemplate.execute(StockScripts.SHIFT, List.of(key(productId)),
+                String.valueOf(delta), String.valueOf(available(inv)));
+    }
+
     private Inventory getOrThrow(Long productId) {
         return inventoryRepository.findByProductId(productId.intValue())
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -80,7 +106,13 @@ public class InventoryServiceImpl implements InventoryService {
 
     private void saveTransaction(Inventory inv, int qtyBefore, int quantityChange,
                                   Type type, String createdBy, String referenceId, String note) {
-        transactionRepository.save(InventoryTransaction.builder()
+        ledgerService.append(buildTransaction(
+                inv, qtyBefore, quantityChange, type, createdBy, referenceId, note));
+    }
+
+    private InventoryTransaction buildTransaction(Inventory inv, int qtyBefore, int quantityChange,
+                                                  Type type, String createdBy, String referenceId, String note) {
+        return InventoryTransaction.builder()
                 .productId((long) inv.getProductId())
                 .storeId(inv.getStoreId())
                 .type(type)
@@ -90,7 +122,7 @@ public class InventoryServiceImpl implements InventoryService {
                 .createdBy(createdBy)
                 .referenceId(referenceId)
                 .note(note)
-                .build());
+                .build();
     }
 
     @Override
@@ -144,20 +176,19 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     @Transactional
     public boolean reserveStock(Long productId, int quantity) {
-        try {
-            String redisKey = key(productId);
-            if (Boolean.FALSE.equals(redisTemplate.hasKey(redisKey))) {
-                Inventory inv = getOrThrow(productId);
-                redisTemplate.opsForValue().set(redisKey,
-                        String.valueOf(inv.getQuantity() - inv.getReservedQuantity()));
-            }
-
-            Long newStock = redisTemplate.opsForValue().decrement(redisKey, quantity);
-            if (newStock == null || newStock < 0) {
-                redisTemplate.opsForValue().increment(redisKey, quantity);
-                return false;
-            }
+        String redisKey = key(productId);
+        Long remaining = redisTemplate.execute(StockScripts.RESERVE, List.of(redisKey),
+                String.valueOf(quantity), "");
+        if (remaining != null && remaining == KEY_MISSING) {
+            Inventory inv = getOrThrow(productId);
+            remaining = redisTemplate.execute(StockScripts.RESERVE, List.of(redisKey),
+                    String.valueOf(quantity), String.valueOf(available(inv)));
+        }
+        if (remaining == null || remaining == INSUFFICIENT_STOCK) {
+            return false;
+        }
 
+        try {
             Inventory inventory = getOrThrow(productId);
             int qtyBefore = inventory.getQuantity();
             strategyFactory.getStrategy("RESERVED").updateStock(inventory, quantity);
@@ -171,10 +202,89 @@ public class InventoryServiceImpl implements InventoryService {
                     inventory.getLowStockThreshold(), "RESERVED"));
             return true;
 
-        } catch (OptimisticLockingFailureException e) {
-            throw new BadRequestException(
-                    "Reservation conflict on product: " + productId + ". Please retry.");
+        } catch (RuntimeException e) {
+            redisTemplate.execute(StockScripts.RELEASE_BATCH, List.of(redisKey), String.valueOf(quantity));
+            if (e instanceof OptimisticLockingFailureException) {
+                throw new BadRequestException(
+                        "Reservation conflict on product: " + productId + ". Please retry.");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Multi-product reservation: one DB read, one Lua call against Redis and one
+     * batched inventory update, regardless of cart size. Ledger rows go to the
+     * write-behind {@link InventoryLedgerService} as a single entry.
+     * Nothing is reserved unless every line can be.
+     */
+    @Override
+    @Transactional
+    public Map<Long, StockReservationResult> reserveStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return Map.of();
+
+        List<Integer> productIds = quantities.keySet().stream().map(Long::intValue).toList();
+        Map<Integer, Inventory> inventories = inventoryRepository.findByProductIdIn(productIds).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+
+        List<String> keys = new ArrayList<>(quantities.size());
+        List<String> requested = new ArrayList<>(quantities.size());
+        List<String> seeds = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Inventory inv = inventories.get(line.getKey().intValue());
+            if (inv == null) {
+                throw new ResourceNotFoundException("Inventory not found for product: " + line.getKey());
+            }
+            keys.add(key(line.getKey()));
+            requested.add(String.valueOf(line.getValue()));
+            seeds.add(String.valueOf(inv.getQuantity() - inv.getReservedQuantity()));
         }
+        List<String> args = new ArrayList<>(requested);
+        args.addAll(seeds);
+
+        List<?> reply = redisTemplate.execute(StockScripts.RESERVE_BATCH, keys, args.toArray());
+        boolean reserved = reply != null && ((Number) reply.get(0)).longValue() == 1L;
+
+        Map<Long, StockReservationResult> results = new LinkedHashMap<>();
+        int i = 1;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            int available = reply != null ? ((Number) reply.get(i++)).intValue() : 0;
+            results.put(line.getKey(), StockReservationResult.builder()
+                    .productId(line.getKey())
+                    .requestedQuantity(line.getValue())
+                    .availableQuantity(available)
+                    .reserved(reserved)
+                    .build());
+        }
+        if (!reserved) return results;
+
+        try {
+            List<InventoryTransaction> ledger = new ArrayList<>(quantities.size());
+            InventoryStrategy strategy = strategyFactory.getStrategy("RESERVED");
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                Inventory inv = inventories.get(line.getKey().intValue());
+                int qtyBefore = inv.getQuantity();
+                strategy.updateStock(inv, line.getValue());
+                ledger.add(buildTransaction(inv, qtyBefore, line.getValue(), Type.SALE,
+                        "system", null, "Reserved via checkout"));
+            }
+            inventoryRepository.saveAllAndFlush(inventories.values());
+            ledgerService.appendAll(ledger);
+        } catch (RuntimeException e) {
+            redisTemplate.execute(StockScripts.RELEASE_BATCH, keys, requested.toArray());
+            if (e instanceof OptimisticLockingFailureException) {
+                throw new BadRequestException(
+                        "Reservation conflict on products: " + quantities.keySet() + ". Please retry.");
+            }
+            throw e;
+        }
+
+        for (Inventory inv : inventories.values()) {
+            eventPublisher.publishEvent(new StockChangedEvent(
+                    this, (long) inv.getProductId(), inv.getQuantity(),
+                    inv.getLowStockThreshold(), "RESERVED"));
+        }
+        return results;
     }
 
     @Override
@@ -195,7 +305,7 @@ public class InventoryServiceImpl implements InventoryService {
             saveTransaction(inventory, qtyBefore, quantity, Type.RETURN,
                     "system", null, "Released reservation");
 
-            redisTemplate.opsForValue().increment(key(productId), quantity);
+            shiftCachedStock(productId, quantity, inventory);
 
             eventPublisher.publishEvent(new StockChangedEvent(
                     this, productId, inventory.getQuantity(),
@@ -211,10 +321,66 @@ public class InventoryServiceImpl implements InventoryService {
     public int getAvailableQuantity(Long productId) {
         String cached = redisTemplate.opsForValue().get(key(productId));
         if (cached != null) return Integer.parseInt(cached);
+        // Seed only if still missing: a plain SET here could overwrite a
+        // reservation that landed between our GET and the DB read.
         Inventory inv = getOrThrow(productId);
-        int available = inv.getQuantity() - inv.getReservedQuantity();
-        redisTemplate.opsForValue().set(key(productId), String.valueOf(available));
-        return available;
+        Long seeded = redisTemplate.execute(StockScripts.SEED, List.of(key(productId)),
+                String.valueOf(available(inv)));
+        return seeded != null ? seeded.intValue() : available(inv);
+    }
+
+    /**
+     * MGET for every key; misses are read from the DB in one IN query and
+     * seeded in one script call (seed_batch.lua), keeping seed.lua's
+     * set-if-absent rule. If Redis is down the DB answers for everything.
+     */
+    @Override
+    public Map<Long, Integer> getAvailableQuantities(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        if (ids.isEmpty()) return result;
+
+        List<String> cached = null;
+        try {
+            cached = redisTemplate.opsForValue().multiGet(ids.stream().map(this::key).toList());
+        } catch (Exception e) {
+            log.warn("Stock MGET failed, reading {} products from the DB — {}", ids.size(), e.getMessage());
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String value = cached != null && i < cached.size() ? cached.get(i) : null;
+            if (value != null) result.put(ids.get(i), Integer.parseInt(value));
+            else misses.add(ids.get(i));
+        }
+        if (misses.isEmpty()) return result;
+
+        Map<Integer, Inventory> inventories = inventoryRepository
+                .findByProductIdIn(misses.stream().map(Long::intValue).toList()).stream()
+                .collect(Collectors.toMap(Inventory::getProductId, Function.identity()));
+        List<Long> seeded = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<String> seeds = new ArrayList<>();
+        for (Long productId : misses) {
+            Inventory inv = inventories.get(productId.intValue());
+            result.put(productId, inv != null ? available(inv) : 0);
+            if (inv != null) {
+                seeded.add(productId);
+                keys.add(key(productId));
+                seeds.add(String.valueOf(available(inv)));
+            }
+        }
+        if (cached == null || keys.isEmpty()) return result;
+
+        try {
+            List<?> stored = redisTemplate.execute(StockScripts.SEED_BATCH, keys, seeds.toArray());
+            for (int i = 0; stored != null && i < stored.size(); i++) {
+                result.put(seeded.get(i), ((Number) stored.get(i)).intValue());
+            }
+        } catch (Exception e) {
+            log.warn("Stock seed failed for {} products — {}", keys.size(), e.getMessage());
+        }
+        return result;
     }
 
     @Override
@@ -233,6 +399,7 @@ public class InventoryServiceImpl implements InventoryService {
                                 + "Available: " + inv.getQuantity() + ", Needed: " + quantity);
             }
             int qtyBefore = inv.getQuantity();
+            int availableBefore = available(inv);
             inv.setQuantity(inv.getQuantity() - quantity);
             inv.setReservedQuantity(Math.max(0, inv.getReservedQuantity() - quantity));
             inventoryRepository.save(inv);
@@ -240,8 +407,9 @@ public class InventoryServiceImpl implements InventoryService {
             saveTransaction(inv, qtyBefore, -quantity, Type.SALE,
                     "system", null, "Order confirmed");
 
-            int available = inv.getQuantity() - inv.getReservedQuantity();
-            redisTemplate.opsForValue().set(key(productId), String.valueOf(available));
+            // Reserved units were already taken off the cached count at reserve
+            // time; only the unreserved remainder (if any) still has to come off.
+            shiftCachedStock(productId, available(inv) - availableBefore, inv);
 
             eventPublisher.publishEvent(new StockChangedEvent(
                     this, productId, inv.getQuantity(),
@@ -290,9 +458,24 @@ public class InventoryServiceImpl implements InventoryService {
                 .collect(Collectors.toList());
     }
 
+    /** Persisted ledger rows merged with any still-buffered tail, newest first. */
     @Override
     @Transactional(readOnly = true)
     public List<InventoryTransaction> getTransactionHistory(Long productId) {
-        return transactionRepository.findByProductIdOrderByCreatedAtDesc(productId);
+        List<InventoryTransaction> history =
+                new ArrayList<>(transactionRepository.findByProductIdOrderByCreatedAtDesc(productId));
+        List<InventoryTransaction> pending = ledgerService.pendingFor(productId);
+        if (pending.isEmpty()) return history;
+
+        Set<String> persisted = history.stream()
+                .map(InventoryTransaction::getLedgerEntryId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        pending.stream()
+                .filter(t -> t.getLedgerEntryId() == null || !persisted.contains(t.getLedgerEntryId()))
+                .forEach(history::add);
+        history.sort(Comparator.comparing(InventoryTransaction::getCreatedAt,
+                Comparator.nullsLast(Comparator.<LocalDateTime>reverseOrder())));
+        return history;
     }
 }
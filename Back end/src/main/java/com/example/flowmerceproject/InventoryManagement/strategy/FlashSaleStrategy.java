@@ -2,18 +2,20 @@ package com.example.flowmerceproject.InventoryManagement.strategy;
 
 import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
 import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component("FLASH")
 public class FlashSaleStrategy implements InventoryStrategy {
 
-    private static final int MAX_PER_CUSTOMER = 2;
+    @Value("${inventory.flash.max-per-customer:2}")
+    private int maxPerCustomer = 2;
 
     @Override
     public void updateStock(Inventory inventory, int quantity) {
-        if (quantity > MAX_PER_CUSTOMER) {
+        if (quantity > maxPerCustomer) {
             throw new BadRequestException(
-                    "Flash sale limit: max " + MAX_PER_CUSTOMER
+                    "Flash sale limit: max " + maxPerCustomer
                             + " units per customer. Requested: " + quantity);
         }
         int newQty = inventory.getQuantity() - quantity;
@@ -26,6 +28,6 @@ public class FlashSaleStrategy implements InventoryStrategy {
 
     @Override
     public boolean canFulfill(Inventory inventory, int quantity) {
-        return quantity <= MAX_PER_CUSTOMER && inventory.getQuantity() >= quantity;
+        return quantity <= maxPerCustomer && inventory.getQuantity() >= quantity;
     }
 }
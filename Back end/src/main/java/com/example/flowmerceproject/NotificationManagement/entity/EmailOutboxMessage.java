@@ -0,0 +1,74 @@
+package com.example.flowmerceproject.NotificationManagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One email waiting to be sent, or its delivery record. Written in the
+ * transaction that produced it, then delivered by EmailOutboxService.
+ *
+ * A PENDING row is due once {@code nextAttemptAt} has passed. Claiming a row
+ * pushes {@code nextAttemptAt} out by a lease, so a node that dies mid-send
+ * leaves it to be claimed again later.
+ */
+@Entity
+@Table(name = "email_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "to_address", nullable = false)
+    private String toAddress;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    // Stored as its ordinal so the claim query can ORDER BY it
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    @Builder.Default
+    private Priority priority = Priority.NORMAL;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Set by the dispatcher run that currently holds the row
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum Status {
+        PENDING, SENT, FAILED
+    }
+
+    /** Claim order: URGENT rows (sign-in codes, resets) go out before NORMAL ones. */
+    public enum Priority {
+        URGENT, NORMAL
+    }
+}
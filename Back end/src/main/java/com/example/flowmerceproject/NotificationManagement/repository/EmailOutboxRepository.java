@@ -0,0 +1,48 @@
+package com.example.flowmerceproject.NotificationManagement.repository;
+
+import com.example.flowmerceproject.NotificationManagement.entity.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    // Takes up to :limit due messages for one dispatcher run, urgent ones first.
+    // SKIP LOCKED lets several nodes claim at once without waiting on each
+    // other; the lease (next_attempt_at) hides the rows until the run records
+    // the outcome.
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE email_outbox SET claim_token = :token, next_attempt_at = :leaseUntil " +
+            "WHERE id IN (SELECT id FROM email_outbox " +
+            "  WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "  ORDER BY priority, next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED)",
+            nativeQuery = true)
+    int claim(@Param("token") String token,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("limit") int limit);
+
+    List<EmailOutboxMessage> findByClaimToken(String claimToken);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutboxMessage m SET m.status = com.example.flowmerceproject.NotificationManagement" +
+            ".entity.EmailOutboxMessage.Status.SENT, m.sentAt = :sentAt, m.claimToken = null, " +
+            "m.attempts = m.attempts + 1 WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = com.example.flowmerceproject.NotificationManagement" +
+            ".entity.EmailOutboxMessage.Status.SENT AND m.sentAt < :before")
+    int purgeSentBefore(@Param("before") LocalDateTime before);
+}
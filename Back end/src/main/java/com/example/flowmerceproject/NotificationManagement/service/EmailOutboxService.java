@@ -0,0 +1,312 @@
+package com.example.flowmerceproject.NotificationManagement.service;
+
+import com.example.flowmerceproject.NotificationManagement.entity.EmailOutboxMessage;
+import com.example.flowmerceproject.NotificationManagement.repository.EmailOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent email outbox and its dispatcher.
+ *
+ * {@link #enqueue} writes a row in the caller's transaction — a rolled-back
+ * registration sends nothing, a committed one is never lost — and wakes the
+ * dispatcher once it commits; {@code email.outbox.poll-interval-ms} picks up
+ * retries and rows enqueued on other nodes.
+ *
+ * A run claims up to {@code email.outbox.batch-size} due rows, groups them by
+ * recipient domain and sends each group of up to
+ * {@code email.outbox.messages-per-connection} over one SMTP connection. At
+ * most {@code email.outbox.per-domain-concurrency} connections per domain are
+ * open at a time. Sending runs on this class's own threads, not the shared
+ * {@code @Async} pool. A failed message is retried with exponential
+ * backoff and marked FAILED after {@code email.outbox.max-attempts}.
+ *
+ * URGENT messages (sign-in codes, activation and reset links) are claimed
+ * before NORMAL ones and sent first within a run, so a backlog of order
+ * emails does not hold up a login.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    @Value("${email.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${email.outbox.messages-per-connection:25}")
+    private int messagesPerConnection;
+
+    @Value("${email.outbox.workers:4}")
+    private int workers;
+
+    @Value("${email.outbox.per-domain-concurrency:2}")
+    private int perDomainConcurrency;
+
+    @Value("${email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${email.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${email.outbox.lease-seconds:600}")
+    private long leaseSeconds;
+
+    @Value("${email.outbox.retention-days:14}")
+    private int retentionDays;
+
+    private ExecutorService dispatcher;
+    private ExecutorService senders;
+    private final Map<String, Semaphore> domainPermits = new ConcurrentHashMap<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean wakeAgain = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "email-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger threads = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "email-send-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdown();
+    }
+
+    // ── ENQUEUE ───────────────────────────────────────────────────────────────
+
+    public void enqueue(String to, String subject, String htmlBody) {
+        enqueue(to, subject, htmlBody, EmailOutboxMessage.Priority.NORMAL);
+    }
+
+    public void enqueue(String to, String subject, String htmlBody, EmailOutboxMessage.Priority priority) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.save(EmailOutboxMessage.builder()
+                .toAddress(to)
+                .subject(subject)
+                .htmlBody(htmlBody)
+                .status(EmailOutboxMessage.Status.PENDING)
+                .priority(priority)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    // ── DISPATCH ──────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        wake();
+    }
+
+    /** Starts a run unless one is going; a running one goes round again. */
+    void wake() {
+        if (!draining.compareAndSet(false, true)) {
+            wakeAgain.set(true);
+            return;
+        }
+        dispatcher.execute(() -> {
+            try {
+                boolean more;
+                do {
+                    wakeAgain.set(false);
+                    more = dispatchOnce() > 0;
+                } while (more || wakeAgain.get());
+            } catch (RuntimeException e) {
+                log.warn("Email outbox run failed: {}", e.getMessage());
+            } finally {
+                draining.set(false);
+            }
+            // A wake() after the last check but before the reset saw the run still going
+            if (wakeAgain.get()) wake();
+        });
+    }
+
+    /** Claims one batch, sends it and records the outcome; returns the number claimed. */
+    int dispatchOnce() {
+        String token = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxRepository.claim(token, now, now.plusSeconds(leaseSeconds), batchSize) == 0) return 0;
+
+        List<EmailOutboxMessage> batch = new ArrayList<>(outboxRepository.findByClaimToken(token));
+        batch.sort(Comparator.comparing(EmailOutboxMessage::getPriority).thenComparing(EmailOutboxMessage::getId));
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (List<EmailOutboxMessage> connection : connections(batch, messagesPerConnection)) {
+            sends.add(CompletableFuture.runAsync(() -> sendOverOneConnection(connection), senders));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        return batch.size();
+    }
+
+    private void sendOverOneConnection(List<EmailOutboxMessage> messages) {
+        Semaphore permit = domainPermits.computeIfAbsent(domainOf(messages.get(0).getToAddress()),
+                domain -> new Semaphore(perDomainConcurrency));
+        permit.acquireUninterruptibly();
+        try {
+            record(messages, deliver(messages));
+        } finally {
+            permit.release();
+        }
+    }
+
+    /** Sends {@code messages} in one SMTP session; returns the error of each that failed, by id. */
+    private Map<Long, String> deliver(List<EmailOutboxMessage> messages) {
+        Map<Long, String> failures = new HashMap<>();
+        // MimeMessage keeps Object's equals, so this keys by identity, in send order
+        Map<MimeMessage, EmailOutboxMessage> byMime = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : messages) {
+            try {
+                byMime.put(toMimeMessage(message), message);
+            } catch (MessagingException e) {
+                failures.put(message.getId(), e.getMessage());
+            }
+        }
+        if (byMime.isEmpty()) return failures;
+
+        try {
+            // JavaMailSender sends an array over a single connected Transport
+            mailSender.send(byMime.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                byMime.values().forEach(m -> failures.put(m.getId(), e.getMessage()));
+            }
+            e.getFailedMessages().forEach((mime, cause) -> {
+                EmailOutboxMessage failed = byMime.get(mime);
+                if (failed != null) failures.put(failed.getId(), cause.getMessage());
+            });
+        } catch (MailException e) {
+            byMime.values().forEach(m -> failures.put(m.getId(), e.getMessage()));
+        }
+        return failures;
+    }
+
+    private void record(List<EmailOutboxMessage> messages, Map<Long, String> failures) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sent = new ArrayList<>();
+        List<EmailOutboxMessage> failed = new ArrayList<>();
+        for (EmailOutboxMessage message : messages) {
+            String error = failures.get(message.getId());
+            if (error == null) {
+                sent.add(message.getId());
+                continue;
+            }
+            int attempts = message.getAttempts() + 1;
+            message.setAttempts(attempts);
+            message.setClaimToken(null);
+            message.setLastError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            if (attempts >= maxAttempts) {
+                message.setStatus(EmailOutboxMessage.Status.FAILED);
+                log.error("Email {} to {} failed after {} attempts: {}", message.getId(),
+                        message.getToAddress(), attempts, error);
+            } else {
+                message.setNextAttemptAt(now.plusSeconds(backoffSeconds(attempts)));
+                log.warn("Email {} to {} failed (attempt {}), retrying: {}", message.getId(),
+                        message.getToAddress(), attempts, error);
+            }
+            failed.add(message);
+        }
+        if (!sent.isEmpty()) outboxRepository.markSent(sent, now);
+        if (!failed.isEmpty()) outboxRepository.saveAll(failed);
+    }
+
+    // Old delivery records; failed ones are kept for inspection
+    @Scheduled(cron = "0 30 2 * * *")
+    public void purgeSent() {
+        int purged = outboxRepository.purgeSentBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (purged > 0) log.info("Email outbox: purged {} sent messages", purged);
+    }
+
+    // ── HELPERS ───────────────────────────────────────────────────────────────
+
+    /** Groups by recipient domain, then cuts each group into connections of at most {@code perConnection}. */
+    static List<List<EmailOutboxMessage>> connections(List<EmailOutboxMessage> messages, int perConnection) {
+        Map<String, List<EmailOutboxMessage>> byDomain = new LinkedHashMap<>();
+        for (EmailOutboxMessage message : messages) {
+            byDomain.computeIfAbsent(domainOf(message.getToAddress()), d -> new ArrayList<>()).add(message);
+        }
+        List<List<EmailOutboxMessage>> connections = new ArrayList<>();
+        for (List<EmailOutboxMessage> domain : byDomain.values()) {
+            for (int i = 0; i < domain.size(); i += perConnection) {
+                connections.add(domain.subList(i, Math.min(i + perConnection, domain.size())));
+            }
+        }
+        return connections;
+    }
+
+    static String domainOf(String address) {
+        return address.substring(address.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    long backoffSeconds(int attempts) {
+        long delay = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        return Math.min(delay, backoffMaxSeconds);
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws MessagingException {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(message.getToAddress());
+        helper.setSubject(message.getSubject());
+        helper.setText(message.getHtmlBody(), true); // true = HTML
+        return mime;
+    }
+}
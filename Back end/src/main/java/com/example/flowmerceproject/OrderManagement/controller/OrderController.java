@@ -4,9 +4,11 @@ import com.example.flowmerceproject.CartManagement.dto.CartDTOs;
 import com.example.flowmerceproject.CartManagement.service.CartService;
 import com.example.flowmerceproject.CartManagement.service.CheckoutService;
 import com.example.flowmerceproject.OrderManagement.dto.OrderDTOs;
+import com.example.flowmerceproject.OrderManagement.entity.Order;
 import com.example.flowmerceproject.OrderManagement.service.OrderService;
 import com.example.flowmerceproject.PaymentManagement.dto.PaymentDTOs;
 import com.example.flowmerceproject.PaymentManagement.service.PaymentServiceImpl;
+import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
 import com.example.flowmerceproject.common.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -14,15 +16,19 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,6 +38,9 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OrderController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String HAS_MORE_HEADER = "X-Has-More";
+
     private final OrderService orderService;
     private final CheckoutService checkoutService;
     private final PaymentServiceImpl paymentService;
@@ -114,11 +123,20 @@ public class OrderController {
                 .build();
     }
 
-    // GET /orders/me
+    // GET /orders/me?cursor=&limit=&status=&from=&to=
+    // Newest first. With limit or cursor, one page per call and the next page's
+    // cursor is in X-Next-Cursor; with neither, every matching order.
     @GetMapping("/me")
     @PreAuthorize("hasRole('BUYER')")
-    public ResponseEntity<ApiResponse<List<OrderDTOs.OrderSummary>>> getMyOrders(Principal principal) {
-        return ResponseEntity.ok(ApiResponse.ok(orderService.getMyOrders(principal.getName())));
+    public ResponseEntity<ApiResponse<List<OrderDTOs.OrderSummary>>> getMyOrders(
+            Principal principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return summaryPage(orderService.getMyOrders(principal.getName(),
+                listQuery(cursor, limit, status, from, to)));
     }
 
     // GET /orders/{orderId}
@@ -158,24 +176,62 @@ public class OrderController {
 
     // ── MERCHANT ENDPOINTS ────────────────────────────────────────────────────
 
-    // GET /orders/store/{storeId}
+    // GET /orders/store/{storeId}?cursor=&limit=&status=&from=&to=
     @GetMapping("/store/{storeId}")
     @PreAuthorize("hasRole('MERCHANT')")
     public ResponseEntity<ApiResponse<List<OrderDTOs.OrderSummary>>> getStoreOrders(
             Principal principal,
-            @PathVariable Integer storeId) {
-        return ResponseEntity.ok(ApiResponse.ok(
-                orderService.getStoreOrders(principal.getName(), storeId)));
+            @PathVariable Integer storeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return summaryPage(orderService.getStoreOrders(principal.getName(), storeId,
+                listQuery(cursor, limit, status, from, to)));
     }
 
-    // GET /orders/store/{storeId}/customers — distinct customers who ordered from this store
+    private static OrderDTOs.OrderListQuery listQuery(String cursor, Integer limit, String status,
+                                                      LocalDateTime from, LocalDateTime to) {
+        return OrderDTOs.OrderListQuery.builder()
+                .cursor(cursor).limit(limit).status(parseStatus(status)).from(from).to(to)
+                .build();
+    }
+
+    // The frontend sends lowercase statuses and "all" for no filter
+    static Order.OrderStatus parseStatus(String status) {
+        if (status == null || status.isBlank() || status.equalsIgnoreCase("all")) return null;
+        try {
+            return Order.OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid order status: " + status);
+        }
+    }
+
+    // Body stays a plain array (existing clients keep working); the cursor rides in a header.
+    private static ResponseEntity<ApiResponse<List<OrderDTOs.OrderSummary>>> summaryPage(
+            OrderDTOs.OrderSummaryPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        return response.body(ApiResponse.ok(page.getItems()));
+    }
+
+    // GET /orders/store/{storeId}/customers?sort=SPEND|RECENT&page=&size=
+    // Distinct customers who ordered from this store; X-Has-More says whether page+1 exists.
+    // Without page and size, every customer in one response.
     @GetMapping("/store/{storeId}/customers")
     @PreAuthorize("hasRole('MERCHANT')")
     public ResponseEntity<ApiResponse<List<OrderDTOs.CustomerSummary>>> getStoreCustomers(
             Principal principal,
-            @PathVariable Integer storeId) {
-        return ResponseEntity.ok(ApiResponse.ok(
-                orderService.getStoreCustomers(principal.getName(), storeId)));
+            @PathVariable Integer storeId,
+            @RequestParam(defaultValue = "SPEND") OrderDTOs.CustomerSort sort,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        Slice<OrderDTOs.CustomerSummary> customers =
+                orderService.getStoreCustomers(principal.getName(), storeId, sort, page, size);
+        return ResponseEntity.ok()
+                .header(HAS_MORE_HEADER, String.valueOf(customers.hasNext()))
+                .body(ApiResponse.ok(customers.getContent()));
     }
 
     // GET /orders/store/{storeId}/{orderId} — full order detail for merchant
@@ -28,6 +28,23 @@ public class OrderDTOs {
         private String carrier;
     }
 
+    /**
+     * Filters and keyset cursor for GET /orders/me and /orders/store/{storeId}.
+     * All fields are optional; {@code from} is inclusive, {@code to} exclusive.
+     */
+    @Data
+    @Builder
+    public static class OrderListQuery {
+        private String cursor;
+        private Integer limit;
+        private Order.OrderStatus status;
+        private LocalDateTime from;
+        private LocalDateTime to;
+    }
+
+    // Ordering of GET /orders/store/{storeId}/customers
+    public enum CustomerSort { SPEND, RECENT }
+
     // ── RESPONSES
 
     @Data
@@ -79,6 +96,14 @@ public class OrderDTOs {
         private String customerName;
     }
 
+    @Data
+    @Builder
+    public static class OrderSummaryPage {
+        private List<OrderSummary> items;
+        // Pass back as ?cursor= to get the next page; null on the last page
+        private String nextCursor;
+    }
+
     @Data
     @Builder
     public static class CustomerSummary {
@@ -0,0 +1,52 @@
+package com.example.flowmerceproject.OrderManagement.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row per (store, customer): the aggregates behind the merchant's customer
+ * list, maintained incrementally from OrderChangedEvent so the list never has
+ * to scan the store's orders. Written only through the upserts in
+ * StoreCustomerStatsRepository.
+ */
+@Entity
+@Table(name = "store_customer_stats")
+@IdClass(StoreCustomerStats.Key.class)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class StoreCustomerStats {
+
+    @Id
+    @Column(name = "store_id")
+    private Integer storeId;
+
+    @Id
+    @Column(name = "customer_id")
+    private Integer customerId;
+
+    // All orders, cancelled included
+    @Column(name = "orders_count", nullable = false)
+    private Integer ordersCount;
+
+    // Sum of totals of orders that are not CANCELLED
+    @Column(name = "total_spent", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalSpent;
+
+    @Column(name = "last_order_date")
+    private LocalDateTime lastOrderDate;
+
+    @Column(name = "last_shipping_address", columnDefinition = "TEXT")
+    private String lastShippingAddress;
+
+    @Data
+    @NoArgsConstructor @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer storeId;
+        private Integer customerId;
+    }
+}
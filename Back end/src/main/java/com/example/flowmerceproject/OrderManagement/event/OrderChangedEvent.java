@@ -0,0 +1,50 @@
+package com.example.flowmerceproject.OrderManagement.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * In-process counterpart of the order.status.updated RabbitMQ message, carrying
+ * the ids and amounts that derived read models (store customer stats, sales analytics) need.
+ * Published by {@link OrderEventPublisher} inside the order's transaction;
+ * {@code oldStatus} is null when the order was just created. {@code lines} is
+ * only filled for a new order, whose items are already in memory.
+ */
+@Getter
+public class OrderChangedEvent extends ApplicationEvent {
+
+    private final Integer orderId;
+    private final Integer storeId;
+    private final Integer customerId;
+    private final BigDecimal total;
+    private final LocalDateTime orderDate;
+    private final String shippingAddress;
+    private final String oldStatus;
+    private final String newStatus;
+    private final List<Line> lines;
+
+    public record Line(Integer productId, int quantity) { }
+
+    public OrderChangedEvent(Object source, Integer orderId, Integer storeId, Integer customerId,
+                             BigDecimal total, LocalDateTime orderDate, String shippingAddress,
+                             String oldStatus, String newStatus, List<Line> lines) {
+        super(source);
+        this.orderId         = orderId;
+        this.storeId         = storeId;
+        this.customerId      = customerId;
+        this.total           = total;
+        this.orderDate       = orderDate;
+        this.shippingAddress = shippingAddress;
+        this.oldStatus       = oldStatus;
+        this.newStatus       = newStatus;
+        this.lines           = lines;
+    }
+
+    public boolean isCreated() {
+        return oldStatus == null;
+    }
+}
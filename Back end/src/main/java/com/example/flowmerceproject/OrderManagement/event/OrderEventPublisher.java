@@ -9,9 +9,11 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -19,6 +21,7 @@ import java.time.LocalDateTime;
 public class OrderEventPublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
     public static class OrderEvent {
@@ -31,8 +34,19 @@ public class OrderEventPublisher {
         private LocalDateTime occurredAt;
     }
 
+    // New orders only feed in-process read models; notifications start at the
+    // first status change, so nothing goes to RabbitMQ here.
+    public void publishCreated(Order order) {
+        List<OrderChangedEvent.Line> lines = order.getItems().stream()
+                .map(i -> new OrderChangedEvent.Line(i.getProduct().getProductId(), i.getQuantity()))
+                .toList();
+        applicationEventPublisher.publishEvent(changedEvent(order, null, lines));
+    }
+
     public void publishStatusChanged(Order order, String oldStatus,
                                      String customerEmail, String merchantEmail) {
+        applicationEventPublisher.publishEvent(changedEvent(order, oldStatus, List.of()));
+
         OrderEvent event = OrderEvent.builder()
                 .orderId(order.getOrderId())
                 .customerEmail(customerEmail)
@@ -54,4 +68,12 @@ public class OrderEventPublisher {
                     order.getOrderId(), e.getMessage());
         }
     }
+
+    private OrderChangedEvent changedEvent(Order order, String oldStatus,
+                                           List<OrderChangedEvent.Line> lines) {
+        return new OrderChangedEvent(this, order.getOrderId(),
+                order.getStore().getStoreId(), order.getCustomer().getCustomerId(),
+                order.getTotal(), order.getOrderDate(), order.getShippingAddress(),
+                oldStatus, order.getStatus().name(), lines);
+    }
 }
@@ -2,6 +2,8 @@ package com.example.flowmerceproject.OrderManagement.repository;
 
 import com.example.flowmerceproject.OrderManagement.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +11,9 @@ import java.util.List;
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Integer> {
     List<OrderItem> findByOrder_OrderId(Integer orderId);
+
+    // Units per product of one order, without loading the items.
+    @Query("SELECT i.product.productId AS productId, SUM(i.quantity) AS units FROM OrderItem i " +
+            "WHERE i.order.orderId = :orderId GROUP BY i.product.productId")
+    List<ProductUnitsView> sumUnitsByProduct(@Param("orderId") Integer orderId);
 }
\ No newline at end of file
@@ -1,11 +1,16 @@
 package com.example.flowmerceproject.OrderManagement.repository;
 
 import com.example.flowmerceproject.OrderManagement.entity.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +23,63 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     // Merchant views orders for their store
     List<Order> findByStore_StoreIdOrderByOrderDateDesc(Integer storeId);
 
+    // Keyset-paginated list rows, newest first. Every parameter is always bound
+    // (the service substitutes open bounds for absent filters) so each query has
+    // a single plan that walks idx_orders_store_date / idx_orders_customer_date.
+    // The cursor is the (orderDate, orderId) of the last row of the previous page.
+    String SUMMARY_SELECT = "SELECT o.orderId AS orderId, o.status AS status, o.total AS total, " +
+            "o.orderDate AS orderDate, s.storeName AS storeName, " +
+            "o.shippingAddress AS shippingAddress, SIZE(o.items) AS itemCount " +
+            "FROM Order o JOIN o.store s ";
+    String SUMMARY_FILTER = "AND o.status IN :statuses " +
+            "AND o.orderDate >= :from AND o.orderDate < :to " +
+            "AND (o.orderDate < :cursorDate OR (o.orderDate = :cursorDate AND o.orderId < :cursorId)) " +
+            "ORDER BY o.orderDate DESC, o.orderId DESC";
+
+    @Query(SUMMARY_SELECT + "WHERE s.storeId = :storeId " + SUMMARY_FILTER)
+    List<OrderSummaryView> findStoreOrderSummaries(@Param("storeId") Integer storeId,
+                                                   @Param("statuses") Collection<Order.OrderStatus> statuses,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to,
+                                                   @Param("cursorDate") LocalDateTime cursorDate,
+                                                   @Param("cursorId") Integer cursorId,
+                                                   Limit limit);
+
+    @Query(SUMMARY_SELECT + "WHERE o.customer.customerId = :customerId " + SUMMARY_FILTER)
+    List<OrderSummaryView> findCustomerOrderSummaries(@Param("customerId") Integer customerId,
+                                                      @Param("statuses") Collection<Order.OrderStatus> statuses,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to,
+                                                      @Param("cursorDate") LocalDateTime cursorDate,
+                                                      @Param("cursorId") Integer cursorId,
+                                                      Limit limit);
+
+    // One row per customer of a store, aggregated in SQL: order count, spend on
+    // non-cancelled orders, latest order date, and the shipping address of the
+    // latest order (FIRST_VALUE over the customer's orders, newest first).
+    // Used when the store_customer_stats read model is disabled.
+    String CUSTOMER_AGGREGATE = "SELECT a.customer_id AS \"customerId\", u.full_name AS \"name\", " +
+            "u.email AS \"email\", u.phone AS \"phone\", u.created_at AS \"joinDate\", " +
+            "a.orders_count AS \"ordersCount\", a.total_spent AS \"totalSpent\", " +
+            "a.last_order_date AS \"lastOrderDate\", a.last_shipping_address AS \"lastShippingAddress\" " +
+            "FROM (SELECT o.customer_id, COUNT(*) AS orders_count, " +
+            "        COALESCE(SUM(o.total) FILTER (WHERE o.status <> 'CANCELLED'), 0) AS total_spent, " +
+            "        MAX(o.order_date) AS last_order_date, MAX(o.last_address) AS last_shipping_address " +
+            "      FROM (SELECT customer_id, total, status, order_date, " +
+            "              FIRST_VALUE(shipping_address) OVER (PARTITION BY customer_id " +
+            "                  ORDER BY order_date DESC NULLS LAST, order_id DESC) AS last_address " +
+            "            FROM orders WHERE store_id = :storeId) o " +
+            "      GROUP BY o.customer_id) a " +
+            "JOIN customers c ON c.customer_id = a.customer_id " +
+            "JOIN users u ON u.user_id = c.user_id ";
+
+    @Query(value = CUSTOMER_AGGREGATE + "ORDER BY a.total_spent DESC, a.customer_id", nativeQuery = true)
+    Slice<StoreCustomerView> findStoreCustomersBySpend(@Param("storeId") Integer storeId, Pageable pageable);
+
+    @Query(value = CUSTOMER_AGGREGATE + "ORDER BY a.last_order_date DESC NULLS LAST, a.customer_id",
+            nativeQuery = true)
+    Slice<StoreCustomerView> findStoreCustomersByRecency(@Param("storeId") Integer storeId, Pageable pageable);
+
     // Filter by status
     List<Order> findByStore_StoreIdAndStatus(Integer storeId, Order.OrderStatus status);
 
@@ -0,0 +1,20 @@
+package com.example.flowmerceproject.OrderManagement.repository;
+
+import com.example.flowmerceproject.OrderManagement.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Closed projection of the columns an order list row needs, so list queries
+ * select them directly instead of hydrating Order and its lazy associations.
+ */
+public interface OrderSummaryView {
+    Integer getOrderId();
+    Order.OrderStatus getStatus();
+    BigDecimal getTotal();
+    LocalDateTime getOrderDate();
+    String getStoreName();
+    String getShippingAddress();
+    Integer getItemCount();
+}
@@ -0,0 +1,6 @@
+package com.example.flowmerceproject.OrderManagement.repository;
+
+public interface ProductUnitsView {
+    Integer getProductId();
+    Long getUnits();
+}
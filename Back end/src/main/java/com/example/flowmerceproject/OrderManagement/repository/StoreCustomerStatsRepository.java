@@ -0,0 +1,84 @@
+package com.example.flowmerceproject.OrderManagement.repository;
+
+import com.example.flowmerceproject.OrderManagement.entity.StoreCustomerStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface StoreCustomerStatsRepository
+        extends JpaRepository<StoreCustomerStats, StoreCustomerStats.Key> {
+
+    String CUSTOMER_LIST = "SELECT s.customer_id AS \"customerId\", u.full_name AS \"name\", " +
+            "u.email AS \"email\", u.phone AS \"phone\", u.created_at AS \"joinDate\", " +
+            "s.orders_count AS \"ordersCount\", s.total_spent AS \"totalSpent\", " +
+            "s.last_order_date AS \"lastOrderDate\", s.last_shipping_address AS \"lastShippingAddress\" " +
+            "FROM store_customer_stats s " +
+            "JOIN customers c ON c.customer_id = s.customer_id " +
+            "JOIN users u ON u.user_id = c.user_id " +
+            "WHERE s.store_id = :storeId ";
+
+    // Both walk an index on (store_id, <sort column> DESC) — see schema.sql.
+    @Query(value = CUSTOMER_LIST + "ORDER BY s.total_spent DESC, s.customer_id", nativeQuery = true)
+    Slice<StoreCustomerView> findByStoreOrderBySpend(@Param("storeId") Integer storeId, Pageable pageable);
+
+    @Query(value = CUSTOMER_LIST + "ORDER BY s.last_order_date DESC NULLS LAST, s.customer_id", nativeQuery = true)
+    Slice<StoreCustomerView> findByStoreOrderByRecency(@Param("storeId") Integer storeId, Pageable pageable);
+
+    // A new order: one more order, its total (0 if created cancelled), and the
+    // latest order date / shipping address if it is the newest one.
+    @Modifying
+    @Query(value = "INSERT INTO store_customer_stats AS s " +
+            "(store_id, customer_id, orders_count, total_spent, last_order_date, last_shipping_address) " +
+            "VALUES (:storeId, :customerId, 1, :spent, :orderDate, :address) " +
+            "ON CONFLICT (store_id, customer_id) DO UPDATE SET " +
+            "orders_count = s.orders_count + 1, " +
+            "total_spent = s.total_spent + EXCLUDED.total_spent, " +
+            "last_shipping_address = CASE WHEN s.last_order_date IS NULL " +
+            "  OR EXCLUDED.last_order_date >= s.last_order_date " +
+            "  THEN EXCLUDED.last_shipping_address ELSE s.last_shipping_address END, " +
+            "last_order_date = GREATEST(s.last_order_date, EXCLUDED.last_order_date)",
+            nativeQuery = true)
+    void recordOrder(@Param("storeId") Integer storeId,
+                     @Param("customerId") Integer customerId,
+                     @Param("spent") BigDecimal spent,
+                     @Param("orderDate") LocalDateTime orderDate,
+                     @Param("address") String address);
+
+    @Modifying
+    @Query(value = "UPDATE store_customer_stats SET total_spent = total_spent + :delta " +
+            "WHERE store_id = :storeId AND customer_id = :customerId", nativeQuery = true)
+    void addSpent(@Param("storeId") Integer storeId,
+                  @Param("customerId") Integer customerId,
+                  @Param("delta") BigDecimal delta);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM store_customer_stats)", nativeQuery = true)
+    boolean hasAnyRows();
+
+    // Recomputes every row from the orders table (same aggregate as
+    // OrderRepository.CUSTOMER_AGGREGATE, for all stores at once).
+    @Modifying
+    @Query(value = "INSERT INTO store_customer_stats " +
+            "(store_id, customer_id, orders_count, total_spent, last_order_date, last_shipping_address) " +
+            "SELECT o.store_id, o.customer_id, COUNT(*), " +
+            "COALESCE(SUM(o.total) FILTER (WHERE o.status <> 'CANCELLED'), 0), " +
+            "MAX(o.order_date), MAX(o.last_address) " +
+            "FROM (SELECT store_id, customer_id, total, status, order_date, " +
+            "        FIRST_VALUE(shipping_address) OVER (PARTITION BY store_id, customer_id " +
+            "            ORDER BY order_date DESC NULLS LAST, order_id DESC) AS last_address " +
+            "      FROM orders) o " +
+            "GROUP BY o.store_id, o.customer_id " +
+            "ON CONFLICT (store_id, customer_id) DO UPDATE SET " +
+            "orders_count = EXCLUDED.orders_count, total_spent = EXCLUDED.total_spent, " +
+            "last_order_date = EXCLUDED.last_order_date, " +
+            "last_shipping_address = EXCLUDED.last_shipping_address",
+            nativeQuery = true)
+    int rebuildAll();
+}
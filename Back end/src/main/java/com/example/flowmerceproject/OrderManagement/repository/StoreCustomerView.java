@@ -0,0 +1,20 @@
+package com.example.flowmerceproject.OrderManagement.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a store's customer list, as selected by the aggregate queries in
+ * OrderRepository and StoreCustomerStatsRepository.
+ */
+public interface StoreCustomerView {
+    Integer getCustomerId();
+    String getName();
+    String getEmail();
+    String getPhone();
+    LocalDateTime getJoinDate();
+    Integer getOrdersCount();
+    BigDecimal getTotalSpent();
+    LocalDateTime getLastOrderDate();
+    String getLastShippingAddress();
+}
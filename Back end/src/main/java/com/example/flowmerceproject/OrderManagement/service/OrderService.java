@@ -1,5 +1,6 @@
 package com.example.flowmerceproject.OrderManagement.service;
 
+import com.example.flowmerceproject.CartManagement.dto.CartDTOs;
 import com.example.flowmerceproject.CartManagement.service.CheckoutService;
 import com.example.flowmerceproject.CartManagement.service.CheckoutService.CheckoutSummary;
 import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
@@ -9,6 +10,9 @@ import com.example.flowmerceproject.OrderManagement.entity.Order;
 import com.example.flowmerceproject.OrderManagement.entity.OrderItem;
 import com.example.flowmerceproject.OrderManagement.repository.InvoiceRepository;
 import com.example.flowmerceproject.OrderManagement.repository.OrderRepository;
+import com.example.flowmerceproject.OrderManagement.repository.OrderSummaryView;
+import com.example.flowmerceproject.OrderManagement.repository.StoreCustomerStatsRepository;
+import com.example.flowmerceproject.OrderManagement.repository.StoreCustomerView;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
 import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
 import com.example.flowmerceproject.StoreMangement.entity.Store;
@@ -30,18 +34,27 @@ import com.example.flowmerceproject.ShippingManagement.service.ShippingService;
 import com.example.flowmerceproject.UserManagement.service.SseService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -64,18 +77,30 @@ public class OrderService {
     private final PaymentServiceImpl paymentService;
     private final ShippingService shippingService;
     private final StringRedisTemplate redisTemplate;
+    private final StoreCustomerStatsRepository storeCustomerStatsRepository;
+    private final StoreCustomerStatsService storeCustomerStatsService;
 
     private static final String ORDER_IDEMPOTENCY_PREFIX = "order:idempotency:";
     private static final Duration ORDER_IDEMPOTENCY_TTL = Duration.ofHours(24);
 
+    private static final int DEFAULT_LIST_LIMIT = 50;
+    private static final int MAX_LIST_LIMIT = 200;
+    private static final int UNPAGED = Integer.MAX_VALUE;
+    private static final LocalDateTime LIST_OPEN_FROM = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LIST_OPEN_TO = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     // ── CREATE ORDER ────────────────────────────────────────────────────────────
     // Called after checkout reserves stock. Stock is confirmed (permanently
     // deducted) exactly once — inside checkoutService.confirmOrder().
     //
+    // Bulk write path: products are loaded with one findAllById, and ids come
+    // from pooled sequences, so the order, its items and the invoice are
+    // written in a single flush as batched INSERTs (hibernate.jdbc.batch_size).
+    //
     // idempotencyKey is persisted with a DB-level UNIQUE constraint: if two
     // near-simultaneous requests for the same checkout both pass the caller's
     // Redis fast-path check (findOrderByIdempotencyKey), the second one's
-    // orderRepository.save() below throws DataIntegrityViolationException —
+    // orderRepository.flush() below throws DataIntegrityViolationException —
     // the caller (OrderController.placeOrder) catches that, releases the stock
     // this attempt just reserved, and returns the winning request's order instead.
     @Transactional
@@ -91,6 +116,12 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Store not found: " + checkoutSummary.getStoreId()));
 
+        Set<Integer> productIds = checkoutSummary.getItems().stream()
+                .map(CartDTOs.CartItemResponse::getProductId)
+                .collect(Collectors.toSet());
+        Map<Integer, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+
         Order order = Order.builder()
                 .customer(customer)
                 .store(store)
@@ -105,13 +136,12 @@ public class OrderService {
                 .idempotencyKey(idempotencyKey)
                 .build();
 
-        orderRepository.save(order);
-
         List<OrderItem> orderItems = checkoutSummary.getItems().stream()
                 .map(cartItem -> {
-                    Product product = productRepository.findById(cartItem.getProductId())
-                            .orElseThrow(() -> new ResourceNotFoundException(
-                                    "Product not found: " + cartItem.getProductId()));
+                    Product product = products.get(cartItem.getProductId());
+                    if (product == null) {
+                        throw new ResourceNotFoundException("Product not found: " + cartItem.getProductId());
+                    }
                     return OrderItem.builder()
                             .order(order)
                             .product(product)
@@ -122,11 +152,14 @@ public class OrderService {
                             .build();
                 })
                 .collect(Collectors.toList());
-
         order.setItems(orderItems);
-        orderRepository.save(order);
 
+        // persist assigns orderId from the sequence without an INSERT, which
+        // the invoice number needs; everything is written by the flush below.
+        orderRepository.save(order);
         Invoice invoice = generateInvoice(order);
+        orderRepository.flush();
+        orderEventPublisher.publishCreated(order);
 
         // Confirm stock permanently and clear cart — single call, no duplication
         checkoutService.confirmOrder(checkoutSummary.getCartId());
@@ -177,14 +210,14 @@ public class OrderService {
     }
 
     // ── CUSTOMER: MY ORDERS ─────────────────────────────────────────────────────
+    // Keyset-paginated on (orderDate, orderId), newest first — see listKeyset.
     @Transactional(readOnly = true)
-    public List<OrderDTOs.OrderSummary> getMyOrders(String email) {
+    public OrderDTOs.OrderSummaryPage getMyOrders(String email, OrderDTOs.OrderListQuery query) {
         Customer customer = getCustomerByEmail(email);
-        return orderRepository
-                .findByCustomer_CustomerIdOrderByOrderDateDesc(customer.getCustomerId())
-                .stream()
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        Keyset k = listKeyset(query);
+        return toSummaryPage(orderRepository.findCustomerOrderSummaries(
+                customer.getCustomerId(), k.statuses(), k.from(), k.to(),
+                k.cursorDate(), k.cursorId(), k.fetchLimit()), k.limit());
     }
 
     // ── CUSTOMER: ORDER DETAILS ─────────────────────────────────────────────────
@@ -203,55 +236,111 @@ public class OrderService {
 
     // ── MERCHANT: STORE ORDER LIST ──────────────────────────────────────────────
     @Transactional(readOnly = true)
-    public List<OrderDTOs.OrderSummary> getStoreOrders(String email, Integer storeId) {
+    public OrderDTOs.OrderSummaryPage getStoreOrders(String email, Integer storeId,
+                                                     OrderDTOs.OrderListQuery query) {
         verifyMerchantOwnsStore(email, storeId);
-        return orderRepository
-                .findByStore_StoreIdOrderByOrderDateDesc(storeId)
-                .stream()
-                .map(this::toSummary)
-                .collect(Collectors.toList());
+        Keyset k = listKeyset(query);
+        return toSummaryPage(orderRepository.findStoreOrderSummaries(
+                storeId, k.statuses(), k.from(), k.to(),
+                k.cursorDate(), k.cursorId(), k.fetchLimit()), k.limit());
     }
 
-    // ── MERCHANT: STORE CUSTOMER LIST ───────────────────────────────────────────
-    // One row per distinct customer who has ordered from this store, aggregated
-    // server-side (orders count, lifetime spend, last order) — replaces the old
-    // frontend-only derivation that had no access to customer email/name.
-    @Transactional(readOnly = true)
-    public List<OrderDTOs.CustomerSummary> getStoreCustomers(String email, Integer storeId) {
-        verifyMerchantOwnsStore(email, storeId);
-        List<Order> orders = orderRepository.findByStore_StoreIdOrderByOrderDateDesc(storeId);
+    // ── LIST PAGINATION ─────────────────────────────────────────────────────────
+    // Absent filters become open bounds so the repository queries always bind
+    // the same parameters. The cursor is an opaque base64url "orderDate|orderId"
+    // of the last row returned; one extra row is fetched to know if there is a
+    // next page without a COUNT.
+    // A query with neither limit nor cursor is unpaged — the whole filtered
+    // list, as before pagination, for callers that don't follow the cursor.
+    private record Keyset(Set<Order.OrderStatus> statuses, LocalDateTime from, LocalDateTime to,
+                          LocalDateTime cursorDate, Integer cursorId, int limit) {
+        Limit fetchLimit() {
+            return limit == UNPAGED ? Limit.unlimited() : Limit.of(limit + 1);
+        }
+    }
 
-        return orders.stream()
-                .collect(Collectors.groupingBy(o -> o.getCustomer().getCustomerId()))
-                .values().stream()
-                .map(this::toCustomerSummary)
-                .sorted(java.util.Comparator.comparing(OrderDTOs.CustomerSummary::getTotalSpent).reversed())
-                .collect(Collectors.toList());
+    private Keyset listKeyset(OrderDTOs.OrderListQuery query) {
+        if (query == null) query = OrderDTOs.OrderListQuery.builder().build();
+        boolean paged = query.getLimit() != null
+                || (query.getCursor() != null && !query.getCursor().isBlank());
+        int limit = !paged ? UNPAGED
+                : query.getLimit() == null ? DEFAULT_LIST_LIMIT
+                : Math.max(1, Math.min(query.getLimit(), MAX_LIST_LIMIT));
+        Set<Order.OrderStatus> statuses = query.getStatus() == null
+                ? EnumSet.allOf(Order.OrderStatus.class) : EnumSet.of(query.getStatus());
+        LocalDateTime from = query.getFrom() != null ? query.getFrom() : LIST_OPEN_FROM;
+        LocalDateTime to = query.getTo() != null ? query.getTo() : LIST_OPEN_TO;
+
+        LocalDateTime cursorDate = to;
+        Integer cursorId = Integer.MAX_VALUE;
+        if (query.getCursor() != null && !query.getCursor().isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(query.getCursor()),
+                        StandardCharsets.UTF_8).split("\\|", 2);
+                cursorDate = LocalDateTime.parse(parts[0]);
+                cursorId = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid cursor.");
+            }
+        }
+        return new Keyset(statuses, from, to, cursorDate, cursorId, limit);
     }
 
-    private OrderDTOs.CustomerSummary toCustomerSummary(List<Order> customerOrders) {
-        List<Order> sorted = customerOrders.stream()
-                .sorted(java.util.Comparator.comparing(Order::getOrderDate).reversed())
-                .collect(Collectors.toList());
-        Order latest = sorted.get(0);
-        Customer customer = latest.getCustomer();
-        User user = customer.getUser();
+    private OrderDTOs.OrderSummaryPage toSummaryPage(List<OrderSummaryView> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<OrderSummaryView> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            OrderSummaryView last = page.get(page.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getOrderDate() + "|" + last.getOrderId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return OrderDTOs.OrderSummaryPage.builder()
+                .items(page.stream().map(this::toSummary).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        BigDecimal totalSpent = sorted.stream()
-                .filter(o -> o.getStatus() != Order.OrderStatus.CANCELLED)
-                .map(Order::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    // ── MERCHANT: STORE CUSTOMER LIST ───────────────────────────────────────────
+    // One row per distinct customer who has ordered from this store (orders
+    // count, lifetime spend, last order), one page at a time — or all of them
+    // when neither page nor size is given. Read from the store_customer_stats
+    // read model when it is enabled, otherwise aggregated by a single GROUP BY
+    // over the store's orders — never in Java.
+    @Transactional(readOnly = true)
+    public Slice<OrderDTOs.CustomerSummary> getStoreCustomers(String email, Integer storeId,
+                                                              OrderDTOs.CustomerSort sort,
+                                                              Integer page, Integer size) {
+        verifyMerchantOwnsStore(email, storeId);
+        Pageable pageable = page == null && size == null ? Pageable.unpaged()
+                : PageRequest.of(page == null ? 0 : Math.max(page, 0),
+                        size == null ? DEFAULT_LIST_LIMIT : Math.max(1, Math.min(size, MAX_LIST_LIMIT)));
+        boolean byRecency = sort == OrderDTOs.CustomerSort.RECENT;
+
+        Slice<StoreCustomerView> rows;
+        if (storeCustomerStatsService.isEnabled()) {
+            rows = byRecency
+                    ? storeCustomerStatsRepository.findByStoreOrderByRecency(storeId, pageable)
+                    : storeCustomerStatsRepository.findByStoreOrderBySpend(storeId, pageable);
+        } else {
+            rows = byRecency
+                    ? orderRepository.findStoreCustomersByRecency(storeId, pageable)
+                    : orderRepository.findStoreCustomersBySpend(storeId, pageable);
+        }
+        return rows.map(this::toCustomerSummary);
+    }
 
+    private OrderDTOs.CustomerSummary toCustomerSummary(StoreCustomerView row) {
         return OrderDTOs.CustomerSummary.builder()
-                .customerId(customer.getCustomerId())
-                .name(user.getFullName())
-                .email(user.getEmail())
-                .phone(user.getPhone())
-                .lastShippingAddress(latest.getShippingAddress())
-                .ordersCount(sorted.size())
-                .totalSpent(totalSpent)
-                .lastOrderDate(latest.getOrderDate())
-                .joinDate(user.getCreatedAt())
+                .customerId(row.getCustomerId())
+                .name(row.getName())
+                .email(row.getEmail())
+                .phone(row.getPhone())
+                .lastShippingAddress(row.getLastShippingAddress())
+                .ordersCount(row.getOrdersCount() != null ? row.getOrdersCount() : 0)
+                .totalSpent(row.getTotalSpent() != null ? row.getTotalSpent() : BigDecimal.ZERO)
+                .lastOrderDate(row.getLastOrderDate())
+                .joinDate(row.getJoinDate())
                 .build();
     }
 
@@ -366,7 +455,8 @@ public class OrderService {
                 .invoiceNumber(invoiceNumber)
                 .build();
 
-        invoiceRepository.save(invoice);
+        order.setInvoice(invoice);
+        invoice = invoiceRepository.save(invoice);
 
         log.info("Invoice generated: {} for orderId={}", invoiceNumber, order.getOrderId());
         return invoice;
@@ -489,6 +579,18 @@ public class OrderService {
                 .toList();
     }
 
+    private OrderDTOs.OrderSummary toSummary(OrderSummaryView row) {
+        return OrderDTOs.OrderSummary.builder()
+                .orderId(row.getOrderId())
+                .status(row.getStatus())
+                .total(row.getTotal())
+                .itemCount(row.getItemCount() != null ? row.getItemCount() : 0)
+                .orderDate(row.getOrderDate())
+                .storeName(row.getStoreName())
+                .customerName(extractFullName(row.getShippingAddress()))
+                .build();
+    }
+
     private OrderDTOs.OrderSummary toSummary(Order order) {
         return OrderDTOs.OrderSummary.builder()
                 .orderId(order.getOrderId())
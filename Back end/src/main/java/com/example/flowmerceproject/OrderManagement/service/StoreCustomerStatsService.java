@@ -0,0 +1,79 @@
+package com.example.flowmerceproject.OrderManagement.service;
+
+import com.example.flowmerceproject.OrderManagement.entity.Order;
+import com.example.flowmerceproject.OrderManagement.event.OrderChangedEvent;
+import com.example.flowmerceproject.OrderManagement.repository.StoreCustomerStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+
+/**
+ * Maintains store_customer_stats, the read model behind the merchant customer
+ * list, from OrderChangedEvent.
+ *
+ * Updates run BEFORE_COMMIT, i.e. in the same transaction as the order write,
+ * as single-statement upserts — the stats can't drift from a rolled-back
+ * order, and concurrent orders of one customer just serialize on the row.
+ *
+ * Disabled with {@code app.orders.customer-stats.enabled=false}; the customer
+ * list then falls back to aggregating the orders table directly.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StoreCustomerStatsService {
+
+    private static final String CANCELLED = Order.OrderStatus.CANCELLED.name();
+
+    private final StoreCustomerStatsRepository statsRepository;
+
+    @Value("${app.orders.customer-stats.enabled:true}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!enabled) return;
+        BigDecimal total = event.getTotal() != null ? event.getTotal() : BigDecimal.ZERO;
+
+        if (event.isCreated()) {
+            statsRepository.recordOrder(event.getStoreId(), event.getCustomerId(),
+                    CANCELLED.equals(event.getNewStatus()) ? BigDecimal.ZERO : total,
+                    event.getOrderDate(), event.getShippingAddress());
+        } else if (CANCELLED.equals(event.getNewStatus()) && !CANCELLED.equals(event.getOldStatus())) {
+            statsRepository.addSpent(event.getStoreId(), event.getCustomerId(), total.negate());
+        }
+    }
+
+    /**
+     * Seeds the table from the orders table the first time the read model is
+     * switched on. An order committed while the seed statement runs may be
+     * counted from its snapshot rather than its event; {@link #rebuild()}
+     * reconciles that.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillIfEmpty() {
+        if (!enabled || statsRepository.hasAnyRows()) return;
+        log.info("store_customer_stats is empty — backfilling from orders");
+        rebuild();
+    }
+
+    @Transactional
+    public int rebuild() {
+        int rows = statsRepository.rebuildAll();
+        log.info("store_customer_stats rebuilt: {} (store, customer) rows", rows);
+        return rows;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.flowmerceproject.PaymentManagement.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * In-process counterpart of the payment.* RabbitMQ messages, carrying the
+ * order's store and order date so read models (sales analytics) can attribute
+ * the payment without loading the order again. Published by
+ * {@link PaymentEventPublisher} inside the payment's transaction.
+ */
+@Getter
+public class PaymentChangedEvent extends ApplicationEvent {
+
+    private final Integer paymentId;
+    private final Integer orderId;
+    private final Integer storeId;
+    private final LocalDateTime orderDate;
+    private final BigDecimal amount;
+    private final String status;
+
+    public PaymentChangedEvent(Object source, Integer paymentId, Integer orderId, Integer storeId,
+                               LocalDateTime orderDate, BigDecimal amount, String status) {
+        super(source);
+        this.paymentId = paymentId;
+        this.orderId   = orderId;
+        this.storeId   = storeId;
+        this.orderDate = orderDate;
+        this.amount    = amount;
+        this.status    = status;
+    }
+}
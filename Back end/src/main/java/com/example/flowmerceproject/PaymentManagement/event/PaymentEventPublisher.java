@@ -1,5 +1,6 @@
 package com.example.flowmerceproject.PaymentManagement.event;
 
+import com.example.flowmerceproject.OrderManagement.entity.Order;
 import com.example.flowmerceproject.PaymentManagement.config.PaymentRabbitMQConfig;
 import com.example.flowmerceproject.PaymentManagement.entity.Payment;
 import lombok.AllArgsConstructor;
@@ -9,6 +10,7 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -20,6 +22,7 @@ import java.time.LocalDateTime;
 public class PaymentEventPublisher {
 
     private final RabbitTemplate rabbitTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Data @Builder @NoArgsConstructor @AllArgsConstructor
     public static class PaymentEvent {
@@ -59,9 +62,14 @@ public class PaymentEventPublisher {
 
     private void publish(String routingKey, Payment payment,
                          String customerEmail, String merchantEmail) {
+        Order order = payment.getOrder();
+        applicationEventPublisher.publishEvent(new PaymentChangedEvent(this,
+                payment.getPaymentId(), order.getOrderId(), order.getStore().getStoreId(),
+                order.getOrderDate(), payment.getAmount(), payment.getPaymentStatus().name()));
+
         PaymentEvent event = PaymentEvent.builder()
                 .paymentId(payment.getPaymentId())
-                .orderId(payment.getOrder().getOrderId())
+                .orderId(order.getOrderId())
                 .customerEmail(customerEmail)
                 .merchantEmail(merchantEmail)
                 .amount(payment.getAmount())
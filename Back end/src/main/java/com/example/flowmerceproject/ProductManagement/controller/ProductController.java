@@ -5,11 +5,13 @@ import com.example.flowmerceproject.ProductManagement.service.ProductService;
 import com.example.flowmerceproject.common.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.security.Principal;
 import java.util.List;
 
@@ -18,6 +20,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProductController {
 
+    static final String HAS_MORE_HEADER = "X-Has-More";
+
     private final ProductService productService;
 
     @PostMapping
@@ -85,12 +89,32 @@ public class ProductController {
                 productService.deleteProduct(principal.getName(), storeId, productId)));
     }
 
+    // GET /stores/{storeId}/products/search?keyword=&categoryId=&minPrice=&maxPrice=&page=&size=
+    // Best matches first; X-Has-More says whether page+1 exists. No page or size: every match.
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<List<ProductDTOs.ProductResponse>>> search(
             @PathVariable Integer storeId,
-            @RequestParam String keyword) {
+            @RequestParam String keyword,
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
         // INT-1: pass storeId so search is scoped to this store only.
-        return ResponseEntity.ok(ApiResponse.ok(productService.searchProducts(keyword, storeId)));
+        Slice<ProductDTOs.ProductResponse> results = productService.searchProducts(
+                keyword, storeId, categoryId, minPrice, maxPrice, page, size);
+        return ResponseEntity.ok()
+                .header(HAS_MORE_HEADER, String.valueOf(results.hasNext()))
+                .body(ApiResponse.ok(results.getContent()));
+    }
+
+    // GET /stores/{storeId}/products/search/facets?keyword=
+    // Match counts per category and price band, for building search filters.
+    @GetMapping("/search/facets")
+    public ResponseEntity<ApiResponse<ProductDTOs.SearchFacets>> searchFacets(
+            @PathVariable Integer storeId,
+            @RequestParam String keyword) {
+        return ResponseEntity.ok(ApiResponse.ok(productService.searchFacets(keyword, storeId)));
     }
 
     @PostMapping("/{productId}/media")
@@ -74,4 +74,36 @@ public class ProductDTOs {
         private String mediaType = "IMAGE";
         private String altText;
     }
+
+    /** One storefront typeahead hit. */
+    @Data
+    @Builder
+    public static class Suggestion {
+        private Integer productId;
+        private String name;
+    }
+
+    /** Facet counts for a search keyword, before any category/price filter. */
+    @Data
+    @Builder
+    public static class SearchFacets {
+        private List<CategoryFacet> categories;
+        private List<PriceBandFacet> priceBands;
+    }
+
+    @Data
+    @Builder
+    public static class CategoryFacet {
+        private Integer categoryId;   // null = uncategorized
+        private String name;
+        private long count;
+    }
+
+    @Data
+    @Builder
+    public static class PriceBandFacet {
+        private BigDecimal minPrice;  // inclusive
+        private BigDecimal maxPrice;  // exclusive, null = no upper bound
+        private long count;
+    }
 }
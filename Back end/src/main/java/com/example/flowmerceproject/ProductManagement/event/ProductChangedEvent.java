@@ -0,0 +1,23 @@
+package com.example.flowmerceproject.ProductManagement.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction that creates, edits, toggles or deletes a
+ * product, or changes its review rating — or renames or deletes a category,
+ * for the products filed under it.
+ * Carries only ids; listeners re-read what they need after commit.
+ */
+@Getter
+public class ProductChangedEvent extends ApplicationEvent {
+
+    private final List<Integer> productIds;
+
+    public ProductChangedEvent(Object source, List<Integer> productIds) {
+        super(source);
+        this.productIds = productIds;
+    }
+}
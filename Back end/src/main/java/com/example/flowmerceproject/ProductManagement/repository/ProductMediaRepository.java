@@ -2,6 +2,8 @@ package com.example.flowmerceproject.ProductManagement.repository;
 
 import com.example.flowmerceproject.ProductManagement.entity.ProductMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,4 +11,7 @@ import java.util.List;
 @Repository
 public interface ProductMediaRepository extends JpaRepository<ProductMedia, Integer> {
     List<ProductMedia> findByProduct_ProductId(Integer productId);
+
+    @Query("SELECT DISTINCT m.product.productId FROM ProductMedia m WHERE m.mediaUrl = :mediaUrl")
+    List<Integer> findProductIdsByMediaUrl(@Param("mediaUrl") String mediaUrl);
 }
@@ -0,0 +1,7 @@
+package com.example.flowmerceproject.ProductManagement.repository;
+
+/** Where a product is listed: its store and category (null = uncategorized). */
+public interface ProductPlacementView {
+    Integer getStoreId();
+    Integer getCategoryId();
+}
@@ -1,11 +1,13 @@
 package com.example.flowmerceproject.ProductManagement.repository;
 
 import com.example.flowmerceproject.ProductManagement.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,12 +30,50 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     @Query("SELECT p FROM Product p WHERE p.store.storeId = :storeId AND p.category.categoryId = :categoryId AND p.isActive IS NOT FALSE ORDER BY p.createdAt DESC")
     List<Product> findVisibleByStoreIdAndCategoryId(@Param("storeId") Integer storeId, @Param("categoryId") Integer categoryId);
 
+    /** One page of {@link #findVisibleByStoreId}. */
+    @Query("SELECT p FROM Product p WHERE p.store.storeId = :storeId AND p.isActive IS NOT FALSE ORDER BY p.createdAt DESC, p.productId DESC")
+    List<Product> findVisibleByStoreId(@Param("storeId") Integer storeId, Pageable pageable);
+
+    /** One page of {@link #findVisibleByStoreIdAndCategoryId}. */
+    @Query("SELECT p FROM Product p WHERE p.store.storeId = :storeId AND p.category.categoryId = :categoryId AND p.isActive IS NOT FALSE ORDER BY p.createdAt DESC, p.productId DESC")
+    List<Product> findVisibleByStoreIdAndCategoryId(@Param("storeId") Integer storeId, @Param("categoryId") Integer categoryId, Pageable pageable);
+
+    /** Ids of the categories the store's visible products are filed under. */
+    @Query("SELECT DISTINCT p.category.categoryId FROM Product p WHERE p.store.storeId = :storeId AND p.isActive IS NOT FALSE AND p.category IS NOT NULL")
+    List<Integer> findVisibleCategoryIdsByStoreId(@Param("storeId") Integer storeId);
+
     List<Product> findByStore_StoreIdAndCategory_CategoryId(Integer storeId, Integer categoryId);
 
     Optional<Product> findByProductIdAndStore_StoreId(Integer productId, Integer storeId);
 
     List<Product> findByCategory_CategoryId(Integer categoryId);
 
+    /** Email of the merchant who owns the product's store — used to route stock alerts. */
+    @Query("SELECT u.email FROM Product p JOIN p.store s JOIN s.merchant m JOIN m.user u WHERE p.productId = :productId")
+    Optional<String> findMerchantEmailByProductId(@Param("productId") Integer productId);
+
+    /** Search hits by id, with what {@code toResponse} reads fetched in the same query. */
+    @Query("SELECT DISTINCT p FROM Product p JOIN FETCH p.store LEFT JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.mediaList WHERE p.productId IN :ids")
+    List<Product> findAllWithMediaByProductIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.productId AS productId, p.store.storeId AS storeId, p.name AS name, " +
+           "c.name AS categoryName, p.isActive AS isActive " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.store.storeId = :storeId AND p.isActive IS NOT FALSE")
+    List<ProductSuggestView> findSuggestRowsByStoreId(@Param("storeId") Integer storeId);
+
+    @Query("SELECT p.productId AS productId, p.store.storeId AS storeId, p.name AS name, " +
+           "c.name AS categoryName, p.isActive AS isActive " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.productId IN :ids")
+    List<ProductSuggestView> findSuggestRowsByProductIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT DISTINCT p.store.storeId AS storeId, c.categoryId AS categoryId " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.productId IN :ids")
+    List<ProductPlacementView> findPlacementsByProductIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("SELECT p.productId FROM Product p WHERE p.category.categoryId = :categoryId")
+    List<Integer> findIdsByCategoryId(@Param("categoryId") Integer categoryId);
+
     List<Product> findByNameContainingIgnoreCase(String keyword);
 
     /** INT-1: store-scoped search — only returns active products belonging to storeId. */
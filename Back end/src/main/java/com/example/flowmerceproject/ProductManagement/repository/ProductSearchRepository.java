@@ -0,0 +1,156 @@
+package com.example.flowmerceproject.ProductManagement.repository;
+
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The product_search table (db/product_search.sql). Not a JPA entity —
+ * Hibernate has no tsvector type and would try to manage the table.
+ *
+ * Every query scopes to one store first; the (store_id, …) GIN indexes make
+ * a search cost proportional to that store's matches, not the catalog.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductSearchRepository {
+
+    /** Rebuilds rows from products + categories; the WHERE clause is appended. */
+    private static final String UPSERT_SQL =
+            "INSERT INTO product_search AS s (product_id, store_id, category_id, is_active, base_price, "
+                    + "search_text, document) "
+                    + "SELECT p.product_id, p.store_id, p.category_id, COALESCE(p.is_active, TRUE), p.base_price, "
+                    + "flowmerce_search_norm(concat_ws(' ', p.name, c.name)), "
+                    + "setweight(to_tsvector('simple', flowmerce_search_norm(p.name)), 'A') "
+                    + "|| setweight(to_tsvector('simple', flowmerce_search_norm(c.name)), 'B') "
+                    + "|| setweight(to_tsvector('simple', flowmerce_search_norm(p.description)), 'C') "
+                    + "FROM products p LEFT JOIN categories c ON c.category_id = p.category_id ";
+
+    private static final String ON_CONFLICT =
+            " ON CONFLICT (product_id) DO UPDATE SET "
+                    + "store_id = EXCLUDED.store_id, category_id = EXCLUDED.category_id, "
+                    + "is_active = EXCLUDED.is_active, base_price = EXCLUDED.base_price, "
+                    + "search_text = EXCLUDED.search_text, document = EXCLUDED.document";
+
+    /**
+     * The parsed query, joined once so both forms are constants to the planner.
+     * A row matches on the full-text index (every term as a prefix) or, for
+     * typos, on trigram word similarity against name + category.
+     */
+    private static final String MATCH_FROM =
+            "FROM product_search s CROSS JOIN "
+                    + "(SELECT to_tsquery('simple', flowmerce_search_norm(?)) AS tsq, "
+                    + "flowmerce_search_norm(?) AS txt) q ";
+
+    private static final String MATCH_WHERE =
+            "WHERE s.store_id = ? AND s.is_active AND (s.document @@ q.tsq OR q.txt <% s.search_text) ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** What to search for. {@code tsQuery} is already in to_tsquery syntax. */
+    public record Criteria(Integer storeId, String tsQuery, String text,
+                           Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice) { }
+
+    /** Creates the extensions, function, table and indexes if missing. */
+    public void installSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/product_search.sql"))
+                .execute(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+    }
+
+    public boolean isEmpty() {
+        return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM product_search)", Boolean.class));
+    }
+
+    /** Re-indexes the given products; ids that no longer exist are skipped. */
+    public int upsert(Collection<Integer> productIds) {
+        if (productIds.isEmpty()) return 0;
+        return jdbcTemplate.update(UPSERT_SQL + "WHERE p.product_id = ANY (?)" + ON_CONFLICT, ps -> {
+            Array ids = ps.getConnection().createArrayOf("integer", productIds.toArray());
+            ps.setArray(1, ids);
+        });
+    }
+
+    /** Re-indexes every product. */
+    public int rebuild() {
+        return jdbcTemplate.update(UPSERT_SQL + ON_CONFLICT);
+    }
+
+    /**
+     * Product ids matching {@code criteria}, best first: ts_rank_cd (weighted
+     * by field) plus trigram word similarity, so exact-term hits outrank fuzzy
+     * ones and a misspelt query still finds something. A null {@code limit}
+     * returns every match.
+     */
+    public List<Integer> search(Criteria criteria, Integer limit, long offset) {
+        List<Object> args = new ArrayList<>(List.of(criteria.tsQuery(), criteria.text(), criteria.storeId()));
+        StringBuilder sql = new StringBuilder("SELECT s.product_id ").append(MATCH_FROM).append(MATCH_WHERE);
+        if (criteria.categoryId() != null) {
+            sql.append("AND s.category_id = ? ");
+            args.add(criteria.categoryId());
+        }
+        if (criteria.minPrice() != null) {
+            sql.append("AND s.base_price >= ? ");
+            args.add(criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            sql.append("AND s.base_price < ? ");
+            args.add(criteria.maxPrice());
+        }
+        sql.append("ORDER BY ts_rank_cd(s.document, q.tsq) + word_similarity(q.txt, s.search_text) DESC, ")
+                .append("s.product_id DESC");
+        if (limit != null) {
+            sql.append(" LIMIT ? OFFSET ?");
+            args.add(limit);
+            args.add(offset);
+        }
+        return jdbcTemplate.queryForList(sql.toString(), Integer.class, args.toArray());
+    }
+
+    /** Match counts per category, largest first, ignoring the category/price filters. */
+    public List<ProductDTOs.CategoryFacet> categoryFacets(Criteria criteria, int limit) {
+        return jdbcTemplate.query(
+                "SELECT s.category_id, c.name, COUNT(*) AS hits " + MATCH_FROM
+                        + "LEFT JOIN categories c ON c.category_id = s.category_id " + MATCH_WHERE
+                        + "GROUP BY s.category_id, c.name ORDER BY hits DESC, c.name LIMIT ?",
+                (rs, i) -> ProductDTOs.CategoryFacet.builder()
+                        .categoryId(rs.getObject("category_id", Integer.class))
+                        .name(rs.getString("name"))
+                        .count(rs.getLong("hits"))
+                        .build(),
+                criteria.tsQuery(), criteria.text(), criteria.storeId(), limit);
+    }
+
+    /**
+     * Match counts per price band. {@code bounds} are the ascending band
+     * edges; band i is [bounds[i-1], bounds[i]), the first starts at 0 and the
+     * last is open-ended. Empty bands are left out.
+     */
+    public List<ProductDTOs.PriceBandFacet> priceBandFacets(Criteria criteria, List<BigDecimal> bounds) {
+        String edges = bounds.stream().map(BigDecimal::toPlainString).collect(Collectors.joining(","));
+        return jdbcTemplate.query(
+                "SELECT width_bucket(s.base_price, ARRAY[" + edges + "]::numeric[]) AS band, COUNT(*) AS hits "
+                        + MATCH_FROM + MATCH_WHERE + "AND s.base_price IS NOT NULL "
+                        + "GROUP BY band ORDER BY band",
+                (rs, i) -> {
+                    int band = rs.getInt("band");
+                    return ProductDTOs.PriceBandFacet.builder()
+                            .minPrice(band == 0 ? BigDecimal.ZERO : bounds.get(band - 1))
+                            .maxPrice(band < bounds.size() ? bounds.get(band) : null)
+                            .count(rs.getLong("hits"))
+                            .build();
+                },
+                criteria.tsQuery(), criteria.text(), criteria.storeId());
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.flowmerceproject.ProductManagement.repository;
+
+/** What the storefront typeahead indexes for one product. */
+public interface ProductSuggestView {
+    Integer getProductId();
+    Integer getStoreId();
+    String getName();
+    String getCategoryName();
+    Boolean getIsActive();
+}
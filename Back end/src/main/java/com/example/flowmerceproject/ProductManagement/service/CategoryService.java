@@ -2,12 +2,15 @@ package com.example.flowmerceproject.ProductManagement.service;
 
 import com.example.flowmerceproject.ProductManagement.dto.CategoryDTOs;
 import com.example.flowmerceproject.ProductManagement.entity.Category;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
 import com.example.flowmerceproject.ProductManagement.repository.CategoryRepository;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
 import com.example.flowmerceproject.StoreMangement.entity.Store;
 import com.example.flowmerceproject.StoreMangement.repository.StoreRepository;
 import com.example.flowmerceproject.UserManagement.exception.ConflictException;
 import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +26,8 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final StoreRepository storeRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public CategoryDTOs.CategoryResponse createCategory(CategoryDTOs.CategoryRequest request) {
@@ -60,6 +65,7 @@ public class CategoryService {
         category.setName(request.getName());
         if (request.getDescription() != null) category.setDescription(request.getDescription());
         categoryRepository.save(category);
+        publishProductsChanged(id);
         return toResponse(category);
     }
 
@@ -67,6 +73,7 @@ public class CategoryService {
     public String deleteCategory(Integer id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found: " + id));
+        publishProductsChanged(id);
         categoryRepository.delete(category);
         return "Category deleted successfully.";
     }
@@ -120,9 +127,18 @@ public class CategoryService {
         if (category.getStore() == null || !category.getStore().getStoreId().equals(storeId)) {
             throw new ConflictException("Cannot delete a global category.");
         }
+        publishProductsChanged(categoryId);
         categoryRepository.delete(category);
     }
 
+    /** The category's name is indexed with its products, so they are re-indexed when it changes. */
+    private void publishProductsChanged(Integer categoryId) {
+        List<Integer> productIds = productRepository.findIdsByCategoryId(categoryId);
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(this, productIds));
+        }
+    }
+
     public CategoryDTOs.CategoryResponse toResponse(Category c) {
         return CategoryDTOs.CategoryResponse.builder()
                 .categoryId(c.getCategoryId())
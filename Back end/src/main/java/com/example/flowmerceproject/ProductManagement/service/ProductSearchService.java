@@ -0,0 +1,161 @@
+package com.example.flowmerceproject.ProductManagement.service;
+
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductSearchRepository;
+import com.example.flowmerceproject.ProductManagement.repository.ProductSearchRepository.Criteria;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Full-text product search over the product_search read model.
+ *
+ * The index is fed by {@link ProductChangedEvent}: committed changes queue
+ * their product ids, and every {@code product.search.flush-interval-ms} the
+ * queued ids are re-indexed in one upsert, so a bulk edit is one statement
+ * rather than one per product. A failed flush keeps its ids for the next one.
+ *
+ * On startup the schema (db/product_search.sql) is applied and, if the table
+ * is empty, every product is indexed. If that fails — e.g. the extensions
+ * can't be created — search falls back to a name LIKE in {@link ProductService}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    /** Price band edges for facet counts: 0–50, 50–100, …, 1000+. */
+    static final List<BigDecimal> PRICE_BANDS = List.of(
+            new BigDecimal("50"), new BigDecimal("100"), new BigDecimal("250"),
+            new BigDecimal("500"), new BigDecimal("1000"));
+
+    private static final int MAX_TERMS = 8;
+    private static final char TATWEEL = '\u0640';
+
+    private final ProductSearchRepository searchRepository;
+
+    @Value("${product.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${product.search.max-category-facets:20}")
+    private int maxCategoryFacets;
+
+    private volatile boolean available;
+
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // ── INDEX ─────────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (!enabled) return;
+        try {
+            searchRepository.installSchema();
+            if (searchRepository.isEmpty()) {
+                log.info("Product search: index is empty — indexed {} products", searchRepository.rebuild());
+            }
+            available = true;
+        } catch (RuntimeException e) {
+            log.error("Product search: index unavailable, falling back to name matching — {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (available) pending.addAll(event.getProductIds());
+    }
+
+    @Scheduled(fixedDelayString = "${product.search.flush-interval-ms:500}")
+    public void flush() {
+        if (pending.isEmpty()) return;
+        List<Integer> ids = new ArrayList<>();
+        for (Integer id : pending) {
+            if (pending.remove(id)) ids.add(id);
+        }
+        try {
+            searchRepository.upsert(ids);
+            log.debug("Product search: re-indexed {} products", ids.size());
+        } catch (RuntimeException e) {
+            pending.addAll(ids);
+            log.warn("Product search: re-index of {} products failed, will retry — {}", ids.size(), e.getMessage());
+        }
+    }
+
+    // ── QUERY ─────────────────────────────────────────────────────────────────
+
+    /**
+     * One page of matching product ids in relevance order, or every match
+     * for an unpaged request. Returns an empty slice when the keyword has
+     * nothing searchable in it.
+     */
+    public Slice<Integer> search(Integer storeId, String keyword, Integer categoryId,
+                                 BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        String tsQuery = toTsQuery(keyword);
+        if (tsQuery.isEmpty()) return new SliceImpl<>(List.of(), pageable, false);
+
+        Criteria criteria = new Criteria(storeId, tsQuery, keyword.strip(), categoryId, minPrice, maxPrice);
+        if (pageable.isUnpaged()) return new SliceImpl<>(searchRepository.search(criteria, null, 0), pageable, false);
+        List<Integer> ids = searchRepository.search(criteria, pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasMore = ids.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasMore ? ids.subList(0, pageable.getPageSize()) : ids, pageable, hasMore);
+    }
+
+    public ProductDTOs.SearchFacets facets(Integer storeId, String keyword) {
+        String tsQuery = toTsQuery(keyword);
+        if (tsQuery.isEmpty()) {
+            return ProductDTOs.SearchFacets.builder().categories(List.of()).priceBands(List.of()).build();
+        }
+        Criteria criteria = new Criteria(storeId, tsQuery, keyword.strip(), null, null, null);
+        return ProductDTOs.SearchFacets.builder()
+                .categories(searchRepository.categoryFacets(criteria, maxCategoryFacets))
+                .priceBands(searchRepository.priceBandFacets(criteria, PRICE_BANDS))
+                .build();
+    }
+
+    /**
+     * Turns free text into a to_tsquery expression where every word must
+     * match as a prefix: {@code "red sho"} → {@code "red:* & sho:*"}. Anything
+     * but letters, digits and combining marks (Arabic tashkeel) splits words,
+     * so no tsquery operator can come from user input.
+     */
+    static String toTsQuery(String keyword) {
+        if (keyword == null) return "";
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        boolean hasLetter = false;
+        for (int i = 0; i <= keyword.length(); i++) {
+            char c = i < keyword.length() ? keyword.charAt(i) : ' ';
+            if (c == TATWEEL || Character.getType(c) == Character.NON_SPACING_MARK) {
+                term.append(c);
+            } else if (Character.isLetterOrDigit(c)) {
+                term.append(c);
+                hasLetter = true;
+            } else {
+                // Marks and tatweel are stripped by flowmerce_search_norm, so a term of only those is empty.
+                if (hasLetter && terms.size() < MAX_TERMS) terms.add(term + ":*");
+                term.setLength(0);
+                hasLetter = false;
+            }
+        }
+        return String.join(" & ", terms);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.flowmerceproject.ProductManagement.service;
 
+import com.example.flowmerceproject.FileStorage.event.FileVariantsReadyEvent;
 import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
 import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
 import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
@@ -7,6 +8,7 @@ import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
 import com.example.flowmerceproject.ProductManagement.entity.Category;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
 import com.example.flowmerceproject.ProductManagement.entity.ProductMedia;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
 import com.example.flowmerceproject.ProductManagement.repository.CategoryRepository;
 import com.example.flowmerceproject.ProductManagement.repository.ProductMediaRepository;
 import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
@@ -18,10 +20,20 @@ import com.example.flowmerceproject.UserManagement.repository.MerchantRepository
 import com.example.flowmerceproject.UserManagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,6 +41,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+    private static final int MAX_SEARCH_PAGE_SIZE = 50;
+
     private final ProductRepository productRepository;
     private final ProductMediaRepository mediaRepository;
     private final CategoryRepository categoryRepository;
@@ -37,6 +52,8 @@ public class ProductService {
     private final MerchantRepository merchantRepository;
     private final InventoryRepository inventoryRepository;
     private final InventoryService inventoryService;
+    private final ProductSearchService productSearchService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ProductDTOs.ProductResponse createProduct(String email, Integer storeId,
@@ -76,6 +93,7 @@ public class ProductService {
         inventoryRepository.save(inventory);
 
         inventoryService.cacheStock(product.getProductId().longValue(), initialQty);
+        publishChanged(product.getProductId());
 
         log.info("Product created: id={}, name={}, initialQty={}",
                 product.getProductId(), product.getName(), initialQty);
@@ -86,16 +104,14 @@ public class ProductService {
     @Transactional(readOnly = true)
     public List<ProductDTOs.ProductResponse> getStoreProducts(String email, Integer storeId) {
         getStoreAndVerifyOwner(email, storeId);
-        return productRepository.findByStore_StoreIdWithMedia(storeId)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        return toResponses(productRepository.findByStore_StoreIdWithMedia(storeId));
     }
 
     @Transactional(readOnly = true)
     public List<ProductDTOs.ProductResponse> getActiveProducts(Integer storeId) {
         storeRepository.findById(storeId)
                 .orElseThrow(() -> new ResourceNotFoundException("Store not found: " + storeId));
-        return productRepository.findByStore_StoreIdAndIsActive(storeId, true)
-                .stream().map(this::toResponse).collect(Collectors.toList());
+        return toResponses(productRepository.findByStore_StoreIdAndIsActive(storeId, true));
     }
 
     @Transactional(readOnly = true)
@@ -120,6 +136,7 @@ public class ProductService {
         }
 
         productRepository.save(product);
+        publishChanged(productId);
         return toResponse(product);
     }
 
@@ -130,6 +147,7 @@ public class ProductService {
         Product product = findProductOrThrow(productId);
         product.setIsActive(!product.getIsActive());
         productRepository.save(product);
+        publishChanged(productId);
         return toResponse(product);
     }
 
@@ -137,6 +155,7 @@ public class ProductService {
     public String deleteProduct(String email, Integer storeId, Integer productId) {
         getStoreAndVerifyOwner(email, storeId);
         Product product = findProductOrThrow(productId);
+        publishChanged(productId);   // before the delete, so listeners can still look the product up
         productRepository.delete(product);
         log.info("Product deleted: id={} — Inventory auto-deleted via CASCADE", productId);
         return "Product deleted successfully.";
@@ -144,22 +163,60 @@ public class ProductService {
 
     /**
      * INT-1: search is scoped to a specific store to prevent cross-store leakage.
-     * Falls back to global search (all stores) only when storeId is null — e.g. admin use.
+     * Ranked full-text search over the product_search index (see
+     * {@link ProductSearchService}); one page at a time, optionally narrowed
+     * to a category and a price range [minPrice, maxPrice). Without page and
+     * size every match comes back, as the storefront search expects.
      */
     @Transactional(readOnly = true)
-    public List<ProductDTOs.ProductResponse> searchProducts(String keyword, Integer storeId) {
-        if (storeId != null) {
-            return productRepository
-                    .findByStore_StoreIdAndIsActiveTrueAndNameContainingIgnoreCase(storeId, keyword)
-                    .stream()
-                    .map(this::toResponse)
-                    .collect(Collectors.toList());
+    public Slice<ProductDTOs.ProductResponse> searchProducts(String keyword, Integer storeId,
+                                                            Integer categoryId,
+                                                            BigDecimal minPrice, BigDecimal maxPrice,
+                                                            Integer page, Integer size) {
+        Pageable pageable = page == null && size == null
+                ? Pageable.unpaged()
+                : PageRequest.of(page == null ? 0 : Math.max(page, 0),
+                        size == null ? DEFAULT_SEARCH_PAGE_SIZE : Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+        if (!productSearchService.isAvailable()) {
+            return searchByName(keyword, storeId, categoryId, minPrice, maxPrice, pageable);
+        }
+
+        Slice<Integer> ids = productSearchService.search(storeId, keyword, categoryId, minPrice, maxPrice, pageable);
+        if (!ids.hasContent()) return new SliceImpl<>(List.of(), pageable, false);
+        Map<Integer, Product> products = productRepository.findAllWithMediaByProductIdIn(ids.getContent())
+                .stream().collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<Product> hits = ids.getContent().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new SliceImpl<>(toResponses(hits), pageable, ids.hasNext());
+    }
+
+    /** Match counts per category and price band for a search keyword. */
+    @Transactional(readOnly = true)
+    public ProductDTOs.SearchFacets searchFacets(String keyword, Integer storeId) {
+        if (!productSearchService.isAvailable()) {
+            return ProductDTOs.SearchFacets.builder().categories(List.of()).priceBands(List.of()).build();
         }
-        return productRepository.findByNameContainingIgnoreCase(keyword)
+        return productSearchService.facets(storeId, keyword);
+    }
+
+    /** Fallback while the search index is unavailable: name substring match. */
+    private Slice<ProductDTOs.ProductResponse> searchByName(String keyword, Integer storeId, Integer categoryId,
+                                                           BigDecimal minPrice, BigDecimal maxPrice,
+                                                           Pageable pageable) {
+        List<Product> matches = productRepository
+                .findByStore_StoreIdAndIsActiveTrueAndNameContainingIgnoreCase(storeId, keyword)
                 .stream()
-                .filter(Product::getIsActive)
-                .map(this::toResponse)
+                .filter(p -> categoryId == null
+                        || (p.getCategory() != null && categoryId.equals(p.getCategory().getCategoryId())))
+                .filter(p -> minPrice == null || p.getBasePrice().compareTo(minPrice) >= 0)
+                .filter(p -> maxPrice == null || p.getBasePrice().compareTo(maxPrice) < 0)
                 .collect(Collectors.toList());
+        if (pageable.isUnpaged()) return new SliceImpl<>(toResponses(matches), pageable, false);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new SliceImpl<>(toResponses(matches.subList(from, to)), pageable, to < matches.size());
     }
 
     @Transactional
@@ -177,6 +234,7 @@ public class ProductService {
                 .build();
 
         mediaRepository.save(media);
+        publishChanged(productId);
         return ProductDTOs.MediaResponse.builder()
                 .mediaId(media.getMediaId())
                 .mediaUrl(media.getMediaUrl())
@@ -194,9 +252,19 @@ public class ProductService {
             throw new ForbiddenException("Media does not belong to this store.");
         }
         mediaRepository.delete(media);
+        publishChanged(media.getProduct().getProductId());
         return "Media deleted successfully.";
     }
 
+    /** An image's resized variants are ready — products showing it get them in their cached listings. */
+    @EventListener
+    public void onFileVariantsReady(FileVariantsReadyEvent event) {
+        List<Integer> productIds = mediaRepository.findProductIdsByMediaUrl(event.getFileUrl());
+        if (!productIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(this, productIds));
+        }
+    }
+
     // ── HELPERS ───────────────────────────────────────────────────────────────
 
     private Store getStoreAndVerifyOwner(String email, Integer storeId) {
@@ -212,6 +280,10 @@ public class ProductService {
         return store;
     }
 
+    private void publishChanged(Integer productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(this, List.of(productId)));
+    }
+
     private Product findProductOrThrow(Integer productId) {
         return productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -223,7 +295,23 @@ public class ProductService {
         try {
             availableQty = inventoryService.getAvailableQuantity(p.getProductId().longValue());
         } catch (Exception ignored) {}
+        return toResponse(p, availableQty);
+    }
+
+    /** List form of {@link #toResponse(Product)}: stock for every product in one bulk lookup. */
+    public List<ProductDTOs.ProductResponse> toResponses(List<Product> products) {
+        Map<Long, Integer> stock = Map.of();
+        try {
+            stock = inventoryService.getAvailableQuantities(
+                    products.stream().map(p -> p.getProductId().longValue()).toList());
+        } catch (Exception ignored) {}
+        Map<Long, Integer> available = stock;
+        return products.stream()
+                .map(p -> toResponse(p, available.getOrDefault(p.getProductId().longValue(), 0)))
+                .collect(Collectors.toList());
+    }
 
+    private ProductDTOs.ProductResponse toResponse(Product p, int availableQty) {
         List<ProductDTOs.MediaResponse> media = p.getMediaList() == null ? List.of() :
                 p.getMediaList().stream()
                         .map(m -> ProductDTOs.MediaResponse.builder()
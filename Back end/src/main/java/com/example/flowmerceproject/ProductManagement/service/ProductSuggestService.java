@@ -0,0 +1,288 @@
+package com.example.flowmerceproject.ProductManagement.service;
+
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.ProductManagement.repository.ProductSuggestView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Storefront typeahead: an in-memory prefix index per store.
+ *
+ * A store's index is built from one query the first time it is asked for,
+ * then answered from memory: every word of every active product's name and
+ * category, normalized like the search index (lower case, Arabic letter
+ * variants folded, tashkeel and tatweel dropped), in one sorted array. A
+ * lookup is a binary search plus a short scan — no DB, no Redis.
+ *
+ * Committed product changes ({@link ProductChangedEvent}) are broadcast on
+ * {@link #CHANGED_CHANNEL}; every node re-reads those products and patches
+ * the indexes it holds. An index is rebuilt after
+ * {@code product.suggest.ttl-minutes}, which bounds staleness if a message
+ * is missed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductSuggestService {
+
+    public static final String CHANGED_CHANNEL = "flowmerce:suggest:products";
+
+    static final int MAX_LIMIT = 20;
+    /** Distinct products considered per lookup before ranking. */
+    private static final int MAX_CANDIDATES = 200;
+    /** Index entries scanned per lookup, so a one-letter prefix stays cheap. */
+    private static final int MAX_SCAN = 2000;
+
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${product.suggest.max-stores:5000}")
+    private long maxStores;
+
+    @Value("${product.suggest.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    private Cache<Integer, StoreIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumSize(maxStores)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                refresh(Arrays.stream(new String(message.getBody(), StandardCharsets.UTF_8).split(","))
+                        .map(Integer::valueOf)
+                        .collect(Collectors.toSet()));
+            } catch (RuntimeException e) {
+                log.warn("Suggest: could not apply product change — {}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANGED_CHANNEL));
+    }
+
+    // ── LOOKUP ────────────────────────────────────────────────────────────────
+
+    /**
+     * Up to {@code limit} products of {@code storeId} with a word starting
+     * with each word of {@code query}. Names starting with the query come
+     * first, then name matches, then category-only matches; shorter names
+     * first within each.
+     */
+    public List<ProductDTOs.Suggestion> suggest(Integer storeId, String query, int limit) {
+        String[] tokens = words(normalize(query));
+        if (tokens.length == 0) return List.of();
+        return indexes.get(storeId, this::load)
+                .lookup(tokens, Math.max(1, Math.min(limit, MAX_LIMIT)))
+                .stream()
+                .map(e -> ProductDTOs.Suggestion.builder().productId(e.productId()).name(e.name()).build())
+                .collect(Collectors.toList());
+    }
+
+    private StoreIndex load(Integer storeId) {
+        List<Entry> entries = productRepository.findSuggestRowsByStoreId(storeId).stream()
+                .map(ProductSuggestService::entryOf)
+                .collect(Collectors.toList());
+        log.debug("Suggest: indexed {} products for store {}", entries.size(), storeId);
+        return StoreIndex.of(entries);
+    }
+
+    // ── UPDATES ───────────────────────────────────────────────────────────────
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        String ids = event.getProductIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(CHANGED_CHANNEL, ids);
+        } catch (Exception e) {
+            log.warn("Suggest: change broadcast failed, updating this node only — {}", e.getMessage());
+            refresh(new HashSet<>(event.getProductIds()));
+        }
+    }
+
+    /**
+     * Re-reads {@code productIds} and patches every index held on this node:
+     * active products are (re)inserted, the rest — deactivated or deleted —
+     * removed.
+     */
+    void refresh(Set<Integer> productIds) {
+        if (productIds.isEmpty() || indexes.asMap().isEmpty()) return;
+        Map<Integer, List<Entry>> activeByStore = new HashMap<>();
+        for (ProductSuggestView row : productRepository.findSuggestRowsByProductIdIn(productIds)) {
+            if (Boolean.FALSE.equals(row.getIsActive())) continue;
+            activeByStore.computeIfAbsent(row.getStoreId(), k -> new ArrayList<>()).add(entryOf(row));
+        }
+        for (Integer storeId : indexes.asMap().keySet()) {
+            indexes.asMap().computeIfPresent(storeId,
+                    (id, index) -> index.with(activeByStore.getOrDefault(id, List.of()), productIds));
+        }
+    }
+
+    // ── INDEX ─────────────────────────────────────────────────────────────────
+
+    /** One indexed product; {@code words} are its name's words, then its category's. */
+    record Entry(Integer productId, String name, String normalizedName, String[] words, int nameWords) { }
+
+    private static Entry entryOf(ProductSuggestView row) {
+        String normalizedName = normalize(row.getName());
+        String[] nameWords = words(normalizedName);
+        String[] categoryWords = words(normalize(row.getCategoryName()));
+        String[] all = Arrays.copyOf(nameWords, nameWords.length + categoryWords.length);
+        System.arraycopy(categoryWords, 0, all, nameWords.length, categoryWords.length);
+        return new Entry(row.getProductId(), row.getName(), normalizedName, all, nameWords.length);
+    }
+
+    /**
+     * Immutable index of one store: {@code terms} sorted, {@code owners[i]}
+     * the product that has word {@code terms[i]}. Changes build a new one.
+     */
+    static final class StoreIndex {
+
+        private final Map<Integer, Entry> products;
+        private final String[] terms;
+        private final Entry[] owners;
+
+        private StoreIndex(Map<Integer, Entry> products) {
+            this.products = products;
+            record Posting(String term, Entry owner) { }
+            List<Posting> postings = new ArrayList<>();
+            for (Entry e : products.values()) {
+                for (String word : new LinkedHashSet<>(Arrays.asList(e.words()))) {
+                    postings.add(new Posting(word, e));
+                }
+            }
+            postings.sort(Comparator.comparing(Posting::term));
+            terms = new String[postings.size()];
+            owners = new Entry[postings.size()];
+            for (int i = 0; i < postings.size(); i++) {
+                terms[i] = postings.get(i).term();
+                owners[i] = postings.get(i).owner();
+            }
+        }
+
+        static StoreIndex of(Collection<Entry> entries) {
+            Map<Integer, Entry> products = new HashMap<>();
+            entries.forEach(e -> products.put(e.productId(), e));
+            return new StoreIndex(products);
+        }
+
+        StoreIndex with(Collection<Entry> upserts, Collection<Integer> removals) {
+            if (upserts.isEmpty() && removals.stream().noneMatch(products::containsKey)) return this;
+            Map<Integer, Entry> next = new HashMap<>(products);
+            removals.forEach(next::remove);
+            upserts.forEach(e -> next.put(e.productId(), e));
+            return new StoreIndex(next);
+        }
+
+        List<Entry> lookup(String[] tokens, int limit) {
+            // Scan on the longest word, the most selective; check the rest per product.
+            String driver = Arrays.stream(tokens).max(Comparator.comparingInt(String::length)).orElseThrow();
+            int i = lowerBound(driver);
+            Set<Integer> seen = new HashSet<>();
+            List<Entry> candidates = new ArrayList<>();
+            for (int scanned = 0; i < terms.length && scanned < MAX_SCAN && candidates.size() < MAX_CANDIDATES;
+                 i++, scanned++) {
+                if (!terms[i].startsWith(driver)) break;
+                Entry e = owners[i];
+                if (seen.add(e.productId()) && matchesAll(e, tokens)) candidates.add(e);
+            }
+
+            String phrase = String.join(" ", tokens);
+            candidates.sort(Comparator
+                    .comparingInt((Entry e) -> rank(e, tokens[0], phrase))
+                    .thenComparingInt(e -> e.name().length())
+                    .thenComparing(Entry::name));
+            return candidates.size() > limit ? candidates.subList(0, limit) : candidates;
+        }
+
+        private int lowerBound(String prefix) {
+            int lo = 0;
+            int hi = terms.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (terms[mid].compareTo(prefix) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        private static boolean matchesAll(Entry e, String[] tokens) {
+            for (String token : tokens) {
+                boolean found = false;
+                for (String word : e.words()) {
+                    if (word.startsWith(token)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) return false;
+            }
+            return true;
+        }
+
+        private static int rank(Entry e, String firstToken, String phrase) {
+            if (e.normalizedName().startsWith(phrase)) return 0;
+            for (int w = 0; w < e.nameWords(); w++) {
+                if (e.words()[w].startsWith(firstToken)) return 1;
+            }
+            return 2;
+        }
+    }
+
+    // ── TEXT ──────────────────────────────────────────────────────────────────
+
+    /** Java twin of flowmerce_search_norm() in db/product_search.sql. */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder out = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case '\u0623', '\u0625', '\u0622', '\u0671' -> out.append('\u0627');   // alef variants → ا
+                case '\u0649' -> out.append('\u064A');                               // ى → ي
+                case '\u0629' -> out.append('\u0647');                               // ة → ه
+                default -> {
+                    // tatweel and tashkeel are dropped
+                    boolean mark = c == '\u0640' || (c >= '\u064B' && c <= '\u0652') || c == '\u0670';
+                    if (!mark) out.append(c);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static String[] words(String normalized) {
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(w -> !w.isEmpty())
+                .toArray(String[]::new);
+    }
+}
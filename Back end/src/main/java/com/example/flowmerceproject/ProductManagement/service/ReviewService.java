@@ -2,6 +2,7 @@ package com.example.flowmerceproject.ProductManagement.service;
 
 import com.example.flowmerceproject.ProductManagement.dto.ReviewDTOs;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
 import com.example.flowmerceproject.ProductManagement.entity.Review;
 import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
 import com.example.flowmerceproject.ProductManagement.repository.ReviewRepository;
@@ -14,6 +15,7 @@ import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundExc
 import com.example.flowmerceproject.UserManagement.repository.CustomerRepository;
 import com.example.flowmerceproject.UserManagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +30,7 @@ public class ReviewService {
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ReviewDTOs.ReviewResponse submitReview(String email, Integer productId,
@@ -115,6 +118,8 @@ public class ReviewService {
         Double avg = reviewRepository.calculateAverageRating(product.getProductId());
         product.setRating(avg != null ? Math.round(avg * 10.0) / 10.0 : 0.0);
         productRepository.save(product);
+        // The public catalog caches the rating with the rest of the product
+        eventPublisher.publishEvent(new ProductChangedEvent(this, List.of(product.getProductId())));
     }
 
     private ReviewDTOs.ReviewResponse toResponse(Review r) {
@@ -4,6 +4,7 @@ import lombok.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 public class CatalogDTOs {
 
@@ -28,5 +29,10 @@ public class CatalogDTOs {
         private Float rating;
         /** CON-7 / INT-3: first image URL per product — drives storefront product cards. */
         private List<String> images;
+        /**
+         * Resized copies of each image, parallel to {@code images}: format →
+         * {"<width>w": url}, ready for a srcset. Empty while not yet generated.
+         */
+        private List<Map<String, Map<String, String>>> imageVariants;
     }
 }
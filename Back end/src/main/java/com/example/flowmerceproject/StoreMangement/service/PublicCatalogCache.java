@@ -0,0 +1,282 @@
+package com.example.flowmerceproject.StoreMangement.service;
+
+import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductPlacementView;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.StoreMangement.dto.CatalogDTOs;
+import com.example.flowmerceproject.common.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Public catalog responses as pre-serialized bytes.
+ *
+ * {@code GET /public/storefront/{storeId}/categories} and
+ * {@code /products} (per category and page) are rendered once per node and
+ * kept in an L1. A product page is held as one JSON fragment per product with
+ * the stock left out; every read fills stock in from the Redis stock keys in
+ * one bulk lookup, so a sale — or a product crossing its low-stock
+ * threshold — never evicts a page.
+ *
+ * A {@link ProductChangedEvent} (product created, edited, toggled or
+ * deleted; category renamed or deleted) is resolved to the store and
+ * category each product is listed under and, once the transaction commits,
+ * published on {@link #EVICT_CHANNEL}. Every node then drops the pages of
+ * those categories and the store's all-products list, including the
+ * categories a product was listed under before, and the store's category
+ * list. {@code storefront.catalog.l1.ttl-seconds} bounds staleness if a
+ * message is missed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PublicCatalogCache {
+
+    public static final String EVICT_CHANNEL = "flowmerce:catalog:evict";
+
+    /** Category part of an evict message for an uncategorized product. */
+    private static final String NO_CATEGORY = "-";
+
+    private final InventoryService inventoryService;
+    private final ProductRepository productRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${storefront.catalog.l1.max-size:20000}")
+    private long maxSize;
+
+    @Value("${storefront.catalog.l1.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /** A cached product list; {@code page} null is the whole list. */
+    record PageKey(Integer storeId, Integer categoryId, Integer page) { }
+
+    /**
+     * One rendered product list. {@code fragments[i]} is product i's JSON
+     * object without {@code inventory} and without the closing brace;
+     * {@code categoryIds[i]} is the category it was listed under.
+     */
+    record Page(List<Long> productIds, List<Integer> categoryIds, List<byte[]> fragments) { }
+
+    /** What to drop: pages listing {@code productIds}, and these store → category lists. */
+    record Eviction(Set<Long> productIds, Map<Integer, Set<Integer>> categoriesByStore) { }
+
+    private Cache<PageKey, Page> pages;
+    private Cache<Integer, byte[]> categoryLists;
+
+    // ApiResponse.ok(list) split around the list, so a page is written without serializing the envelope
+    private byte[] envelopeHead;
+    private byte[] envelopeTail;
+
+    @PostConstruct
+    void init() {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        categoryLists = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+
+        byte[] empty = serialize(ApiResponse.ok(List.of()));
+        int at = indexOf(empty, "[]".getBytes(StandardCharsets.UTF_8));
+        envelopeHead = Arrays.copyOfRange(empty, 0, at);
+        envelopeTail = Arrays.copyOfRange(empty, at + 2, empty.length);
+
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                evict(decode(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (RuntimeException e) {
+                log.warn("Catalog cache: bad evict message ignored — {}", e.getMessage());
+            }
+        }, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    // ── READ ──────────────────────────────────────────────────────────────────
+
+    /** The {@code ApiResponse} body for a store's category list; {@code load} runs on a miss. */
+    public byte[] categories(Integer storeId, Supplier<List<CatalogDTOs.CategoryResponse>> load) {
+        return categoryLists.get(storeId, id -> serialize(ApiResponse.ok(load.get())));
+    }
+
+    /**
+     * The {@code ApiResponse} body for one product list, with current stock.
+     * {@code load} runs on a miss; the inventory it sets is ignored.
+     */
+    public byte[] products(Integer storeId, Integer categoryId, Integer page,
+                           Supplier<List<CatalogDTOs.ProductResponse>> load) {
+        Page cached = pages.get(new PageKey(storeId, categoryId, page), key -> render(load.get()));
+        Map<Long, Integer> stock = inventoryService.getAvailableQuantities(cached.productIds());
+
+        int size = envelopeHead.length + envelopeTail.length + 2;
+        for (byte[] fragment : cached.fragments()) size += fragment.length + 24;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        out.writeBytes(envelopeHead);
+        out.write('[');
+        for (int i = 0; i < cached.fragments().size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(cached.fragments().get(i));
+            int available = Math.max(0, stock.getOrDefault(cached.productIds().get(i), 0));
+            out.writeBytes(("\"inventory\":" + available + "}").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(']');
+        out.writeBytes(envelopeTail);
+        return out.toByteArray();
+    }
+
+    private Page render(List<CatalogDTOs.ProductResponse> products) {
+        List<Long> productIds = new ArrayList<>(products.size());
+        List<Integer> categoryIds = new ArrayList<>(products.size());
+        List<byte[]> fragments = new ArrayList<>(products.size());
+        for (CatalogDTOs.ProductResponse product : products) {
+            ObjectNode node = objectMapper.valueToTree(product);
+            node.remove("inventory");
+            byte[] json = serialize(node);
+            // drop the closing brace; the field separator comes before "inventory"
+            String separator = node.isEmpty() ? "" : ",";
+            byte[] fragment = Arrays.copyOf(json, json.length - 1 + separator.length());
+            if (!separator.isEmpty()) fragment[fragment.length - 1] = ',';
+            productIds.add(product.getProductId());
+            categoryIds.add(product.getCategoryId());
+            fragments.add(fragment);
+        }
+        return new Page(List.copyOf(productIds), categoryIds, fragments);
+    }
+
+    // ── INVALIDATION ──────────────────────────────────────────────────────────
+
+    /**
+     * Resolves where the products are listed now, inside the publishing
+     * transaction (so a product being deleted is still found), and broadcasts
+     * the eviction after it commits.
+     */
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        List<ProductPlacementView> placements = productRepository.findPlacementsByProductIdIn(event.getProductIds());
+        String message = encode(event.getProductIds(), placements);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    broadcast(message);
+                }
+            });
+        } else {
+            broadcast(message);
+        }
+    }
+
+    private void broadcast(String message) {
+        try {
+            redisTemplate.convertAndSend(EVICT_CHANNEL, message);
+        } catch (Exception e) {
+            log.warn("Catalog evict broadcast failed, evicting on this node only — {}", e.getMessage());
+            evict(decode(message));
+        }
+    }
+
+    /**
+     * Drops every cached list that could show one of the products: the
+     * all-products and category lists of each store/category in
+     * {@code eviction}, plus those of the store/category each product is
+     * cached under on this node (where it was before the change).
+     */
+    void evict(Eviction eviction) {
+        Map<Integer, Set<Integer>> byStore = new HashMap<>();
+        eviction.categoriesByStore().forEach((store, cats) -> byStore.put(store, new HashSet<>(cats)));
+        pages.asMap().forEach((key, page) -> {
+            for (int i = 0; i < page.productIds().size(); i++) {
+                if (eviction.productIds().contains(page.productIds().get(i))) {
+                    byStore.computeIfAbsent(key.storeId(), k -> new HashSet<>()).add(page.categoryIds().get(i));
+                }
+            }
+        });
+        if (byStore.isEmpty()) return;
+
+        pages.asMap().keySet().removeIf(key -> {
+            Set<Integer> categories = byStore.get(key.storeId());
+            return categories != null && (key.categoryId() == null || categories.contains(key.categoryId()));
+        });
+        categoryLists.invalidateAll(byStore.keySet());
+    }
+
+    /** {@code "3,5|1:10,1:-"} — product ids, then the store:category pairs they are listed under. */
+    static String encode(List<Integer> productIds, List<ProductPlacementView> placements) {
+        return productIds.stream().map(String::valueOf).collect(Collectors.joining(","))
+                + "|"
+                + placements.stream()
+                        .map(p -> p.getStoreId() + ":"
+                                + (p.getCategoryId() != null ? p.getCategoryId() : NO_CATEGORY))
+                        .collect(Collectors.joining(","));
+    }
+
+    static Eviction decode(String message) {
+        String[] parts = message.split("\\|", -1);
+        Set<Long> productIds = new HashSet<>();
+        for (String id : parts[0].split(",")) {
+            if (!id.isEmpty()) productIds.add(Long.valueOf(id));
+        }
+        Map<Integer, Set<Integer>> categoriesByStore = new HashMap<>();
+        if (parts.length > 1) {
+            for (String pair : parts[1].split(",")) {
+                if (pair.isEmpty()) continue;
+                String[] storeAndCategory = pair.split(":");
+                Integer category = NO_CATEGORY.equals(storeAndCategory[1]) ? null : Integer.valueOf(storeAndCategory[1]);
+                categoriesByStore.computeIfAbsent(Integer.valueOf(storeAndCategory[0]), k -> new HashSet<>())
+                        .add(category);
+            }
+        }
+        return new Eviction(productIds, categoriesByStore);
+    }
+
+    // ── HELPERS ───────────────────────────────────────────────────────────────
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new IllegalStateException("Catalog response could not be serialized", e);
+        }
+    }
+
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i <= haystack.length - needle.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) continue outer;
+            }
+            return i;
+        }
+        throw new IllegalStateException("Unexpected ApiResponse layout");
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.flowmerceproject.StoreMangement.service;
 
-import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
+import com.example.flowmerceproject.FileStorage.service.FileStorageService;
+import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
 import com.example.flowmerceproject.OrderManagement.repository.OrderRepository;
 import com.example.flowmerceproject.PaymentManagement.repository.PaymentRepository;
 import com.example.flowmerceproject.ProductManagement.entity.Category;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
+import com.example.flowmerceproject.ProductManagement.entity.ProductMedia;
 import com.example.flowmerceproject.ProductManagement.repository.CategoryRepository;
 import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
 import com.example.flowmerceproject.ProductManagement.service.CategoryService;
@@ -25,10 +27,14 @@ import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundExc
 import com.example.flowmerceproject.UserManagement.repository.MerchantRepository;
 import com.example.flowmerceproject.UserManagement.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -44,11 +50,16 @@ public class StoreService {
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
     private final ProductService productService;
-    private final InventoryRepository inventoryRepository;
+    private final InventoryService inventoryService;
     private final StorefrontCustomizationService storefrontCustomizationService;
     private final OrderRepository orderRepository;
     private final PaymentRepository paymentRepository;
     private final ShipmentRepository shipmentRepository;
+    private final PublicCatalogCache catalogCache;
+    private final FileStorageService fileStorageService;
+
+    @Value("${storefront.catalog.page-size:24}")
+    private int catalogPageSize;
 
     @Transactional
     public StoreDTOs.StoreResponse createStore(String email, StoreDTOs.CreateStoreRequest request) {
@@ -223,34 +234,51 @@ public class StoreService {
 
     // ── PUBLIC CATALOG ────────────────────────────────────────────────────────
 
+    /** The category list as ready-to-send bytes; queried only on a cache miss. */
     @Transactional(readOnly = true)
-    public List<CatalogDTOs.CategoryResponse> getPublicCategories(Integer storeId) {
-        // Collect the distinct category IDs actually used by this store's visible products.
-        // This covers both global categories (store = null) and store-specific ones.
-        List<Integer> usedCatIds = productRepository.findVisibleByStoreId(storeId).stream()
-                .filter(p -> p.getCategory() != null)
-                .map(p -> p.getCategory().getCategoryId())
-                .distinct()
-                .collect(Collectors.toList());
-
-        if (usedCatIds.isEmpty()) return List.of();
-
-        return StreamSupport.stream(categoryRepository.findAllById(usedCatIds).spliterator(), false)
-                .map(c -> CatalogDTOs.CategoryResponse.builder()
-                        .categoryId(c.getCategoryId())
-                        .storeId(storeId)
-                        .name(c.getName())
-                        .build())
-                .collect(Collectors.toList());
+    public byte[] getPublicCategories(Integer storeId) {
+        return catalogCache.categories(storeId, () -> {
+            // Categories actually used by this store's visible products — both
+            // global categories (store = null) and store-specific ones.
+            List<Integer> usedCatIds = productRepository.findVisibleCategoryIdsByStoreId(storeId);
+            if (usedCatIds.isEmpty()) return List.of();
+
+            return StreamSupport.stream(categoryRepository.findAllById(usedCatIds).spliterator(), false)
+                    .map(c -> CatalogDTOs.CategoryResponse.builder()
+                            .categoryId(c.getCategoryId())
+                            .storeId(storeId)
+                            .name(c.getName())
+                            .build())
+                    .collect(Collectors.toList());
+        });
     }
 
+    /**
+     * Visible products, optionally one category and one page
+     * ({@code storefront.catalog.page-size} per page; no page = all), as
+     * ready-to-send bytes. Products are queried only on a cache miss; stock is
+     * current on every call.
+     */
     @Transactional(readOnly = true)
-    public List<CatalogDTOs.ProductResponse> getPublicProducts(Integer storeId,
-                                                                Integer categoryId) {
-        List<Product> products = categoryId != null
-                ? productRepository.findVisibleByStoreIdAndCategoryId(storeId, categoryId)
-                : productRepository.findVisibleByStoreId(storeId);
-        return products.stream().map(this::toProductResponse).collect(Collectors.toList());
+    public byte[] getPublicProducts(Integer storeId, Integer categoryId, Integer page) {
+        Integer pageIndex = page != null ? Math.max(0, page) : null;
+        return catalogCache.products(storeId, categoryId, pageIndex, () -> {
+            List<Product> products;
+            if (pageIndex == null) {
+                products = categoryId != null
+                        ? productRepository.findVisibleByStoreIdAndCategoryId(storeId, categoryId)
+                        : productRepository.findVisibleByStoreId(storeId);
+            } else {
+                PageRequest pageable = PageRequest.of(pageIndex, catalogPageSize);
+                products = categoryId != null
+                        ? productRepository.findVisibleByStoreIdAndCategoryId(storeId, categoryId, pageable)
+                        : productRepository.findVisibleByStoreId(storeId, pageable);
+            }
+            Map<String, Map<String, Map<String, String>>> variants = imageVariants(products);
+            return products.stream()
+                    .map(p -> toProductResponse(p, null, variants))
+                    .collect(Collectors.toList());
+        });
     }
 
     @Transactional(readOnly = true)
@@ -258,7 +286,7 @@ public class StoreService {
         Product product = productRepository.findByProductIdAndStore_StoreId(productId, storeId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Product not found: " + productId));
-        return toProductResponse(product);
+        return toProductResponse(product, availableStock(List.of(product)), imageVariants(List.of(product)));
     }
 
     // ── HELPERS ───────────────────────────────────────────────────────────────
@@ -316,19 +344,43 @@ public class StoreService {
                 .build();
     }
 
-    /** CON-7 / INT-3: populate images (from mediaList) and inventory (from Inventory table). */
-    private CatalogDTOs.ProductResponse toProductResponse(Product p) {
+    /** Available stock for every product in one bulk lookup (Redis, then the DB for misses). */
+    private Map<Long, Integer> availableStock(List<Product> products) {
+        return inventoryService.getAvailableQuantities(products.stream()
+                .map(p -> p.getProductId().longValue())
+                .toList());
+    }
+
+    /** Resized variants of every product image, by image URL, in one metadata lookup. */
+    private Map<String, Map<String, Map<String, String>>> imageVariants(List<Product> products) {
+        return fileStorageService.variantsFor(products.stream()
+                .filter(p -> p.getMediaList() != null)
+                .flatMap(p -> p.getMediaList().stream())
+                .map(ProductMedia::getMediaUrl)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * CON-7 / INT-3: populate images (from mediaList), their srcset variants
+     * and inventory (from {@code stock}; left unset when null, for the catalog
+     * cache to fill in).
+     */
+    private CatalogDTOs.ProductResponse toProductResponse(Product p, Map<Long, Integer> stock,
+                                                         Map<String, Map<String, Map<String, String>>> variants) {
         // Extract image URLs from the product's media list
         java.util.List<String> images = p.getMediaList() == null ? java.util.List.of()
                 : p.getMediaList().stream()
                         .map(m -> m.getMediaUrl())
                         .collect(java.util.stream.Collectors.toList());
+        List<Map<String, Map<String, String>>> imageVariants = images.stream()
+                .map(url -> url == null ? Map.<String, Map<String, String>>of() : variants.getOrDefault(url, Map.of()))
+                .collect(Collectors.toList());
 
-        // Fetch available stock (quantity − reserved) from Inventory table
-        Integer availableQty = inventoryRepository.findByProductId(
-                p.getProductId() != null ? p.getProductId() : 0)
-                .map(inv -> Math.max(0, inv.getQuantity() - inv.getReservedQuantity()))
-                .orElse(0);
+        // Available stock (quantity − reserved), never shown as negative
+        Integer availableQty = stock == null ? null
+                : p.getProductId() != null ? Math.max(0, stock.getOrDefault(p.getProductId().longValue(), 0))
+                : 0;
 
         return CatalogDTOs.ProductResponse.builder()
                 .productId(p.getProductId() != null ? p.getProductId().longValue() : null)
@@ -341,6 +393,7 @@ public class StoreService {
                 .inventory(availableQty)
                 .rating(p.getRating() != null ? p.getRating().floatValue() : null)
                 .images(images)
+                .imageVariants(imageVariants)
                 .build();
     }
 
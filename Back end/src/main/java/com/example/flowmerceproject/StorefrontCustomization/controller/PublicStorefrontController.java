@@ -1,14 +1,22 @@
 package com.example.flowmerceproject.StorefrontCustomization.controller;
 
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import com.example.flowmerceproject.ProductManagement.service.ProductSuggestService;
 import com.example.flowmerceproject.StoreMangement.dto.CatalogDTOs;
 import com.example.flowmerceproject.StoreMangement.service.StoreService;
-import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.StorefrontTemplateResponse;
 import com.example.flowmerceproject.StorefrontCustomization.service.StorefrontCustomizationService;
+import com.example.flowmerceproject.StorefrontCustomization.service.StorefrontSnapshotService.Snapshot;
 import com.example.flowmerceproject.common.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -18,25 +26,68 @@ public class PublicStorefrontController {
 
     private final StorefrontCustomizationService storefrontService;
     private final StoreService storeService;
+    private final ProductSuggestService suggestService;
 
+    @Value("${storefront.snapshot.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    // Served straight from the pre-rendered snapshot bytes; a matching
+    // If-None-Match gets 304 without a body. The gzip body has its own ETag.
     @GetMapping("/{storeId}")
-    public ResponseEntity<ApiResponse<StorefrontTemplateResponse>> getStorefront(
-            @PathVariable Integer storeId) {
-        return ResponseEntity.ok(ApiResponse.ok(storefrontService.getPublicStorefront(storeId)));
+    public ResponseEntity<byte[]> getStorefront(
+            @PathVariable Integer storeId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Snapshot snapshot = storefrontService.getPublicSnapshot(storeId);
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds))
+                .cachePublic().mustRevalidate();
+        boolean gzip = snapshot.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
     }
 
+    // Catalog lists are served from pre-serialized bytes (stock filled in per
+    // request); see PublicCatalogCache.
     @GetMapping("/{storeId}/categories")
-    public ResponseEntity<ApiResponse<List<CatalogDTOs.CategoryResponse>>> getCategories(
-            @PathVariable Integer storeId) {
-        return ResponseEntity.ok(ApiResponse.ok(storeService.getPublicCategories(storeId)));
+    public ResponseEntity<byte[]> getCategories(@PathVariable Integer storeId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(storeService.getPublicCategories(storeId));
     }
 
     @GetMapping("/{storeId}/products")
-    public ResponseEntity<ApiResponse<List<CatalogDTOs.ProductResponse>>> getProducts(
+    public ResponseEntity<byte[]> getProducts(
             @PathVariable Integer storeId,
-            @RequestParam(required = false) Integer categoryId) {
-        return ResponseEntity.ok(ApiResponse.ok(
-                storeService.getPublicProducts(storeId, categoryId)));
+            @RequestParam(required = false) Integer categoryId,
+            @RequestParam(required = false) Integer page) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(storeService.getPublicProducts(storeId, categoryId, page));
+    }
+
+    // Typeahead for the storefront search box: answered from an in-memory
+    // index, so it is safe to call on every keystroke.
+    @GetMapping("/{storeId}/suggest")
+    public ResponseEntity<ApiResponse<List<ProductDTOs.Suggestion>>> suggest(
+            @PathVariable Integer storeId,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(ApiResponse.ok(suggestService.suggest(storeId, query, limit)));
     }
 
     @GetMapping("/{storeId}/products/{productId}")
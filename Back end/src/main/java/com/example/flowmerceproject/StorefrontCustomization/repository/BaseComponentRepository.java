@@ -13,6 +13,12 @@ public interface BaseComponentRepository extends JpaRepository<BaseComponent, Lo
 
     List<BaseComponent> findByPage_PageIdOrderBySortOrderAsc(Long pageId);
 
+    /** Every component of a storefront, in render order within each page — one query for all pages. */
+    @Query("SELECT c FROM BaseComponent c " +
+           "WHERE c.page.storefrontTemplate.templateId = :templateId " +
+           "ORDER BY c.sortOrder ASC")
+    List<BaseComponent> findByTemplateId(@Param("templateId") Long templateId);
+
     /**
      * Returns the next available sortOrder for a page:
      * current MAX + 1, or 0 when the page has no components yet.
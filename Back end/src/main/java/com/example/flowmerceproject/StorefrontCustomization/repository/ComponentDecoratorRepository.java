@@ -2,6 +2,8 @@ package com.example.flowmerceproject.StorefrontCustomization.repository;
 
 import com.example.flowmerceproject.StorefrontCustomization.entity.ComponentDecorator;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,5 +13,11 @@ public interface ComponentDecoratorRepository extends JpaRepository<ComponentDec
 
     List<ComponentDecorator> findByComponent_ComponentIdOrderByPriorityAsc(Long componentId);
 
+    /** Every decorator of a storefront, by priority — one query for all components. */
+    @Query("SELECT d FROM ComponentDecorator d " +
+           "WHERE d.component.page.storefrontTemplate.templateId = :templateId " +
+           "ORDER BY d.priority ASC")
+    List<ComponentDecorator> findByTemplateId(@Param("templateId") Long templateId);
+
     void deleteByComponent_ComponentId(Long componentId);
 }
@@ -6,6 +6,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -29,4 +31,8 @@ public interface StorefrontTemplateRepository extends JpaRepository<StorefrontTe
     @Query("SELECT st FROM StorefrontTemplate st LEFT JOIN FETCH st.theme LEFT JOIN FETCH st.store " +
            "WHERE st.store.storeId = :storeId AND st.status = 'PUBLISHED'")
     Optional<StorefrontTemplate> findPublishedByStoreId(@Param("storeId") Integer storeId);
+
+    /** Stores whose storefront uses one of these themes — for snapshot eviction after a theme write. */
+    @Query("SELECT st.store.storeId FROM StorefrontTemplate st WHERE st.theme.themeId IN :themeIds")
+    List<Integer> findStoreIdsByThemeIds(@Param("themeIds") Collection<Long> themeIds);
 }
@@ -0,0 +1,15 @@
+package com.example.flowmerceproject.StorefrontCustomization.repository;
+
+import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.UpdateThemeRequest;
+
+import java.util.Map;
+
+/**
+ * Applies buffered partial theme updates in one JDBC batch. Null fields keep
+ * the stored colour, so no row has to be read first.
+ */
+public interface ThemeBatchRepository {
+
+    /** themeId → merged partial update. Returns the number of rows updated. */
+    int applyThemeUpdates(Map<Long, UpdateThemeRequest> updates);
+}
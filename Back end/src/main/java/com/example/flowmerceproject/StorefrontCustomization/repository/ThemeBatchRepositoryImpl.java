@@ -0,0 +1,47 @@
+package com.example.flowmerceproject.StorefrontCustomization.repository;
+
+import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.UpdateThemeRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class ThemeBatchRepositoryImpl implements ThemeBatchRepository {
+
+    private static final String UPDATE_SQL =
+            "UPDATE theme_templates SET "
+                    + "background = COALESCE(?, background), "
+                    + "header = COALESCE(?, header), "
+                    + "footer = COALESCE(?, footer), "
+                    + "accent = COALESCE(?, accent), "
+                    + "text_color = COALESCE(?, text_color), "
+                    + "card = COALESCE(?, card), "
+                    + "updated_at = now() "
+                    + "WHERE theme_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int applyThemeUpdates(Map<Long, UpdateThemeRequest> updates) {
+        if (updates.isEmpty()) return 0;
+        List<Map.Entry<Long, UpdateThemeRequest>> rows = new ArrayList<>(updates.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+            UpdateThemeRequest req = row.getValue();
+            ps.setString(1, req.getBackground());
+            ps.setString(2, req.getHeader());
+            ps.setString(3, req.getFooter());
+            ps.setString(4, req.getAccent());
+            ps.setString(5, req.getText());
+            ps.setString(6, req.getCard());
+            ps.setLong(7, row.getKey());
+        });
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int c : batch) updated += Math.max(c, 0);
+        }
+        return updated;
+    }
+}
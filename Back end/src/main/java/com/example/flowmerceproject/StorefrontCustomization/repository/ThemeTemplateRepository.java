@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface ThemeTemplateRepository extends JpaRepository<ThemeTemplate, Long> {
+public interface ThemeTemplateRepository extends JpaRepository<ThemeTemplate, Long>, ThemeBatchRepository {
 
     Optional<ThemeTemplate> findByStorefront_TemplateId(Long templateId);
 }
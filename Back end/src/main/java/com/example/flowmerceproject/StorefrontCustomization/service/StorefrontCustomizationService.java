@@ -8,6 +8,7 @@ import com.example.flowmerceproject.StorefrontCustomization.entity.*;
 import com.example.flowmerceproject.StorefrontCustomization.entity.ComponentDecorator;
 import com.example.flowmerceproject.StorefrontCustomization.entity.StorefrontMedia;
 import com.example.flowmerceproject.StorefrontCustomization.repository.*;
+import com.example.flowmerceproject.StorefrontCustomization.service.StorefrontSnapshotService.Snapshot;
 import com.example.flowmerceproject.UserManagement.entity.Merchant;
 import com.example.flowmerceproject.UserManagement.exception.BadRequestException;
 import com.example.flowmerceproject.UserManagement.exception.ForbiddenException;
@@ -26,7 +27,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -46,14 +49,16 @@ public class StorefrontCustomizationService {
     private final StorefrontWriteBehindService writeBehindService;
     private final MediaRepository mediaRepository;
     private final ComponentDecoratorRepository decoratorRepository;
+    private final StorefrontSnapshotService snapshotService;
 
     @Value("${storefront.cache.ttl-minutes:30}")
     private long ttlMinutes;
 
-    private static final String CACHE_KEY_PREFIX        = "flowmerce:sf:";
     private static final String DESIGN_CACHE_KEY_PREFIX = "flowmerce:sf:design:";
     private static final String OWNER_CACHE_KEY_PREFIX  = "flowmerce:own:";
     private static final Duration OWNER_CACHE_TTL       = Duration.ofSeconds(60);
+    private static final List<String> THEME_FIELDS      = List.of("background", "header", "footer", "accent", "text", "card");
+    private static final Pattern HEX_COLOUR             = Pattern.compile("^#[0-9A-Fa-f]{6}$");
 
     // ── INIT ──────────────────────────────────────────────────────────────────
 
@@ -106,21 +111,17 @@ public class StorefrontCustomizationService {
         return toResponse(requireTemplate(storeId));
     }
 
-    // ── PUBLIC (cache-aside) ──────────────────────────────────────────────────
+    // ── PUBLIC (pre-rendered snapshot) ────────────────────────────────────────
 
+    /** The published storefront as ready-to-send bytes; rendered only on a snapshot miss. */
     @Transactional(readOnly = true)
-    public StorefrontTemplateResponse getPublicStorefront(Integer storeId) {
-        String cacheKey = CACHE_KEY_PREFIX + storeId;
-        Optional<StorefrontTemplateResponse> cached = getFromCache(cacheKey);
-        if (cached.isPresent()) return cached.get();
-
-        StorefrontTemplate template = templateRepository.findPublishedByStoreId(storeId)
-                .orElseThrow(() -> new ResourceNotFoundException(
-                        "No published storefront found for store: " + storeId));
-
-        StorefrontTemplateResponse response = toResponseWithComponents(template);
-        putInCache(cacheKey, response);
-        return response;
+    public Snapshot getPublicSnapshot(Integer storeId) {
+        return snapshotService.get(storeId, () -> {
+            StorefrontTemplate template = templateRepository.findPublishedByStoreId(storeId)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "No published storefront found for store: " + storeId));
+            return toResponseWithComponents(template);
+        });
     }
 
     // ── THEME (DESIGN) ────────────────────────────────────────────────────────
@@ -142,6 +143,7 @@ public class StorefrontCustomizationService {
 
     @Transactional
     public DesignResponse saveDesign(String email, Integer storeId, JsonNode data) {
+        validateColours(data);
         // FAST PATH: ownership + design both cached → zero DB queries.
         // Only valid for existing themes (themeId must be non-null in the design cache).
         if (isOwnershipCached(email, storeId)) {
@@ -151,7 +153,7 @@ public class StorefrontCustomizationService {
                 DesignResponse response = mergeDesignResponse(cachedDesign.get(), data);
                 putDesignInCache(designKey, response);
                 evictCache(storeId);
-                writeBehindService.persistThemeUpdate(cachedDesign.get().getThemeId(), buildUpdateThemeRequest(data));
+                writeBehindService.enqueueThemeUpdate(cachedDesign.get().getThemeId(), buildUpdateThemeRequest(data));
                 return response;
             }
         }
@@ -180,7 +182,7 @@ public class StorefrontCustomizationService {
             // Existing theme: build merged response in-memory without touching the entity
             // so Hibernate dirty-check sees no changes and flushes nothing.
             response = mergeDesignResponse(toDesignResponse(theme), data);
-            writeBehindService.persistThemeUpdate(theme.getThemeId(), buildUpdateThemeRequest(data));
+            writeBehindService.enqueueThemeUpdate(theme.getThemeId(), buildUpdateThemeRequest(data));
         }
 
         putDesignInCache(DESIGN_CACHE_KEY_PREFIX + storeId, response);
@@ -208,7 +210,7 @@ public class StorefrontCustomizationService {
                         .background(background).header(header).footer(footer)
                         .accent(accent).text(text).card(card).updatedAt(now).build());
                 evictCache(storeId);
-                writeBehindService.persistThemeUpdate(existing.getThemeId(), req);
+                writeBehindService.enqueueThemeUpdate(existing.getThemeId(), req);
                 return ThemeResponse.builder()
                         .themeId(existing.getThemeId())
                         .background(background).header(header).footer(footer)
@@ -238,7 +240,7 @@ public class StorefrontCustomizationService {
                 .background(background).header(header).footer(footer)
                 .accent(accent).text(text).card(card).updatedAt(now).build());
         evictCache(store.getStoreId());
-        writeBehindService.persistThemeUpdate(theme.getThemeId(), req);
+        writeBehindService.enqueueThemeUpdate(theme.getThemeId(), req);
 
         return ThemeResponse.builder()
                 .themeId(theme.getThemeId())
@@ -263,7 +265,7 @@ public class StorefrontCustomizationService {
             storeRepository.save(store);
         }
         StorefrontTemplateResponse response = toResponseWithComponents(template);
-        putInCache(CACHE_KEY_PREFIX + store.getStoreId(), response);
+        snapshotService.publish(store.getStoreId(), response);
         return response;
     }
 
@@ -556,32 +558,8 @@ public class StorefrontCustomizationService {
 
     // ── REDIS HELPERS ─────────────────────────────────────────────────────────
 
-    private Optional<StorefrontTemplateResponse> getFromCache(String key) {
-        try {
-            String json = redisTemplate.opsForValue().get(key);
-            if (json == null) return Optional.empty();
-            return Optional.of(objectMapper.readValue(json, StorefrontTemplateResponse.class));
-        } catch (Exception e) {
-            log.warn("Cache get failed for key '{}': {}", key, e.getMessage());
-            return Optional.empty();
-        }
-    }
-
-    private void putInCache(String key, StorefrontTemplateResponse response) {
-        try {
-            String json = objectMapper.writeValueAsString(response);
-            redisTemplate.opsForValue().set(key, json, Duration.ofMinutes(ttlMinutes));
-        } catch (Exception e) {
-            log.warn("Cache put failed for key '{}': {}", key, e.getMessage());
-        }
-    }
-
     private void evictCache(Integer storeId) {
-        try {
-            redisTemplate.delete(CACHE_KEY_PREFIX + storeId);
-        } catch (Exception e) {
-            log.warn("Cache evict failed for store {}: {}", storeId, e.getMessage());
-        }
+        snapshotService.evict(storeId);
     }
 
     /**
@@ -637,27 +615,38 @@ public class StorefrontCustomizationService {
     private DesignResponse mergeDesignResponse(DesignResponse existing, JsonNode data) {
         return DesignResponse.builder()
                 .themeId(existing.getThemeId())
-                .background(data.has("background") ? data.get("background").asText() : existing.getBackground())
-                .header    (data.has("header")      ? data.get("header").asText()     : existing.getHeader())
-                .footer    (data.has("footer")      ? data.get("footer").asText()     : existing.getFooter())
-                .accent    (data.has("accent")      ? data.get("accent").asText()     : existing.getAccent())
-                .text      (data.has("text")        ? data.get("text").asText()       : existing.getText())
-                .card      (data.has("card")        ? data.get("card").asText()       : existing.getCard())
+                .background(Optional.ofNullable(textOf(data, "background")).orElse(existing.getBackground()))
+                .header    (Optional.ofNullable(textOf(data, "header")).orElse(existing.getHeader()))
+                .footer    (Optional.ofNullable(textOf(data, "footer")).orElse(existing.getFooter()))
+                .accent    (Optional.ofNullable(textOf(data, "accent")).orElse(existing.getAccent()))
+                .text      (Optional.ofNullable(textOf(data, "text")).orElse(existing.getText()))
+                .card      (Optional.ofNullable(textOf(data, "card")).orElse(existing.getCard()))
                 .updatedAt(LocalDateTime.now())
                 .build();
     }
 
     private UpdateThemeRequest buildUpdateThemeRequest(JsonNode data) {
         UpdateThemeRequest req = new UpdateThemeRequest();
-        if (data.has("background")) req.setBackground(data.get("background").asText());
-        if (data.has("header"))     req.setHeader(data.get("header").asText());
-        if (data.has("footer"))     req.setFooter(data.get("footer").asText());
-        if (data.has("accent"))     req.setAccent(data.get("accent").asText());
-        if (data.has("text"))       req.setText(data.get("text").asText());
-        if (data.has("card"))       req.setCard(data.get("card").asText());
+        req.setBackground(textOf(data, "background"));
+        req.setHeader(textOf(data, "header"));
+        req.setFooter(textOf(data, "footer"));
+        req.setAccent(textOf(data, "accent"));
+        req.setText(textOf(data, "text"));
+        req.setCard(textOf(data, "card"));
         return req;
     }
 
+    // The same #RRGGBB rule UpdateThemeRequest enforces on PUT /colors: the
+    // columns are varchar(7), and one bad value would fail a whole write-behind batch
+    private void validateColours(JsonNode data) {
+        for (String field : THEME_FIELDS) {
+            String value = textOf(data, field);
+            if (value != null && !HEX_COLOUR.matcher(value).matches()) {
+                throw new BadRequestException(field + " must be a 6-digit hex");
+            }
+        }
+    }
+
     // ── AUTH & GUARD HELPERS ──────────────────────────────────────────────────
 
     private Store getStoreAndVerifyOwner(String email, Integer storeId) {
@@ -740,13 +729,28 @@ public class StorefrontCustomizationService {
                 .build();
     }
 
+    /**
+     * Full storefront graph in four queries however many pages, components
+     * and decorators it has: the template (with theme and store, fetched by
+     * the caller), then pages, components and decorators one query per table,
+     * grouped in memory by parent id.
+     */
     private StorefrontTemplateResponse toResponseWithComponents(StorefrontTemplate t) {
+        Map<Long, List<DecoratorResponse>> decoratorsByComponent = decoratorRepository
+                .findByTemplateId(t.getTemplateId()).stream()
+                .collect(Collectors.groupingBy(d -> d.getComponent().getComponentId(),
+                        Collectors.mapping(this::toDecoratorResponse, Collectors.toList())));
+        Map<Long, List<ComponentResponse>> componentsByPage = componentRepository
+                .findByTemplateId(t.getTemplateId()).stream()
+                .collect(Collectors.groupingBy(c -> c.getPage().getPageId(),
+                        Collectors.mapping(c -> toComponentResponse(c,
+                                decoratorsByComponent.getOrDefault(c.getComponentId(), List.of())),
+                                Collectors.toList())));
+
         List<PageSummary> pages = pageRepository
                 .findByStorefrontTemplate_TemplateIdOrderByNavOrderAsc(t.getTemplateId())
                 .stream().map(p -> {
-                    List<ComponentResponse> components = componentRepository
-                            .findByPage_PageIdOrderBySortOrderAsc(p.getPageId())
-                            .stream().map(this::toComponentResponse).collect(Collectors.toList());
+                    List<ComponentResponse> components = componentsByPage.getOrDefault(p.getPageId(), List.of());
                     return PageSummary.builder()
                             .pageId(p.getPageId())
                             .title(p.getTitle())
@@ -834,6 +838,10 @@ public class StorefrontCustomizationService {
         List<DecoratorResponse> decorators = decoratorRepository
                 .findByComponent_ComponentIdOrderByPriorityAsc(c.getComponentId())
                 .stream().map(this::toDecoratorResponse).collect(Collectors.toList());
+        return toComponentResponse(c, decorators);
+    }
+
+    private ComponentResponse toComponentResponse(BaseComponent c, List<DecoratorResponse> decorators) {
         return ComponentResponse.builder()
                 .componentId(c.getComponentId())
                 .componentType(c.getComponentType().name())
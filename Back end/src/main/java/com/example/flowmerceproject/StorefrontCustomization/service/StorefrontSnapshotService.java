@@ -0,0 +1,281 @@
+package com.example.flowmerceproject.StorefrontCustomization.service;
+
+import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.StorefrontTemplateResponse;
+import com.example.flowmerceproject.common.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-rendered public storefronts.
+ *
+ * A snapshot is the complete {@code ApiResponse} body of
+ * {@code GET /public/storefront/{storeId}}, serialized once, plus a strong
+ * ETag (SHA-256 of the bytes) and a gzip copy. The gzip body is a different
+ * representation, so it is tagged {@code "<hash>-gz"}. Requests are answered
+ * from the bytes — never deserialized — and a matching If-None-Match gets a 304.
+ *
+ * L1     storeId → snapshot                in-process, bounded, TTL=30s
+ * Redis  flowmerce:sf:snap:{storeId}       → hash {version, etag, json}   TTL=storefront.cache.ttl-minutes
+ *        flowmerce:sf:snap:gen:{storeId}   → evict counter
+ *
+ * Publishing renders and stores a snapshot straight away. Any other edit
+ * evicts it (now and again after the edit commits, so a read racing the
+ * transaction can't keep the old one); the next read renders a fresh one,
+ * once per node — concurrent misses for a store wait on the same render.
+ * A render only reaches Redis if no evict happened while it ran
+ * (snapshot_put.lua compares the evict counter), so a node that read the
+ * pre-edit rows cannot write them back after another node's evict.
+ * Evictions are published on {@link #EVICT_CHANNEL} so every node drops its
+ * L1 copy.
+ *
+ * Redis failures fall back to rendering; they never fail a request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StorefrontSnapshotService {
+
+    public static final String SNAPSHOT_KEY_PREFIX = "flowmerce:sf:snap:";
+    public static final String EVICT_CHANNEL = "flowmerce:sf:snap:evict";
+    static final String GENERATION_KEY_PREFIX = "flowmerce:sf:snap:gen:";
+
+    static final RedisScript<Long> PUT_IF_CURRENT = script("snapshot_put.lua");
+
+    /** Bodies smaller than this are not worth compressing. */
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${storefront.cache.ttl-minutes:30}")
+    private long ttlMinutes;
+
+    @Value("${storefront.snapshot.l1.max-size:10000}")
+    private long l1MaxSize;
+
+    @Value("${storefront.snapshot.l1.ttl-seconds:30}")
+    private long l1TtlSeconds;
+
+    /**
+     * One rendered storefront. {@code gzip} is null when the body is too small
+     * to compress.
+     */
+    public record Snapshot(int version, String etag, byte[] json, byte[] gzip) {
+
+        /** The ETag of the gzip body: the identity ETag with a {@code -gz} suffix. */
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gz\"";
+        }
+
+        /** True if an If-None-Match header value names either of this snapshot's ETags. */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag())) return true;
+            }
+            return false;
+        }
+    }
+
+    private Cache<Integer, Snapshot> l1;
+
+    @PostConstruct
+    void init() {
+        l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build();
+
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                l1.invalidate(Integer.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (NumberFormatException e) {
+                log.warn("Storefront snapshot: bad evict message ignored");
+            }
+        }, new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    // ── READ ──────────────────────────────────────────────────────────────────
+
+    /**
+     * Returns the snapshot for {@code storeId}: from L1, else Redis, else by
+     * rendering {@code render} and storing the result.
+     */
+    public Snapshot get(Integer storeId, Supplier<StorefrontTemplateResponse> render) {
+        return l1.get(storeId, id -> {
+            Snapshot cached = readRedis(id);
+            if (cached != null) return cached;
+            String generation = readGeneration(id);
+            Snapshot fresh = render(render.get());
+            if (generation != null) writeRedisIfCurrent(id, generation, fresh);
+            return fresh;
+        });
+    }
+
+    // ── WRITE ─────────────────────────────────────────────────────────────────
+
+    /** Renders and stores the snapshot for a just-published storefront. */
+    public Snapshot publish(Integer storeId, StorefrontTemplateResponse response) {
+        Snapshot snapshot = render(response);
+        writeRedis(storeId, snapshot);
+        broadcastEvict(storeId);
+        l1.put(storeId, snapshot);
+        return snapshot;
+    }
+
+    /** Drops the snapshot everywhere, now and after the current transaction commits. */
+    public void evict(Integer storeId) {
+        evictNow(storeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(storeId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(Integer storeId) {
+        l1.invalidate(storeId);
+        try {
+            // Bumped before the delete, so a render that started earlier can't store afterwards
+            redisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + storeId);
+            redisTemplate.expire(GENERATION_KEY_PREFIX + storeId, Duration.ofMinutes(ttlMinutes));
+            redisTemplate.delete(SNAPSHOT_KEY_PREFIX + storeId);
+        } catch (Exception e) {
+            log.warn("Snapshot evict failed for store {}: {}", storeId, e.getMessage());
+        }
+        broadcastEvict(storeId);
+    }
+
+    private void broadcastEvict(Integer storeId) {
+        try {
+            redisTemplate.convertAndSend(EVICT_CHANNEL, String.valueOf(storeId));
+        } catch (Exception e) {
+            log.warn("Snapshot evict broadcast failed for store {}: {}", storeId, e.getMessage());
+        }
+    }
+
+    // ── REDIS HELPERS ─────────────────────────────────────────────────────────
+
+    private Snapshot readRedis(Integer storeId) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(SNAPSHOT_KEY_PREFIX + storeId);
+            if (fields.isEmpty()) return null;
+            byte[] json = ((String) fields.get("json")).getBytes(StandardCharsets.UTF_8);
+            return new Snapshot(Integer.parseInt((String) fields.get("version")),
+                    (String) fields.get("etag"), json, gzip(json));
+        } catch (Exception e) {
+            log.warn("Snapshot get failed for store {}: {}", storeId, e.getMessage());
+            return null;
+        }
+    }
+
+    /** The store's evict counter, "0" if it has none, or null if Redis is unreachable. */
+    private String readGeneration(Integer storeId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + storeId);
+            return generation != null ? generation : "0";
+        } catch (Exception e) {
+            log.warn("Snapshot generation read failed for store {}: {}", storeId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedisIfCurrent(Integer storeId, String generation, Snapshot snapshot) {
+        try {
+            redisTemplate.execute(PUT_IF_CURRENT,
+                    List.of(SNAPSHOT_KEY_PREFIX + storeId, GENERATION_KEY_PREFIX + storeId),
+                    generation, String.valueOf(snapshot.version()), snapshot.etag(),
+                    new String(snapshot.json(), StandardCharsets.UTF_8),
+                    String.valueOf(Duration.ofMinutes(ttlMinutes).toMillis()));
+        } catch (Exception e) {
+            log.warn("Snapshot put failed for store {}: {}", storeId, e.getMessage());
+        }
+    }
+
+    private void writeRedis(Integer storeId, Snapshot snapshot) {
+        String key = SNAPSHOT_KEY_PREFIX + storeId;
+        try {
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "version", String.valueOf(snapshot.version()),
+                    "etag", snapshot.etag(),
+                    "json", new String(snapshot.json(), StandardCharsets.UTF_8)));
+            redisTemplate.expire(key, Duration.ofMinutes(ttlMinutes));
+        } catch (Exception e) {
+            log.warn("Snapshot put failed for store {}: {}", storeId, e.getMessage());
+        }
+    }
+
+    // ── RENDER ────────────────────────────────────────────────────────────────
+
+    Snapshot render(StorefrontTemplateResponse response) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(ApiResponse.ok(response));
+        } catch (IOException e) {
+            throw new IllegalStateException("Storefront could not be serialized", e);
+        }
+        int version = response.getVersion() != null ? response.getVersion() : 0;
+        return new Snapshot(version, etagOf(json), json, gzip(json));
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HEX.formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private static RedisScript<Long> script(String name) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/storefront/" + name));
+        script.setResultType(Long.class);
+        return script;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        if (json.length < GZIP_MIN_BYTES) return null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            return null;
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,58 +1,317 @@
 package com.example.flowmerceproject.StorefrontCustomization.service;
 
 import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.UpdateThemeRequest;
-import com.example.flowmerceproject.StorefrontCustomization.entity.ThemeTemplate;
+import com.example.flowmerceproject.StorefrontCustomization.repository.StorefrontTemplateRepository;
 import com.example.flowmerceproject.StorefrontCustomization.repository.ThemeTemplateRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Asynchronous DB persistence for the write-behind (write-back) cache strategy.
+ * Coalescing write-behind buffer for theme colour changes.
  *
- * This must be a separate Spring bean from {@link StorefrontCustomizationService}
- * so that {@code @Async} can be applied via Spring's AOP proxy. Calls that
- * originate from within the same bean would bypass the proxy and execute
- * synchronously.
+ * The design cache is updated synchronously by
+ * {@link StorefrontCustomizationService}; the PostgreSQL row catches up here.
  *
  * Flow:
- *   1. Service writes to Redis immediately → returns 200 to the merchant.
- *   2. Service calls this bean asynchronously.
- *   3. This bean opens its own transaction and persists to PostgreSQL.
+ *   1. {@link #enqueueThemeUpdate} HSETs the non-null fields into
+ *      {@code flowmerce:sf:theme:pending:{themeId}} and marks the theme dirty
+ *      (scripts/storefront/theme_enqueue.lua). A burst of colour-picker saves
+ *      collapses into one hash — the last value of each field wins.
+ *   2. Every {@code storefront.theme.flush-interval-ms} the dirty themes are
+ *      taken (theme_take.lua moves pending fields into an in-flight hash) and
+ *      written in one JDBC batch. A theme is written at most once per flush.
+ *   3. After the batch commits the in-flight hashes are deleted
+ *      (theme_complete.lua). If the batch fails, each theme is written on its
+ *      own so one bad row cannot hold back the rest; the ones that still fail
+ *      are released for the next flush. A theme whose own write is rejected
+ *      {@code storefront.theme.max-attempts} times (not merely hit by an
+ *      outage) is moved to the {@code flowmerce:sf:theme:dead} stream.
+ *      The public snapshots of the written themes' stores are evicted again
+ *      after the commit — a public read between the save and the flush would
+ *      otherwise have re-cached the old colours for the whole snapshot TTL.
+ *
+ * Ordering: a theme in flight on one node is skipped by every other node
+ * until its lease ({@code storefront.theme.lease-ms}) runs out, and newer
+ * pending fields are merged over in-flight ones, so a later save never gets
+ * overwritten by an earlier one. In-flight hashes left by a node that died
+ * mid-flush are picked up again by {@link #recoverOrphans()}.
+ *
+ * If Redis is unavailable the update is written straight to the DB.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class StorefrontWriteBehindService {
 
+    static final String KEY_PREFIX = "flowmerce:sf:theme:";
+    static final String DIRTY_KEY = KEY_PREFIX + "dirty";
+    static final String DEAD_LETTER_KEY = KEY_PREFIX + "dead";
+    private static final String STAMP_FIELD = "_ts";
+    private static final String FAILS_FIELD = "_fails";
+
+    static final RedisScript<Long> ENQUEUE = script("theme_enqueue.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> TAKE = script("theme_take.lua", List.class);
+    static final RedisScript<Long> COMPLETE = script("theme_complete.lua", Long.class);
+
     private final ThemeTemplateRepository themeRepository;
+    private final StorefrontTemplateRepository templateRepository;
+    private final StorefrontSnapshotService snapshotService;
+    private final StringRedisTemplate redisTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${storefront.theme.flush-batch-size:500}")
+    private int batchSize;
+
+    @Value("${storefront.theme.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${storefront.theme.max-attempts:5}")
+    private int maxAttempts;
+
+    private TransactionTemplate transactionTemplate;
+    private Timer flushTimer;
+    private final AtomicLong pendingThemes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushTimer = Timer.builder("storefront.theme.flush")
+                .description("Time to write one batch of buffered theme updates")
+                .register(meterRegistry);
+        Gauge.builder("storefront.theme.writes.pending", pendingThemes, AtomicLong::get)
+                .description("Themes with buffered changes not yet written to the DB")
+                .register(meterRegistry);
+    }
+
+    // ── ENQUEUE ───────────────────────────────────────────────────────────────
 
     /**
-     * Persists theme colour changes to PostgreSQL after the cache has already
-     * been updated. Runs on Spring's default async executor thread pool.
-     *
-     * @param themeId the PK of the ThemeTemplate to update
-     * @param req     the partial update request (null fields = no change)
+     * Buffers a partial theme update (null fields = no change). Returns once
+     * the change is in Redis; the DB write happens on the next flush.
      */
-    @Async
-    @Transactional
-    public void persistThemeUpdate(Long themeId, UpdateThemeRequest req) {
-        ThemeTemplate theme = themeRepository.findById(themeId).orElse(null);
-        if (theme == null) {
-            log.warn("Write-behind: ThemeTemplate {} not found — skipping DB write", themeId);
+    public void enqueueThemeUpdate(Long themeId, UpdateThemeRequest req) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(themeId));
+        fieldsOf(req).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        if (args.size() == 1) return;
+
+        try {
+            redisTemplate.execute(ENQUEUE, List.of(KEY_PREFIX + "pending:" + themeId, DIRTY_KEY), args.toArray());
+        } catch (Exception e) {
+            log.warn("Write-behind: Redis unavailable, writing theme {} directly — {}", themeId, e.getMessage());
+            transactionTemplate.executeWithoutResult(s -> themeRepository.applyThemeUpdates(Map.of(themeId, req)));
+        }
+    }
+
+    // ── FLUSH ─────────────────────────────────────────────────────────────────
+
+    @Scheduled(fixedDelayString = "${storefront.theme.flush-interval-ms:1000}")
+    public void flush() {
+        List<?> taken;
+        try {
+            taken = redisTemplate.execute(TAKE, List.of(DIRTY_KEY),
+                    String.valueOf(batchSize), KEY_PREFIX, String.valueOf(leaseMs));
+        } catch (Exception e) {
+            log.warn("Write-behind: theme take failed — {}", e.getMessage());
             return;
         }
+        if (taken == null || taken.isEmpty()) {
+            updatePendingGauge();
+            return;
+        }
+
+        Map<Long, Map<String, String>> fieldsById = new LinkedHashMap<>();
+        Map<Long, UpdateThemeRequest> updates = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < taken.size(); i += 2) {
+            Long themeId = Long.valueOf(String.valueOf(taken.get(i)));
+            Map<String, String> fields = toMap((List<?>) taken.get(i + 1));
+            fieldsById.put(themeId, fields);
+            updates.put(themeId, requestOf(fields));
+        }
+
+        try {
+            flushTimer.record(() -> write(updates));
+            log.debug("Write-behind: persisted {} theme(s)", updates.size());
+            updates.keySet().forEach(themeId -> complete(themeId, fieldsById.get(themeId), "1", false));
+        } catch (RuntimeException e) {
+            log.error("Write-behind: theme flush of {} theme(s) failed, writing them one by one — {}",
+                    updates.size(), e.getMessage());
+            writeEach(updates, fieldsById);
+        }
+        updatePendingGauge();
+    }
+
+    private void write(Map<Long, UpdateThemeRequest> updates) {
+        transactionTemplate.executeWithoutResult(s -> {
+            themeRepository.applyThemeUpdates(updates);
+            // evict() repeats after commit, so no reader can re-cache the pre-flush row
+            templateRepository.findStoreIdsByThemeIds(updates.keySet()).forEach(snapshotService::evict);
+        });
+    }
+
+    /**
+     * Writes each theme in its own transaction after a failed batch. A theme
+     * rejected max-attempts times is dead-lettered; after a transient failure
+     * (the DB is down) the rest are released untried.
+     */
+    private void writeEach(Map<Long, UpdateThemeRequest> updates, Map<Long, Map<String, String>> fieldsById) {
+        boolean outage = false;
+        for (Map.Entry<Long, UpdateThemeRequest> update : updates.entrySet()) {
+            Long themeId = update.getKey();
+            Map<String, String> fields = fieldsById.get(themeId);
+            if (outage) {
+                complete(themeId, fields, "0", false);
+                continue;
+            }
+            try {
+                write(Map.of(themeId, update.getValue()));
+                complete(themeId, fields, "1", false);
+            } catch (RuntimeException e) {
+                outage = isTransient(e);
+                int fails = Integer.parseInt(fields.getOrDefault(FAILS_FIELD, "0")) + 1;
+                if (!outage && fails >= maxAttempts && deadLetter(themeId, fields, e)) {
+                    complete(themeId, fields, "1", false);
+                } else {
+                    log.warn("Write-behind: theme {} not written (attempt {}) — {}", themeId, fails, e.getMessage());
+                    complete(themeId, fields, "0", !outage);
+                }
+            }
+        }
+    }
+
+    private void complete(Long themeId, Map<String, String> fields, String outcome, boolean rejected) {
+        try {
+            redisTemplate.execute(COMPLETE, List.of(KEY_PREFIX + "inflight:" + themeId, DIRTY_KEY),
+                    fields.get(STAMP_FIELD), String.valueOf(themeId), outcome, rejected ? "1" : "0");
+        } catch (Exception e) {
+            // The in-flight hash stays; its lease expires and recoverOrphans re-queues it.
+            log.warn("Write-behind: completing theme {} failed — {}", themeId, e.getMessage());
+        }
+    }
+
+    private boolean deadLetter(Long themeId, Map<String, String> fields, RuntimeException cause) {
+        Map<String, String> entry = new LinkedHashMap<>(fieldsOf(requestOf(fields)));
+        entry.put("themeId", String.valueOf(themeId));
+        String error = String.valueOf(cause.getMessage());
+        entry.put("error", error.length() > 1000 ? error.substring(0, 1000) : error);
+        try {
+            redisTemplate.opsForStream().add(DEAD_LETTER_KEY, entry);
+        } catch (Exception e) {
+            log.error("Write-behind: could not dead-letter theme {} — will retry", themeId, e);
+            return false;
+        }
+        log.error("Write-behind: theme {} moved to {} after {} rejected writes: {}", themeId, DEAD_LETTER_KEY,
+                maxAttempts, error);
+        return true;
+    }
+
+    // A lost connection or lock timeout says nothing about the row itself
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void updatePendingGauge() {
+        try {
+            Long dirty = redisTemplate.opsForSet().size(DIRTY_KEY);
+            pendingThemes.set(dirty != null ? dirty : 0);
+        } catch (Exception ignored) {
+            // keep the last reading
+        }
+    }
+
+    /**
+     * Re-marks themes whose in-flight hash outlived its flush (the node died
+     * before completing). The take script still honours the lease, so a
+     * flush that is merely slow is not overlapped.
+     */
+    @Scheduled(fixedDelayString = "${storefront.theme.orphan-check-ms:60000}")
+    public void recoverOrphans() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "inflight:*").count(500).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                redisTemplate.opsForSet().add(DIRTY_KEY, key.substring(key.lastIndexOf(':') + 1));
+            }
+        } catch (Exception e) {
+            log.warn("Write-behind: orphan scan failed — {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void drain() {
+        flush();
+    }
 
-        if (req.getBackground() != null) theme.setBackground(req.getBackground());
-        if (req.getHeader()     != null) theme.setHeader(req.getHeader());
-        if (req.getFooter()     != null) theme.setFooter(req.getFooter());
-        if (req.getAccent()     != null) theme.setAccent(req.getAccent());
-        if (req.getText()       != null) theme.setText(req.getText());
-        if (req.getCard()       != null) theme.setCard(req.getCard());
+    // ── HELPERS ───────────────────────────────────────────────────────────────
+
+    private static Map<String, String> fieldsOf(UpdateThemeRequest req) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        if (req.getBackground() != null) fields.put("background", req.getBackground());
+        if (req.getHeader()     != null) fields.put("header",     req.getHeader());
+        if (req.getFooter()     != null) fields.put("footer",     req.getFooter());
+        if (req.getAccent()     != null) fields.put("accent",     req.getAccent());
+        if (req.getText()       != null) fields.put("text",       req.getText());
+        if (req.getCard()       != null) fields.put("card",       req.getCard());
+        return fields;
+    }
+
+    private static UpdateThemeRequest requestOf(Map<String, String> fields) {
+        return UpdateThemeRequest.builder()
+                .background(fields.get("background"))
+                .header(fields.get("header"))
+                .footer(fields.get("footer"))
+                .accent(fields.get("accent"))
+                .text(fields.get("text"))
+                .card(fields.get("card"))
+                .build();
+    }
+
+    private static Map<String, String> toMap(List<?> flat) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            map.put(String.valueOf(flat.get(i)), String.valueOf(flat.get(i + 1)));
+        }
+        return map;
+    }
 
-        themeRepository.save(theme);
-        log.debug("Write-behind: persisted theme {} to DB", themeId);
+    private static <T> RedisScript<T> script(String name, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/storefront/" + name));
+        script.setResultType(resultType);
+        return script;
     }
 }
@@ -80,7 +80,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String email = jwtUtil.extractEmail(token);
         String hash  = sessionCacheService.hash(token);
 
-        // ── 3. Tier-1 hit: 0 DB queries ──────────────────────────────────────
+        // ── 3. L1 / Tier-1 hit: 0 DB queries ─────────────────────────────────
         String cachedRole = sessionCacheService.tryGetRole(hash);
         if (cachedRole != null) {
             authenticate(email, cachedRole);
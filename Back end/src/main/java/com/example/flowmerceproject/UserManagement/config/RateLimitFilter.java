@@ -1,12 +1,19 @@
 package com.example.flowmerceproject.UserManagement.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
@@ -14,17 +21,27 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Simple Redis-backed sliding-window rate limiter.
+ * Redis-backed token-bucket (GCRA) rate limiter.
  *
- * Limits applied per-IP:
- *  - /auth/**      → 30 requests / 60s  (login/register brute-force protection)
- *  - /uploads/**   → 20 requests / 60s  (upload abuse protection)
- *  - All other     → 300 requests / 60s (general API protection)
+ * Limits applied per-IP and route group (defaults, see rate-limit.* properties):
+ *  - auth      → 30 requests / 60s  (login/register brute-force protection)
+ *  - uploads   → 20 requests / 60s  (upload abuse protection)
+ *  - api       → 300 requests / 60s (general API protection)
+ *
+ * Each check is one atomic Lua call (scripts/ratelimit/gcra.lua). A group
+ * with a non-zero {@code local-slice} leases tokens from Redis in blocks and
+ * spends them in-process, so a busy client makes few Redis calls. The block
+ * doubles (up to the slice) each time a lease is used up within
+ * {@code rate-limit.lease-ms} and falls back to 1 once a lease goes stale,
+ * so a slow client doesn't burn tokens it never uses. Leased tokens are
+ * already debited in Redis, so leasing can only make the limit stricter,
+ * never looser. Strict groups (slice 0) hit Redis every time.
  *
- * Uses Redis INCR + EXPIRE so the counter resets automatically.
  * On Redis failure the filter fails-open (logs warning, allows request).
  */
 @Slf4j
@@ -32,14 +49,34 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
 
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> GCRA = gcraScript();
+
     private final StringRedisTemplate redis;
 
-    // Sensitive endpoints — tight limit
-    private static final int AUTH_LIMIT    = 30;
-    private static final int UPLOAD_LIMIT  = 20;
-    // General API — loose limit
-    private static final int GLOBAL_LIMIT  = 300;
-    private static final Duration WINDOW   = Duration.ofSeconds(60);
+    @Value("${rate-limit.auth.limit:30}")
+    private int authLimit;
+    @Value("${rate-limit.auth.period-seconds:60}")
+    private long authPeriodSeconds;
+    @Value("${rate-limit.auth.local-slice:0}")
+    private int authLocalSlice;
+
+    @Value("${rate-limit.uploads.limit:20}")
+    private int uploadsLimit;
+    @Value("${rate-limit.uploads.period-seconds:60}")
+    private long uploadsPeriodSeconds;
+    @Value("${rate-limit.uploads.local-slice:0}")
+    private int uploadsLocalSlice;
+
+    @Value("${rate-limit.api.limit:300}")
+    private int apiLimit;
+    @Value("${rate-limit.api.period-seconds:60}")
+    private long apiPeriodSeconds;
+    @Value("${rate-limit.api.local-slice:0}")
+    private int apiLocalSlice;
+
+    @Value("${rate-limit.lease-ms:1000}")
+    private long leaseMs;
 
     /** Paths that get the tight auth rate limit. */
     private static final Set<String> AUTH_PREFIXES = Set.of(
@@ -51,6 +88,33 @@ public class RateLimitFilter extends OncePerRequestFilter {
             "/auth/customer/forgot-password"
     );
 
+    /** One route group's budget: {@code limit} tokens per {@code period}. */
+    record Group(String name, int limit, Duration period, int localSlice) {
+        long intervalMs() {
+            return Math.max(1, period.toMillis() / limit);
+        }
+    }
+
+    private Group auth;
+    private Group uploads;
+    private Group api;
+
+    /** Tokens this node leased for one rl key, and the size of that lease. */
+    private record Lease(AtomicInteger remaining, int size) { }
+
+    private Cache<String, Lease> leases;
+
+    @PostConstruct
+    void init() {
+        auth    = new Group("auth", authLimit, Duration.ofSeconds(authPeriodSeconds), authLocalSlice);
+        uploads = new Group("uploads", uploadsLimit, Duration.ofSeconds(uploadsPeriodSeconds), uploadsLocalSlice);
+        api     = new Group("api", apiLimit, Duration.ofSeconds(apiPeriodSeconds), apiLocalSlice);
+        leases = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(leaseMs))
+                .build();
+    }
+
     @Override
     protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
         // CORS preflight carries no credentials/payload and SecurityConfig already
@@ -69,45 +133,63 @@ public class RateLimitFilter extends OncePerRequestFilter {
 
         String ip  = resolveIp(request);
         String path = request.getServletPath();
-        int limit = resolveLimit(path);
-        String key = "rl:" + ip + ":" + bucket(path);
+        Group group = resolveGroup(path);
+        String key = "rl:" + ip + ":" + group.name();
 
+        long retryAfterMs = 0;
         try {
-            Long count = redis.opsForValue().increment(key);
-            if (count != null && count == 1) {
-                // First request in this window — set expiry
-                redis.expire(key, WINDOW);
-            }
-            if (count != null && count > limit) {
-                log.warn("Rate limit exceeded: ip={} path={} count={}", ip, path, count);
-                response.setStatus(429);
-                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-                response.getWriter().write(
-                    "{\"success\":false,\"message\":\"Too many requests. Please slow down.\",\"status\":429}"
-                );
-                return;
-            }
+            retryAfterMs = acquire(key, group);
         } catch (Exception ex) {
             // Fail-open: if Redis is unavailable, allow the request
             log.warn("RateLimitFilter: Redis error (fail-open) — {}", ex.getMessage());
         }
 
+        if (retryAfterMs > 0) {
+            log.warn("Rate limit exceeded: ip={} path={} group={}", ip, path, group.name());
+            response.setStatus(429);
+            response.setHeader("Retry-After", String.valueOf((retryAfterMs + 999) / 1000));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(
+                "{\"success\":false,\"message\":\"Too many requests. Please slow down.\",\"status\":429}"
+            );
+            return;
+        }
+
         chain.doFilter(request, response);
     }
 
-    private int resolveLimit(String path) {
-        for (String prefix : AUTH_PREFIXES) {
-            if (path.startsWith(prefix)) return AUTH_LIMIT;
+    /**
+     * Takes one token for {@code key}: from this node's lease when the group
+     * allows one, else from Redis. Returns 0 if allowed, otherwise the
+     * milliseconds until a token is available.
+     */
+    long acquire(String key, Group group) {
+        Lease lease = null;
+        if (group.localSlice() > 0) {
+            lease = leases.getIfPresent(key);
+            if (lease != null && lease.remaining().getAndDecrement() > 0) return 0;
         }
-        if (path.startsWith("/uploads")) return UPLOAD_LIMIT;
-        return GLOBAL_LIMIT;
+
+        // Previous lease spent while still fresh → ask for twice as many.
+        int wanted = lease == null ? 1 : Math.min(lease.size() * 2, Math.min(group.localSlice(), group.limit()));
+        List<?> result = redis.execute(GCRA, List.of(key),
+                String.valueOf(group.intervalMs()), String.valueOf(group.limit()), String.valueOf(wanted));
+        if (result == null || result.size() < 2) return 0;
+
+        long granted = ((Number) result.get(0)).longValue();
+        if (granted <= 0) return Math.max(1, ((Number) result.get(1)).longValue());
+        if (group.localSlice() > 0) {
+            leases.put(key, new Lease(new AtomicInteger((int) granted - 1), (int) granted));
+        }
+        return 0;
     }
 
-    /** Bucket name: group similar paths so the key doesn't explode. */
-    private static String bucket(String path) {
-        if (path.startsWith("/auth"))    return "auth";
-        if (path.startsWith("/uploads")) return "uploads";
-        return "api";
+    private Group resolveGroup(String path) {
+        for (String prefix : AUTH_PREFIXES) {
+            if (path.startsWith(prefix)) return auth;
+        }
+        if (path.startsWith("/uploads")) return uploads;
+        return api;
     }
 
     private static String resolveIp(HttpServletRequest req) {
@@ -117,4 +199,12 @@ public class RateLimitFilter extends OncePerRequestFilter {
         if (real != null && !real.isBlank()) return real;
         return req.getRemoteAddr();
     }
+
+    @SuppressWarnings("rawtypes")
+    private static RedisScript<List> gcraScript() {
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/ratelimit/gcra.lua"));
+        script.setResultType(List.class);
+        return script;
+    }
 }
@@ -79,6 +79,7 @@ public class SecurityConfig {
                                 "/stores/slug/**",
                                 "/stores/*/products/public",
                                 "/stores/*/products/search",
+                                "/stores/*/products/search/facets",
                                 "/stores/*/products/*",
                                 "/products/*/reviews",
                                 "/uploads/**"
@@ -105,6 +106,8 @@ public class SecurityConfig {
         ));
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         config.setAllowedHeaders(List.of("*"));
+        // Paginated order/customer lists return their paging state in headers.
+        config.setExposedHeaders(List.of("X-Next-Cursor", "X-Has-More"));
         config.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -1,36 +1,28 @@
 package com.example.flowmerceproject.UserManagement.service;
 
 import com.example.flowmerceproject.NotificationManagement.email.BaseEmailTemplate;
+import com.example.flowmerceproject.NotificationManagement.entity.EmailOutboxMessage;
+import com.example.flowmerceproject.NotificationManagement.service.EmailOutboxService;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.MailException;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final EmailOutboxService emailOutboxService;
 
     @Value("${app.frontend-url}")
     private String frontendUrl;
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
-
-    // @Async: SMTP can be slow (Gmail handshake/throttling). Sending inline blocked
-    // the HTTP request thread *and* the caller's DB transaction (register() holds
-    // the row lock on the unique email column), which stalled unrelated requests
-    // and made retried registrations race with the still-open transaction.
-    @Async
+    // Every email is written to the outbox in the caller's transaction and sent
+    // after commit by EmailOutboxService. SMTP can be slow (Gmail handshake/
+    // throttling): sending inline blocked the HTTP request thread *and* the
+    // caller's DB transaction (register() holds the row lock on the unique email
+    // column). The outbox also means a rolled-back registration sends nothing,
+    // and a failed send is retried instead of logged and lost. Emails a user is
+    // waiting on to sign in go out URGENT, ahead of order notifications.
     public void sendActivationEmail(String toEmail, String token) {
         String activationLink = frontendUrl + "/activate?token=" + token;
         String subject = "Activate your FlowMerce account";
@@ -41,14 +33,13 @@ public class EmailService {
                 <p>This link expires in 24 hours.</p>
                 <p>If you did not register, please ignore this email.</p>
                 """.formatted(activationLink);
-        sendHtmlEmail(toEmail, subject, body);
+        sendHtmlEmail(toEmail, subject, body, EmailOutboxMessage.Priority.URGENT);
     }
 
     /**
      * Customer-specific activation email — links to the store-branded page
      * /store/{storeSlug}/activate so the customer stays within the store context.
      */
-    @Async
     public void sendCustomerActivationEmail(String toEmail, String token, String storeSlug) {
         String activationLink = frontendUrl + "/activate?token=" + token + "&type=customer&slug=" + storeSlug;
         String subject = "Verify your email to start shopping";
@@ -61,15 +52,13 @@ public class EmailService {
                 <p>This link expires in 24 hours.</p>
                 <p>If you did not create this account, please ignore this email.</p>
                 """.formatted(activationLink);
-        sendHtmlEmail(toEmail, subject, body);
+        sendHtmlEmail(toEmail, subject, body, EmailOutboxMessage.Priority.URGENT);
     }
 
-    @Async
     public void sendTransactionalEmail(String toEmail, BaseEmailTemplate template) {
-        sendHtmlEmail(toEmail, template.getSubject(), template.render());
+        sendHtmlEmail(toEmail, template.getSubject(), template.render(), EmailOutboxMessage.Priority.NORMAL);
     }
 
-    @Async
     public void sendPasswordResetEmail(String toEmail, String token) {
         String resetLink = frontendUrl + "/reset-password?token=" + token;
         String subject = "Reset your FlowMerce password";
@@ -80,10 +69,9 @@ public class EmailService {
                 <p>This link expires in 1 hour.</p>
                 <p>If you did not request this, please ignore this email.</p>
                 """.formatted(resetLink);
-        sendHtmlEmail(toEmail, subject, body);
+        sendHtmlEmail(toEmail, subject, body, EmailOutboxMessage.Priority.URGENT);
     }
 
-    @Async
     public void sendMfaCodeEmail(String toEmail, String code) {
         String subject = "Your FlowMerce verification code";
         String body = """
@@ -93,26 +81,10 @@ public class EmailService {
                 <p>This code expires in 5 minutes.</p>
                 <p>If you did not attempt to log in, you can safely ignore this email.</p>
                 """.formatted(code);
-        sendHtmlEmail(toEmail, subject, body);
+        sendHtmlEmail(toEmail, subject, body, EmailOutboxMessage.Priority.URGENT);
     }
 
-    private void sendHtmlEmail(String to, String subject, String htmlBody) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true); // true = HTML
-            mailSender.send(message);
-        } catch (MessagingException e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        } catch (MailException e) {
-            // mailSender.send() throws this unchecked on real SMTP failures
-            // (auth, timeout, connection refused). Must not propagate: this runs
-            // inside the caller's @Transactional register() — letting it escape
-            // would roll back an otherwise-successful registration.
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-        }
+    private void sendHtmlEmail(String to, String subject, String htmlBody, EmailOutboxMessage.Priority priority) {
+        emailOutboxService.enqueue(to, subject, htmlBody, priority);
     }
-}
\ No newline at end of file
+}
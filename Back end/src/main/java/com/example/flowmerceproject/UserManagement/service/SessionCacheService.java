@@ -1,10 +1,17 @@
 package com.example.flowmerceproject.UserManagement.service;
 
 import com.example.flowmerceproject.UserManagement.repository.SessionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
@@ -15,16 +22,23 @@ import java.util.HexFormat;
 import java.util.List;
 
 /**
- * Two-tier Redis session cache for JwtAuthFilter.
+ * Session cache for JwtAuthFilter: an in-JVM L1 in front of two Redis tiers.
  *
- * Tier 1  flowmerce:sess:{hash}      → role string   TTL=30s  (sliding)
+ * L1      token hash → role          in-process, bounded, TTL=10s
+ * Tier 1  flowmerce:sess:{hash}      → role string   TTL=30s  (refreshed on read)
  * Tier 2  flowmerce:sess:etag:{hash} → role string   TTL=24h  (long-lived fallback)
  *
- * Tier 1 hit:  0 DB queries — role served directly from Redis.
+ * L1 hit:      0 network calls.
+ * Tier 1 hit:  1 Redis call (GETEX reads and refreshes the TTL together); fills L1.
  * Tier 2 hit:  1 DB query  — existsByTokenAndIsRevokedFalse; if active, restore Tier 1 with cached role.
- * Both miss:   2 DB queries — existing behaviour; result stored in both tiers.
+ * All miss:    2 DB queries — existing behaviour; result stored in every tier.
+ *
+ * Evictions delete the Redis tiers and publish the hash on
+ * {@link #EVICT_CHANNEL}; every node drops it from its L1 on receipt. The L1
+ * TTL bounds how long a node that missed the message keeps serving it.
  *
  * All operations fail-open so Redis unavailability never blocks auth.
+ * Lookups are counted in {@code session.cache.lookups{tier, result}}.
  */
 @Service
 @RequiredArgsConstructor
@@ -33,6 +47,8 @@ public class SessionCacheService {
 
     private final StringRedisTemplate redis;
     private final SessionRepository sessionRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
 
     @Value("${session.cache.ttl-seconds:30}")
     private long tier1TtlSeconds;
@@ -40,43 +56,95 @@ public class SessionCacheService {
     @Value("${session.cache.etag-ttl-seconds:86400}")
     private long tier2TtlSeconds;
 
+    @Value("${session.cache.l1.max-size:10000}")
+    private long l1MaxSize;
+
+    @Value("${session.cache.l1.ttl-seconds:10}")
+    private long l1TtlSeconds;
+
     public static final String TIER1_PREFIX = "flowmerce:sess:";
     public static final String TIER2_PREFIX = "flowmerce:sess:etag:";
+    public static final String EVICT_CHANNEL = "flowmerce:sess:evict";
 
-    // ── HASH ──────────────────────────────────────────────────────────────────
-
-    /** SHA-256(token), first 24 hex chars (96 bits — collision-safe for this scale). */
-    public String hash(String token) {
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(token.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(digest).substring(0, 24);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("SHA-256 unavailable", e);
         }
+    });
+    private static final HexFormat HEX = HexFormat.of();
+
+    private Cache<String, String> l1;
+    private Counter l1Hits, l1Misses, tier1Hits, tier1Misses, tier2Hits, tier2Misses;
+
+    @PostConstruct
+    void init() {
+        l1 = Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(Duration.ofSeconds(l1TtlSeconds))
+                .build();
+
+        l1Hits      = lookups("l1", "hit");
+        l1Misses    = lookups("l1", "miss");
+        tier1Hits   = lookups("tier1", "hit");
+        tier1Misses = lookups("tier1", "miss");
+        tier2Hits   = lookups("tier2", "hit");
+        tier2Misses = lookups("tier2", "miss");
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> l1.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(EVICT_CHANNEL));
+    }
+
+    private Counter lookups(String tier, String result) {
+        return Counter.builder("session.cache.lookups")
+                .description("Session cache lookups by tier and outcome")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ── HASH ──────────────────────────────────────────────────────────────────
+
+    /** SHA-256(token), first 24 hex chars (96 bits — collision-safe for this scale). */
+    public String hash(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(digest, 0, 12);
     }
 
-    // ── TIER 1 ────────────────────────────────────────────────────────────────
+    // ── L1 + TIER 1 ───────────────────────────────────────────────────────────
 
     /**
-     * Returns the cached role if present (refreshing the sliding TTL), or null on miss/error.
+     * Returns the cached role from L1, else from tier-1 (refreshing its TTL in
+     * the same call), or null on miss/error.
      */
     public String tryGetRole(String hash) {
-        try {
-            String key = TIER1_PREFIX + hash;
-            String role = redis.opsForValue().get(key);
-            if (role != null) {
-                redis.expire(key, Duration.ofSeconds(tier1TtlSeconds));
-            }
+        String role = l1.getIfPresent(hash);
+        if (role != null) {
+            l1Hits.increment();
             return role;
+        }
+        l1Misses.increment();
+
+        try {
+            role = redis.opsForValue().getAndExpire(TIER1_PREFIX + hash, Duration.ofSeconds(tier1TtlSeconds));
         } catch (Exception e) {
             log.warn("Session tier1 read failed for hash {}: {}", hash, e.getMessage());
             return null;
         }
+        if (role != null) {
+            tier1Hits.increment();
+            l1.put(hash, role);
+        } else {
+            tier1Misses.increment();
+        }
+        return role;
     }
 
     /** Restore tier-1 from tier-2 data after a successful revalidation. */
     public void restoreTier1(String hash, String role) {
+        l1.put(hash, role);
         try {
             redis.opsForValue().set(TIER1_PREFIX + hash, role, Duration.ofSeconds(tier1TtlSeconds));
         } catch (Exception e) {
@@ -89,7 +157,9 @@ public class SessionCacheService {
     /** Returns the role stored in tier-2, or null on miss/error. */
     public String tryGetTier2Role(String hash) {
         try {
-            return redis.opsForValue().get(TIER2_PREFIX + hash);
+            String role = redis.opsForValue().get(TIER2_PREFIX + hash);
+            (role != null ? tier2Hits : tier2Misses).increment();
+            return role;
         } catch (Exception e) {
             log.warn("Session tier2 read failed for hash {}: {}", hash, e.getMessage());
             return null;
@@ -98,8 +168,9 @@ public class SessionCacheService {
 
     // ── STORE / EVICT ─────────────────────────────────────────────────────────
 
-    /** Write role to both tiers (each write is individually fail-open). */
+    /** Write role to every tier (each Redis write is individually fail-open). */
     public void store(String hash, String role) {
+        l1.put(hash, role);
         try {
             redis.opsForValue().set(TIER1_PREFIX + hash, role, Duration.ofSeconds(tier1TtlSeconds));
         } catch (Exception e) {
@@ -112,13 +183,17 @@ public class SessionCacheService {
         }
     }
 
-    /** Evict both tiers for the given raw JWT token. */
+    /** Evict every tier for the given raw JWT token. */
     public void evict(String token) {
         evictByHash(hash(token));
     }
 
-    /** Evict both tiers when only the hash is known (e.g. inside the filter). */
+    /**
+     * Evict every tier when only the hash is known (e.g. inside the filter),
+     * and tell the other nodes to drop it from their L1.
+     */
     public void evictByHash(String hash) {
+        l1.invalidate(hash);
         try {
             redis.delete(TIER1_PREFIX + hash);
         } catch (Exception e) {
@@ -129,10 +204,15 @@ public class SessionCacheService {
         } catch (Exception e) {
             log.warn("Session tier2 evict failed for hash {}: {}", hash, e.getMessage());
         }
+        try {
+            redis.convertAndSend(EVICT_CHANNEL, hash);
+        } catch (Exception e) {
+            log.warn("Session L1 evict broadcast failed for hash {}: {}", hash, e.getMessage());
+        }
     }
 
     /**
-     * Evict both tiers for all active sessions of a user.
+     * Evict every tier, on every node, for all active sessions of a user.
      * Call BEFORE revokeAllByUserId so the tokens are still queryable.
      */
     public void evictAllForUser(Integer userId) {
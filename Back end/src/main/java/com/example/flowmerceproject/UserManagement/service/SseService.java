@@ -1,85 +1,320 @@
 package com.example.flowmerceproject.UserManagement.service;
 
 import com.example.flowmerceproject.InventoryManagement.event.StockChangedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Server-Sent Events, delivered across every backend node.
+ *
+ * Events are not sent to local emitters directly: {@link #sendToUser} and
+ * {@link #broadcast} run scripts/sse/publish.lua, which numbers the event,
+ * appends it to a short per-user (or broadcast) replay buffer and publishes
+ * it on {@code sse:user} / {@code sse:broadcast}. Every node receives it and
+ * writes it only to the emitters connected to that node, so a client can be
+ * served by any replica without sticky sessions.
+ *
+ * A user may hold several connections (tabs). A client reconnecting with
+ * Last-Event-ID gets the buffered events it missed before live ones.
+ *
+ * Local delivery never blocks the caller: each event is rendered once and
+ * queued on every matching connection, and each connection's queue is
+ * drained by a virtual thread. A connection whose queue reaches
+ * {@code sse.queue-capacity} is closed rather than allowed to back up — the
+ * client reconnects with Last-Event-ID and catches up from the replay buffer.
+ * A heartbeat comment every {@code sse.heartbeat-ms} reaps dead connections.
+ *
+ * If Redis is unavailable the event is delivered to this node's emitters
+ * only, without an id.
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class SseService {
 
-    // Private connections — one per user (email → emitter)
+    static final String USER_CHANNEL = "sse:user";
+    static final String BROADCAST_CHANNEL = "sse:broadcast";
+    static final String SEQ_KEY = "sse:seq";
+    static final String REPLAY_PREFIX = "sse:replay:";
+    static final String BROADCAST_REPLAY_KEY = REPLAY_PREFIX + "broadcast";
+    // The envelope is {"user":…,"type":…,"data":…} with data last, so the
+    // payload can be cut out as text instead of being parsed and re-written
+    private static final String DATA_FIELD = ",\"data\":";
+
+    static final RedisScript<Long> PUBLISH = publishScript();
+
+    private final StringRedisTemplate redis;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sse.replay.size:100}")
+    private int replaySize;
+
+    @Value("${sse.replay.ttl-seconds:300}")
+    private long replayTtlSeconds;
+
+    @Value("${sse.queue-capacity:64}")
+    private int queueCapacity;
+
+    // Private connections on this node — any number per user (email → connections)
     // Used for: order updates, account activity, low stock alerts per merchant
-    private final Map<String, SseEmitter> userEmitters = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> userConnections = new ConcurrentHashMap<>();
 
-    // Broadcast connections — all connected clients
+    // Broadcast connections on this node
     // Used for: system alerts, flash sale notifications
-    private final List<SseEmitter> broadcastEmitters = new CopyOnWriteArrayList<>();
+    private final Set<Connection> broadcastConnections = ConcurrentHashMap.newKeySet();
 
-    // SUBSCRIBE — private connection per user
-    public SseEmitter subscribeUser(String userEmail) {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+    // One virtual thread per connection with pending events, none when idle
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Events queued on this node across all connections (gauge)
+    private final AtomicInteger queuedEvents = new AtomicInteger();
+    private Counter droppedEvents;
+
+    /** An event rendered once per publish and shared by every connection it goes to. */
+    private record Frame(long id, Set<DataWithMediaType> data) { }
 
-        userEmitters.put(userEmail, emitter);
+    private static final Frame HEARTBEAT = new Frame(0, SseEmitter.event().comment("heartbeat").build());
+
+    /**
+     * One open stream with its own bounded send queue. {@code lastId} is the
+     * highest event id queued to it; anything at or below it (a live copy of
+     * a replayed event) is skipped.
+     */
+    private final class Connection {
+        final String userEmail;   // null for broadcast connections
+        final SseEmitter emitter;
+        final Queue<Frame> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        long lastId;
+
+        Connection(String userEmail, SseEmitter emitter) {
+            this.userEmail = userEmail;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queues {@code frame} for sending. Replayed frames may exceed the
+         * queue capacity; live ones close the connection when it is full.
+         */
+        synchronized void enqueue(Frame frame, boolean replay) {
+            if (closed) return;
+            if (frame.id() > 0) {
+                if (frame.id() <= lastId) return;
+                lastId = frame.id();
+            }
+            if (!replay && depth.get() >= queueCapacity) {
+                droppedEvents.increment();
+                log.warn("SSE client too slow, closing: user={}", userEmail);
+                close();
+                return;
+            }
+            queue.add(frame);
+            depth.incrementAndGet();
+            queuedEvents.incrementAndGet();
+            if (draining.compareAndSet(false, true)) sender.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                Frame frame;
+                while (!closed && (frame = queue.poll()) != null) {
+                    depth.decrementAndGet();
+                    queuedEvents.decrementAndGet();
+                    emitter.send(frame.data());
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            // An enqueue may have landed between the last poll and the reset above.
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        synchronized void close() {
+            if (closed) return;
+            closed = true;
+            int discarded = depth.getAndSet(0);
+            queuedEvents.addAndGet(-discarded);
+            droppedEvents.increment(discarded);
+            queue.clear();
+            unregister(this);
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {
+                // already completed or the response is gone
+            }
+        }
+    }
+
+    /** A decoded pub/sub message or replay buffer entry. */
+    private record Envelope(long id, String user, String type, String json) { }
+
+    @PostConstruct
+    void subscribe() {
+        droppedEvents = Counter.builder("sse.events.dropped")
+                .description("SSE events discarded for slow or dead connections")
+                .register(meterRegistry);
+        Gauge.builder("sse.connections", userConnections,
+                        m -> m.values().stream().mapToInt(Set::size).sum())
+                .description("Open SSE connections on this node")
+                .tag("scope", "user")
+                .register(meterRegistry);
+        Gauge.builder("sse.connections", broadcastConnections, Set::size)
+                .description("Open SSE connections on this node")
+                .tag("scope", "broadcast")
+                .register(meterRegistry);
+        Gauge.builder("sse.queue.depth", queuedEvents, AtomicInteger::get)
+                .description("SSE events queued and not yet written on this node")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener((message, pattern) -> onUserMessage(message),
+                new ChannelTopic(USER_CHANNEL));
+        listenerContainer.addMessageListener((message, pattern) -> onBroadcastMessage(message),
+                new ChannelTopic(BROADCAST_CHANNEL));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    // SUBSCRIBE — private connection; several per user are allowed
+    public SseEmitter subscribeUser(String userEmail, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        Connection connection = new Connection(userEmail, emitter);
 
         emitter.onCompletion(() -> {
-            userEmitters.remove(userEmail);
+            connection.close();
             log.info("SSE private closed: user={}", userEmail);
         });
         emitter.onTimeout(() -> {
-            userEmitters.remove(userEmail);
+            connection.close();
             log.info("SSE private timeout: user={}", userEmail);
         });
         emitter.onError(e -> {
-            userEmitters.remove(userEmail);
+            connection.close();
             log.warn("SSE private error: user={}", userEmail);
         });
 
         // Send welcome event to confirm connection
-        sendToUser(userEmail, "CONNECTED", Map.of("message", "Connected successfully"));
+        connection.enqueue(frame(0, "CONNECTED", toJson(Map.of("message", "Connected successfully"))), true);
+
+        // Registered and replayed under the connection's lock: live events wait
+        // until the missed ones are written, then only newer ids go through.
+        synchronized (connection) {
+            userConnections.computeIfAbsent(userEmail, k -> ConcurrentHashMap.newKeySet()).add(connection);
+            replay(REPLAY_PREFIX + userEmail, lastEventId, connection);
+        }
 
         log.info("SSE private connected: user={}", userEmail);
         return emitter;
     }
 
-    // SUBSCRIBE — broadcast (no auth needed)
-    public SseEmitter subscribeBroadcast() {
+    // SUBSCRIBE — broadcast
+    public SseEmitter subscribeBroadcast(String lastEventId) {
         SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        Connection connection = new Connection(null, emitter);
 
-        broadcastEmitters.add(emitter);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
 
-        emitter.onCompletion(() -> broadcastEmitters.remove(emitter));
-        emitter.onTimeout(() -> broadcastEmitters.remove(emitter));
-        emitter.onError(e -> broadcastEmitters.remove(emitter));
+        synchronized (connection) {
+            broadcastConnections.add(connection);
+            replay(BROADCAST_REPLAY_KEY, lastEventId, connection);
+        }
 
-        log.info("SSE broadcast connected. Total: {}", broadcastEmitters.size());
+        log.info("SSE broadcast connected. Total on this node: {}", broadcastConnections.size());
         return emitter;
     }
 
-    // SEND TO SPECIFIC USER
-    public void sendToUser(String userEmail, String eventType, Object data) {
-        SseEmitter emitter = userEmitters.get(userEmail);
-        if (emitter == null) {
-            log.debug("No SSE connection for user={}", userEmail);
+    private void unregister(Connection connection) {
+        if (connection.userEmail == null) {
+            broadcastConnections.remove(connection);
+            return;
+        }
+        userConnections.computeIfPresent(connection.userEmail, (k, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // HEARTBEAT — a comment line; a failed write closes and unregisters the connection
+    @Scheduled(fixedDelayString = "${sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        userConnections.values().forEach(set -> set.forEach(c -> c.enqueue(HEARTBEAT, false)));
+        broadcastConnections.forEach(c -> c.enqueue(HEARTBEAT, false));
+    }
+
+    private void replay(String replayKey, String lastEventId, Connection connection) {
+        if (lastEventId == null || lastEventId.isBlank()) return;
+        long after;
+        try {
+            after = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
             return;
         }
+        List<String> buffered;
         try {
-            emitter.send(SseEmitter.event()
-                    .name(eventType)
-                    .data(data));
-        } catch (IOException e) {
-            userEmitters.remove(userEmail);
-            log.warn("SSE send failed for user={}, removing", userEmail);
+            buffered = redis.opsForList().range(replayKey, 0, -1);
+        } catch (Exception e) {
+            log.warn("SSE replay read failed for {}: {}", replayKey, e.getMessage());
+            return;
+        }
+        if (buffered == null) return;
+        for (String raw : buffered) {
+            Envelope event = decode(raw);
+            if (event != null && event.id() > after) {
+                connection.enqueue(frame(event.id(), event.type(), event.json()), true);
+            }
         }
     }
 
+    // SEND TO SPECIFIC USER — reaches the user's connections on every node
+    public void sendToUser(String userEmail, String eventType, Object data) {
+        publish(USER_CHANNEL, REPLAY_PREFIX + userEmail, userEmail, eventType, data);
+    }
+
     // SEND STOCK UPDATE — called by StockEventListener
     public void sendStockUpdate(StockChangedEvent event, String merchantEmail) {
         String alertLevel = event.getNewQuantity() == 0 ? "OUT_OF_STOCK" : "LOW_STOCK";
@@ -116,19 +351,94 @@ public class SseService {
         sendToUser(userEmail, "ACCOUNT_ACTIVITY", Map.of("message", message));
     }
 
-    // BROADCAST TO ALL — system alerts
+    // BROADCAST TO ALL — system alerts, on every node
     public void broadcast(String eventType, Object data) {
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
+        publish(BROADCAST_CHANNEL, BROADCAST_REPLAY_KEY, null, eventType, data);
+    }
 
-        broadcastEmitters.forEach(emitter -> {
-            try {
-                emitter.send(SseEmitter.event().name(eventType).data(data));
-            } catch (IOException e) {
-                deadEmitters.add(emitter);
-            }
-        });
+    // ── CLUSTER FAN-OUT ───────────────────────────────────────────────────────
+
+    private void publish(String channel, String replayKey, String userEmail, String eventType, Object data) {
+        // The payload is serialized once; the envelope is built around that text
+        String json = toJson(data);
+        String envelope = "{\"user\":" + toJson(userEmail) + ",\"type\":" + toJson(eventType)
+                + DATA_FIELD + json + "}";
+        try {
+            redis.execute(PUBLISH, List.of(SEQ_KEY, replayKey), channel, envelope,
+                    String.valueOf(replaySize), String.valueOf(replayTtlSeconds * 1000));
+        } catch (Exception e) {
+            // Fail-open: this node's connections still get it, without an id.
+            log.warn("SSE publish failed (delivering locally only): event={}, error={}", eventType, e.getMessage());
+            Envelope local = new Envelope(0, userEmail, eventType, json);
+            if (userEmail == null) deliverBroadcast(local);
+            else deliverToUser(local);
+        }
+    }
+
+    private void onUserMessage(Message message) {
+        Envelope event = decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (event != null && event.user() != null) deliverToUser(event);
+    }
+
+    private void onBroadcastMessage(Message message) {
+        Envelope event = decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (event != null) deliverBroadcast(event);
+    }
+
+    private void deliverToUser(Envelope event) {
+        Set<Connection> connections = userConnections.get(event.user());
+        if (connections == null) {
+            log.debug("No SSE connection on this node for user={}", event.user());
+            return;
+        }
+        Frame frame = frame(event.id(), event.type(), event.json());
+        connections.forEach(connection -> connection.enqueue(frame, false));
+    }
+
+    private void deliverBroadcast(Envelope event) {
+        Frame frame = frame(event.id(), event.type(), event.json());
+        broadcastConnections.forEach(connection -> connection.enqueue(frame, false));
+        log.info("Broadcast queued: event={}, recipients on this node={}", event.type(), broadcastConnections.size());
+    }
+
+    private static Frame frame(long id, String eventType, String json) {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(eventType).data(json, MediaType.APPLICATION_JSON);
+        if (id > 0) event.id(Long.toString(id));
+        return new Frame(id, event.build());
+    }
+
+    private Envelope decode(String raw) {
+        int sep = raw.indexOf('|');
+        if (sep <= 0) return null;
+        try {
+            // Only the small user/type header is parsed. DATA_FIELD can't occur
+            // inside it: a quote within a JSON string is always escaped.
+            int data = raw.indexOf(DATA_FIELD, sep);
+            if (data < 0 || !raw.endsWith("}")) return null;
+            JsonNode header = objectMapper.readTree(raw.substring(sep + 1, data) + "}");
+            JsonNode user = header.get("user");
+            return new Envelope(Long.parseLong(raw.substring(0, sep)),
+                    user == null || user.isNull() ? null : user.asText(),
+                    header.get("type").asText(),
+                    raw.substring(data + DATA_FIELD.length(), raw.length() - 1));
+        } catch (Exception e) {
+            log.warn("SSE: unreadable event skipped: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("SSE payload is not serializable", e);
+        }
+    }
 
-        broadcastEmitters.removeAll(deadEmitters);
-        log.info("Broadcast sent: event={}, recipients={}", eventType, broadcastEmitters.size());
+    private static RedisScript<Long> publishScript() {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/sse/publish.lua"));
+        script.setResultType(Long.class);
+        return script;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,156 @@
+package com.example.flowmerceproject.common.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the files in {@code app.upload.dir}: content type,
+ * size, modification time and ETag per file name, so serving a file needs
+ * no filesystem lookup before the body is sent.
+ *
+ * Built once at startup and kept current by a directory watch, plus
+ * {@link #register} for writes made by this process. A name not in the
+ * index is looked up on disk once and added, so a file is servable even
+ * before its watch event arrives.
+ */
+@Slf4j
+@Component
+public class LocalFileIndex {
+
+    /** What {@code serve} needs to know about one file. {@code etag} is strong, quotes included. */
+    public record Entry(Path path, String contentType, long size, long lastModified, String etag) { }
+
+    @Value("${app.upload.dir:uploads}")
+    private String uploadDir;
+
+    private Path root;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private WatchService watcher;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            log.info("Upload dir {} does not exist — nothing to index", root);
+            return;
+        }
+        try {
+            watcher = root.getFileSystem().newWatchService();
+            root.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            Thread thread = new Thread(this::watch, "upload-dir-watch");
+            thread.setDaemon(true);
+            thread.start();
+        } catch (IOException e) {
+            log.warn("Upload dir watch unavailable, files added later are indexed on first request: {}", e.getMessage());
+        }
+        rebuild();
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (watcher != null) watcher.close();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /** The indexed file, or null if {@code name} is not a regular file in the upload dir. */
+    public Entry lookup(String name) {
+        Entry entry = entries.get(name);
+        if (entry != null) return entry;
+        return register(root.resolve(name).normalize());
+    }
+
+    /** (Re)indexes {@code path}; drops it if it no longer exists. Returns the new entry, or null. */
+    public Entry register(Path path) {
+        String name = path.getFileName().toString();
+        if (!root.equals(path.getParent())) return null;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                entries.remove(name);
+                return null;
+            }
+            Entry entry = toEntry(path, attributes);
+            entries.put(name, entry);
+            return entry;
+        } catch (NoSuchFileException e) {
+            entries.remove(name);
+            return null;
+        } catch (IOException e) {
+            log.warn("Could not index {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    public void remove(String name) {
+        entries.remove(name);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void rebuild() {
+        entries.clear();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path path : files) register(path);
+        } catch (IOException e) {
+            log.warn("Could not index upload dir {}: {}", root, e.getMessage());
+        }
+        log.info("Indexed {} files in {}", entries.size(), root);
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rebuild();
+                    } else {
+                        register(root.resolve((Path) event.context()));
+                    }
+                }
+                if (!key.reset()) {
+                    log.warn("Upload dir {} is no longer watchable — files added later are indexed on first request", root);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    static Entry toEntry(Path path, BasicFileAttributes attributes) {
+        String contentType = MediaTypeFactory.getMediaType(path.getFileName().toString())
+                .map(MediaType::toString)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+        return new Entry(path, contentType, size, lastModified, etag);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.flowmerceproject.common.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Writes an indexed local file to the response: conditional requests
+ * ({@code If-None-Match}, {@code If-Modified-Since}) answered from the index
+ * with a 304, a single {@code Range} (honoring {@code If-Range}) as a 206,
+ * and the body sent without passing through the heap — through the
+ * container's sendfile when it offers one (Tomcat over plain HTTP), through
+ * {@link FileChannel#transferTo} otherwise.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocalFileServer {
+
+    // Tomcat's sendfile contract: set these and write no body
+    static final String SENDFILE_SUPPORT  = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START    = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END      = "org.apache.tomcat.sendfile.end";
+
+    // SEC-11: only the raster image types validated at upload time are served
+    // inline so <img> tags can render them — anything else (the .bin fallback
+    // for an unrecognized type) is forced to download instead, so a rogue
+    // SVG/HTML that somehow slipped through can't execute as a document.
+    // Video is inline too, so a <video> element can stream it with ranges.
+    private static final Set<String> INLINE_TYPES = Set.of(
+            "image/jpeg", "image/png", "image/gif", "image/webp", "image/avif",
+            "video/mp4", "video/webm");
+
+    private final LocalFileIndex index;
+
+    /** A byte range, both ends inclusive. */
+    record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+    }
+
+    public void serve(LocalFileIndex.Entry file, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        String disposition = (INLINE_TYPES.contains(file.contentType()) ? "inline" : "attachment")
+                + "; filename=\"" + file.path().getFileName() + "\"";
+        response.setHeader(HttpHeaders.ETAG, file.etag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (notModified(file, request)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        ByteRange range = new ByteRange(0, file.size() - 1);
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && file.size() > 0 && rangeStillValid(file, request)) {
+            ByteRange requested = parseRange(rangeHeader, file.size());
+            if (requested == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (requested != null) {
+                range = requested;
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + range.start() + "-" + range.end() + "/" + file.size());
+            }
+        }
+
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(range.length());
+        if ("HEAD".equals(request.getMethod()) || range.length() == 0) return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, range.start());
+            request.setAttribute(SENDFILE_END, range.end() + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = range.start();
+            long remaining = range.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) break;   // file shrank under us
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (NoSuchFileException e) {
+            index.remove(file.path().getFileName().toString());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            }
+        }
+    }
+
+    // ── CONDITIONALS ──────────────────────────────────────────────────────────
+
+    /** If-None-Match wins over If-Modified-Since (RFC 9110 §13.2.2). */
+    static boolean notModified(LocalFileIndex.Entry file, HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+                if (candidate.equals("*") || candidate.equals(file.etag())) return true;
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        // HTTP dates have one-second resolution
+        return ifModifiedSince >= 0 && file.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /** If-Range: serve the range only if the file is still the one the client has part of. */
+    static boolean rangeStillValid(LocalFileIndex.Entry file, HttpServletRequest request) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"")) return ifRange.equals(file.etag());   // strong comparison
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && file.lastModified() / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    // ── RANGE ─────────────────────────────────────────────────────────────────
+
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -2);
+
+    /**
+     * Parses {@code bytes=a-b}, {@code bytes=a-} or {@code bytes=-n} against
+     * a file of {@code size} bytes. Returns null for anything else — other
+     * units, several ranges, malformed values — so the whole file is sent,
+     * which a server may always do; {@link #UNSATISFIABLE} if it starts past
+     * the end.
+     */
+    static ByteRange parseRange(String header, long size) {
+        if (!header.startsWith("bytes=")) return null;
+        String spec = header.substring(6).trim();
+        if (spec.contains(",")) return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) return UNSATISFIABLE;
+                return new ByteRange(Math.max(0, size - suffix), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= size) return UNSATISFIABLE;
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
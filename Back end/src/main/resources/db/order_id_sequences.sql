@@ -0,0 +1,32 @@
+-- FlowMerce: switch orders / order_items / invoices to pooled sequence ids.
+--
+-- Order, OrderItem and Invoice used GenerationType.IDENTITY, which forces an
+-- INSERT per row to learn its id and disables Hibernate's JDBC batching. They
+-- now use @SequenceGenerator(allocationSize = 50) on the sequences below.
+--
+-- spring.jpa.hibernate.ddl-auto=update would create missing sequences starting
+-- at 1, colliding with existing rows, so run this script BEFORE deploying the
+-- change. Each sequence is moved past the current MAX(id); Hibernate's pooled
+-- optimizer hands out (value - 49 .. value), so the next block starts above it.
+-- The old SERIAL/identity column defaults are left in place and simply unused.
+-- Idempotent / safe to re-run.
+--
+-- Run this against the Supabase database directly (e.g. via the SQL editor or psql).
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq      INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS invoices_seq    INCREMENT BY 50;
+
+ALTER SEQUENCE orders_seq      INCREMENT BY 50;
+ALTER SEQUENCE order_items_seq INCREMENT BY 50;
+ALTER SEQUENCE invoices_seq    INCREMENT BY 50;
+
+SELECT setval('orders_seq',
+              GREATEST(COALESCE((SELECT MAX(order_id) FROM orders), 0) + 50,
+                       (SELECT last_value FROM orders_seq)));
+SELECT setval('order_items_seq',
+              GREATEST(COALESCE((SELECT MAX(order_item_id) FROM order_items), 0) + 50,
+                       (SELECT last_value FROM order_items_seq)));
+SELECT setval('invoices_seq',
+              GREATEST(COALESCE((SELECT MAX(invoice_id) FROM invoices), 0) + 50,
+                       (SELECT last_value FROM invoices_seq)));
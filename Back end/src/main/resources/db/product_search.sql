@@ -0,0 +1,49 @@
+-- FlowMerce: product search index (product_search read model).
+--
+-- One row per product with a weighted tsvector (name A, category B,
+-- description C) and a trigram-indexed search_text (name + category) for
+-- prefix and typo-tolerant matching. Rows are upserted by ProductSearchService
+-- from ProductChangedEvent; deleting a product removes its row via the FK.
+--
+-- Text goes through flowmerce_search_norm() on both the index and the query
+-- side: lower-cased, Arabic alef/yaa/taa-marbuta variants folded, tashkeel and
+-- tatweel stripped. The 'simple' configuration is used because PostgreSQL has
+-- no Arabic stemmer and English stemming would mangle mixed-language names;
+-- prefix matching (term:*) and trigrams cover inflection and typos instead.
+--
+-- ddl-auto=update can't create GIN indexes, extensions or functions, so
+-- ProductSearchService applies this script on startup and backfills the
+-- table when it is empty. It can also be run by hand (SQL editor or psql).
+-- Needs the pg_trgm and btree_gin extensions (both available on Supabase).
+-- Idempotent / safe to re-run.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+-- أ إ آ ٱ → ا, ى → ي, ة → ه; tatweel and tashkeel (U+064B–U+0652, U+0670) removed.
+CREATE OR REPLACE FUNCTION flowmerce_search_norm(t text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE
+AS $$
+SELECT translate(lower(coalesce(t, '')),
+                 U&'\0623\0625\0622\0671\0649\0629\0640\064B\064C\064D\064E\064F\0650\0651\0652\0670',
+                 U&'\0627\0627\0627\0627\064A\0647')
+$$;
+
+CREATE TABLE IF NOT EXISTS product_search (
+    product_id  INT           PRIMARY KEY,
+    store_id    INT           NOT NULL,
+    category_id INT,
+    is_active   BOOLEAN       NOT NULL,
+    base_price  DECIMAL(10,2),
+    search_text TEXT          NOT NULL,
+    document    TSVECTOR      NOT NULL,
+    CONSTRAINT fk_product_search_product
+        FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE
+);
+
+-- store_id leads both indexes (btree_gin), so a search only touches one
+-- store's postings instead of filtering the whole catalog's.
+CREATE INDEX IF NOT EXISTS idx_product_search_document
+    ON product_search USING GIN (store_id, document);
+CREATE INDEX IF NOT EXISTS idx_product_search_trgm
+    ON product_search USING GIN (store_id, search_text gin_trgm_ops);
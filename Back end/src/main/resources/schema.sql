@@ -125,6 +125,20 @@ CREATE TABLE IF NOT EXISTS products (
 CREATE INDEX IF NOT EXISTS idx_products_store    ON products(store_id);
 CREATE INDEX IF NOT EXISTS idx_products_category ON products(category_id);
 
+-- Full-text search read model, one row per product, kept in sync from
+-- ProductChangedEvent. Needs pg_trgm/btree_gin and flowmerce_search_norm();
+-- the full definition with its indexes is db/product_search.sql.
+CREATE TABLE IF NOT EXISTS product_search (
+                                              product_id  INT           PRIMARY KEY,
+                                              store_id    INT           NOT NULL,
+                                              category_id INT,
+                                              is_active   BOOLEAN       NOT NULL,
+                                              base_price  DECIMAL(10,2),
+    search_text TEXT          NOT NULL,            -- normalized name + category, trigram-indexed
+    document    TSVECTOR      NOT NULL,            -- name A, category B, description C
+    FOREIGN KEY (product_id) REFERENCES products(product_id) ON DELETE CASCADE
+    );
+
 CREATE TABLE IF NOT EXISTS product_media (
                                              media_id   SERIAL PRIMARY KEY,
                                              product_id INT          NOT NULL,
@@ -179,6 +193,9 @@ CREATE TABLE IF NOT EXISTS inventory_transactions (
     );
 CREATE INDEX IF NOT EXISTS idx_inv_txn_product ON inventory_transactions(product_id);
 CREATE INDEX IF NOT EXISTS idx_inv_txn_store   ON inventory_transactions(store_id);
+-- Stream entry id of the write-behind ledger buffer; lets a replay skip rows already written.
+ALTER TABLE inventory_transactions ADD COLUMN IF NOT EXISTS ledger_entry_id VARCHAR(40);
+CREATE UNIQUE INDEX IF NOT EXISTS uq_inv_txn_ledger_entry ON inventory_transactions(ledger_entry_id);
 
 -- =========================
 -- CART & CHECKOUT
@@ -268,6 +285,28 @@ CREATE TABLE IF NOT EXISTS order_items (
     FOREIGN KEY (product_id) REFERENCES products(product_id)
     );
 
+-- Keyset pagination of order lists: (owner, order_date DESC, order_id DESC)
+-- matches the ORDER BY and cursor predicate of OrderRepository.find*OrderSummaries.
+CREATE INDEX IF NOT EXISTS idx_orders_store_date    ON orders(store_id, order_date DESC, order_id DESC);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_date ON orders(customer_id, order_date DESC, order_id DESC);
+-- Item count per list row (SIZE(o.items)) and order detail loads.
+CREATE INDEX IF NOT EXISTS idx_order_items_order ON order_items(order_id);
+
+-- Merchant customer list read model, one row per (store, customer). Maintained
+-- in the order's transaction by StoreCustomerStatsService; backfilled from
+-- orders on startup when empty.
+CREATE TABLE IF NOT EXISTS store_customer_stats (
+                                                    store_id              INT           NOT NULL,
+                                                    customer_id           INT           NOT NULL,
+                                                    orders_count          INT           NOT NULL,            -- cancelled orders included
+                                                    total_spent           DECIMAL(12,2) NOT NULL,            -- non-cancelled orders only
+    last_order_date       TIMESTAMP WITHOUT TIME ZONE,
+    last_shipping_address TEXT,
+    PRIMARY KEY (store_id, customer_id)
+    );
+CREATE INDEX IF NOT EXISTS idx_store_customer_stats_spend  ON store_customer_stats(store_id, total_spent DESC);
+CREATE INDEX IF NOT EXISTS idx_store_customer_stats_recent ON store_customer_stats(store_id, last_order_date DESC);
+
 -- invoice auto-generated when order is created
 -- format: INV-{year}-{orderId padded to 5 digits} e.g. INV-2026-00001
 CREATE TABLE IF NOT EXISTS invoices (
@@ -278,6 +317,13 @@ CREATE TABLE IF NOT EXISTS invoices (
     FOREIGN KEY (order_id) REFERENCES orders(order_id)
     );
 
+-- Order, OrderItem and Invoice ids come from these pooled sequences (INCREMENT BY
+-- must match allocationSize = 50) so order writes can be JDBC-batched.
+-- Existing databases: run db/order_id_sequences.sql once to start them past MAX(id).
+CREATE SEQUENCE IF NOT EXISTS orders_seq      INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS order_items_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS invoices_seq    INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS payments (
                                         payment_id     SERIAL PRIMARY KEY,
                                         order_id       INT           NOT NULL,
@@ -464,6 +510,33 @@ CREATE TABLE IF NOT EXISTS reports (
     FOREIGN KEY (store_id) REFERENCES stores(store_id)
     );
 
+-- Hourly ('HOUR') and daily ('DAY') sales rollups per store, attributed to the
+-- bucket of the order's order_date. Fed by SalesRollupService from order and
+-- payment events; rebuilt from orders/order_items/payments via
+-- POST /admin/analytics/rebuild, and backfilled on startup when empty.
+CREATE TABLE IF NOT EXISTS store_sales_rollups (
+                                                   store_id        INT           NOT NULL,
+                                                   granularity     VARCHAR(10)   NOT NULL,
+                                                   bucket_start    TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                                   orders_count    INT           NOT NULL,            -- cancelled orders included
+                                                   gross_sales     DECIMAL(14,2) NOT NULL,
+    cancelled_count INT           NOT NULL,
+    cancelled_sales DECIMAL(14,2) NOT NULL,
+    paid_sales      DECIMAL(14,2) NOT NULL,            -- succeeded payments
+    refunded_count  INT           NOT NULL,            -- payments fully refunded
+    PRIMARY KEY (store_id, granularity, bucket_start)
+    );
+
+-- Units sold per product and bucket, net of cancelled orders (top products).
+CREATE TABLE IF NOT EXISTS store_product_rollups (
+                                                     store_id     INT         NOT NULL,
+                                                     granularity  VARCHAR(10) NOT NULL,
+                                                     bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+                                                     product_id   INT         NOT NULL,
+                                                     units        INT         NOT NULL,
+    PRIMARY KEY (store_id, granularity, bucket_start, product_id)
+    );
+
 -- =========================
 -- FILE METADATA
 -- =========================
@@ -479,9 +552,11 @@ CREATE TABLE IF NOT EXISTS file_metadata (
     folder       VARCHAR(100),  -- which folder inside the bucket
     size_bytes   BIGINT,
     content_type VARCHAR(100),
+    content_hash VARCHAR(64),   -- hex SHA-256; rows with the same hash share one stored_objects entry
     uploaded_by  INT,           -- user_id who uploaded
     uploaded_at  TIMESTAMP WITHOUT TIME ZONE,
     is_deleted   BOOLEAN        DEFAULT false,  -- soft delete
+    variants     TEXT,          -- JSON: format -> {"<width>w": url}, filled in after upload
     FOREIGN KEY (uploaded_by) REFERENCES users(user_id) ON DELETE SET NULL
     );
 
@@ -489,4 +564,50 @@ CREATE INDEX IF NOT EXISTS idx_file_metadata_entity
     ON file_metadata(entity_type, entity_id);
 
 CREATE INDEX IF NOT EXISTS idx_file_metadata_uploaded_by
-    ON file_metadata(uploaded_by);
\ No newline at end of file
+    ON file_metadata(uploaded_by);
+
+CREATE INDEX IF NOT EXISTS idx_file_metadata_content_hash
+    ON file_metadata(content_hash);
+
+CREATE INDEX IF NOT EXISTS idx_file_metadata_file_url
+    ON file_metadata(file_url);
+
+-- Content-addressed objects: each distinct content is stored once in MinIO,
+-- under cas/<first 2 hex>/<sha256>. ref_count = live file_metadata rows with
+-- the hash; the object is removed when it reaches 0.
+CREATE TABLE IF NOT EXISTS stored_objects (
+    content_hash VARCHAR(64)  PRIMARY KEY,
+    object_name  VARCHAR(200) NOT NULL,
+    size_bytes   BIGINT       NOT NULL,
+    content_type VARCHAR(255),
+    ref_count    INT          NOT NULL,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+-- =========================
+-- EMAIL OUTBOX
+-- =========================
+
+-- Emails written in the producing transaction and sent after it commits.
+-- A PENDING row is due once next_attempt_at has passed; a dispatcher run
+-- claims it (claim_token) and pushes next_attempt_at out by a lease.
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              BIGSERIAL     PRIMARY KEY,
+    to_address      VARCHAR(255)  NOT NULL,
+    subject         VARCHAR(500)  NOT NULL,
+    html_body       TEXT          NOT NULL,
+    status          VARCHAR(20)   NOT NULL,  -- PENDING, SENT, FAILED
+    priority        SMALLINT      NOT NULL,  -- 0 URGENT, 1 NORMAL
+    attempts        INT           NOT NULL,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    claim_token     VARCHAR(36),
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sent_at         TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- The claim query: due PENDING rows, urgent first, then oldest first
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due
+    ON email_outbox(status, priority, next_attempt_at);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_claim_token
+    ON email_outbox(claim_token);
@@ -0,0 +1,45 @@
+-- Arms a flash sale: moves the allocation out of the normal stock counter and
+-- splits it across N shard hashes, all in one atomic step.
+--
+-- KEYS[1]      flash:armed                  set of armed product ids
+-- KEYS[2]      {flash:<id>}                 config hash
+-- KEYS[3]      product:<id>:stock           normal stock counter
+-- KEYS[4..]    {flash:<id>}:shard:<n>       shard hashes {stock, sold}
+-- ARGV[1]      product id
+-- ARGV[2]      units to allocate
+-- ARGV[3]      max units per customer
+-- ARGV[4]      sale end, epoch millis
+-- ARGV[5]      available quantity read from the DB, used only to seed KEYS[3]
+--
+-- Returns the allocated units, -1 if the normal pool can't cover them, or -3
+-- if a sale is already armed for the product.
+if redis.call('EXISTS', KEYS[2]) == 1 then
+    return -3
+end
+
+local allocation = tonumber(ARGV[2])
+local current = redis.call('GET', KEYS[3])
+if not current then
+    current = ARGV[5]
+    redis.call('SET', KEYS[3], current)
+end
+if tonumber(current) < allocation then
+    return -1
+end
+redis.call('DECRBY', KEYS[3], allocation)
+
+local shards = #KEYS - 3
+local base = math.floor(allocation / shards)
+local extra = allocation % shards
+for i = 1, shards do
+    local stock = base
+    if i <= extra then
+        stock = stock + 1
+    end
+    redis.call('HSET', KEYS[3 + i], 'stock', stock, 'sold', 0)
+end
+
+redis.call('HSET', KEYS[2], 'allocated', allocation, 'maxPerCustomer', ARGV[3],
+        'shards', shards, 'endsAt', ARGV[4])
+redis.call('SADD', KEYS[1], ARGV[1])
+return allocation
@@ -0,0 +1,37 @@
+-- Collects the units sold since the last drain from every shard, so the DB
+-- can be reconciled in one aggregated write. With ARGV[2] = '1' it also
+-- disarms the sale, hands back the unsold stock and drops the per-customer
+-- counters, so a later sale of the same product starts from zero.
+--
+-- KEYS[1]    flash:armed
+-- KEYS[2]    {flash:<id>}             config hash
+-- KEYS[3]    {flash:<id>}:buyers      set of buyer counter keys
+-- KEYS[4..]  {flash:<id>}:shard:<n>
+-- ARGV[1]    product id
+-- ARGV[2]    '1' to disarm, '0' to only drain
+--
+-- Returns {sold, unsold}; unsold is always 0 unless disarming.
+local disarm = ARGV[2] == '1'
+local sold, unsold = 0, 0
+
+for i = 4, #KEYS do
+    local s = tonumber(redis.call('HGET', KEYS[i], 'sold') or '0')
+    if s ~= 0 then
+        redis.call('HINCRBY', KEYS[i], 'sold', -s)
+        sold = sold + s
+    end
+    if disarm then
+        unsold = unsold + tonumber(redis.call('HGET', KEYS[i], 'stock') or '0')
+        redis.call('DEL', KEYS[i])
+    end
+end
+
+if disarm then
+    local buyers = redis.call('SMEMBERS', KEYS[3])
+    for i = 1, #buyers, 500 do
+        redis.call('DEL', unpack(buyers, i, math.min(i + 499, #buyers)))
+    end
+    redis.call('DEL', KEYS[2], KEYS[3])
+    redis.call('SREM', KEYS[1], ARGV[1])
+end
+return { sold, unsold }
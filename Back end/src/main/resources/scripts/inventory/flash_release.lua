@@ -0,0 +1,21 @@
+-- Undoes a flash reservation that checkout could not complete.
+--
+-- KEYS[1]  {flash:<id>}                   config hash
+-- KEYS[2]  {flash:<id>}:shard:<n>         shard the units came from
+-- KEYS[3]  {flash:<id>}:buyer:<customerId>
+-- ARGV[1]  quantity
+--
+-- Returns 1, or -2 if the sale has been disarmed in the meantime (the units
+-- were then already returned to the normal pool as sold).
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -2
+end
+
+local qty = tonumber(ARGV[1])
+redis.call('HINCRBY', KEYS[2], 'stock', qty)
+redis.call('HINCRBY', KEYS[2], 'sold', -qty)
+local held = redis.call('DECRBY', KEYS[3], qty)
+if held <= 0 then
+    redis.call('DEL', KEYS[3])
+end
+return 1
@@ -0,0 +1,41 @@
+-- Takes flash-sale units from one shard, enforcing the per-customer cap across
+-- all shards in the same atomic step.
+--
+-- KEYS[1]  {flash:<id>}                     config hash
+-- KEYS[2]  {flash:<id>}:shard:<n>           shard hash {stock, sold}
+-- KEYS[3]  {flash:<id>}:buyer:<customerId>  units this customer already holds
+-- KEYS[4]  {flash:<id>}:buyers              set of this sale's buyer keys, for disarm
+-- ARGV[1]  quantity
+-- ARGV[2]  seconds the buyer counter outlives the sale's endsAt
+--
+-- Returns the shard's remaining stock (>= 0) on success, -1 if this shard
+-- can't cover the quantity, -2 if no sale is armed, or -3 if the customer
+-- would go over the cap.
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -2
+end
+
+local qty = tonumber(ARGV[1])
+local config = redis.call('HMGET', KEYS[1], 'maxPerCustomer', 'endsAt')
+local cap = tonumber(config[1])
+local held = tonumber(redis.call('GET', KEYS[3]) or '0')
+if held + qty > cap then
+    return -3
+end
+
+local stock = tonumber(redis.call('HGET', KEYS[2], 'stock') or '-1')
+if stock < 0 then
+    return -2
+end
+if stock < qty then
+    return -1
+end
+
+redis.call('HINCRBY', KEYS[2], 'stock', -qty)
+redis.call('HINCRBY', KEYS[2], 'sold', qty)
+redis.call('INCRBY', KEYS[3], qty)
+redis.call('SADD', KEYS[4], KEYS[3])
+local expireAt = tonumber(config[2]) + tonumber(ARGV[2]) * 1000
+redis.call('PEXPIREAT', KEYS[3], expireAt)
+redis.call('PEXPIREAT', KEYS[4], expireAt)
+return stock - qty
@@ -0,0 +1,12 @@
+-- Returns previously reserved stock for several products in one round trip.
+--
+-- KEYS[i]  product:<id>:stock
+-- ARGV[i]  quantity to give back to KEYS[i]
+--
+-- Missing keys are left alone; the next read re-seeds them from the DB.
+for i = 1, #KEYS do
+    if redis.call('EXISTS', KEYS[i]) == 1 then
+        redis.call('INCRBY', KEYS[i], ARGV[i])
+    end
+end
+return #KEYS
@@ -0,0 +1,23 @@
+-- Reserves stock for one product without ever letting the counter dip below
+-- zero, so concurrent readers never see a transient negative value.
+--
+-- KEYS[1]  product:<id>:stock
+-- ARGV[1]  quantity to reserve
+-- ARGV[2]  available quantity read from the DB, or '' on the first attempt
+--
+-- Returns the remaining stock (>= 0) on success, -1 if there is not enough
+-- stock, or -2 if the key is missing and no seed was supplied.
+local current = redis.call('GET', KEYS[1])
+if not current then
+    if ARGV[2] == '' then
+        return -2
+    end
+    current = ARGV[2]
+    redis.call('SET', KEYS[1], current)
+end
+
+local qty = tonumber(ARGV[1])
+if tonumber(current) < qty then
+    return -1
+end
+return redis.call('DECRBY', KEYS[1], qty)
@@ -0,0 +1,33 @@
+-- Reserves stock for every line of a cart atomically: either all lines are
+-- decremented or none are.
+--
+-- KEYS[i]     product:<id>:stock
+-- ARGV[i]     quantity requested for KEYS[i]
+-- ARGV[n + i] available quantity read from the DB, used only to seed KEYS[i]
+--             when the key is missing
+--
+-- Returns {ok, available_1, ..., available_n} where ok is 1 if every line was
+-- reserved and available_i is the stock seen before the reservation.
+local n = #KEYS
+local result = { 1 }
+
+for i = 1, n do
+    local current = redis.call('GET', KEYS[i])
+    if not current then
+        current = ARGV[n + i]
+        redis.call('SET', KEYS[i], current)
+    end
+    current = tonumber(current)
+    result[i + 1] = current
+    if current < tonumber(ARGV[i]) then
+        result[1] = 0
+    end
+end
+
+if result[1] == 1 then
+    for i = 1, n do
+        redis.call('DECRBY', KEYS[i], ARGV[i])
+    end
+end
+
+return result
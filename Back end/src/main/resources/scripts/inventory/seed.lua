@@ -0,0 +1,13 @@
+-- Seeds a missing stock key from the DB without clobbering a value another
+-- caller wrote in the meantime.
+--
+-- KEYS[1]  product:<id>:stock
+-- ARGV[1]  available quantity read from the DB
+--
+-- Returns the stock now stored under KEYS[1].
+local current = redis.call('GET', KEYS[1])
+if current then
+    return tonumber(current)
+end
+redis.call('SET', KEYS[1], ARGV[1])
+return tonumber(ARGV[1])
@@ -0,0 +1,18 @@
+-- Seeds several missing stock keys from the DB in one round trip, without
+-- clobbering a value another caller wrote in the meantime (seed.lua, batched).
+--
+-- KEYS[i]  product:<id>:stock
+-- ARGV[i]  available quantity read from the DB for KEYS[i]
+--
+-- Returns the stock now stored under each key, in KEYS order.
+local stored = {}
+for i = 1, #KEYS do
+    local current = redis.call('GET', KEYS[i])
+    if current then
+        stored[i] = tonumber(current)
+    else
+        redis.call('SET', KEYS[i], ARGV[i])
+        stored[i] = tonumber(ARGV[i])
+    end
+end
+return stored
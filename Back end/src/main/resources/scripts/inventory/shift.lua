@@ -0,0 +1,23 @@
+-- Moves the available stock of one product by a signed delta, flooring at
+-- zero. Used for release (positive delta) and confirm (zero or negative).
+--
+-- KEYS[1]  product:<id>:stock
+-- ARGV[1]  delta to apply
+-- ARGV[2]  available quantity read from the DB after the change; only used
+--          to seed the key when it is missing, never to overwrite it
+--
+-- Returns the stock now stored under KEYS[1].
+local current = redis.call('GET', KEYS[1])
+if not current then
+    redis.call('SET', KEYS[1], ARGV[2])
+    return tonumber(ARGV[2])
+end
+
+local delta = tonumber(ARGV[1])
+if delta == 0 then
+    return tonumber(current)
+end
+
+local next = math.max(tonumber(current) + delta, 0)
+redis.call('SET', KEYS[1], next)
+return next
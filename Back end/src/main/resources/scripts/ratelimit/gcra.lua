@@ -0,0 +1,35 @@
+-- GCRA (token bucket) rate limiter. The key holds the "theoretical arrival
+-- time" (TAT) in ms: the moment the bucket would be full again. A bucket of
+-- `capacity` tokens refills one token every `interval` ms, so bursts never
+-- exceed `capacity` — unlike a fixed window, which allows 2x at its edges.
+--
+-- KEYS[1]  rl:<ip>:<group>
+-- ARGV[1]  interval: ms per token (period / limit)
+-- ARGV[2]  capacity: bucket size in tokens (the limit)
+-- ARGV[3]  tokens wanted: 1, or a node's local lease slice
+--
+-- Takes min(wanted, available) tokens. Returns {granted, retryAfterMs}:
+-- granted >= 1 on success; granted = 0 with the wait until the next token
+-- when the bucket is empty.
+local interval = tonumber(ARGV[1])
+local capacity = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+if tat < now then
+    tat = now
+end
+
+local window = capacity * interval
+local available = math.floor((now + window - tat) / interval)
+if available <= 0 then
+    return {0, tat + interval - window - now}
+end
+
+local granted = math.min(wanted, available)
+tat = tat + granted * interval
+redis.call('SET', KEYS[1], string.format('%d', tat), 'PX', tat - now)
+return {granted, 0}
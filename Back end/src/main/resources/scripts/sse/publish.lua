@@ -0,0 +1,21 @@
+-- Publishes one SSE event to every node and keeps it in a short replay buffer
+-- for Last-Event-ID resume. Ids come from one counter and are assigned inside
+-- the script, so each buffer is in id order and anything published after a
+-- client read the buffer has a higher id.
+--
+-- KEYS[1]  sse:seq
+-- KEYS[2]  sse:replay:<user email> or sse:replay:broadcast
+-- ARGV[1]  pub/sub channel
+-- ARGV[2]  event envelope (JSON)
+-- ARGV[3]  replay buffer length
+-- ARGV[4]  replay buffer TTL (ms)
+--
+-- Returns the event id. Buffer entries and messages are "<id>|<envelope>".
+local id = redis.call('INCR', KEYS[1])
+local message = id .. '|' .. ARGV[2]
+
+redis.call('RPUSH', KEYS[2], message)
+redis.call('LTRIM', KEYS[2], -tonumber(ARGV[3]), -1)
+redis.call('PEXPIRE', KEYS[2], ARGV[4])
+redis.call('PUBLISH', ARGV[1], message)
+return id
@@ -0,0 +1,18 @@
+-- Stores a snapshot rendered on a read miss, unless the store was edited
+-- (evicted) while it rendered or another node has stored one since.
+--
+-- KEYS[1]  flowmerce:sf:snap:<storeId>       snapshot hash {version, etag, json}
+-- KEYS[2]  flowmerce:sf:snap:gen:<storeId>   bumped by every evict
+-- ARGV[1]  generation read before rendering ('0' if there was none)
+-- ARGV[2]  version
+-- ARGV[3]  etag
+-- ARGV[4]  json
+-- ARGV[5]  TTL, millis
+--
+-- Returns 1 if stored, 0 if skipped.
+if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[1] or redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'version', ARGV[2], 'etag', ARGV[3], 'json', ARGV[4])
+redis.call('PEXPIRE', KEYS[1], ARGV[5])
+return 1
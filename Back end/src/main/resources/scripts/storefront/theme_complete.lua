@@ -0,0 +1,23 @@
+-- Ends a flush of one theme taken by theme_take.lua. Does nothing if the
+-- in-flight hash was re-stamped since (the lease ran out and another node
+-- took the theme over).
+--
+-- KEYS[1]  flowmerce:sf:theme:inflight:<themeId>
+-- KEYS[2]  flowmerce:sf:theme:dirty
+-- ARGV[1]  stamp returned by the take
+-- ARGV[2]  themeId
+-- ARGV[3]  '1' = written to the DB (or dead-lettered): drop the hash; '0' = failed: release it for retry
+-- ARGV[4]  '1' with ARGV[3] = '0': the row itself was rejected; counted in the hash's _fails
+if redis.call('HGET', KEYS[1], '_ts') ~= ARGV[1] then
+    return 0
+end
+if ARGV[3] == '1' then
+    redis.call('DEL', KEYS[1])
+else
+    redis.call('HSET', KEYS[1], '_ts', '0')
+    if ARGV[4] == '1' then
+        redis.call('HINCRBY', KEYS[1], '_fails', 1)
+    end
+    redis.call('SADD', KEYS[2], ARGV[2])
+end
+return 1
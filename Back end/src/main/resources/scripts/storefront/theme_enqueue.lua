@@ -0,0 +1,12 @@
+-- Buffers a partial theme update for write-behind. Fields already pending
+-- for the theme are overwritten, so the latest value of each colour wins.
+--
+-- KEYS[1]  flowmerce:sf:theme:pending:<themeId>
+-- KEYS[2]  flowmerce:sf:theme:dirty   (set of themeIds with pending fields)
+-- ARGV[1]  themeId
+-- ARGV[2..] field, value, field, value, ...
+if #ARGV > 1 then
+    redis.call('HSET', KEYS[1], unpack(ARGV, 2))
+    redis.call('SADD', KEYS[2], ARGV[1])
+end
+return #ARGV - 1
@@ -0,0 +1,43 @@
+-- Takes up to ARGV[1] dirty themes for one flush. For each theme the pending
+-- fields are merged over whatever is already in flight (newer values win)
+-- and the in-flight hash is stamped with the take time. The in-flight hash
+-- is deleted only once the DB write commits, so a crash loses nothing.
+--
+-- A theme whose in-flight hash was stamped less than ARGV[3] ms ago is being
+-- flushed by another node: it is put back in the dirty set and skipped, so
+-- writes for one theme never overlap and always land in order.
+--
+-- KEYS[1]  flowmerce:sf:theme:dirty
+-- ARGV[1]  max themes
+-- ARGV[2]  key prefix (flowmerce:sf:theme:)
+-- ARGV[3]  lease ms
+--
+-- Returns { themeId, { field, value, ... }, themeId, { ... }, ... }
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local lease = tonumber(ARGV[3])
+
+local ids = redis.call('SPOP', KEYS[1], tonumber(ARGV[1]))
+local out = {}
+local busy = {}
+for _, id in ipairs(ids) do
+    local pending = ARGV[2] .. 'pending:' .. id
+    local inflight = ARGV[2] .. 'inflight:' .. id
+    local stamp = tonumber(redis.call('HGET', inflight, '_ts') or '0')
+    if now - stamp < lease then
+        table.insert(busy, id)
+    else
+        local fields = redis.call('HGETALL', pending)
+        if #fields > 0 then
+            redis.call('HSET', inflight, unpack(fields))
+            redis.call('DEL', pending)
+        end
+        redis.call('HSET', inflight, '_ts', now)
+        table.insert(out, id)
+        table.insert(out, redis.call('HGETALL', inflight))
+    end
+end
+if #busy > 0 then
+    redis.call('SADD', KEYS[1], unpack(busy))
+end
+return out
@@ -0,0 +1,172 @@
+package com.example.flowmerceproject.AnalyticsManagement.service;
+
+import com.example.flowmerceproject.AnalyticsManagement.entity.Granularity;
+import com.example.flowmerceproject.AnalyticsManagement.repository.RollupBatchRepository.SalesDelta;
+import com.example.flowmerceproject.AnalyticsManagement.repository.RollupBatchRepository.UnitsDelta;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreProductRollupRepository;
+import com.example.flowmerceproject.AnalyticsManagement.repository.StoreSalesRollupRepository;
+import com.example.flowmerceproject.OrderManagement.event.OrderChangedEvent;
+import com.example.flowmerceproject.OrderManagement.repository.OrderItemRepository;
+import com.example.flowmerceproject.OrderManagement.repository.ProductUnitsView;
+import com.example.flowmerceproject.PaymentManagement.event.PaymentChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SalesRollupService Unit Tests")
+class SalesRollupServiceTest {
+
+    private static final LocalDateTime ORDER_DATE = LocalDateTime.of(2026, 3, 14, 15, 42, 7);
+
+    @Mock private StoreSalesRollupRepository salesRollupRepository;
+    @Mock private StoreProductRollupRepository productRollupRepository;
+    @Mock private OrderItemRepository orderItemRepository;
+
+    @InjectMocks
+    private SalesRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rollupService, "enabled", true);
+    }
+
+    private static OrderChangedEvent created(int orderId, String total, List<OrderChangedEvent.Line> lines) {
+        return new OrderChangedEvent(new Object(), orderId, 1, 5, new BigDecimal(total), ORDER_DATE,
+                "Cairo", null, "PENDING", lines);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SalesDelta> flushedSales() {
+        ArgumentCaptor<List<SalesDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(salesRollupRepository).addSales(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<UnitsDelta> flushedUnits() {
+        ArgumentCaptor<List<UnitsDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(salesRollupRepository).addUnits(captor.capture());
+        return captor.getValue();
+    }
+
+    private static SalesDelta bucket(List<SalesDelta> deltas, Granularity g) {
+        return deltas.stream().filter(d -> d.granularity() == g).findFirst().orElseThrow();
+    }
+
+    // ── U-ANA-01: orders in one bucket coalesce into one row per granularity ──
+
+    @Test
+    @DisplayName("U-ANA-01: two orders in the same hour flush as one hourly and one daily row")
+    void newOrders_coalescePerBucket() {
+        rollupService.onOrderChanged(created(1, "100.00", List.of(new OrderChangedEvent.Line(7, 2))));
+        rollupService.onOrderChanged(created(2, "50.00", List.of(new OrderChangedEvent.Line(7, 1))));
+        rollupService.flush();
+
+        List<SalesDelta> sales = flushedSales();
+        assertThat(sales).hasSize(2);
+        SalesDelta hour = bucket(sales, Granularity.HOUR);
+        assertThat(hour.bucketStart()).isEqualTo(LocalDateTime.of(2026, 3, 14, 15, 0));
+        assertThat(hour.orders()).isEqualTo(2);
+        assertThat(hour.grossSales()).isEqualByComparingTo("150.00");
+        assertThat(bucket(sales, Granularity.DAY).bucketStart()).isEqualTo(LocalDateTime.of(2026, 3, 14, 0, 0));
+
+        List<UnitsDelta> units = flushedUnits();
+        assertThat(units).hasSize(2).allMatch(u -> u.productId() == 7 && u.units() == 3);
+    }
+
+    // ── U-ANA-02: cancellation moves sales and units out of the order's bucket ─
+
+    @Test
+    @DisplayName("U-ANA-02: cancelling an order counts it in its order-date bucket and removes its units")
+    void cancellation_subtractsUnitsInOrderBucket() {
+        ProductUnitsView line = mock(ProductUnitsView.class);
+        when(line.getProductId()).thenReturn(7);
+        when(line.getUnits()).thenReturn(2L);
+        when(orderItemRepository.sumUnitsByProduct(1)).thenReturn(List.of(line));
+
+        rollupService.onOrderChanged(new OrderChangedEvent(new Object(), 1, 1, 5, new BigDecimal("100.00"),
+                ORDER_DATE, "Cairo", "PENDING", "CANCELLED", List.of()));
+        rollupService.flush();
+
+        SalesDelta day = bucket(flushedSales(), Granularity.DAY);
+        assertThat(day.orders()).isZero();
+        assertThat(day.cancelled()).isEqualTo(1);
+        assertThat(day.cancelledSales()).isEqualByComparingTo("100.00");
+        assertThat(flushedUnits()).allMatch(u -> u.units() == -2);
+    }
+
+    @Test
+    @DisplayName("U-ANA-03: status changes that don't touch CANCELLED leave the rollups alone")
+    void nonCancellingTransition_isIgnored() {
+        rollupService.onOrderChanged(new OrderChangedEvent(new Object(), 1, 1, 5, new BigDecimal("100.00"),
+                ORDER_DATE, "Cairo", "PENDING", "SHIPPED", List.of()));
+        rollupService.flush();
+
+        verify(salesRollupRepository, never()).addSales(anyList());
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    // ── U-ANA-04: payments ───────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("U-ANA-04: a completed payment adds to paid sales; a full refund counts once")
+    void payments_paidAndRefunded() {
+        rollupService.onPaymentChanged(new PaymentChangedEvent(new Object(), 9, 1, 1, ORDER_DATE,
+                new BigDecimal("80.00"), "COMPLETED"));
+        rollupService.onPaymentChanged(new PaymentChangedEvent(new Object(), 9, 1, 1, ORDER_DATE,
+                new BigDecimal("80.00"), "PENDING"));
+        rollupService.onPaymentChanged(new PaymentChangedEvent(new Object(), 9, 1, 1, ORDER_DATE,
+                new BigDecimal("80.00"), "REFUNDED"));
+        rollupService.flush();
+
+        SalesDelta hour = bucket(flushedSales(), Granularity.HOUR);
+        assertThat(hour.paidSales()).isEqualByComparingTo("80.00");
+        assertThat(hour.refunded()).isEqualTo(1);
+        assertThat(hour.orders()).isZero();
+    }
+
+    // ── U-ANA-05: a failed flush keeps the deltas for the next one ───────────
+
+    @Test
+    @DisplayName("U-ANA-05: failed flush re-buffers its deltas")
+    void flushFailure_rebuffers() {
+        doThrow(new RuntimeException("db down")).doNothing().when(salesRollupRepository).addSales(anyList());
+
+        rollupService.onOrderChanged(created(1, "100.00", List.of()));
+        assertThatThrownBy(() -> rollupService.flush()).hasMessage("db down");
+        rollupService.flush();
+
+        verify(salesRollupRepository, times(2)).addSales(argThat(d -> d.size() == 2
+                && d.stream().allMatch(s -> s.orders() == 1)));
+    }
+
+    @Test
+    @DisplayName("U-ANA-06: disabled - events are ignored")
+    void disabled_ignoresEvents() {
+        ReflectionTestUtils.setField(rollupService, "enabled", false);
+
+        rollupService.onOrderChanged(created(1, "100.00", List.of(new OrderChangedEvent.Line(7, 1))));
+        rollupService.flush();
+
+        verifyNoInteractions(salesRollupRepository);
+    }
+}
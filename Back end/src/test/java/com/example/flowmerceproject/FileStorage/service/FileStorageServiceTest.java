@@ -0,0 +1,161 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
+import com.example.flowmerceproject.FileStorage.repository.FileMetadataRepository;
+import com.example.flowmerceproject.FileStorage.repository.StoredObjectRepository;
+import com.example.flowmerceproject.UserManagement.entity.Role;
+import com.example.flowmerceproject.UserManagement.entity.User;
+import com.example.flowmerceproject.UserManagement.exception.ForbiddenException;
+import com.example.flowmerceproject.UserManagement.exception.ResourceNotFoundException;
+import com.example.flowmerceproject.UserManagement.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("FileStorageService Unit Tests")
+class FileStorageServiceTest {
+
+    private static final String HASH = "cd".repeat(32);
+    private static final String OBJECT = "cas/cd/" + HASH;
+    private static final String URL = "http://minio:9000/flowmerce/" + OBJECT;
+    private static final String VARIANT = "http://minio:9000/flowmerce/" + OBJECT + "@480w.png";
+
+    @Mock private MinioClient minioClient;
+    @Mock private FileMetadataRepository metadataRepository;
+    @Mock private UserRepository userRepository;
+    @Mock private MinioStreamUploader streamUploader;
+    @Mock private ApplicationEventPublisher eventPublisher;
+    @Mock private StoredObjectRepository storedObjectRepository;
+
+    private FileStorageService service;
+    private final Map<String, Integer> refs = new HashMap<>();
+
+    private User merchantA;
+    private User merchantB;
+    private FileMetadata storeALogo;
+    private FileMetadata storeBLogo;
+
+    @BeforeEach
+    void setUp() {
+        StoredObjectRegistryTest.stubRefCounts(storedObjectRepository, refs);
+        StoredObjectRegistry registry = new StoredObjectRegistry(storedObjectRepository);
+        service = new FileStorageService(minioClient, metadataRepository, userRepository,
+                streamUploader, eventPublisher, new ObjectMapper(), registry);
+        ReflectionTestUtils.setField(service, "bucketName", "flowmerce");
+        ReflectionTestUtils.setField(service, "minioPublicUrl", "http://minio:9000");
+
+        merchantA = user(1, "a@test.com", Role.MERCHANT);
+        merchantB = user(2, "b@test.com", Role.MERCHANT);
+        // Two stores uploaded the same image: one object, two references
+        storeALogo = reference(10L, merchantA, 1);
+        storeBLogo = reference(11L, merchantB, 2);
+        registry.acquire(HASH, OBJECT, 100, "image/png");
+        registry.acquire(HASH, OBJECT, 100, "image/png");
+
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findByEmail("a@test.com")).thenReturn(Optional.of(merchantA));
+        when(userRepository.findByEmail("b@test.com")).thenReturn(Optional.of(merchantB));
+        when(userRepository.findByEmail("admin@test.com"))
+                .thenReturn(Optional.of(user(3, "admin@test.com", Role.ADMIN)));
+        when(metadataRepository.findById(10L)).thenReturn(Optional.of(storeALogo));
+        when(metadataRepository.findById(11L)).thenReturn(Optional.of(storeBLogo));
+    }
+
+    private static User user(int id, String email, Role role) {
+        return User.builder().userId(id).email(email).role(role).build();
+    }
+
+    private static FileMetadata reference(Long id, User uploader, int storeId) {
+        return FileMetadata.builder()
+                .id(id)
+                .fileUrl(URL)
+                .contentHash(HASH)
+                .entityType(FileMetadata.EntityType.STORE)
+                .entityId(storeId)
+                .uploadedBy(uploader)
+                .isDeleted(false)
+                .variants("{\"png\":{\"480w\":\"" + VARIANT + "\"}}")
+                .build();
+    }
+
+    private void verifyRemoved(String... objectNames) throws Exception {
+        ArgumentCaptor<RemoveObjectArgs> removed = ArgumentCaptor.forClass(RemoveObjectArgs.class);
+        verify(minioClient, atLeast(0)).removeObject(removed.capture());
+        assertThat(removed.getAllValues()).extracting(RemoveObjectArgs::object)
+                .containsExactlyInAnyOrder(objectNames);
+    }
+
+    // ── U-FS-01: shared content survives until its last reference goes ────────
+
+    @Test
+    @DisplayName("U-FS-01: deleting one of two references keeps the object; deleting the last removes it and its variants")
+    void deleteFile_sharedContent_removedWithLastReference() throws Exception {
+        service.deleteFile(11L, "b@test.com");
+
+        assertThat(storeBLogo.getIsDeleted()).isTrue();
+        assertThat(storeALogo.getIsDeleted()).isFalse();
+        assertThat(refs).containsEntry(HASH, 1);
+        verifyRemoved();
+
+        service.deleteFile(10L, "a@test.com");
+
+        assertThat(storeALogo.getIsDeleted()).isTrue();
+        assertThat(refs).doesNotContainKey(HASH);
+        verifyRemoved(OBJECT, OBJECT + "@480w.png");
+    }
+
+    // ── U-FS-02: only the uploader or an admin may delete a reference ─────────
+
+    @Test
+    @DisplayName("U-FS-02: another merchant cannot delete a reference, however often they try; an admin can")
+    void deleteFile_notUploader_forbidden() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> service.deleteFile(10L, "b@test.com"))
+                    .isInstanceOf(ForbiddenException.class);
+        }
+        assertThat(storeALogo.getIsDeleted()).isFalse();
+        assertThat(refs).containsEntry(HASH, 2);
+        verify(metadataRepository, never()).save(any());
+
+        service.deleteFile(10L, "admin@test.com");
+        assertThat(storeALogo.getIsDeleted()).isTrue();
+        assertThat(refs).containsEntry(HASH, 1);
+        verifyRemoved();
+    }
+
+    // ── U-FS-03: a reference is released once ─────────────────────────────────
+
+    @Test
+    @DisplayName("U-FS-03: deleting an already-deleted or unknown id is a 404 and releases nothing")
+    void deleteFile_twice_notFound() {
+        service.deleteFile(11L, "b@test.com");
+
+        assertThatThrownBy(() -> service.deleteFile(11L, "b@test.com"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> service.deleteFile(99L, "b@test.com"))
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(refs).containsEntry(HASH, 1);
+    }
+}
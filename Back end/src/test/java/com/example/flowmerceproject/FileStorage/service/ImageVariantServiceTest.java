@@ -0,0 +1,145 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.entity.FileMetadata;
+import com.example.flowmerceproject.FileStorage.event.FileVariantsReadyEvent;
+import com.example.flowmerceproject.FileStorage.repository.FileMetadataRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ImageVariantService Unit Tests")
+class ImageVariantServiceTest {
+
+    private static final String BASE = "http://minio:9000/flowmerce/";
+    private static final String OBJECT = "products/1/abc.png";
+
+    @Mock private MinioClient minioClient;
+    @Mock private FileMetadataRepository metadataRepository;
+    @Mock private FileStorageService fileStorageService;
+    @Mock private ApplicationEventPublisher eventPublisher;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ImageVariantService(minioClient, metadataRepository, fileStorageService,
+                eventPublisher, objectMapper);
+        ReflectionTestUtils.setField(service, "widths", List.of(200, 480, 1200));
+        ReflectionTestUtils.setField(service, "formats", List.of("webp", "original"));
+        ReflectionTestUtils.setField(service, "workers", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 4);
+        ReflectionTestUtils.setField(service, "maxSourcePixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.85f);
+        service.init();
+
+        when(fileStorageService.getBucketName()).thenReturn("flowmerce");
+        when(fileStorageService.objectNameOf(anyString()))
+                .thenAnswer(inv -> ((String) inv.getArgument(0)).replace(BASE, ""));
+        when(fileStorageService.publicUrlOf(anyString()))
+                .thenAnswer(inv -> BASE + inv.getArgument(0));
+    }
+
+    private void stored(String objectName, byte[] bytes) throws Exception {
+        when(metadataRepository.findById(1L)).thenReturn(Optional.of(FileMetadata.builder()
+                .id(1L).fileUrl(BASE + objectName).isDeleted(false).build()));
+        when(minioClient.getObject(any(GetObjectArgs.class))).thenAnswer(inv -> new GetObjectResponse(
+                Headers.of(), "flowmerce", null, objectName, new ByteArrayInputStream(bytes)));
+    }
+
+    private static byte[] image(int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height,
+                "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    // ── U-IMG-01: narrower widths only, recorded srcset-ready ─────────────────
+
+    @Test
+    @DisplayName("U-IMG-01: each width below the original is written under a deterministic key and recorded")
+    void process_writesVariantsAndRecordsThem() throws Exception {
+        stored(OBJECT, image(1600, 800, "png"));
+
+        service.process(1L);
+
+        ArgumentCaptor<PutObjectArgs> puts = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient, times(3)).putObject(puts.capture());
+        assertThat(puts.getAllValues()).extracting(PutObjectArgs::object).containsExactly(
+                "products/1/abc@1200w.png", "products/1/abc@480w.png", "products/1/abc@200w.png");
+
+        ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+        verify(metadataRepository).updateVariants(eq(1L), json.capture());
+        JsonNode png = objectMapper.readTree(json.getValue()).get("png");
+        assertThat(png.get("1600w").asText()).isEqualTo(BASE + OBJECT);
+        assertThat(png.get("480w").asText()).isEqualTo(BASE + "products/1/abc@480w.png");
+        assertThat(png.size()).isEqualTo(4);
+        verify(eventPublisher).publishEvent(any(FileVariantsReadyEvent.class));
+    }
+
+    // ── U-IMG-02: never upscaled, aspect ratio kept ───────────────────────────
+
+    @Test
+    @DisplayName("U-IMG-02: a small JPEG only gets the widths below its own, as opaque JPEG at the same aspect ratio")
+    void scaleAndPlan_neverUpscale() throws Exception {
+        assertThat(service.plan("a/b.jpeg", 300, "jpg"))
+                .extracting(ImageVariantService.Variant::objectName)
+                .containsExactly("a/b@200w.jpg");
+        assertThat(service.plan("a/b.png", 200, "png")).isEmpty();
+
+        BufferedImage scaled = ImageVariantService.scale(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_ARGB),
+                200, true);
+        assertThat(scaled.getWidth()).isEqualTo(200);
+        assertThat(scaled.getHeight()).isEqualTo(100);
+        assertThat(scaled.getType()).isEqualTo(BufferedImage.TYPE_INT_RGB);
+
+        ImageVariantService.Decoded round = ImageVariantService.decode(
+                ImageVariantService.encode(scaled, "jpg", 0.85f), Long.MAX_VALUE);
+        assertThat(round.format()).isEqualTo("jpg");
+        assertThat(round.image().getWidth()).isEqualTo(200);
+    }
+
+    // ── U-IMG-03: oversized and non-image sources are skipped ─────────────────
+
+    @Test
+    @DisplayName("U-IMG-03: a source over the pixel limit is rejected from its header and nothing is written")
+    void process_tooManyPixels_skipped() throws Exception {
+        ReflectionTestUtils.setField(service, "maxSourcePixels", 1_000L);
+        stored(OBJECT, image(100, 100, "png"));
+
+        service.process(1L);
+
+        verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+        verify(metadataRepository, never()).updateVariants(anyLong(), anyString());
+        assertThat(ImageVariantService.decode("not an image".getBytes(), Long.MAX_VALUE)).isNull();
+    }
+}
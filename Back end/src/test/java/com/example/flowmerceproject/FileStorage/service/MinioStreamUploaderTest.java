@@ -0,0 +1,188 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.config.MultipartMinioClient;
+import io.minio.messages.Part;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("MinioStreamUploader Unit Tests")
+class MinioStreamUploaderTest {
+
+    private static final int MB = 1024 * 1024;
+    private static final String BUCKET = "flowmerce";
+    private static final String OBJECT = "uploads/misc/a.png";
+
+    @Mock private MultipartMinioClient minioClient;
+
+    private MinioStreamUploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        uploader = new MinioStreamUploader(minioClient);
+        ReflectionTestUtils.setField(uploader, "partSizeMb", 5);
+        ReflectionTestUtils.setField(uploader, "maxPartsInFlight", 4);
+        ReflectionTestUtils.setField(uploader, "timeoutSeconds", 5L);
+        uploader.init();
+
+        when(minioClient.put(anyString(), anyString(), any(), any(), anyInt()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(minioClient.createUpload(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture("upload-1"));
+        when(minioClient.uploadPart(anyString(), anyString(), anyString(), anyInt(), any()))
+                .thenAnswer(inv -> CompletableFuture.completedFuture(
+                        new Part(inv.getArgument(3), "etag-" + inv.getArgument(3))));
+        when(minioClient.completeUpload(anyString(), anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(minioClient.abortUpload(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private int freePermits() {
+        return ((Semaphore) ReflectionTestUtils.getField(uploader, "permits")).availablePermits();
+    }
+
+    // ── U-UPL-01: small file → one PUT ────────────────────────────────────────
+
+    @Test
+    @DisplayName("U-UPL-01: a file smaller than one part goes up in a single PUT")
+    void upload_smallFile_singlePut() throws Exception {
+        MinioStreamUploader.PendingUpload upload = uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(new byte[300 * 1024]), 10L * MB);
+        upload.completion().join();
+
+        assertThat(upload.size()).isEqualTo(300 * 1024);
+        verify(minioClient).put(eq(BUCKET), eq(OBJECT), eq("image/png"), any(), eq(300 * 1024));
+        verify(minioClient, never()).createUpload(anyString(), anyString(), any());
+        assertThat(freePermits()).isEqualTo(4);
+    }
+
+    // ── U-UPL-02: large file → multipart, parts numbered in order ─────────────
+
+    @Test
+    @DisplayName("U-UPL-02: a larger file becomes a multipart upload with exact-size parts, then completes")
+    void upload_largeFile_multipart() throws Exception {
+        MinioStreamUploader.PendingUpload upload = uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(new byte[12 * MB]), 20L * MB);
+        upload.completion().join();
+
+        assertThat(upload.size()).isEqualTo(12L * MB);
+        ArgumentCaptor<byte[]> bodies = ArgumentCaptor.forClass(byte[].class);
+        verify(minioClient, times(3)).uploadPart(eq(BUCKET), eq(OBJECT), eq("upload-1"), anyInt(), bodies.capture());
+        assertThat(bodies.getAllValues()).extracting(b -> b.length).containsExactly(5 * MB, 5 * MB, 2 * MB);
+
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(minioClient).completeUpload(eq(BUCKET), eq(OBJECT), eq("upload-1"), parts.capture());
+        assertThat(parts.getValue()).extracting(Part::partNumber).containsExactly(1, 2, 3);
+        verify(minioClient, never()).put(anyString(), anyString(), any(), any(), anyInt());
+        assertThat(freePermits()).isEqualTo(4);
+    }
+
+    // ── U-UPL-03: over the limit → aborted, buffers returned ──────────────────
+
+    @Test
+    @DisplayName("U-UPL-03: a stream over the limit is rejected, the multipart upload aborted and buffers returned")
+    void upload_tooLarge_abortsAndReleases() {
+        assertThatThrownBy(() -> uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(new byte[11 * MB]), 10L * MB))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("10MB");
+
+        verify(minioClient).abortUpload(BUCKET, OBJECT, "upload-1");
+        verify(minioClient, never()).completeUpload(anyString(), anyString(), anyString(), any());
+        assertThat(freePermits()).isEqualTo(4);
+
+        assertThatThrownBy(() -> uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(new byte[0]), 10L * MB))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("empty");
+        assertThat(freePermits()).isEqualTo(4);
+    }
+
+    // ── U-UPL-04: SHA-256 in the same pass; placement decides small bodies ─────
+
+    @Test
+    @DisplayName("U-UPL-04: the content hash is computed while streaming; a small body already stored is not sent")
+    void upload_hashesAndPlaces() throws Exception {
+        byte[] small = new byte[300 * 1024];
+        byte[] large = new byte[12 * MB];
+        new Random(7).nextBytes(small);
+        new Random(8).nextBytes(large);
+        String smallHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(small));
+        String largeHash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(large));
+
+        MinioStreamUploader.PendingUpload placed = uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(small), 20L * MB, (sha256, size) -> "cas/" + sha256);
+        assertThat(placed.sha256()).isEqualTo(smallHash);
+        assertThat(placed.objectName()).isEqualTo("cas/" + smallHash);
+        verify(minioClient).put(eq(BUCKET), eq("cas/" + smallHash), eq("image/png"), any(), eq(small.length));
+
+        MinioStreamUploader.PendingUpload skipped = uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(small), 20L * MB, (sha256, size) -> null);
+        skipped.completion().join();
+        assertThat(skipped.objectName()).isNull();
+        assertThat(skipped.sha256()).isEqualTo(smallHash);
+        verify(minioClient, times(1)).put(anyString(), anyString(), any(), any(), anyInt());
+
+        MinioStreamUploader.PendingUpload multipart = uploader.upload(BUCKET, OBJECT, "image/png",
+                new ByteArrayInputStream(large), 20L * MB, (sha256, size) -> "cas/" + sha256);
+        multipart.completion().join();
+        assertThat(multipart.sha256()).isEqualTo(largeHash);
+        assertThat(multipart.objectName()).isEqualTo(OBJECT);   // sent before the hash was known
+        assertThat(freePermits()).isEqualTo(4);
+    }
+
+    // ── U-UPL-05: reading the client never holds a send permit ────────────────
+
+    @Test
+    @DisplayName("U-UPL-05: a permit is held only by parts being sent, not while the client's bytes are read")
+    void upload_readsWithoutPermit() throws Exception {
+        List<CompletableFuture<Part>> inFlight = new ArrayList<>();
+        when(minioClient.uploadPart(anyString(), anyString(), anyString(), anyInt(), any()))
+                .thenAnswer(inv -> {
+                    CompletableFuture<Part> part = new CompletableFuture<>();
+                    inFlight.add(part);
+                    return part;
+                });
+        List<Integer> permitsWhileReading = new ArrayList<>();
+        ByteArrayInputStream client = new ByteArrayInputStream(new byte[12 * MB]) {
+            @Override
+            public int readNBytes(byte[] b, int off, int len) {
+                permitsWhileReading.add(freePermits());
+                return super.readNBytes(b, off, len);
+            }
+        };
+
+        MinioStreamUploader.PendingUpload upload = uploader.upload(BUCKET, OBJECT, "image/png", client, 20L * MB);
+
+        // each read waits only on the parts already sent before it
+        assertThat(permitsWhileReading).containsExactly(4, 3, 2);
+        assertThat(freePermits()).isEqualTo(1);
+        for (int i = 0; i < inFlight.size(); i++) inFlight.get(i).complete(new Part(i + 1, "etag-" + (i + 1)));
+        upload.completion().join();
+        assertThat(freePermits()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.flowmerceproject.FileStorage.service;
+
+import com.example.flowmerceproject.FileStorage.repository.StoredObjectRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StoredObjectRegistry Unit Tests")
+class StoredObjectRegistryTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @Mock private StoredObjectRepository repository;
+
+    private StoredObjectRegistry registry;
+    private final Map<String, Integer> refs = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        stubRefCounts(repository, refs);
+        registry = new StoredObjectRegistry(repository);
+    }
+
+    /** Backs the repository's reference-count queries with {@code refs}, as the SQL would. */
+    static void stubRefCounts(StoredObjectRepository repository, Map<String, Integer> refs) {
+        when(repository.addReference(anyString(), anyString(), anyLong(), any())).thenAnswer(inv -> {
+            refs.merge(inv.getArgument(0), 1, Integer::sum);
+            return 1;
+        });
+        when(repository.findRefCount(anyString())).thenAnswer(inv -> refs.get(inv.<String>getArgument(0)));
+        when(repository.removeReference(anyString())).thenAnswer(inv -> {
+            Integer count = refs.get(inv.<String>getArgument(0));
+            if (count == null || count <= 0) return 0;
+            refs.put(inv.getArgument(0), count - 1);
+            return 1;
+        });
+        when(repository.deleteIfUnreferenced(anyString())).thenAnswer(inv -> {
+            Integer count = refs.get(inv.<String>getArgument(0));
+            if (count == null || count > 0) return 0;
+            refs.remove(inv.<String>getArgument(0));
+            return 1;
+        });
+    }
+
+    // ── U-CAS-01: acquire reports whether the content was already referenced ──
+
+    @Test
+    @DisplayName("U-CAS-01: the first acquire is new content; later ones share it and count up")
+    void acquire_countsReferences() {
+        assertThat(registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png")).isFalse();
+        assertThat(registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png")).isTrue();
+        assertThat(registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png")).isTrue();
+        assertThat(refs).containsEntry(HASH, 3);
+    }
+
+    // ── U-CAS-02: only the last release removes the object ────────────────────
+
+    @Test
+    @DisplayName("U-CAS-02: release removes the object with the last reference only")
+    void release_removesWithLastReference() {
+        registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png");
+        registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png");
+        AtomicInteger removed = new AtomicInteger();
+
+        registry.release(HASH, removed::incrementAndGet);
+        assertThat(removed).hasValue(0);
+        assertThat(refs).containsEntry(HASH, 1);
+
+        registry.release(HASH, removed::incrementAndGet);
+        assertThat(removed).hasValue(1);
+        assertThat(refs).doesNotContainKey(HASH);
+
+        // a stray release of content no longer stored does nothing
+        registry.release(HASH, removed::incrementAndGet);
+        assertThat(removed).hasValue(1);
+    }
+
+    // ── U-CAS-03: a failed removal is thrown, so the transaction keeps the row ─
+
+    @Test
+    @DisplayName("U-CAS-03: a failing removal propagates out of release, rolling the reference back")
+    void release_removalFails_propagates() {
+        registry.acquire(HASH, "cas/ab/" + HASH, 10, "image/png");
+
+        assertThatThrownBy(() -> registry.release(HASH, () -> {
+            throw new IllegalStateException("minio down");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.flowmerceproject.InventoryManagement.event;
+
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.UserManagement.service.SseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StockEventListener Unit Tests")
+class StockEventListenerTest {
+
+    private static final String MERCHANT = "merchant@test.com";
+
+    @Mock private SseService sseService;
+    @Mock private ProductRepository productRepository;
+
+    private StockEventListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new StockEventListener(sseService, productRepository);
+        ReflectionTestUtils.setField(listener, "merchantCacheMinutes", 10L);
+        listener.init();
+        when(productRepository.findMerchantEmailByProductId(anyInt())).thenReturn(Optional.of(MERCHANT));
+    }
+
+    private void stock(long productId, int quantity) {
+        listener.handleStockChanged(new StockChangedEvent(this, productId, quantity, 5, "RESERVED"));
+    }
+
+    // ── U-STK-01: a burst inside one window becomes one alert ─────────────────
+
+    @Test
+    @DisplayName("U-STK-01: many changes in one window send one alert with the latest quantity")
+    void burst_coalescedToLatest() {
+        for (int qty = 5; qty >= 1; qty--) stock(1L, qty);
+        listener.flush();
+
+        ArgumentCaptor<StockChangedEvent> sent = ArgumentCaptor.forClass(StockChangedEvent.class);
+        verify(sseService, times(1)).sendStockUpdate(sent.capture(), eq(MERCHANT));
+        assertThat(sent.getValue().getNewQuantity()).isEqualTo(1);
+        verify(sseService, never()).broadcast(anyString(), any());
+    }
+
+    // ── U-STK-02: only level transitions alert ────────────────────────────────
+
+    @Test
+    @DisplayName("U-STK-02: staying LOW is silent; LOW → OUT and NORMAL → LOW alert again")
+    void onlyTransitionsAlert() {
+        stock(1L, 4);
+        listener.flush();
+        stock(1L, 3);
+        listener.flush();
+        verify(sseService, times(1)).sendStockUpdate(any(), eq(MERCHANT));
+
+        stock(1L, 0);
+        listener.flush();
+        verify(sseService, times(2)).sendStockUpdate(any(), eq(MERCHANT));
+
+        stock(1L, 50);
+        listener.flush();
+        stock(1L, 2);
+        listener.flush();
+        verify(sseService, times(3)).sendStockUpdate(any(), eq(MERCHANT));
+    }
+
+    // ── U-STK-03: merchant lookup is cached ───────────────────────────────────
+
+    @Test
+    @DisplayName("U-STK-03: merchant lookup hits the DB once per product")
+    void merchantLookupCached() {
+        stock(1L, 3);
+        listener.flush();
+        stock(1L, 0);
+        listener.flush();
+
+        verify(productRepository, times(1)).findMerchantEmailByProductId(1);
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.flowmerceproject.InventoryManagement.script;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the flash-sale Lua scripts against a real Redis. Runs only when Docker
+ * is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("FlashSaleScripts Tests")
+class FlashSaleScriptsTest {
+
+    private static final String ARMED = "flash:armed";
+    private static final String CONFIG = "{flash:1}";
+    private static final String STOCK = "product:1:stock";
+    private static final String BUYERS = "{flash:1}:buyers";
+    private static final int SHARDS = 8;
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void reset() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    private static List<String> shards() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < SHARDS; i++) keys.add("{flash:1}:shard:" + i);
+        return keys;
+    }
+
+    private static Long arm(int allocation, int maxPerCustomer) {
+        List<String> keys = new ArrayList<>(List.of(ARMED, CONFIG, STOCK));
+        keys.addAll(shards());
+        return redisTemplate.execute(FlashSaleScripts.ARM, keys, "1", String.valueOf(allocation),
+                String.valueOf(maxPerCustomer), String.valueOf(System.currentTimeMillis() + 60_000), "0");
+    }
+
+    private static List<?> drain(boolean disarm) {
+        List<String> keys = new ArrayList<>(List.of(ARMED, CONFIG, BUYERS));
+        keys.addAll(shards());
+        return redisTemplate.execute(FlashSaleScripts.DRAIN, keys, "1", disarm ? "1" : "0");
+    }
+
+    // ── C-FLS-01: arm moves the allocation out of the normal pool ─────────────
+
+    @Test
+    @DisplayName("C-FLS-01: arm splits the allocation and refuses a second arm")
+    void arm_splitsAllocationAcrossShards() {
+        redisTemplate.opsForValue().set(STOCK, "100");
+
+        assertThat(arm(30, 2)).isEqualTo(30L);
+        assertThat(redisTemplate.opsForValue().get(STOCK)).isEqualTo("70");
+        int total = shards().stream()
+                .mapToInt(k -> Integer.parseInt((String) redisTemplate.opsForHash().get(k, "stock")))
+                .sum();
+        assertThat(total).isEqualTo(30);
+        assertThat(redisTemplate.opsForSet().isMember(ARMED, "1")).isTrue();
+
+        assertThat(arm(10, 2)).isEqualTo(-3L);
+    }
+
+    @Test
+    @DisplayName("C-FLS-02: arm refuses more units than the normal pool holds")
+    void arm_insufficientStock_returnsMinusOne() {
+        redisTemplate.opsForValue().set(STOCK, "5");
+
+        assertThat(arm(6, 2)).isEqualTo(-1L);
+        assertThat(redisTemplate.opsForValue().get(STOCK)).isEqualTo("5");
+        assertThat(redisTemplate.hasKey(CONFIG)).isFalse();
+    }
+
+    // ── C-FLS-03: 64 buyers → never oversold, cap enforced, drain adds up ────
+
+    @Test
+    @DisplayName("C-FLS-03: 64 concurrent buyers never oversell and respect the cap")
+    void reserve_64Buyers_noOversellCapHeld() throws Exception {
+        redisTemplate.opsForValue().set(STOCK, "1000");
+        arm(500, 3);
+
+        int buyers = 64;
+        ExecutorService pool = Executors.newFixedThreadPool(buyers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        List<AtomicInteger> perBuyer = new ArrayList<>();
+        for (int b = 0; b < buyers; b++) perBuyer.add(new AtomicInteger());
+
+        for (int b = 0; b < buyers; b++) {
+            int customer = b;
+            pool.submit(() -> {
+                start.await();
+                String buyerKey = "{flash:1}:buyer:" + customer;
+                for (int attempt = 0; attempt < 10; attempt++) {
+                    String shard = "{flash:1}:shard:" + ThreadLocalRandom.current().nextInt(SHARDS);
+                    Long r = redisTemplate.execute(FlashSaleScripts.RESERVE,
+                            List.of(CONFIG, shard, buyerKey, BUYERS), "1", "600");
+                    if (r != null && r >= 0) {
+                        sold.incrementAndGet();
+                        perBuyer.get(customer).incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(perBuyer).allMatch(c -> c.get() <= 3);
+        assertThat(sold.get()).isEqualTo(buyers * 3);
+
+        List<?> drained = drain(false);
+        assertThat(((Number) drained.get(0)).intValue()).isEqualTo(sold.get());
+        // A second drain only reports what was sold since the first.
+        assertThat(((Number) drain(false).get(0)).intValue()).isZero();
+
+        List<?> closed = drain(true);
+        assertThat(((Number) closed.get(1)).intValue()).isEqualTo(500 - sold.get());
+        assertThat(redisTemplate.hasKey(CONFIG)).isFalse();
+        assertThat(redisTemplate.opsForSet().isMember(ARMED, "1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("C-FLS-04: release gives units back to the shard and the buyer's cap")
+    void release_restoresShardAndBuyerCounter() {
+        redisTemplate.opsForValue().set(STOCK, "16");
+        arm(16, 2);
+        List<String> keys = List.of(CONFIG, "{flash:1}:shard:0", "{flash:1}:buyer:9", BUYERS);
+
+        assertThat(redisTemplate.execute(FlashSaleScripts.RESERVE, keys, "2", "600")).isZero();
+        assertThat(redisTemplate.execute(FlashSaleScripts.RESERVE, keys, "1", "600")).isEqualTo(-3L);
+
+        assertThat(redisTemplate.execute(FlashSaleScripts.RELEASE, keys, "2")).isEqualTo(1L);
+        assertThat(redisTemplate.opsForHash().get("{flash:1}:shard:0", "stock")).isEqualTo("2");
+        assertThat(redisTemplate.hasKey("{flash:1}:buyer:9")).isFalse();
+    }
+
+    // ── C-FLS-05: a re-armed sale does not inherit the old sale's buyers ─────
+
+    @Test
+    @DisplayName("C-FLS-05: buyer counters expire after endsAt and are dropped on disarm")
+    void disarm_dropsBuyerCounters() {
+        redisTemplate.opsForValue().set(STOCK, "16");
+        arm(8, 2);
+        List<String> keys = List.of(CONFIG, "{flash:1}:shard:0", "{flash:1}:buyer:9", BUYERS);
+
+        assertThat(redisTemplate.execute(FlashSaleScripts.RESERVE, keys, "1", "600")).isZero();
+        long ttl = redisTemplate.getExpire("{flash:1}:buyer:9", TimeUnit.SECONDS);
+        assertThat(ttl).isBetween(600L, 660L);
+
+        drain(true);
+        assertThat(redisTemplate.hasKey("{flash:1}:buyer:9")).isFalse();
+        assertThat(redisTemplate.hasKey(BUYERS)).isFalse();
+
+        arm(8, 1);
+        assertThat(redisTemplate.execute(FlashSaleScripts.RESERVE, keys, "1", "600")).isZero();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.flowmerceproject.InventoryManagement.script;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hammers a single product's stock key from 64 threads through the real Lua
+ * scripts. Runs only when Docker is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("StockScripts Concurrency Tests")
+class StockScriptsConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockScriptsConcurrencyTest.class);
+
+    private static final String KEY = "product:1:stock";
+    private static final int THREADS = 64;
+    private static final int STOCK = 5_000;
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void reset() {
+        redisTemplate.delete(KEY);
+    }
+
+    // ── C-INV-01: 64 buyers on one SKU → no oversell, no false negatives ──────
+
+    @Test
+    @DisplayName("C-INV-01: reserve from 64 threads sells every unit exactly once")
+    void reserve_64Threads_noOversellNoFalseNegatives() throws Exception {
+        redisTemplate.opsForValue().set(KEY, String.valueOf(STOCK));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejectedWhileInStock = new AtomicInteger();
+        Set<Long> remainders = ConcurrentHashMap.newKeySet();
+        AtomicBoolean buyersDone = new AtomicBoolean();
+        AtomicLong lowestSeen = new AtomicLong(Long.MAX_VALUE);
+
+        // Concurrent checkAvailability-style reader: must never observe a negative count.
+        pool.submit(() -> {
+            start.await();
+            while (!buyersDone.get()) {
+                String v = redisTemplate.opsForValue().get(KEY);
+                if (v != null) lowestSeen.accumulateAndGet(Long.parseLong(v), Math::min);
+            }
+            return null;
+        });
+
+        CountDownLatch finished = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    while (true) {
+                        Long remaining = redisTemplate.execute(StockScripts.RESERVE, List.of(KEY), "1", "");
+                        if (remaining == null || remaining < 0) {
+                            // Stock only ever goes down here, so a rejection is a
+                            // false negative unless the counter really is at zero.
+                            if (!"0".equals(redisTemplate.opsForValue().get(KEY))) {
+                                rejectedWhileInStock.incrementAndGet();
+                            }
+                            return null;
+                        }
+                        sold.incrementAndGet();
+                        remainders.add(remaining);
+                    }
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+
+        long began = System.nanoTime();
+        start.countDown();
+        assertThat(finished.await(60, TimeUnit.SECONDS)).isTrue();
+        long elapsedNanos = System.nanoTime() - began;
+        buyersDone.set(true);
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        log.info("C-INV-01: {} reservations from {} threads in {} ms ({} ops/s)",
+                STOCK, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                Math.round(STOCK / (elapsedNanos / 1e9)));
+
+        assertThat(sold.get()).isEqualTo(STOCK);
+        assertThat(remainders).hasSize(STOCK).contains(0L).allMatch(r -> r >= 0 && r < STOCK);
+        assertThat(rejectedWhileInStock.get()).isZero();
+        assertThat(lowestSeen.get()).isGreaterThanOrEqualTo(0L);
+        assertThat(redisTemplate.opsForValue().get(KEY)).isEqualTo("0");
+    }
+
+    // ── C-INV-02: missing key is seeded once, never overwritten ───────────────
+
+    @Test
+    @DisplayName("C-INV-02: seed only writes when the key is missing")
+    void seed_existingKey_isNotOverwritten() {
+        assertThat(redisTemplate.execute(StockScripts.SEED, List.of(KEY), "7")).isEqualTo(7L);
+        redisTemplate.opsForValue().decrement(KEY, 2);
+
+        // A stale DB read must not clobber the live counter.
+        assertThat(redisTemplate.execute(StockScripts.SEED, List.of(KEY), "7")).isEqualTo(5L);
+    }
+
+    // ── C-INV-03: shift floors at zero ────────────────────────────────────────
+
+    @Test
+    @DisplayName("C-INV-03: shift never takes the counter below zero")
+    void shift_largeNegativeDelta_floorsAtZero() {
+        redisTemplate.opsForValue().set(KEY, "3");
+
+        assertThat(redisTemplate.execute(StockScripts.SHIFT, List.of(KEY), "-10", "0")).isZero();
+        assertThat(redisTemplate.execute(StockScripts.SHIFT, List.of(KEY), "4", "0")).isEqualTo(4L);
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.flowmerceproject.InventoryManagement.service;
+
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
+import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction.Type;
+import com.example.flowmerceproject.InventoryManagement.repository.InventoryTransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("InventoryLedgerService Unit Tests")
+class InventoryLedgerServiceTest {
+
+    @Mock private InventoryTransactionRepository transactionRepository;
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private StreamOperations<String, Object, Object> streamOps;
+    @Mock private SetOperations<String, String> setOps;
+
+    private InventoryLedgerService ledgerService;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ledgerService = new InventoryLedgerService(transactionRepository, redisTemplate, objectMapper);
+        ReflectionTestUtils.setField(ledgerService, "batchSize", 100);
+        ReflectionTestUtils.setField(ledgerService, "maxPendingRead", 1000);
+        ReflectionTestUtils.setField(ledgerService, "maxFlushAttempts", 3);
+
+        when(redisTemplate.opsForStream()).thenReturn(streamOps);
+        when(redisTemplate.opsForSet()).thenReturn(setOps);
+        when(streamOps.add(eq("inventory:ledger"), anyMap())).thenReturn(RecordId.of("100-0"));
+    }
+
+    private InventoryTransaction txn(long productId) {
+        return InventoryTransaction.builder()
+                .productId(productId).storeId(1).type(Type.SALE)
+                .quantityChange(1).qtyBefore(10).qtyAfter(10).createdBy("system")
+                .build();
+    }
+
+    // ── U-LED-01: append is acknowledged without touching the DB ──────────────
+
+    @Test
+    @DisplayName("U-LED-01: appendAll - buffers to the stream only, no DB write")
+    void appendAll_outsideTransaction_buffersWithoutDbWrite() {
+        ledgerService.appendAll(List.of(txn(1L), txn(2L)));
+
+        verify(streamOps, times(1)).add(eq("inventory:ledger"), anyMap());
+        verifyNoInteractions(transactionRepository);
+    }
+
+    // ── U-LED-02: flush writes one batch and trims the stream ─────────────────
+
+    @Test
+    @DisplayName("U-LED-02: flush - writes one JDBC batch and deletes the stream entry")
+    void flush_bufferedRows_writesBatchAndTrimsStream() {
+        ledgerService.appendAll(List.of(txn(1L), txn(2L)));
+
+        ledgerService.flush();
+
+        verify(transactionRepository).insertAll(argThat(rows -> rows.size() == 2
+                && "100-0/1".equals(rows.get(1).getLedgerEntryId())));
+        verify(streamOps).delete("inventory:ledger", "100-0");
+    }
+
+    // ── U-LED-03: failed flush keeps rows for the next attempt ────────────────
+
+    @Test
+    @DisplayName("U-LED-03: flush - DB failure keeps rows buffered for retry")
+    void flush_dbFailure_keepsRowsForRetry() {
+        ledgerService.append(txn(1L));
+        doThrow(new RuntimeException("db down")).doNothing()
+                .when(transactionRepository).insertAll(anyList());
+
+        ledgerService.flush();
+        verify(streamOps, never()).delete(anyString(), any(String[].class));
+
+        ledgerService.flush();
+        verify(transactionRepository, times(2)).insertAll(argThat(rows -> rows.size() == 1));
+        verify(streamOps).delete("inventory:ledger", "100-0");
+    }
+
+    // ── U-LED-04: pendingFor reads the stream and filters by product ──────────
+
+    @Test
+    @DisplayName("U-LED-04: pendingFor - returns only in-memory rows for the product when stream is empty")
+    void pendingFor_unstreamedRows_filtersByProduct() {
+        when(streamOps.add(eq("inventory:ledger"), anyMap())).thenThrow(new RuntimeException("redis down"));
+        ledgerService.appendAll(List.of(txn(1L), txn(2L)));
+
+        List<InventoryTransaction> pending = ledgerService.pendingFor(2L);
+
+        assertThat(pending).hasSize(1).allMatch(t -> t.getProductId() == 2L);
+    }
+
+    // ── U-LED-05: a poison entry is dead-lettered, the rest still flush ───────
+
+    @Test
+    @DisplayName("U-LED-05: flush - a batch failing max-flush-attempts times is split; the bad entry is dead-lettered")
+    void flush_poisonEntry_deadLettered() {
+        when(streamOps.add(eq("inventory:ledger"), anyMap()))
+                .thenReturn(RecordId.of("100-0"), RecordId.of("101-0"));
+        doAnswer(inv -> {
+            List<InventoryTransaction> rows = inv.getArgument(0);
+            if (rows.stream().anyMatch(t -> t.getProductId() == 1L)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return null;
+        }).when(transactionRepository).insertAll(anyList());
+        ledgerService.append(txn(1L));
+        ledgerService.append(txn(2L));
+
+        ledgerService.flush();
+        ledgerService.flush();
+        verify(streamOps, never()).delete(anyString(), any(String[].class));
+
+        ledgerService.flush();
+        verify(streamOps).add(eq("inventory:ledger:dead"), argThat(fields ->
+                String.valueOf(fields.get("error")).contains("value too long")));
+        verify(streamOps).delete("inventory:ledger", "100-0", "101-0");
+
+        ledgerService.flush();
+        verify(transactionRepository, times(5)).insertAll(anyList());
+    }
+
+    // ── U-LED-06: an outage is retried, never dead-lettered ───────────────────
+
+    @Test
+    @DisplayName("U-LED-06: flush - a lost DB connection keeps rows buffered however often it fails")
+    void flush_outage_neverDeadLettered() {
+        ledgerService.append(txn(1L));
+        doThrow(new CannotGetJdbcConnectionException("db down"))
+                .when(transactionRepository).insertAll(anyList());
+
+        for (int i = 0; i < 7; i++) ledgerService.flush();
+        verify(streamOps, never()).add(eq("inventory:ledger:dead"), anyMap());
+        verify(streamOps, never()).delete(anyString(), any(String[].class));
+
+        doNothing().when(transactionRepository).insertAll(anyList());
+        ledgerService.flush();
+        verify(streamOps).delete("inventory:ledger", "100-0");
+    }
+
+    // ── U-LED-07: pendingFor reads only the product's indexed entries ─────────
+
+    @Test
+    @DisplayName("U-LED-07: pendingFor - reads the product's pending set, in stream order, and drops flushed ids")
+    void pendingFor_readsProductIndex() throws Exception {
+        when(setOps.members("inventory:ledger:pending:2")).thenReturn(Set.of("10-0", "9-0", "3-0"));
+        when(streamOps.range(eq("inventory:ledger"), any(), any())).thenAnswer(inv -> {
+            Range<String> range = inv.getArgument(1);
+            return switch (range.getLowerBound().getValue().orElse("")) {
+                case "3-0" -> List.of(entry("3-0", 2L));
+                case "10-0" -> List.of(entry("10-0", 2L));
+                default -> List.of();
+            };
+        });
+
+        List<InventoryTransaction> pending = ledgerService.pendingFor(2L);
+
+        assertThat(pending).extracting(InventoryTransaction::getLedgerEntryId).containsExactly("3-0/0", "10-0/0");
+        verify(streamOps, times(3)).range(eq("inventory:ledger"), any(), any());
+        verify(setOps).remove("inventory:ledger:pending:2", "9-0");
+        assertThat(InventoryLedgerService.nextId("1700000000000-9")).isEqualTo("1700000000000-10");
+    }
+
+    // ── U-LED-08: the pending index follows the stream ────────────────────────
+
+    @Test
+    @DisplayName("U-LED-08: appendAll indexes the entry per product; flush removes it")
+    void flush_maintainsPendingIndex() {
+        ledgerService.appendAll(List.of(txn(1L), txn(2L), txn(2L)));
+        verify(setOps).add("inventory:ledger:pending:1", "100-0");
+        verify(setOps).add("inventory:ledger:pending:2", "100-0");
+
+        ledgerService.flush();
+        verify(setOps).remove("inventory:ledger:pending:1", "100-0");
+        verify(setOps).remove("inventory:ledger:pending:2", "100-0");
+    }
+
+    // ── U-LED-09: an unreadable orphan is kept, not silently dropped ──────────
+
+    @Test
+    @DisplayName("U-LED-09: recoverOrphans - an unreadable entry is copied raw to the dead-letter stream before it is trimmed")
+    void recoverOrphans_unreadableEntry_deadLetteredRaw() {
+        MapRecord<String, Object, Object> garbled = StreamRecords.newRecord().in("inventory:ledger")
+                .withId(RecordId.of("5-0")).ofMap(Map.<Object, Object>of("rows", "{not json"));
+        when(streamOps.range(eq("inventory:ledger"), any(), any())).thenReturn(List.of(garbled));
+
+        ledgerService.recoverOrphans();
+
+        verify(streamOps).add(eq("inventory:ledger:dead"), argThat(fields ->
+                "{not json".equals(fields.get("rows")) && fields.get("error") != null));
+        verify(streamOps).delete("inventory:ledger", "5-0");
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    @DisplayName("U-LED-09: recoverOrphans - an unreadable entry stays in the stream if dead-lettering fails")
+    void recoverOrphans_deadLetterFails_entryKept() {
+        MapRecord<String, Object, Object> garbled = StreamRecords.newRecord().in("inventory:ledger")
+                .withId(RecordId.of("5-0")).ofMap(Map.<Object, Object>of("rows", "{not json"));
+        when(streamOps.range(eq("inventory:ledger"), any(), any())).thenReturn(List.of(garbled));
+        when(streamOps.add(eq("inventory:ledger:dead"), anyMap())).thenThrow(new RuntimeException("redis down"));
+
+        ledgerService.recoverOrphans();
+
+        verify(streamOps, never()).delete(anyString(), any(String[].class));
+    }
+
+    private MapRecord<String, Object, Object> entry(String id, long productId) throws Exception {
+        Map<Object, Object> fields = Map.of("rows", objectMapper.writeValueAsString(List.of(txn(productId))));
+        return StreamRecords.newRecord().in("inventory:ledger").withId(RecordId.of(id)).ofMap(fields);
+    }
+}
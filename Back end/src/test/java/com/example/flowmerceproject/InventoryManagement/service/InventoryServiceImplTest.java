@@ -1,10 +1,12 @@
 package com.example.flowmerceproject.InventoryManagement.service;
 
+import com.example.flowmerceproject.InventoryManagement.dto.StockReservationResult;
 import com.example.flowmerceproject.InventoryManagement.entity.Inventory;
 import com.example.flowmerceproject.InventoryManagement.entity.InventoryTransaction;
 import com.example.flowmerceproject.InventoryManagement.event.StockChangedEvent;
 import com.example.flowmerceproject.InventoryManagement.repository.InventoryRepository;
 import com.example.flowmerceproject.InventoryManagement.repository.InventoryTransactionRepository;
+import com.example.flowmerceproject.InventoryManagement.script.StockScripts;
 import com.example.flowmerceproject.InventoryManagement.strategy.InventoryStrategy;
 import com.example.flowmerceproject.InventoryManagement.strategy.InventoryStrategyFactory;
 import com.example.flowmerceproject.ProductManagement.entity.Product;
@@ -27,9 +29,15 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -44,6 +52,7 @@ class InventoryServiceImplTest {
 
     @Mock private InventoryRepository inventoryRepository;
     @Mock private InventoryTransactionRepository transactionRepository;
+    @Mock private InventoryLedgerService ledgerService;
     @Mock private StringRedisTemplate redisTemplate;
     @Mock private InventoryStrategyFactory strategyFactory;
     @Mock private ApplicationEventPublisher eventPublisher;
@@ -95,7 +104,8 @@ class InventoryServiceImplTest {
         inventoryService.adjustStock(1L, 5, "NORMAL");
 
         verify(inventoryRepository).save(inventory);
-        verify(transactionRepository).save(any(InventoryTransaction.class));
+        verify(ledgerService).append(any(InventoryTransaction.class));
+        verify(transactionRepository, never()).save(any());
         verify(eventPublisher).publishEvent(any(StockChangedEvent.class));
     }
 
@@ -122,8 +132,8 @@ class InventoryServiceImplTest {
         inventory.setQuantity(10);
         inventory.setReservedQuantity(0);
 
-        when(redisTemplate.hasKey("product:1:stock")).thenReturn(true);
-        when(valueOps.decrement("product:1:stock", 3L)).thenReturn(7L);
+        when(redisTemplate.execute(eq(StockScripts.RESERVE), eq(List.of("product:1:stock")), eq("3"), eq("")))
+                .thenReturn(7L);
         when(inventoryRepository.findByProductId(1)).thenReturn(Optional.of(inventory));
         when(strategyFactory.getStrategy("RESERVED")).thenReturn(reservedStrategy);
         doAnswer(inv -> {
@@ -138,24 +148,44 @@ class InventoryServiceImplTest {
         verify(inventoryRepository).save(inventory);
     }
 
-    // ── U-INV-04: reserveStock - insufficient → restores Redis, returns false ─
+    // ── U-INV-04: reserveStock - insufficient → Redis untouched, returns false ─
 
     @Test
-    @DisplayName("U-INV-04: reserveStock - insufficient stock returns false and restores Redis")
-    void reserveStock_insufficientStock_returnsFalseAndRestoresRedis() {
-        when(redisTemplate.hasKey("product:1:stock")).thenReturn(true);
-        when(valueOps.decrement("product:1:stock", 20L)).thenReturn(-10L);
+    @DisplayName("U-INV-04: reserveStock - insufficient stock returns false without touching the DB")
+    void reserveStock_insufficientStock_returnsFalseWithoutCompensation() {
+        when(redisTemplate.execute(eq(StockScripts.RESERVE), eq(List.of("product:1:stock")), eq("20"), eq("")))
+                .thenReturn(-1L);
 
         boolean result = inventoryService.reserveStock(1L, 20);
 
         assertThat(result).isFalse();
-        verify(valueOps).increment("product:1:stock", 20L);
+        verify(valueOps, never()).increment(anyString(), anyLong());
+        verify(inventoryRepository, never()).save(any());
+    }
+
+    // ── U-INV-04b: reserveStock - missing key → seeded from DB in the script ──
+
+    @Test
+    @DisplayName("U-INV-04b: reserveStock - missing key is seeded from the DB and retried once")
+    void reserveStock_missingKey_seedsFromDbAndRetries() {
+        when(redisTemplate.execute(eq(StockScripts.RESERVE), eq(List.of("product:1:stock")), eq("3"), eq("")))
+                .thenReturn(-2L);
+        when(redisTemplate.execute(eq(StockScripts.RESERVE), eq(List.of("product:1:stock")), eq("3"), eq("10")))
+                .thenReturn(7L);
+        when(inventoryRepository.findByProductId(1)).thenReturn(Optional.of(inventory));
+        when(strategyFactory.getStrategy("RESERVED")).thenReturn(reservedStrategy);
+        when(inventoryRepository.save(any())).thenReturn(inventory);
+
+        boolean result = inventoryService.reserveStock(1L, 3);
+
+        assertThat(result).isTrue();
+        verify(valueOps, never()).set(anyString(), anyString());
     }
 
     // ── U-INV-05: releaseStock restores reservedQuantity ─────────────────────
 
     @Test
-    @DisplayName("U-INV-05: releaseStock - decrements reservedQuantity and increments Redis")
+    @DisplayName("U-INV-05: releaseStock - decrements reservedQuantity and shifts Redis up")
     void releaseStock_existingReservation_restoresStock() {
         inventory.setReservedQuantity(5);
 
@@ -165,7 +195,7 @@ class InventoryServiceImplTest {
         inventoryService.releaseStock(1L, 3);
 
         assertThat(inventory.getReservedQuantity()).isEqualTo(2);
-        verify(valueOps).increment("product:1:stock", 3L);
+        verify(redisTemplate).execute(StockScripts.SHIFT, List.of("product:1:stock"), "3", "8");
     }
 
     // ── U-INV-06: releaseStock - more than reserved throws BadRequest ─────────
@@ -219,4 +249,120 @@ class InventoryServiceImplTest {
         assertThatThrownBy(() -> inventoryService.adjustStock(999L, 5, "NORMAL"))
                 .isInstanceOf(ResourceNotFoundException.class);
     }
+
+    // ── U-INV-10: batch reserveStock - all lines fit → one Lua call, batched writes
+
+    @Test
+    @DisplayName("U-INV-10: batch reserveStock - reserves every line with one script call")
+    @SuppressWarnings("unchecked")
+    void reserveStockBatch_allAvailable_reservesEveryLine() {
+        Inventory second = Inventory.builder()
+                .inventoryId(2L).productId(2).storeId(1)
+                .quantity(4).reservedQuantity(0).lowStockThreshold(5).build();
+        when(inventoryRepository.findByProductIdIn(anyCollection()))
+                .thenReturn(List.of(inventory, second));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(1L, 10L, 4L));
+        when(strategyFactory.getStrategy("RESERVED")).thenReturn(reservedStrategy);
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 4);
+
+        Map<Long, StockReservationResult> results = inventoryService.reserveStock(quantities);
+
+        assertThat(results.values()).allMatch(StockReservationResult::isReserved);
+        assertThat(results.get(2L).getAvailableQuantity()).isEqualTo(4);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verify(inventoryRepository).saveAllAndFlush(anyCollection());
+        verify(ledgerService).appendAll(argThat(list -> list.size() == 2));
+    }
+
+    // ── U-INV-11: batch reserveStock - one short line → nothing reserved ──────
+
+    @Test
+    @DisplayName("U-INV-11: batch reserveStock - insufficient line reserves nothing")
+    @SuppressWarnings("unchecked")
+    void reserveStockBatch_oneLineShort_reservesNothing() {
+        Inventory second = Inventory.builder()
+                .inventoryId(2L).productId(2).storeId(1)
+                .quantity(1).reservedQuantity(0).lowStockThreshold(5).build();
+        when(inventoryRepository.findByProductIdIn(anyCollection()))
+                .thenReturn(List.of(inventory, second));
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 10L, 1L));
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        quantities.put(1L, 3);
+        quantities.put(2L, 4);
+
+        Map<Long, StockReservationResult> results = inventoryService.reserveStock(quantities);
+
+        assertThat(results.values()).noneMatch(StockReservationResult::isReserved);
+        assertThat(results.get(2L).getAvailableQuantity()).isEqualTo(1);
+        verify(inventoryRepository, never()).saveAllAndFlush(anyCollection());
+        verify(ledgerService, never()).appendAll(anyList());
+    }
+
+    // ── U-INV-12: history merges the unflushed ledger tail ────────────────────
+
+    @Test
+    @DisplayName("U-INV-12: getTransactionHistory - merges buffered rows not yet in the DB")
+    void getTransactionHistory_withPendingRows_mergesNewestFirst() {
+        InventoryTransaction flushed = InventoryTransaction.builder()
+                .productId(1L).ledgerEntryId("1-0/0")
+                .createdAt(java.time.LocalDateTime.now().minusMinutes(5)).build();
+        InventoryTransaction alsoPending = InventoryTransaction.builder()
+                .productId(1L).ledgerEntryId("1-0/0")
+                .createdAt(flushed.getCreatedAt()).build();
+        InventoryTransaction unflushed = InventoryTransaction.builder()
+                .productId(1L).ledgerEntryId("2-0/0")
+                .createdAt(java.time.LocalDateTime.now()).build();
+        when(transactionRepository.findByProductIdOrderByCreatedAtDesc(1L)).thenReturn(List.of(flushed));
+        when(ledgerService.pendingFor(1L)).thenReturn(List.of(alsoPending, unflushed));
+
+        List<InventoryTransaction> history = inventoryService.getTransactionHistory(1L);
+
+        assertThat(history).containsExactly(unflushed, flushed);
+    }
+
+    // ── U-INV-13: bulk lookup - one MGET, one IN query, one seed call ─────────
+
+    @Test
+    @DisplayName("U-INV-13: getAvailableQuantities - cache hits from MGET, misses from one DB query, seeded once")
+    @SuppressWarnings("unchecked")
+    void getAvailableQuantities_mixedHits_oneRoundTripEach() {
+        Inventory second = Inventory.builder()
+                .inventoryId(2L).productId(2).storeId(1)
+                .quantity(6).reservedQuantity(2).lowStockThreshold(5).build();
+        when(valueOps.multiGet(anyCollection())).thenReturn(Arrays.asList("7", null, null));
+        when(inventoryRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(second));
+        when(redisTemplate.execute(eq(StockScripts.SEED_BATCH), anyList(), any(Object[].class)))
+                .thenReturn(List.of(4L));
+
+        Map<Long, Integer> stock = inventoryService.getAvailableQuantities(List.of(1L, 2L, 3L));
+
+        assertThat(stock).containsEntry(1L, 7).containsEntry(2L, 4).containsEntry(3L, 0);
+        verify(valueOps, times(1)).multiGet(anyCollection());
+        verify(inventoryRepository, times(1)).findByProductIdIn(List.of(2, 3));
+        verify(redisTemplate, times(1)).execute(eq(StockScripts.SEED_BATCH),
+                eq(List.of("product:2:stock")), any(Object[].class));
+        verify(inventoryRepository, never()).findByProductId(anyInt());
+    }
+
+    // ── U-INV-14: bulk lookup - Redis down → DB answers, no seeding ───────────
+
+    @Test
+    @DisplayName("U-INV-14: getAvailableQuantities - Redis down falls back to the DB without seeding")
+    @SuppressWarnings("unchecked")
+    void getAvailableQuantities_redisDown_readsDb() {
+        when(valueOps.multiGet(anyCollection()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(inventoryRepository.findByProductIdIn(anyCollection())).thenReturn(List.of(inventory));
+
+        Map<Long, Integer> stock = inventoryService.getAvailableQuantities(List.of(1L, 1L));
+
+        assertThat(stock).containsExactly(Map.entry(1L, 10));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
 }
@@ -0,0 +1,298 @@
+package com.example.flowmerceproject.NotificationManagement.service;
+
+import com.example.flowmerceproject.NotificationManagement.entity.EmailOutboxMessage;
+import com.example.flowmerceproject.NotificationManagement.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the outbox dispatcher against a real {@link JavaMailSenderImpl} and a
+ * minimal SMTP server on a local port, which rejects any recipient whose
+ * address contains "reject" and counts connections and messages.
+ */
+@DisplayName("EmailOutboxService Tests")
+class EmailOutboxServiceTest {
+
+    private SmtpStandIn smtp;
+    private EmailOutboxRepository repository;
+    private EmailOutboxService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtp.port());
+
+        repository = mock(EmailOutboxRepository.class);
+        service = new EmailOutboxService(sender, repository);
+        ReflectionTestUtils.setField(service, "fromEmail", "shop@flowmerce.test");
+        ReflectionTestUtils.setField(service, "batchSize", 200);
+        ReflectionTestUtils.setField(service, "messagesPerConnection", 25);
+        ReflectionTestUtils.setField(service, "workers", 4);
+        ReflectionTestUtils.setField(service, "perDomainConcurrency", 2);
+        ReflectionTestUtils.setField(service, "maxAttempts", 6);
+        ReflectionTestUtils.setField(service, "backoffBaseSeconds", 30L);
+        ReflectionTestUtils.setField(service, "backoffMaxSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "leaseSeconds", 600L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        service.shutdown();
+        smtp.close();
+    }
+
+    private static EmailOutboxMessage message(long id, String to, int attempts) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .toAddress(to)
+                .subject("Order #" + id)
+                .htmlBody("<p>Order " + id + "</p>")
+                .status(EmailOutboxMessage.Status.PENDING)
+                .attempts(attempts)
+                .nextAttemptAt(LocalDateTime.now())
+                .claimToken("claimed")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void claimable(EmailOutboxMessage... messages) {
+        when(repository.claim(anyString(), any(), any(), anyInt())).thenReturn(messages.length);
+        when(repository.findByClaimToken(anyString())).thenReturn(List.of(messages));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> sentIds() {
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(repository, atLeast(0)).markSent(ids.capture(), any());
+        List<Long> sent = new ArrayList<>();
+        ids.getAllValues().forEach(sent::addAll);
+        return sent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EmailOutboxMessage> failedRows() {
+        ArgumentCaptor<Iterable<EmailOutboxMessage>> rows = ArgumentCaptor.forClass(Iterable.class);
+        verify(repository, atLeast(0)).saveAll(rows.capture());
+        List<EmailOutboxMessage> failed = new ArrayList<>();
+        rows.getAllValues().forEach(batch -> batch.forEach(failed::add));
+        return failed;
+    }
+
+    // ── C-MAIL-01: one connection carries a whole domain's batch ──────────────
+
+    @Test
+    @DisplayName("C-MAIL-01: messages to one domain go out over a single SMTP connection and are marked sent")
+    void dispatch_reusesConnection() {
+        claimable(message(1, "a@example.com", 0), message(2, "b@example.com", 0),
+                message(3, "c@Example.com", 0));
+
+        assertThat(service.dispatchOnce()).isEqualTo(3);
+
+        assertThat(smtp.connections.get()).isEqualTo(1);
+        assertThat(smtp.delivered).containsExactlyInAnyOrder(
+                "a@example.com", "b@example.com", "c@example.com");
+        assertThat(sentIds()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(failedRows()).isEmpty();
+
+        when(repository.claim(anyString(), any(), any(), anyInt())).thenReturn(0);
+        assertThat(service.dispatchOnce()).isZero();
+        verify(repository, times(1)).findByClaimToken(anyString());
+    }
+
+    // ── C-MAIL-02: a rejected recipient is retried later, the rest are sent ───
+
+    @Test
+    @DisplayName("C-MAIL-02: a rejected recipient is rescheduled with backoff; the others in its connection still go out")
+    void dispatch_partialFailure() {
+        EmailOutboxMessage rejected = message(2, "reject@example.com", 0);
+        claimable(message(1, "a@example.com", 0), rejected, message(3, "d@other.com", 0));
+
+        LocalDateTime before = LocalDateTime.now();
+        service.dispatchOnce();
+
+        assertThat(smtp.connections.get()).isEqualTo(2);
+        assertThat(sentIds()).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(failedRows()).containsExactly(rejected);
+        assertThat(rejected.getStatus()).isEqualTo(EmailOutboxMessage.Status.PENDING);
+        assertThat(rejected.getAttempts()).isEqualTo(1);
+        assertThat(rejected.getClaimToken()).isNull();
+        assertThat(rejected.getLastError()).isNotBlank();
+        assertThat(rejected.getNextAttemptAt()).isBetween(before.plusSeconds(29), LocalDateTime.now().plusSeconds(31));
+
+        assertThat(service.backoffSeconds(2)).isEqualTo(60);
+        assertThat(service.backoffSeconds(5)).isEqualTo(480);
+        assertThat(service.backoffSeconds(50)).isEqualTo(3600);
+    }
+
+    // ── C-MAIL-03: the last attempt marks it FAILED ───────────────────────────
+
+    @Test
+    @DisplayName("C-MAIL-03: a message failing its last attempt is marked FAILED; an unreachable server fails the whole connection")
+    void dispatch_giveUp() throws IOException {
+        EmailOutboxMessage lastTry = message(1, "reject@example.com", 5);
+        claimable(lastTry);
+        service.dispatchOnce();
+        assertThat(lastTry.getStatus()).isEqualTo(EmailOutboxMessage.Status.FAILED);
+        assertThat(lastTry.getAttempts()).isEqualTo(6);
+
+        smtp.close();
+        EmailOutboxMessage a = message(2, "a@example.com", 0);
+        EmailOutboxMessage b = message(3, "b@example.com", 0);
+        claimable(a, b);
+        service.dispatchOnce();
+        assertThat(a.getStatus()).isEqualTo(EmailOutboxMessage.Status.PENDING);
+        assertThat(b.getAttempts()).isEqualTo(1);
+        assertThat(sentIds()).isEmpty();
+    }
+
+    // ── C-MAIL-04: per-domain connection limit ────────────────────────────────
+
+    @Test
+    @DisplayName("C-MAIL-04: connections to one domain never exceed per-domain-concurrency, whatever the worker count")
+    void dispatch_perDomainLimit() {
+        ReflectionTestUtils.setField(service, "messagesPerConnection", 1);
+        ReflectionTestUtils.setField(service, "perDomainConcurrency", 1);
+        List<EmailOutboxMessage> batch = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) batch.add(message(id, "user" + id + "@example.com", 0));
+        claimable(batch.toArray(EmailOutboxMessage[]::new));
+
+        service.dispatchOnce();
+
+        assertThat(smtp.connections.get()).isEqualTo(8);
+        assertThat(smtp.maxConcurrent.get()).isEqualTo(1);
+        assertThat(sentIds()).hasSize(8);
+
+        assertThat(EmailOutboxService.connections(batch, 3)).extracting(List::size).containsExactly(3, 3, 2);
+    }
+
+    // ── C-MAIL-05: urgent mail first ──────────────────────────────────────────
+
+    @Test
+    @DisplayName("C-MAIL-05: an urgent message goes out ahead of normal ones claimed in the same run")
+    void dispatch_urgentFirst() {
+        EmailOutboxMessage code = message(3, "code@example.com", 0);
+        code.setPriority(EmailOutboxMessage.Priority.URGENT);
+        claimable(message(1, "a@example.com", 0), message(2, "b@example.com", 0), code);
+
+        service.dispatchOnce();
+
+        assertThat(smtp.delivered).containsExactly("code@example.com", "a@example.com", "b@example.com");
+    }
+
+    /** Just enough SMTP for JavaMail: one thread per connection, no AUTH, no TLS. */
+    static class SmtpStandIn implements AutoCloseable {
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final List<String> delivered = new CopyOnWriteArrayList<>();
+        private final AtomicInteger active = new AtomicInteger();
+        private final ServerSocket server;
+
+        SmtpStandIn() throws IOException {
+            server = new ServerSocket(0);
+            Thread acceptor = new Thread(() -> {
+                while (!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        Thread session = new Thread(() -> session(socket), "smtp-stand-in");
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }, "smtp-stand-in-accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return server.getLocalPort();
+        }
+
+        private void session(Socket socket) {
+            maxConcurrent.accumulateAndGet(active.incrementAndGet(), Math::max);
+            boolean quit = false;
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+                reply(out, "220 localhost stand-in");
+                List<String> recipients = new ArrayList<>();
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.toUpperCase(Locale.ROOT);
+                    if (command.startsWith("EHLO")) {
+                        reply(out, "250-localhost");
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("RCPT")) {
+                        String address = line.substring(line.indexOf('<') + 1, line.indexOf('>')).toLowerCase(Locale.ROOT);
+                        if (address.contains("reject")) {
+                            reply(out, "550 mailbox unavailable");
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    } else if (command.equals("DATA")) {
+                        reply(out, "354 go ahead");
+                        while ((line = in.readLine()) != null && !line.equals(".")) { }
+                        delivered.addAll(recipients);
+                        recipients.clear();
+                        reply(out, "250 queued");
+                    } else if (command.startsWith("RSET") || command.startsWith("MAIL")) {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    } else if (command.startsWith("QUIT")) {
+                        // count it closed before the client can see the reply and reconnect
+                        active.decrementAndGet();
+                        quit = true;
+                        reply(out, "221 bye");
+                        return;
+                    } else {
+                        reply(out, "250 OK");
+                    }
+                }
+            } catch (IOException ignored) {
+                // client went away
+            } finally {
+                if (!quit) active.decrementAndGet();
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
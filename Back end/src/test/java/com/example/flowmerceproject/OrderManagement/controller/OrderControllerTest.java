@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -66,12 +67,20 @@ class OrderControllerTest {
                 .build();
     }
 
+    private OrderDTOs.OrderSummaryPage buildPage(String nextCursor) {
+        return OrderDTOs.OrderSummaryPage.builder()
+                .items(List.of(buildSummary()))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     // ── GET /orders/me ────────────────────────────────────────────────────────
 
     @Test
     @DisplayName("GET /orders/me → 200 with list of orders")
     void getMyOrders_authenticatedBuyer_returns200() throws Exception {
-        when(orderService.getMyOrders("buyer@test.com")).thenReturn(List.of(buildSummary()));
+        when(orderService.getMyOrders(eq("buyer@test.com"), any()))
+                .thenReturn(buildPage(null));
 
         mockMvc.perform(get("/orders/me")
                         .principal(() -> "buyer@test.com"))
@@ -187,12 +196,53 @@ class OrderControllerTest {
     @Test
     @DisplayName("GET /orders/store/{storeId} → 200 with store orders")
     void getStoreOrders_merchantRole_returns200() throws Exception {
-        when(orderService.getStoreOrders("merchant@test.com", 1))
-                .thenReturn(List.of(buildSummary()));
+        when(orderService.getStoreOrders(eq("merchant@test.com"), eq(1), any()))
+                .thenReturn(buildPage(null));
 
         mockMvc.perform(get("/orders/store/1")
                         .principal(() -> "merchant@test.com"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data").isArray());
     }
+
+    @Test
+    @DisplayName("GET /orders/store/{storeId}?cursor&limit&status → filters passed through, next cursor in header")
+    void getStoreOrders_withCursor_returnsNextCursorHeader() throws Exception {
+        when(orderService.getStoreOrders(eq("merchant@test.com"), eq(1),
+                argThat(q -> "abc".equals(q.getCursor()) && q.getLimit() == 20
+                        && q.getStatus() == Order.OrderStatus.SHIPPED
+                        && LocalDateTime.of(2026, 1, 1, 0, 0).equals(q.getFrom()))))
+                .thenReturn(buildPage("next-page"));
+
+        mockMvc.perform(get("/orders/store/1")
+                        .param("cursor", "abc")
+                        .param("limit", "20")
+                        .param("status", "SHIPPED")
+                        .param("from", "2026-01-01T00:00:00")
+                        .principal(() -> "merchant@test.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next-page"))
+                .andExpect(jsonPath("$.data[0].orderId").value(1));
+    }
+
+    @Test
+    @DisplayName("GET /orders/me?status=shipped|all → lowercase matches the enum, all means no filter, unknown → 400")
+    void getMyOrders_frontendStatusValues() throws Exception {
+        when(orderService.getMyOrders(eq("customer@test.com"), any())).thenReturn(buildPage(null));
+
+        mockMvc.perform(get("/orders/me").param("status", "shipped")
+                        .principal(() -> "customer@test.com"))
+                .andExpect(status().isOk());
+        verify(orderService).getMyOrders(eq("customer@test.com"),
+                argThat(q -> q.getStatus() == Order.OrderStatus.SHIPPED && q.getLimit() == null));
+
+        mockMvc.perform(get("/orders/me").param("status", "all")
+                        .principal(() -> "customer@test.com"))
+                .andExpect(status().isOk());
+        verify(orderService).getMyOrders(eq("customer@test.com"), argThat(q -> q.getStatus() == null));
+
+        mockMvc.perform(get("/orders/me").param("status", "lost")
+                        .principal(() -> "customer@test.com"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,219 @@
+package com.example.flowmerceproject.OrderManagement.service;
+
+import com.example.flowmerceproject.CartManagement.dto.CartDTOs;
+import com.example.flowmerceproject.CartManagement.service.CheckoutService;
+import com.example.flowmerceproject.CartManagement.service.CheckoutService.CheckoutSummary;
+import com.example.flowmerceproject.OrderManagement.entity.Invoice;
+import com.example.flowmerceproject.OrderManagement.entity.Order;
+import com.example.flowmerceproject.OrderManagement.entity.OrderItem;
+import com.example.flowmerceproject.ProductManagement.entity.Product;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.StoreMangement.entity.Store;
+import com.example.flowmerceproject.StoreMangement.repository.StoreRepository;
+import com.example.flowmerceproject.TestcontainersConfiguration;
+import com.example.flowmerceproject.UserManagement.entity.Customer;
+import com.example.flowmerceproject.UserManagement.entity.Merchant;
+import com.example.flowmerceproject.UserManagement.entity.Role;
+import com.example.flowmerceproject.UserManagement.entity.User;
+import com.example.flowmerceproject.UserManagement.repository.CustomerRepository;
+import com.example.flowmerceproject.UserManagement.repository.MerchantRepository;
+import com.example.flowmerceproject.UserManagement.repository.UserRepository;
+import com.example.flowmerceproject.UserManagement.service.SseService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement count and latency of order creation for 1-, 10- and 50-line
+ * orders, against a real PostgreSQL. Runs only when Docker is available.
+ *
+ * "before" replays the old write pattern — one product SELECT per line and an
+ * INSERT round trip per row, as IDENTITY ids forced — through the same
+ * entities; "after" is {@link OrderService#createOrder} itself. Tagged
+ * "benchmark": run with -Pbenchmark.
+ */
+@Tag("benchmark")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Order creation benchmark")
+class OrderCreationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCreationBenchmarkTest.class);
+
+    private static final int[] LINE_COUNTS = { 1, 10, 50 };
+    private static final int WARMUP = 5;
+    private static final int RUNS = 20;
+
+    @Autowired private OrderService orderService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private MerchantRepository merchantRepository;
+    @Autowired private StoreRepository storeRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @PersistenceContext private EntityManager entityManager;
+
+    // Keep the benchmark to the order write itself.
+    @MockitoBean private CheckoutService checkoutService;
+    @MockitoBean private SseService sseService;
+
+    private String customerEmail;
+    private Store store;
+    private List<Product> products;
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User buyer = userRepository.save(User.builder()
+                .email("bench-buyer-" + suffix + "@test.com").passwordHash("x")
+                .fullName("Bench Buyer").role(Role.BUYER).isActive(true).build());
+        customerRepository.save(Customer.builder().user(buyer).build());
+        customerEmail = buyer.getEmail();
+
+        User owner = userRepository.save(User.builder()
+                .email("bench-merchant-" + suffix + "@test.com").passwordHash("x")
+                .fullName("Bench Merchant").role(Role.MERCHANT).isActive(true).build());
+        Merchant merchant = merchantRepository.save(Merchant.builder().user(owner).businessName("Bench").build());
+        store = storeRepository.save(Store.builder()
+                .merchant(merchant).storeName("Bench Store").storeUrl("bench-" + suffix).build());
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            products.add(productRepository.save(Product.builder()
+                    .store(store).name("Bench Product " + i).basePrice(new BigDecimal("10.00")).build()));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("B-ORD-01: statements and latency, before vs after, for 1/10/50 lines")
+    void createOrder_statementCountAndLatency() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long[] afterStatements = new long[LINE_COUNTS.length];
+
+        log.info("B-ORD-01 lines | before: stmts  p50 ms | after: stmts  p50 ms");
+        for (int i = 0; i < LINE_COUNTS.length; i++) {
+            int lines = LINE_COUNTS[i];
+            CheckoutSummary summary = summary(lines);
+
+            Result before = measure(() -> tx.executeWithoutResult(s -> legacyCreateOrder(summary)));
+            Result after = measure(() -> orderService.createOrder(
+                    customerEmail, summary, UUID.randomUUID().toString()));
+            afterStatements[i] = after.statements();
+
+            log.info(String.format("B-ORD-01 %5d | %12d  %6.2f | %11d  %6.2f",
+                    lines, before.statements(), before.p50Millis(), after.statements(), after.p50Millis()));
+
+            if (lines > 1) {
+                assertThat(after.statements()).isLessThan(before.statements());
+            }
+        }
+        // Round trips no longer grow with the number of lines.
+        assertThat(afterStatements[2]).isLessThanOrEqualTo(afterStatements[0] + 1);
+    }
+
+    private record Result(long statements, double p50Millis) { }
+
+    private Result measure(Runnable createOrder) {
+        for (int i = 0; i < WARMUP; i++) createOrder.run();
+
+        long[] nanos = new long[RUNS];
+        long statements = 0;
+        for (int i = 0; i < RUNS; i++) {
+            statistics.clear();
+            long start = System.nanoTime();
+            createOrder.run();
+            nanos[i] = System.nanoTime() - start;
+            statements = Math.max(statements, statistics.getPrepareStatementCount());
+        }
+        Arrays.sort(nanos);
+        return new Result(statements, nanos[RUNS / 2] / 1e6);
+    }
+
+    /** The pre-change createOrder, statement for statement. */
+    private void legacyCreateOrder(CheckoutSummary summary) {
+        User user = userRepository.findByEmail(customerEmail).orElseThrow();
+        Customer customer = customerRepository.findByUser_UserId(user.getUserId()).orElseThrow();
+        Store orderStore = storeRepository.findById(summary.getStoreId()).orElseThrow();
+
+        Order order = Order.builder()
+                .customer(customer).store(orderStore).status(Order.OrderStatus.PENDING)
+                .subtotal(summary.getSubtotal()).tax(summary.getTax())
+                .shippingCost(summary.getShippingCost()).total(summary.getTotal())
+                .paymentMethod(summary.getPaymentMethod())
+                .idempotencyKey(UUID.randomUUID().toString())
+                .build();
+        entityManager.persist(order);
+        entityManager.flush();
+
+        for (CartDTOs.CartItemResponse line : summary.getItems()) {
+            // Lines are distinct products, so each find is a SELECT, as findById was.
+            Product product = entityManager.find(Product.class, line.getProductId());
+            OrderItem item = OrderItem.builder()
+                    .order(order).product(product).quantity(line.getQuantity()).price(line.getPriceAtAdd())
+                    .build();
+            order.getItems().add(item);
+            entityManager.persist(item);
+            entityManager.flush();
+        }
+
+        Invoice invoice = Invoice.builder()
+                .order(order)
+                .invoiceNumber("INV-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy"))
+                        + "-" + String.format("%07d", order.getOrderId()))
+                .build();
+        entityManager.persist(invoice);
+        entityManager.flush();
+    }
+
+    private CheckoutSummary summary(int lines) {
+        List<CartDTOs.CartItemResponse> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(CartDTOs.CartItemResponse.builder()
+                    .productId(products.get(i).getProductId())
+                    .quantity(1)
+                    .priceAtAdd(new BigDecimal("10.00"))
+                    .build());
+        }
+        BigDecimal subtotal = new BigDecimal("10.00").multiply(BigDecimal.valueOf(lines));
+        return CheckoutSummary.builder()
+                .cartId(1)
+                .storeId(store.getStoreId())
+                .items(items)
+                .subtotal(subtotal)
+                .tax(BigDecimal.ZERO)
+                .shippingCost(new BigDecimal("25.00"))
+                .total(subtotal.add(new BigDecimal("25.00")))
+                .paymentMethod("CASH_ON_DELIVERY")
+                .build();
+    }
+}
@@ -10,6 +10,9 @@ import com.example.flowmerceproject.OrderManagement.entity.OrderItem;
 import com.example.flowmerceproject.OrderManagement.event.OrderEventPublisher;
 import com.example.flowmerceproject.OrderManagement.repository.InvoiceRepository;
 import com.example.flowmerceproject.OrderManagement.repository.OrderRepository;
+import com.example.flowmerceproject.OrderManagement.repository.OrderSummaryView;
+import com.example.flowmerceproject.OrderManagement.repository.StoreCustomerStatsRepository;
+import com.example.flowmerceproject.OrderManagement.repository.StoreCustomerView;
 import com.example.flowmerceproject.PaymentManagement.entity.Payment;
 import com.example.flowmerceproject.PaymentManagement.repository.PaymentRepository;
 import com.example.flowmerceproject.PaymentManagement.service.PaymentServiceImpl;
@@ -37,9 +40,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 
@@ -47,8 +54,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -76,6 +85,8 @@ class OrderServiceTest {
     @Mock private ShippingService shippingService;
     @Mock private StringRedisTemplate redisTemplate;
     @Mock private ValueOperations<String, String> valueOps;
+    @Mock private StoreCustomerStatsRepository storeCustomerStatsRepository;
+    @Mock private StoreCustomerStatsService storeCustomerStatsService;
 
     @InjectMocks
     private OrderService orderService;
@@ -142,7 +153,7 @@ class OrderServiceTest {
         when(userRepository.findByEmail("customer@test.com")).thenReturn(Optional.of(customerUser));
         when(customerRepository.findByUser_UserId(1)).thenReturn(Optional.of(customer));
         when(storeRepository.findById(1)).thenReturn(Optional.of(store));
-        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+        when(productRepository.findAllById(Set.of(1))).thenReturn(List.of(product));
         when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
             Order o = inv.getArgument(0);
             o.setOrderId(1);
@@ -157,6 +168,10 @@ class OrderServiceTest {
         assertThat(result).isNotNull();
         verify(checkoutService).confirmOrder(summary.getCartId());
         verify(invoiceRepository).save(any(Invoice.class));
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderRepository).flush();
+        verify(orderEventPublisher).publishCreated(any(Order.class));
+        verify(productRepository, never()).findById(any());
         verify(sseService).sendOrderUpdate(eq("customer@test.com"), any(), anyString());
     }
 
@@ -344,8 +359,192 @@ class OrderServiceTest {
         assertThat(result.getContent()).hasSize(1);
     }
 
+    // ── U-ORD-11: createOrder - unknown product fails before anything is written ─
+
+    @Test
+    @DisplayName("U-ORD-11: createOrder - product missing from bulk load throws ResourceNotFoundException")
+    void createOrder_unknownProduct_throwsResourceNotFound() {
+        CheckoutSummary summary = buildCheckoutSummary(99, BigDecimal.TEN);
+
+        when(userRepository.findByEmail("customer@test.com")).thenReturn(Optional.of(customerUser));
+        when(customerRepository.findByUser_UserId(1)).thenReturn(Optional.of(customer));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+        when(productRepository.findAllById(Set.of(99))).thenReturn(List.of());
+
+        assertThatThrownBy(() ->
+                orderService.createOrder("customer@test.com", summary, "key-missing"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("99");
+
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(checkoutService, never()).confirmOrder(any());
+    }
+
+    // ── U-ORD-12: getStoreOrders - keyset page with next cursor ──────────────
+
+    @Test
+    @DisplayName("U-ORD-12: getStoreOrders - returns limit rows and a cursor that resumes after the last one")
+    void getStoreOrders_keyset_cursorResumesAfterLastRow() {
+        when(userRepository.findByEmail("merchant@test.com")).thenReturn(Optional.of(merchantUser));
+        when(merchantRepository.findByUser_UserId(2)).thenReturn(Optional.of(merchant));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+
+        LocalDateTime t = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_000);
+        when(orderRepository.findStoreOrderSummaries(eq(1), any(), any(), any(), any(), any(), any(Limit.class)))
+                .thenReturn(List.of(view(30, t), view(29, t), view(28, t.minusHours(1))));
+
+        OrderDTOs.OrderSummaryPage first = orderService.getStoreOrders("merchant@test.com", 1,
+                OrderDTOs.OrderListQuery.builder().limit(2).build());
+
+        assertThat(first.getItems()).extracting(OrderDTOs.OrderSummary::getOrderId).containsExactly(30, 29);
+        assertThat(first.getItems().get(0).getCustomerName()).isEqualTo("Test Customer");
+        assertThat(first.getNextCursor()).isNotNull();
+        verify(orderRepository).findStoreOrderSummaries(eq(1), eq(EnumSet.allOf(Order.OrderStatus.class)),
+                any(), any(), any(), eq(Integer.MAX_VALUE), eq(Limit.of(3)));
+
+        when(orderRepository.findStoreOrderSummaries(eq(1), any(), any(), any(), eq(t), eq(29), any(Limit.class)))
+                .thenReturn(List.of(view(28, t.minusHours(1))));
+
+        OrderDTOs.OrderSummaryPage second = orderService.getStoreOrders("merchant@test.com", 1,
+                OrderDTOs.OrderListQuery.builder().limit(2).cursor(first.getNextCursor())
+                        .status(Order.OrderStatus.PENDING).build());
+
+        assertThat(second.getItems()).extracting(OrderDTOs.OrderSummary::getOrderId).containsExactly(28);
+        assertThat(second.getNextCursor()).isNull();
+        verify(orderRepository).findStoreOrderSummaries(eq(1), eq(EnumSet.of(Order.OrderStatus.PENDING)),
+                any(), any(), eq(t), eq(29), eq(Limit.of(3)));
+    }
+
+    // ── U-ORD-13: getMyOrders - malformed cursor is rejected ─────────────────
+
+    @Test
+    @DisplayName("U-ORD-13: getMyOrders - malformed cursor throws BadRequestException")
+    void getMyOrders_badCursor_throwsBadRequest() {
+        when(userRepository.findByEmail("customer@test.com")).thenReturn(Optional.of(customerUser));
+        when(customerRepository.findByUser_UserId(1)).thenReturn(Optional.of(customer));
+
+        assertThatThrownBy(() -> orderService.getMyOrders("customer@test.com",
+                OrderDTOs.OrderListQuery.builder().cursor("not-a-cursor").build()))
+                .isInstanceOf(BadRequestException.class);
+        verify(orderRepository, never()).findCustomerOrderSummaries(
+                any(), any(), any(), any(), any(), any(), any(Limit.class));
+    }
+
+    // ── U-ORD-14: getStoreCustomers - served from the stats read model ───────
+
+    @Test
+    @DisplayName("U-ORD-14: getStoreCustomers - reads store_customer_stats when enabled")
+    void getStoreCustomers_statsEnabled_readsReadModel() {
+        when(userRepository.findByEmail("merchant@test.com")).thenReturn(Optional.of(merchantUser));
+        when(merchantRepository.findByUser_UserId(2)).thenReturn(Optional.of(merchant));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+        when(storeCustomerStatsService.isEnabled()).thenReturn(true);
+        when(storeCustomerStatsRepository.findByStoreOrderByRecency(eq(1), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(customerRow()), PageRequest.of(0, 20), true));
+
+        Slice<OrderDTOs.CustomerSummary> result = orderService.getStoreCustomers(
+                "merchant@test.com", 1, OrderDTOs.CustomerSort.RECENT, 0, 20);
+
+        assertThat(result.hasNext()).isTrue();
+        assertThat(result.getContent()).singleElement().satisfies(c -> {
+            assertThat(c.getEmail()).isEqualTo("customer@test.com");
+            assertThat(c.getOrdersCount()).isEqualTo(3);
+            assertThat(c.getTotalSpent()).isEqualByComparingTo("250.00");
+        });
+        verify(orderRepository, never()).findByStore_StoreIdOrderByOrderDateDesc(any());
+        verify(orderRepository, never()).findStoreCustomersByRecency(any(), any());
+    }
+
+    // ── U-ORD-15: getStoreCustomers - falls back to the GROUP BY query ───────
+
+    @Test
+    @DisplayName("U-ORD-15: getStoreCustomers - aggregates in SQL when the read model is disabled")
+    void getStoreCustomers_statsDisabled_usesGroupByQuery() {
+        when(userRepository.findByEmail("merchant@test.com")).thenReturn(Optional.of(merchantUser));
+        when(merchantRepository.findByUser_UserId(2)).thenReturn(Optional.of(merchant));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+        when(storeCustomerStatsService.isEnabled()).thenReturn(false);
+        when(orderRepository.findStoreCustomersBySpend(eq(1), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(customerRow())));
+
+        Slice<OrderDTOs.CustomerSummary> result = orderService.getStoreCustomers(
+                "merchant@test.com", 1, OrderDTOs.CustomerSort.SPEND, 0, 500);
+
+        assertThat(result.getContent()).hasSize(1);
+        verify(orderRepository).findStoreCustomersBySpend(1, PageRequest.of(0, 200));
+        verifyNoInteractions(storeCustomerStatsRepository);
+    }
+
+    // ── U-ORD-16: no limit and no cursor - the whole list, as before paging ──
+
+    @Test
+    @DisplayName("U-ORD-16: getStoreOrders - without limit or cursor returns every row and no cursor")
+    void getStoreOrders_noLimitNoCursor_unpaged() {
+        when(userRepository.findByEmail("merchant@test.com")).thenReturn(Optional.of(merchantUser));
+        when(merchantRepository.findByUser_UserId(2)).thenReturn(Optional.of(merchant));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+        LocalDateTime t = LocalDateTime.of(2026, 3, 1, 12, 0);
+        List<OrderSummaryView> rows = new ArrayList<>();
+        for (int id = 120; id > 0; id--) rows.add(view(id, t.minusMinutes(120 - id)));
+        when(orderRepository.findStoreOrderSummaries(eq(1), any(), any(), any(), any(), any(), any(Limit.class)))
+                .thenReturn(rows);
+
+        OrderDTOs.OrderSummaryPage page = orderService.getStoreOrders("merchant@test.com", 1,
+                OrderDTOs.OrderListQuery.builder().build());
+
+        assertThat(page.getItems()).hasSize(120);
+        assertThat(page.getNextCursor()).isNull();
+        verify(orderRepository).findStoreOrderSummaries(eq(1), any(), any(), any(), any(), any(),
+                eq(Limit.unlimited()));
+    }
+
+    // ── U-ORD-17: getStoreCustomers - no page or size, every customer ────────
+
+    @Test
+    @DisplayName("U-ORD-17: getStoreCustomers - without page and size queries unpaged")
+    void getStoreCustomers_noPageNoSize_unpaged() {
+        when(userRepository.findByEmail("merchant@test.com")).thenReturn(Optional.of(merchantUser));
+        when(merchantRepository.findByUser_UserId(2)).thenReturn(Optional.of(merchant));
+        when(storeRepository.findById(1)).thenReturn(Optional.of(store));
+        when(storeCustomerStatsService.isEnabled()).thenReturn(true);
+        when(storeCustomerStatsRepository.findByStoreOrderBySpend(eq(1), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(customerRow())));
+
+        Slice<OrderDTOs.CustomerSummary> result = orderService.getStoreCustomers(
+                "merchant@test.com", 1, OrderDTOs.CustomerSort.SPEND, null, null);
+
+        assertThat(result.hasNext()).isFalse();
+        verify(storeCustomerStatsRepository).findByStoreOrderBySpend(1, Pageable.unpaged());
+    }
+
     // ── Helpers ───────────────────────────────────────────────────────────────
 
+    private StoreCustomerView customerRow() {
+        return new StoreCustomerView() {
+            public Integer getCustomerId() { return 1; }
+            public String getName() { return "Test Customer"; }
+            public String getEmail() { return "customer@test.com"; }
+            public String getPhone() { return null; }
+            public LocalDateTime getJoinDate() { return LocalDateTime.of(2025, 1, 1, 0, 0); }
+            public Integer getOrdersCount() { return 3; }
+            public BigDecimal getTotalSpent() { return new BigDecimal("250.00"); }
+            public LocalDateTime getLastOrderDate() { return LocalDateTime.of(2026, 3, 1, 12, 0); }
+            public String getLastShippingAddress() { return "{\"fullName\":\"Test Customer\"}"; }
+        };
+    }
+
+    private OrderSummaryView view(int orderId, LocalDateTime orderDate) {
+        return new OrderSummaryView() {
+            public Integer getOrderId() { return orderId; }
+            public Order.OrderStatus getStatus() { return Order.OrderStatus.PENDING; }
+            public BigDecimal getTotal() { return new BigDecimal("125.00"); }
+            public LocalDateTime getOrderDate() { return orderDate; }
+            public String getStoreName() { return "Test Store"; }
+            public String getShippingAddress() { return "{\"fullName\":\"Test Customer\"}"; }
+            public Integer getItemCount() { return 1; }
+        };
+    }
+
     private Order buildOrder(Order.OrderStatus status) {
         return Order.builder()
                 .orderId(10)
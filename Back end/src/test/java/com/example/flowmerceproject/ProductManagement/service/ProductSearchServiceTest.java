@@ -0,0 +1,163 @@
+package com.example.flowmerceproject.ProductManagement.service;
+
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductSearchRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+/**
+ * Runs db/product_search.sql and the search queries against a real
+ * PostgreSQL, on a minimal products/categories schema. Runs only when Docker
+ * is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("ProductSearchService Tests")
+class ProductSearchServiceTest {
+
+    private static final int STORE = 1;
+    private static final int OTHER_STORE = 2;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:16"));
+
+    private static JdbcTemplate jdbc;
+
+    private ProductSearchService searchService;
+
+    @BeforeAll
+    static void schema() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbc.execute("CREATE TABLE categories (category_id INT PRIMARY KEY, name VARCHAR(100))");
+        jdbc.execute("CREATE TABLE products (product_id INT PRIMARY KEY, store_id INT NOT NULL, "
+                + "category_id INT REFERENCES categories(category_id), name VARCHAR(150) NOT NULL, "
+                + "description TEXT, base_price DECIMAL(10,2) NOT NULL, is_active BOOLEAN)");
+    }
+
+    @BeforeEach
+    void seed() {
+        jdbc.execute("DROP TABLE IF EXISTS product_search");
+        jdbc.execute("DELETE FROM products");
+        jdbc.execute("DELETE FROM categories");
+        jdbc.update("INSERT INTO categories VALUES (10, 'Shoes'), (11, 'Shirts'), (12, 'أحذية')");
+        product(1, STORE, 10, "Red Shoes", "Leather runners", "80.00", true);
+        product(2, STORE, 11, "Blue Shirt", "Cotton with red stripes", "30.00", true);
+        product(3, STORE, 10, "Trail Sneakers", "Grippy sole", "120.00", true);
+        product(4, STORE, 12, "حذاء رياضي أحمر", "مريح للجري", "300.00", true);
+        product(5, STORE, 11, "Wireless Headphones", null, "650.00", true);
+        product(6, STORE, 10, "Red Sandals", "Discontinued", "40.00", false);
+        product(7, OTHER_STORE, 10, "Red Shoes", "Another store's", "75.00", true);
+
+        searchService = new ProductSearchService(new ProductSearchRepository(jdbc));
+        ReflectionTestUtils.setField(searchService, "enabled", true);
+        ReflectionTestUtils.setField(searchService, "maxCategoryFacets", 20);
+        searchService.init();
+    }
+
+    private static void product(int id, int storeId, int categoryId, String name, String description,
+                                String price, boolean active) {
+        jdbc.update("INSERT INTO products VALUES (?, ?, ?, ?, ?, ?, ?)",
+                id, storeId, categoryId, name, description, new BigDecimal(price), active);
+    }
+
+    private List<Integer> search(String keyword) {
+        return searchService.search(STORE, keyword, null, null, null, PageRequest.of(0, 20)).getContent();
+    }
+
+    @Test
+    @DisplayName("Q-SRCH-01: prefix terms match, name hits outrank description hits, scoped to active products of one store")
+    void search_prefixAndRanking() {
+        assertThat(searchService.isAvailable()).isTrue();
+
+        assertThat(search("red sho")).containsExactly(1);
+        assertThat(search("red")).startsWith(1).contains(2).doesNotContain(6, 7);
+        assertThat(search("shoes")).contains(1, 3);   // product 3 through its category
+        assertThat(search("!!")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Q-SRCH-02: Arabic letter variants and tashkeel are folded; a misspelt word still matches")
+    void search_arabicNormalizationAndTypos() {
+        assertThat(search("احمر")).containsExactly(4);     // أحمر without hamza
+        assertThat(search("حِذاء")).containsExactly(4);    // with kasra
+        assertThat(search("احذيه")).containsExactly(4);    // category أحذية, taa marbuta as haa
+        assertThat(search("headphnes")).containsExactly(5);
+    }
+
+    @Test
+    @DisplayName("Q-SRCH-03: facets count matches per category and price band; filters and paging narrow results")
+    void facetsFiltersAndPaging() {
+        ProductDTOs.SearchFacets facets = searchService.facets(STORE, "red");
+
+        assertThat(facets.getCategories())
+                .extracting(ProductDTOs.CategoryFacet::getName, ProductDTOs.CategoryFacet::getCount)
+                .containsExactlyInAnyOrder(
+                        tuple("Shoes", 1L),
+                        tuple("Shirts", 1L));
+        assertThat(facets.getPriceBands())
+                .extracting(ProductDTOs.PriceBandFacet::getMinPrice, ProductDTOs.PriceBandFacet::getCount)
+                .containsExactly(
+                        tuple(BigDecimal.ZERO, 1L),
+                        tuple(new BigDecimal("50"), 1L));
+
+        assertThat(searchService.search(STORE, "red", 11, null, null, PageRequest.of(0, 20)).getContent())
+                .containsExactly(2);
+        assertThat(searchService.search(STORE, "red", null, new BigDecimal("50"), null, PageRequest.of(0, 20))
+                .getContent()).containsExactly(1);
+
+        Slice<Integer> first = searchService.search(STORE, "red", null, null, null, PageRequest.of(0, 1));
+        Slice<Integer> second = searchService.search(STORE, "red", null, null, null, PageRequest.of(1, 1));
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.hasNext()).isFalse();
+        assertThat(first.getContent()).doesNotContainAnyElementsOf(second.getContent());
+
+        Slice<Integer> all = searchService.search(STORE, "red", null, null, null, Pageable.unpaged());
+        assertThat(all.hasNext()).isFalse();
+        assertThat(all.getContent()).containsExactly(first.getContent().get(0), second.getContent().get(0));
+    }
+
+    @Test
+    @DisplayName("Q-SRCH-04: a product change event re-indexes the product on the next flush")
+    void changeEvent_reindexes() {
+        jdbc.update("UPDATE products SET name = 'Green Boots' WHERE product_id = 1");
+        assertThat(search("green")).isEmpty();
+
+        searchService.onProductChanged(new ProductChangedEvent(this, List.of(1)));
+        searchService.flush();
+
+        assertThat(search("green")).containsExactly(1);
+        assertThat(search("red sho")).isEmpty();
+
+        jdbc.update("DELETE FROM products WHERE product_id = 1");
+        assertThat(search("green")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Q-SRCH-05: keywords become prefix terms with no tsquery operators")
+    void toTsQuery_sanitizes() {
+        assertThat(ProductSearchService.toTsQuery("Red  sho")).isEqualTo("Red:* & sho:*");
+        assertThat(ProductSearchService.toTsQuery("a & b | !c:*")).isEqualTo("a:* & b:* & c:*");
+        assertThat(ProductSearchService.toTsQuery("حِذاء ـ")).isEqualTo("حِذاء:*");
+        assertThat(ProductSearchService.toTsQuery("  ")).isEmpty();
+    }
+}
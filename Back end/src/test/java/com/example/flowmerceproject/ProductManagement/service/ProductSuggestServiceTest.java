@@ -0,0 +1,133 @@
+package com.example.flowmerceproject.ProductManagement.service;
+
+import com.example.flowmerceproject.ProductManagement.dto.ProductDTOs;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.ProductManagement.repository.ProductSuggestView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("ProductSuggestService Unit Tests")
+class ProductSuggestServiceTest {
+
+    private static final int STORE = 1;
+
+    @Mock private ProductRepository productRepository;
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private ProductSuggestService suggestService;
+
+    private record Row(Integer productId, Integer storeId, String name, String categoryName, Boolean isActive)
+            implements ProductSuggestView {
+        public Integer getProductId()    { return productId; }
+        public Integer getStoreId()      { return storeId; }
+        public String getName()          { return name; }
+        public String getCategoryName()  { return categoryName; }
+        public Boolean getIsActive()     { return isActive; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        suggestService = new ProductSuggestService(productRepository, redisTemplate, listenerContainer);
+        ReflectionTestUtils.setField(suggestService, "maxStores", 100L);
+        ReflectionTestUtils.setField(suggestService, "ttlMinutes", 30L);
+        suggestService.init();
+
+        when(productRepository.findSuggestRowsByStoreId(STORE)).thenReturn(List.of(
+                new Row(1, STORE, "Red Running Shoes", "Shoes", true),
+                new Row(2, STORE, "Shoelaces", "Accessories", true),
+                new Row(3, STORE, "Trail Sneakers", "Shoes", true),
+                new Row(4, STORE, "حذاء رياضي أحمر", "أحذية", true),
+                new Row(5, STORE, "Blue Shirt", "Shirts", true)));
+    }
+
+    private List<Integer> ids(String query) {
+        return suggestService.suggest(STORE, query, 8).stream()
+                .map(ProductDTOs.Suggestion::getProductId)
+                .toList();
+    }
+
+    // ── U-SUG-01: prefix lookup and ranking ───────────────────────────────────
+
+    @Test
+    @DisplayName("U-SUG-01: name-prefix hits rank above word and category hits; every word must match")
+    void suggest_prefixAndRanking() {
+        assertThat(ids("sho")).containsExactly(2, 1, 3);   // Shoelaces, then name word, then category only
+        assertThat(ids("red sh")).containsExactly(1);
+        assertThat(ids("sh red")).containsExactly(1);
+        assertThat(ids("احمر")).containsExactly(4);        // أحمر typed without hamza
+        assertThat(ids("حِذاء")).containsExactly(4);       // with kasra
+        assertThat(ids("  ")).isEmpty();
+        assertThat(suggestService.suggest(STORE, "s", 2)).hasSize(2);
+    }
+
+    // ── U-SUG-02: built once, then served from memory ─────────────────────────
+
+    @Test
+    @DisplayName("U-SUG-02: the index is loaded on first use and never queried again for lookups")
+    void suggest_loadsOnce() {
+        ids("sho");
+        ids("blue");
+        ids("trail");
+
+        verify(productRepository, times(1)).findSuggestRowsByStoreId(STORE);
+    }
+
+    // ── U-SUG-03: change events patch the index ───────────────────────────────
+
+    @Test
+    @DisplayName("U-SUG-03: renamed, deactivated and deleted products are patched in place")
+    void refresh_patchesIndex() {
+        ids("sho");
+        when(productRepository.findSuggestRowsByProductIdIn(any())).thenReturn(List.of(
+                new Row(3, STORE, "Trail Boots", "Shoes", true),
+                new Row(5, STORE, "Blue Shirt", "Shirts", false),
+                new Row(6, STORE, "Sandals", "Shoes", true)));
+
+        suggestService.refresh(Set.of(2, 3, 5, 6));   // 2 was deleted
+
+        assertThat(ids("boot")).containsExactly(3);
+        assertThat(ids("sneak")).isEmpty();
+        assertThat(ids("blue")).isEmpty();
+        assertThat(ids("sand")).containsExactly(6);
+        assertThat(ids("shoelace")).isEmpty();
+        verify(productRepository, times(1)).findSuggestRowsByStoreId(STORE);
+    }
+
+    @Test
+    @DisplayName("U-SUG-04: changes are broadcast; if Redis is down this node patches itself")
+    void onProductChanged_broadcastsOrFallsBack() {
+        suggestService.onProductChanged(new ProductChangedEvent(this, List.of(3, 5)));
+        verify(redisTemplate).convertAndSend(ProductSuggestService.CHANGED_CHANNEL, "3,5");
+
+        ids("blue");
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+        when(productRepository.findSuggestRowsByProductIdIn(any())).thenReturn(List.of(
+                new Row(5, STORE, "Blue Shirt", "Shirts", false)));
+
+        suggestService.onProductChanged(new ProductChangedEvent(this, List.of(5)));
+
+        assertThat(ids("blue")).isEmpty();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.flowmerceproject.StoreMangement.service;
+
+import com.example.flowmerceproject.InventoryManagement.service.InventoryService;
+import com.example.flowmerceproject.ProductManagement.event.ProductChangedEvent;
+import com.example.flowmerceproject.ProductManagement.repository.ProductPlacementView;
+import com.example.flowmerceproject.ProductManagement.repository.ProductRepository;
+import com.example.flowmerceproject.StoreMangement.dto.CatalogDTOs;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("PublicCatalogCache Unit Tests")
+class PublicCatalogCacheTest {
+
+    @Mock private InventoryService inventoryService;
+    @Mock private ProductRepository productRepository;
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PublicCatalogCache catalogCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private record Placement(Integer storeId, Integer categoryId) implements ProductPlacementView {
+        public Integer getStoreId()    { return storeId; }
+        public Integer getCategoryId() { return categoryId; }
+    }
+
+    @BeforeEach
+    void setUp() {
+        catalogCache = new PublicCatalogCache(inventoryService, productRepository,
+                redisTemplate, listenerContainer, objectMapper);
+        ReflectionTestUtils.setField(catalogCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(catalogCache, "ttlSeconds", 300L);
+        catalogCache.init();
+    }
+
+    private static CatalogDTOs.ProductResponse product(long id, Integer categoryId, String name) {
+        return CatalogDTOs.ProductResponse.builder()
+                .productId(id).storeId(1).categoryId(categoryId).name(name)
+                .price(new BigDecimal("9.99")).images(List.of("/img/" + id)).build();
+    }
+
+    private Supplier<List<CatalogDTOs.ProductResponse>> loader(CatalogDTOs.ProductResponse... products) {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(products);
+        };
+    }
+
+    private JsonNode read(byte[] body) throws Exception {
+        return objectMapper.readTree(body);
+    }
+
+    // ── U-CATL-01: bytes built once, stock overlaid on every read ─────────────
+
+    @Test
+    @DisplayName("U-CATL-01: a page is loaded once and stock is filled in from the stock keys on every read")
+    void products_cachedWithLiveStock() throws Exception {
+        when(inventoryService.getAvailableQuantities(List.of(1L, 2L)))
+                .thenReturn(Map.of(1L, 5, 2L, -1))
+                .thenReturn(Map.of(1L, 4));
+
+        JsonNode first = read(catalogCache.products(1, null, 0, loader(product(1, 10, "Shoes"), product(2, null, "Hat"))));
+        JsonNode second = read(catalogCache.products(1, null, 0, loader(product(1, 10, "Shoes"), product(2, null, "Hat"))));
+
+        assertThat(loads).hasValue(1);
+        assertThat(first.get("success").asBoolean()).isTrue();
+        assertThat(first.get("data")).hasSize(2);
+        assertThat(first.get("data").get(0).get("name").asText()).isEqualTo("Shoes");
+        assertThat(first.get("data").get(0).get("images").get(0).asText()).isEqualTo("/img/1");
+        assertThat(first.get("data").get(0).get("inventory").asInt()).isEqualTo(5);
+        assertThat(first.get("data").get(1).get("inventory").asInt()).isZero();    // never negative
+        assertThat(second.get("data").get(0).get("inventory").asInt()).isEqualTo(4);
+        assertThat(second.get("data").get(1).get("inventory").asInt()).isZero();   // no stock key, no row
+    }
+
+    // ── U-CATL-02: evictions hit only the affected lists ──────────────────────
+
+    @Test
+    @DisplayName("U-CATL-02: a product change drops its store's all-products and old/new category lists only")
+    void evict_onlyAffectedLists() {
+        catalogCache.products(1, null, 0, loader(product(1, 10, "Shoes")));
+        catalogCache.products(1, 10, 0, loader(product(1, 10, "Shoes")));
+        catalogCache.products(1, 11, 0, loader(product(3, 11, "Shirt")));
+        catalogCache.products(1, 12, 0, loader(product(4, 12, "Boots")));
+        catalogCache.products(2, null, 0, loader(product(9, 10, "Other store")));
+        loads.set(0);
+
+        // product 1 moved from category 10 to 12
+        catalogCache.evict(PublicCatalogCache.decode(
+                PublicCatalogCache.encode(List.of(1), List.of(new Placement(1, 12)))));
+
+        catalogCache.products(1, null, 0, loader());
+        catalogCache.products(1, 10, 0, loader());
+        catalogCache.products(1, 12, 0, loader());
+        assertThat(loads).hasValue(3);
+
+        catalogCache.products(1, 11, 0, loader());
+        catalogCache.products(2, null, 0, loader());
+        assertThat(loads).hasValue(3);
+    }
+
+    // ── U-CATL-03: change events are broadcast, or applied locally ────────────
+
+    @Test
+    @DisplayName("U-CATL-03: change events broadcast store:category pairs; if Redis is down this node evicts itself")
+    void onProductChanged_broadcastsOrFallsBack() {
+        when(productRepository.findPlacementsByProductIdIn(List.of(1, 2)))
+                .thenReturn(List.of(new Placement(1, 10), new Placement(1, null)));
+
+        catalogCache.onProductChanged(new ProductChangedEvent(this, List.of(1, 2)));
+        verify(redisTemplate).convertAndSend(PublicCatalogCache.EVICT_CHANNEL, "1,2|1:10,1:-");
+
+        catalogCache.categories(1, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        catalogCache.onProductChanged(new ProductChangedEvent(this, List.of(1, 2)));
+        catalogCache.categories(1, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertThat(loads).hasValue(2);
+    }
+}
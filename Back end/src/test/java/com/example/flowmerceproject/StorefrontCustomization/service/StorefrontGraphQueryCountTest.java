@@ -0,0 +1,105 @@
+package com.example.flowmerceproject.StorefrontCustomization.service;
+
+import com.example.flowmerceproject.StoreMangement.entity.Store;
+import com.example.flowmerceproject.StoreMangement.repository.StoreRepository;
+import com.example.flowmerceproject.StorefrontCustomization.entity.BaseComponent;
+import com.example.flowmerceproject.StorefrontCustomization.entity.ComponentDecorator;
+import com.example.flowmerceproject.StorefrontCustomization.entity.Page;
+import com.example.flowmerceproject.StorefrontCustomization.entity.StorefrontTemplate;
+import com.example.flowmerceproject.StorefrontCustomization.repository.BaseComponentRepository;
+import com.example.flowmerceproject.StorefrontCustomization.repository.ComponentDecoratorRepository;
+import com.example.flowmerceproject.StorefrontCustomization.repository.PageRepository;
+import com.example.flowmerceproject.StorefrontCustomization.repository.StorefrontTemplateRepository;
+import com.example.flowmerceproject.StorefrontCustomization.service.StorefrontSnapshotService.Snapshot;
+import com.example.flowmerceproject.TestcontainersConfiguration;
+import com.example.flowmerceproject.UserManagement.entity.Merchant;
+import com.example.flowmerceproject.UserManagement.entity.Role;
+import com.example.flowmerceproject.UserManagement.entity.User;
+import com.example.flowmerceproject.UserManagement.repository.MerchantRepository;
+import com.example.flowmerceproject.UserManagement.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rendering a public storefront must cost the same number of statements for
+ * a one-page, one-component store as for a large one. Runs only when Docker
+ * is available.
+ */
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Storefront graph query count")
+class StorefrontGraphQueryCountTest {
+
+    @Autowired private StorefrontCustomizationService storefrontService;
+    @Autowired private StorefrontSnapshotService snapshotService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private MerchantRepository merchantRepository;
+    @Autowired private StoreRepository storeRepository;
+    @Autowired private StorefrontTemplateRepository templateRepository;
+    @Autowired private PageRepository pageRepository;
+    @Autowired private BaseComponentRepository componentRepository;
+    @Autowired private ComponentDecoratorRepository decoratorRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Q-SF-01: statements to render 1×1 and 6×10 (with decorators) storefronts are equal")
+    void render_statementCountIndependentOfSize() {
+        Integer small = seed(1, 1, 0);
+        Integer large = seed(6, 10, 2);
+
+        long smallStatements = statementsToRender(small);
+        long largeStatements = statementsToRender(large);
+
+        assertThat(largeStatements).as("statements for 6x10x2 vs 1x1").isEqualTo(smallStatements);
+        assertThat(largeStatements).isLessThanOrEqualTo(4);
+    }
+
+    private long statementsToRender(Integer storeId) {
+        snapshotService.evict(storeId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Snapshot snapshot = storefrontService.getPublicSnapshot(storeId);
+        assertThat(snapshot.json()).isNotEmpty();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Integer seed(int pages, int componentsPerPage, int decoratorsPerComponent) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        User owner = userRepository.save(User.builder()
+                .email("sf-merchant-" + suffix + "@test.com").passwordHash("x")
+                .fullName("Storefront Merchant").role(Role.MERCHANT).isActive(true).build());
+        Merchant merchant = merchantRepository.save(Merchant.builder().user(owner).businessName("SF").build());
+        Store store = storeRepository.save(Store.builder()
+                .merchant(merchant).storeName("SF Store").storeUrl("sf-" + suffix).build());
+        StorefrontTemplate template = templateRepository.save(StorefrontTemplate.builder()
+                .store(store).status(StorefrontTemplate.StorefrontStatus.PUBLISHED).version(1).build());
+
+        for (int p = 0; p < pages; p++) {
+            Page page = pageRepository.save(Page.builder()
+                    .storefrontTemplate(template).title("Page " + p).slug("page-" + p)
+                    .isPublished(true).navOrder(p).build());
+            for (int c = 0; c < componentsPerPage; c++) {
+                BaseComponent component = componentRepository.save(BaseComponent.builder()
+                        .store(store).page(page).componentType(BaseComponent.ComponentType.TEXT_BLOCK)
+                        .name("Block " + c).content("{}").sortOrder(c).build());
+                for (int d = 0; d < decoratorsPerComponent; d++) {
+                    decoratorRepository.save(ComponentDecorator.builder()
+                            .component(component).priority(d).build());
+                }
+            }
+        }
+        return store.getStoreId();
+    }
+}
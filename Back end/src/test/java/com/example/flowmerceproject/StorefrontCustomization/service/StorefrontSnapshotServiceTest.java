@@ -0,0 +1,148 @@
+package com.example.flowmerceproject.StorefrontCustomization.service;
+
+import com.example.flowmerceproject.StorefrontCustomization.dto.StorefrontDTOs.StorefrontTemplateResponse;
+import com.example.flowmerceproject.StorefrontCustomization.service.StorefrontSnapshotService.Snapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("StorefrontSnapshotService Unit Tests")
+class StorefrontSnapshotServiceTest {
+
+    private static final String KEY = StorefrontSnapshotService.SNAPSHOT_KEY_PREFIX + 7;
+    private static final String GEN = StorefrontSnapshotService.GENERATION_KEY_PREFIX + 7;
+
+    @Mock private StringRedisTemplate redisTemplate;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+    @Mock private HashOperations<String, Object, Object> hashOps;
+    @Mock private ValueOperations<String, String> valueOps;
+
+    private StorefrontSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new StorefrontSnapshotService(redisTemplate, listenerContainer, new ObjectMapper());
+        ReflectionTestUtils.setField(snapshotService, "ttlMinutes", 30L);
+        ReflectionTestUtils.setField(snapshotService, "l1MaxSize", 100L);
+        ReflectionTestUtils.setField(snapshotService, "l1TtlSeconds", 30L);
+        snapshotService.init();
+
+        when(redisTemplate.opsForHash()).thenReturn(hashOps);
+        when(hashOps.entries(anyString())).thenReturn(Map.of());
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    }
+
+    private static StorefrontTemplateResponse storefront(String name) {
+        return StorefrontTemplateResponse.builder().storeId(7).storeName(name).version(3).build();
+    }
+
+    // ── U-SNAP-01: the ETag is a content hash ─────────────────────────────────
+
+    @Test
+    @DisplayName("U-SNAP-01: same content → same strong ETag; changed content → new ETag")
+    void render_etagIsContentHash() {
+        Snapshot a = snapshotService.render(storefront("Shop"));
+        Snapshot b = snapshotService.render(storefront("Shop"));
+        Snapshot c = snapshotService.render(storefront("Shop 2"));
+
+        assertThat(a.etag()).startsWith("\"").endsWith("\"").isEqualTo(b.etag());
+        assertThat(c.etag()).isNotEqualTo(a.etag());
+        assertThat(a.matches("W/" + a.etag() + ", \"other\"")).isTrue();
+        assertThat(a.matches(c.etag())).isFalse();
+        // The gzip body is its own representation, and either tag revalidates
+        assertThat(a.gzipEtag()).isEqualTo(a.etag().substring(0, a.etag().length() - 1) + "-gz\"");
+        assertThat(a.matches(a.gzipEtag())).isTrue();
+        assertThat(a.matches(c.gzipEtag())).isFalse();
+        assertThat(new String(a.json())).contains("\"success\":true").contains("\"storeName\":\"Shop\"");
+    }
+
+    // ── U-SNAP-02: misses render once, hits come from L1 ──────────────────────
+
+    @Test
+    @DisplayName("U-SNAP-02: a miss renders and stores once; later reads skip Redis and the DB")
+    void get_rendersOnceThenServesFromL1() {
+        AtomicInteger renders = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            snapshotService.get(7, () -> {
+                renders.incrementAndGet();
+                return storefront("Shop");
+            });
+        }
+
+        assertThat(renders.get()).isEqualTo(1);
+        verify(hashOps, times(1)).entries(KEY);
+        verify(redisTemplate, times(1)).execute(eq(StorefrontSnapshotService.PUT_IF_CURRENT),
+                eq(List.of(KEY, GEN)), any(Object[].class));
+        verify(hashOps, never()).putAll(anyString(), anyMap());
+    }
+
+    // ── U-SNAP-03: evict drops every copy and tells the other nodes ──────────
+
+    @Test
+    @DisplayName("U-SNAP-03: evict deletes the Redis copy, broadcasts, and forces a re-render")
+    void evict_forcesRerender() {
+        snapshotService.publish(7, storefront("Shop"));
+        snapshotService.evict(7);
+
+        AtomicInteger renders = new AtomicInteger();
+        Snapshot fresh = snapshotService.get(7, () -> {
+            renders.incrementAndGet();
+            return storefront("Shop 2");
+        });
+
+        assertThat(renders.get()).isEqualTo(1);
+        assertThat(new String(fresh.json())).contains("Shop 2");
+        verify(redisTemplate).delete(KEY);
+        verify(valueOps).increment(GEN);
+        verify(redisTemplate, atLeast(2)).convertAndSend(StorefrontSnapshotService.EVICT_CHANNEL, "7");
+    }
+
+    // ── U-SNAP-04: a render is stored only against the counter it started from ─
+
+    @Test
+    @DisplayName("U-SNAP-04: the evict counter is read before rendering and passed to the conditional put")
+    void get_putCarriesGenerationReadBeforeRender() {
+        when(valueOps.get(GEN)).thenReturn("4");
+
+        snapshotService.get(7, () -> {
+            // An edit on another node lands mid-render
+            when(valueOps.get(GEN)).thenReturn("5");
+            return storefront("Shop");
+        });
+
+        verify(redisTemplate).execute(eq(StorefrontSnapshotService.PUT_IF_CURRENT), eq(List.of(KEY, GEN)),
+                eq("4"), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("U-SNAP-04: without the counter (Redis down) the render is served but not stored")
+    void get_generationUnreadable_skipsPut() {
+        when(valueOps.get(GEN)).thenThrow(new RuntimeException("redis down"));
+
+        Snapshot snapshot = snapshotService.get(7, () -> storefront("Shop"));
+
+        assertThat(new String(snapshot.json())).contains("Shop");
+        verify(redisTemplate, never()).execute(any(), anyList(), any(Object[].class));
+    }
+}
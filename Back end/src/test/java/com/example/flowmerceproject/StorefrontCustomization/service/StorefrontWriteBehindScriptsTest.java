@@ -0,0 +1,146 @@
+package com.example.flowmerceproject.StorefrontCustomization.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.flowmerceproject.StorefrontCustomization.service.StorefrontWriteBehindService.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the theme write-behind Lua scripts against a real Redis. Runs only
+ * when Docker is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("StorefrontWriteBehind scripts Tests")
+class StorefrontWriteBehindScriptsTest {
+
+    private static final String PENDING = KEY_PREFIX + "pending:1";
+    private static final String INFLIGHT = KEY_PREFIX + "inflight:1";
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void reset() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    private static void enqueue(String... fieldValues) {
+        List<String> args = new ArrayList<>(List.of("1"));
+        args.addAll(List.of(fieldValues));
+        redisTemplate.execute(ENQUEUE, List.of(PENDING, DIRTY_KEY), args.toArray());
+    }
+
+    /** themeId → fields (including the _ts stamp) for everything taken. */
+    private static Map<String, Map<String, String>> take(long leaseMs) {
+        List<?> flat = redisTemplate.execute(TAKE, List.of(DIRTY_KEY), "100", KEY_PREFIX, String.valueOf(leaseMs));
+        Map<String, Map<String, String>> taken = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            List<?> kv = (List<?>) flat.get(i + 1);
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int j = 0; j + 1 < kv.size(); j += 2) fields.put((String) kv.get(j), (String) kv.get(j + 1));
+            taken.put((String) flat.get(i), fields);
+        }
+        return taken;
+    }
+
+    // ── C-THM-01: a burst of saves collapses, last value per field wins ──────
+
+    @Test
+    @DisplayName("C-THM-01: repeated saves merge into one pending hash; last value wins")
+    void enqueue_mergesLastWriteWins() {
+        enqueue("accent", "#111111");
+        enqueue("accent", "#222222", "card", "#333333");
+        enqueue("accent", "#444444");
+
+        Map<String, Map<String, String>> taken = take(30_000);
+        assertThat(taken).containsOnlyKeys("1");
+        assertThat(taken.get("1")).containsEntry("accent", "#444444").containsEntry("card", "#333333");
+        assertThat(redisTemplate.hasKey(PENDING)).isFalse();
+        assertThat(redisTemplate.opsForSet().size(DIRTY_KEY)).isZero();
+    }
+
+    // ── C-THM-02: a theme in flight is not taken twice ────────────────────────
+
+    @Test
+    @DisplayName("C-THM-02: while leased, newer saves wait; after release they merge over in-flight")
+    void take_respectsLeaseAndMergesNewer() {
+        enqueue("accent", "#111111", "card", "#333333");
+        String stamp = take(30_000).get("1").get("_ts");
+
+        enqueue("accent", "#222222");
+        assertThat(take(30_000)).isEmpty();
+        assertThat(redisTemplate.opsForSet().isMember(DIRTY_KEY, "1")).isTrue();
+
+        // Flush failed → released; the retry carries the newer accent and the older card.
+        redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), stamp, "1", "0");
+        Map<String, String> retry = take(30_000).get("1");
+        assertThat(retry).containsEntry("accent", "#222222").containsEntry("card", "#333333");
+    }
+
+    // ── C-THM-03: completion only applies to the take that owns the hash ─────
+
+    @Test
+    @DisplayName("C-THM-03: complete drops the in-flight hash, but not with a stale stamp")
+    void complete_checksStamp() {
+        enqueue("accent", "#111111");
+        String stamp = take(30_000).get("1").get("_ts");
+
+        assertThat(redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), "0", "1", "1")).isZero();
+        assertThat(redisTemplate.hasKey(INFLIGHT)).isTrue();
+
+        assertThat(redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), stamp, "1", "1")).isEqualTo(1L);
+        assertThat(redisTemplate.hasKey(INFLIGHT)).isFalse();
+    }
+
+    // ── C-THM-04: only rejected writes count towards dead-lettering ──────────
+
+    @Test
+    @DisplayName("C-THM-04: a rejected write bumps _fails across retries; a plain release does not")
+    void complete_countsRejectedWrites() {
+        enqueue("accent", "#111111");
+        String stamp = take(30_000).get("1").get("_ts");
+        redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), stamp, "1", "0", "1");
+
+        stamp = take(30_000).get("1").get("_ts");
+        redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), stamp, "1", "0", "0");
+
+        enqueue("card", "#222222");
+        stamp = take(30_000).get("1").get("_ts");
+        redisTemplate.execute(COMPLETE, List.of(INFLIGHT, DIRTY_KEY), stamp, "1", "0", "1");
+
+        assertThat(take(30_000).get("1")).containsEntry("_fails", "2")
+                .containsEntry("accent", "#111111").containsEntry("card", "#222222");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.flowmerceproject.UserManagement.config;
+
+import com.example.flowmerceproject.UserManagement.config.RateLimitFilter.Group;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the GCRA script and the filter's lease logic against a real Redis.
+ * Runs only when Docker is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("RateLimitFilter Tests")
+class RateLimitFilterTest {
+
+    private static final String KEY = "rl:10.0.0.1:api";
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void reset() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    private static List<?> take(int intervalMs, int capacity, int wanted) {
+        return redisTemplate.execute(RateLimitFilter.GCRA, List.of(KEY),
+                String.valueOf(intervalMs), String.valueOf(capacity), String.valueOf(wanted));
+    }
+
+    private static long granted(List<?> result) {
+        return ((Number) result.get(0)).longValue();
+    }
+
+    private static RateLimitFilter filter(StringRedisTemplate template) {
+        RateLimitFilter filter = new RateLimitFilter(template);
+        ReflectionTestUtils.setField(filter, "leaseMs", 60_000L);
+        filter.init();
+        return filter;
+    }
+
+    // ── C-RL-01: a burst never exceeds the capacity ──────────────────────────
+
+    @Test
+    @DisplayName("C-RL-01: GCRA admits exactly `capacity` in a burst, then reports a wait")
+    void gcra_burstCappedAtCapacity() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(granted(take(60_000, 5, 1))).isEqualTo(1);
+        }
+        List<?> rejected = take(60_000, 5, 1);
+        assertThat(granted(rejected)).isZero();
+        assertThat(((Number) rejected.get(1)).longValue()).isBetween(1L, 60_000L);
+        assertThat(redisTemplate.getExpire(KEY)).isPositive();
+    }
+
+    @Test
+    @DisplayName("C-RL-02: GCRA grants min(wanted, available) for a lease")
+    void gcra_leaseGrantsWhatIsLeft() {
+        assertThat(granted(take(60_000, 10, 8))).isEqualTo(8);
+        assertThat(granted(take(60_000, 10, 8))).isEqualTo(2);
+        assertThat(granted(take(60_000, 10, 8))).isZero();
+    }
+
+    @Test
+    @DisplayName("C-RL-03: GCRA refills one token per interval")
+    void gcra_refillsOverTime() throws InterruptedException {
+        assertThat(granted(take(100, 1, 1))).isEqualTo(1);
+        assertThat(granted(take(100, 1, 1))).isZero();
+        Thread.sleep(150);
+        assertThat(granted(take(100, 1, 1))).isEqualTo(1);
+    }
+
+    // ── C-RL-04: leasing cuts Redis calls and never over-admits ──────────────
+
+    @Test
+    @DisplayName("C-RL-04: a leasing group admits no more than the limit with far fewer Redis calls")
+    void leasing_fewerCallsSameLimit() {
+        StringRedisTemplate spied = spy(redisTemplate);
+        RateLimitFilter filter = filter(spied);
+        Group api = new Group("api", 100, Duration.ofHours(1), 16);
+
+        int allowed = 0;
+        for (int i = 0; i < 150; i++) {
+            if (filter.acquire(KEY, api) == 0) allowed++;
+        }
+
+        assertThat(allowed).isEqualTo(100);
+        // Leases of 1, 2, 4, 8 then 16 tokens: about 10 calls for 100 tokens, plus the rejected tail.
+        verify(spied, times(10 + 50)).execute(any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("C-RL-05: a strict group goes to Redis on every request")
+    void strictGroup_everyRequestHitsRedis() {
+        StringRedisTemplate spied = spy(redisTemplate);
+        RateLimitFilter filter = filter(spied);
+        Group auth = new Group("auth", 3, Duration.ofMinutes(1), 0);
+
+        assertThat(filter.acquire(KEY, auth)).isZero();
+        assertThat(filter.acquire(KEY, auth)).isZero();
+        assertThat(filter.acquire(KEY, auth)).isZero();
+        assertThat(filter.acquire(KEY, auth)).isPositive();
+        verify(spied, times(4)).execute(any(), anyList(), any(Object[].class));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.flowmerceproject.UserManagement.service;
+
+import com.example.flowmerceproject.UserManagement.repository.SessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SessionCacheService Unit Tests")
+class SessionCacheServiceTest {
+
+    private static final String HASH = "0123456789abcdef01234567";
+    private static final String TIER1_KEY = SessionCacheService.TIER1_PREFIX + HASH;
+
+    @Mock private StringRedisTemplate redis;
+    @Mock private ValueOperations<String, String> valueOps;
+    @Mock private SessionRepository sessionRepository;
+    @Mock private RedisMessageListenerContainer listenerContainer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SessionCacheService cache;
+    private MessageListener evictListener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SessionCacheService(redis, sessionRepository, listenerContainer, meterRegistry);
+        ReflectionTestUtils.setField(cache, "tier1TtlSeconds", 30L);
+        ReflectionTestUtils.setField(cache, "tier2TtlSeconds", 86400L);
+        ReflectionTestUtils.setField(cache, "l1MaxSize", 100L);
+        ReflectionTestUtils.setField(cache, "l1TtlSeconds", 10L);
+        when(redis.opsForValue()).thenReturn(valueOps);
+        cache.init();
+
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listenerContainer).addMessageListener(listener.capture(), eq(new ChannelTopic(SessionCacheService.EVICT_CHANNEL)));
+        evictListener = listener.getValue();
+    }
+
+    private double lookups(String tier, String result) {
+        return meterRegistry.counter("session.cache.lookups", "tier", tier, "result", result).count();
+    }
+
+    // ── U-SES-01: hash is stable and 24 hex chars ────────────────────────────
+
+    @Test
+    @DisplayName("U-SES-01: hash - 24 lowercase hex chars, same token same hash")
+    void hash_isStableTruncatedSha256() {
+        String h = cache.hash("header.payload.signature");
+
+        assertThat(h).hasSize(24).matches("[0-9a-f]{24}");
+        assertThat(cache.hash("header.payload.signature")).isEqualTo(h);
+        assertThat(cache.hash("other.token.value")).isNotEqualTo(h);
+    }
+
+    // ── U-SES-02: a tier-1 hit warms L1; the next lookup is network-free ─────
+
+    @Test
+    @DisplayName("U-SES-02: tryGetRole - tier-1 hit fills L1, second lookup makes no Redis call")
+    void tryGetRole_tier1HitThenL1Hit() {
+        when(valueOps.getAndExpire(TIER1_KEY, Duration.ofSeconds(30))).thenReturn("MERCHANT");
+
+        assertThat(cache.tryGetRole(HASH)).isEqualTo("MERCHANT");
+        assertThat(cache.tryGetRole(HASH)).isEqualTo("MERCHANT");
+
+        verify(valueOps, times(1)).getAndExpire(anyString(), any(Duration.class));
+        verify(valueOps, never()).get(anyString());
+        verify(redis, never()).expire(anyString(), any(Duration.class));
+        assertThat(lookups("l1", "hit")).isEqualTo(1);
+        assertThat(lookups("l1", "miss")).isEqualTo(1);
+        assertThat(lookups("tier1", "hit")).isEqualTo(1);
+    }
+
+    // ── U-SES-03: eviction drops L1 locally and broadcasts ───────────────────
+
+    @Test
+    @DisplayName("U-SES-03: evictByHash - clears L1, deletes both tiers and publishes the hash")
+    void evictByHash_clearsL1AndBroadcasts() {
+        cache.store(HASH, "BUYER");
+
+        cache.evictByHash(HASH);
+
+        verify(redis).delete(TIER1_KEY);
+        verify(redis).delete(SessionCacheService.TIER2_PREFIX + HASH);
+        verify(redis).convertAndSend(SessionCacheService.EVICT_CHANNEL, HASH);
+        assertThat(cache.tryGetRole(HASH)).isNull();
+    }
+
+    @Test
+    @DisplayName("U-SES-04: an eviction broadcast from another node clears this node's L1")
+    void evictMessage_clearsL1() {
+        cache.store(HASH, "BUYER");
+        assertThat(cache.tryGetRole(HASH)).isEqualTo("BUYER");
+
+        evictListener.onMessage(new DefaultMessage(
+                SessionCacheService.EVICT_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                HASH.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(cache.tryGetRole(HASH)).isNull();
+        verify(valueOps).getAndExpire(TIER1_KEY, Duration.ofSeconds(30));
+    }
+
+    @Test
+    @DisplayName("U-SES-05: Redis failures fail open")
+    void tryGetRole_redisDown_returnsNull() {
+        when(valueOps.getAndExpire(anyString(), any(Duration.class))).thenThrow(new RuntimeException("down"));
+
+        assertThat(cache.tryGetRole(HASH)).isNull();
+    }
+}
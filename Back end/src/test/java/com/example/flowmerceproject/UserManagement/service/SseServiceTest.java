@@ -0,0 +1,179 @@
+package com.example.flowmerceproject.UserManagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the SSE publish script and the pub/sub fan-out against a real Redis.
+ * Runs only when Docker is available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("SseService Tests")
+class SseServiceTest {
+
+    private static final String USER = "merchant@test.com";
+
+    @Container
+    private static final GenericContainer<?> redis =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+    private static RedisMessageListenerContainer listenerContainer;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @AfterAll
+    static void disconnect() throws Exception {
+        listenerContainer.destroy();
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void reset() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    private static SseService node(int replaySize) {
+        return node(replaySize, new SimpleMeterRegistry());
+    }
+
+    private static SseService node(int replaySize, MeterRegistry meterRegistry) {
+        SseService service = new SseService(redisTemplate, listenerContainer, objectMapper, meterRegistry);
+        ReflectionTestUtils.setField(service, "replaySize", replaySize);
+        ReflectionTestUtils.setField(service, "replayTtlSeconds", 300L);
+        ReflectionTestUtils.setField(service, "queueCapacity", 64);
+        return service;
+    }
+
+    // ── C-SSE-01: an event sent on one node is published for every node ──────
+
+    @Test
+    @DisplayName("C-SSE-01: sendToUser publishes one numbered envelope on sse:user")
+    void sendToUser_publishesNumberedEnvelope() throws Exception {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        listenerContainer.addMessageListener(
+                (message, pattern) -> received.add(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(SseService.USER_CHANNEL));
+        Thread.sleep(200);
+
+        SseService sender = node(10);
+        sender.sendToUser(USER, "ORDER_UPDATE", Map.of("orderId", 7));
+        sender.sendToUser(USER, "ORDER_UPDATE", Map.of("orderId", 8));
+
+        String first = received.poll(5, TimeUnit.SECONDS);
+        String second = received.poll(5, TimeUnit.SECONDS);
+        assertThat(first).startsWith("1|");
+        assertThat(second).startsWith("2|");
+
+        JsonNode envelope = objectMapper.readTree(first.substring(2));
+        assertThat(envelope.get("user").asText()).isEqualTo(USER);
+        assertThat(envelope.get("type").asText()).isEqualTo("ORDER_UPDATE");
+        assertThat(envelope.get("data").get("orderId").asInt()).isEqualTo(7);
+    }
+
+    // ── C-SSE-02: the replay buffer keeps only the newest events ─────────────
+
+    @Test
+    @DisplayName("C-SSE-02: the per-user replay buffer is capped and expires")
+    void replayBuffer_cappedAndExpiring() {
+        SseService sender = node(3);
+        for (int i = 1; i <= 5; i++) {
+            sender.sendToUser(USER, "ORDER_UPDATE", Map.of("orderId", i));
+        }
+        sender.broadcast("SYSTEM", Map.of("message", "hi"));
+
+        List<String> buffered = redisTemplate.opsForList().range(SseService.REPLAY_PREFIX + USER, 0, -1);
+        assertThat(buffered).hasSize(3);
+        assertThat(buffered.get(0)).startsWith("3|");
+        assertThat(buffered.get(2)).startsWith("5|");
+        assertThat(redisTemplate.getExpire(SseService.REPLAY_PREFIX + USER)).isPositive();
+
+        // Broadcast shares the id sequence but has its own buffer.
+        assertThat(redisTemplate.opsForList().range(SseService.BROADCAST_REPLAY_KEY, 0, -1))
+                .singleElement().asString().startsWith("6|");
+    }
+
+    // ── C-SSE-03: delivery to another node's connections goes through the queue ─
+
+    @Test
+    @DisplayName("C-SSE-03: an event sent on node A is queued and drained on node B")
+    void crossNodeDelivery_drainsQueue() throws Exception {
+        MeterRegistry metrics = new SimpleMeterRegistry();
+        SseService receiver = node(10, metrics);
+        receiver.subscribe();
+        Thread.sleep(200);
+
+        receiver.subscribeUser(USER, null);
+        receiver.subscribeUser(USER, null);
+        assertThat(metrics.get("sse.connections").tag("scope", "user").gauge().value()).isEqualTo(2.0);
+
+        String before = redisTemplate.opsForValue().get(SseService.SEQ_KEY);
+        node(10).sendToUser(USER, "ORDER_UPDATE", Map.of("orderId", 1));
+        assertThat(redisTemplate.opsForValue().get(SseService.SEQ_KEY)).isNotEqualTo(before);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (metrics.get("sse.queue.depth").gauge().value() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(metrics.get("sse.queue.depth").gauge().value()).isZero();
+        assertThat(metrics.get("sse.events.dropped").counter().count()).isZero();
+        receiver.shutdown();
+    }
+
+    // ── C-SSE-04: the payload travels as the publisher's JSON text ───────────
+
+    @Test
+    @DisplayName("C-SSE-04: the envelope is valid JSON and decode cuts the payload out verbatim")
+    void envelope_payloadCutOutVerbatim() throws Exception {
+        SseService sender = node(10);
+        Map<String, Object> payload = Map.of("message", "a,\"data\":{\"x\":1} | ünïcode");
+        sender.sendToUser(USER, "ORDER_UPDATE", payload);
+
+        String raw = redisTemplate.opsForList().index(SseService.REPLAY_PREFIX + USER, 0);
+        JsonNode envelope = objectMapper.readTree(raw.substring(raw.indexOf('|') + 1));
+        assertThat(envelope.get("data").get("message").asText()).isEqualTo(payload.get("message"));
+
+        Object decoded = ReflectionTestUtils.invokeMethod(sender, "decode", raw);
+        assertThat((String) ReflectionTestUtils.invokeMethod(decoded, "user")).isEqualTo(USER);
+        assertThat((String) ReflectionTestUtils.invokeMethod(decoded, "type")).isEqualTo("ORDER_UPDATE");
+        assertThat((String) ReflectionTestUtils.invokeMethod(decoded, "json"))
+                .isEqualTo(objectMapper.writeValueAsString(payload));
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.flowmerceproject.common.controller;
+
+import com.example.flowmerceproject.common.service.LocalFileIndex;
+import com.example.flowmerceproject.common.service.LocalFileServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Throughput of {@code GET /uploads/{filename}} for a small image and a
+ * larger video, through the full MVC stack (MockMvc, no network).
+ *
+ * "before" is the previous serve — UrlResource, exists/isReadable checks and
+ * Files.probeContentType on every request, body through the Resource
+ * message converter; "after" is {@link UploadController#serve}. Over a real
+ * Tomcat connector the "after" body goes out through sendfile, which this
+ * in-memory response cannot show. Tagged "benchmark": run with -Pbenchmark.
+ */
+@Tag("benchmark")
+@DisplayName("Upload serving benchmark")
+class UploadServeBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadServeBenchmarkTest.class);
+
+    private static final int RUNS = 2_000;
+
+    @TempDir Path uploadDir;
+
+    private LocalFileIndex index;
+    private MockMvc before;
+    private MockMvc after;
+
+    /** The pre-change serve, line for line. */
+    @RestController
+    @RequestMapping("/uploads")
+    static class LegacyUploadController {
+        private final Path uploadPath;
+
+        LegacyUploadController(Path uploadPath) {
+            this.uploadPath = uploadPath;
+        }
+
+        @GetMapping("/{filename:.+}")
+        public ResponseEntity<Resource> serve(@PathVariable String filename) throws Exception {
+            Path filePath = uploadPath.resolve(filename).normalize();
+            if (!filePath.startsWith(uploadPath)) return ResponseEntity.badRequest().build();
+            Resource resource = new UrlResource(filePath.toUri());
+            if (!resource.exists() || !resource.isReadable()) return ResponseEntity.notFound().build();
+            String contentType = Files.probeContentType(filePath);
+            if (contentType == null) contentType = "application/octet-stream";
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
+                    .header(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000")
+                    .header("X-Content-Type-Options", "nosniff")
+                    .contentType(MediaType.parseMediaType(contentType))
+                    .body(resource);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Random random = new Random(42);
+        byte[] image = new byte[24 * 1024];
+        byte[] video = new byte[2 * 1024 * 1024];
+        random.nextBytes(image);
+        random.nextBytes(video);
+        Files.write(uploadDir.resolve("photo.png"), image);
+        Files.write(uploadDir.resolve("clip.mp4"), video);
+
+        index = new LocalFileIndex();
+        ReflectionTestUtils.setField(index, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.invokeMethod(index, "init");
+
+        Path root = uploadDir.toAbsolutePath().normalize();
+        before = MockMvcBuilders.standaloneSetup(new LegacyUploadController(root)).build();
+        after = MockMvcBuilders.standaloneSetup(
+                new UploadController(null, index, new LocalFileServer(index))).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(index, "shutdown");
+    }
+
+    @Test
+    @DisplayName("B-SRV-01: requests per second, before vs after, for a 24 KB image and a 2 MB video")
+    void serve_throughput() throws Exception {
+        log.info("B-SRV-01 file      | before req/s | after req/s");
+        for (String name : new String[] { "photo.png", "clip.mp4" }) {
+            byte[] expected = Files.readAllBytes(uploadDir.resolve(name));
+            int runs = name.endsWith(".mp4") ? RUNS / 10 : RUNS;
+
+            double beforeRate = measure(before, name, expected, runs);
+            double afterRate = measure(after, name, expected, runs);
+            log.info(String.format("B-SRV-01 %-9s | %12.0f | %11.0f", name, beforeRate, afterRate));
+        }
+
+        // A revalidation costs no body at all
+        MvcResult first = after.perform(get("/uploads/photo.png")).andReturn();
+        MvcResult revalidated = after.perform(get("/uploads/photo.png")
+                .header(HttpHeaders.IF_NONE_MATCH, first.getResponse().getHeader(HttpHeaders.ETAG))).andReturn();
+        assertThat(revalidated.getResponse().getStatus()).isEqualTo(304);
+        assertThat(revalidated.getResponse().getContentAsByteArray()).isEmpty();
+    }
+
+    private double measure(MockMvc mvc, String name, byte[] expected, int runs) throws Exception {
+        for (int i = 0; i < runs / 10; i++) mvc.perform(get("/uploads/" + name));
+        MvcResult check = mvc.perform(get("/uploads/" + name)).andReturn();
+        assertThat(check.getResponse().getContentAsByteArray()).isEqualTo(expected);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) mvc.perform(get("/uploads/" + name));
+        return runs / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.flowmerceproject.common.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LocalFileServer Unit Tests")
+class LocalFileServerTest {
+
+    @TempDir Path uploadDir;
+
+    private LocalFileIndex index;
+    private LocalFileServer server;
+    private final byte[] video = new byte[10_000];
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int i = 0; i < video.length; i++) video[i] = (byte) i;
+        Files.write(uploadDir.resolve("clip.mp4"), video);
+        Files.write(uploadDir.resolve("page.html"), "<script>".getBytes());
+
+        index = new LocalFileIndex();
+        ReflectionTestUtils.setField(index, "uploadDir", uploadDir.toString());
+        index.init();
+        server = new LocalFileServer(index);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.shutdown();
+    }
+
+    private MockHttpServletResponse get(String name, String... headers) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + name);
+        for (int i = 0; i < headers.length; i += 2) request.addHeader(headers[i], headers[i + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        server.serve(index.lookup(name), request, response);
+        return response;
+    }
+
+    // ── U-SRV-01: index at startup, full body with validators ─────────────────
+
+    @Test
+    @DisplayName("U-SRV-01: indexed files are served whole with type, length, ETag and a safe disposition")
+    void serve_fullBody() throws Exception {
+        assertThat(index.size()).isEqualTo(2);
+
+        MockHttpServletResponse response = get("clip.mp4");
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("video/mp4");
+        assertThat(response.getContentLengthLong()).isEqualTo(video.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(video);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"").endsWith("\"");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).startsWith("inline");
+
+        assertThat(get("page.html").getHeader(HttpHeaders.CONTENT_DISPOSITION)).startsWith("attachment");
+        assertThat(index.lookup("missing.png")).isNull();
+    }
+
+    // ── U-SRV-02: conditional requests ────────────────────────────────────────
+
+    @Test
+    @DisplayName("U-SRV-02: a matching If-None-Match or a current If-Modified-Since gets a bodiless 304")
+    void serve_conditional() throws Exception {
+        MockHttpServletResponse first = get("clip.mp4");
+        String etag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        MockHttpServletResponse byTag = get("clip.mp4", HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag);
+        assertThat(byTag.getStatus()).isEqualTo(304);
+        assertThat(byTag.getContentAsByteArray()).isEmpty();
+
+        assertThat(get("clip.mp4", HttpHeaders.IF_MODIFIED_SINCE, lastModified).getStatus()).isEqualTo(304);
+        // If-None-Match decides when both are present
+        assertThat(get("clip.mp4", HttpHeaders.IF_NONE_MATCH, "\"other\"",
+                HttpHeaders.IF_MODIFIED_SINCE, lastModified).getStatus()).isEqualTo(200);
+    }
+
+    // ── U-SRV-03: ranges ──────────────────────────────────────────────────────
+
+    @Test
+    @DisplayName("U-SRV-03: Range returns exactly the requested bytes; past-the-end is 416; a stale If-Range gets the whole file")
+    void serve_ranges() throws Exception {
+        MockHttpServletResponse middle = get("clip.mp4", HttpHeaders.RANGE, "bytes=100-199");
+        assertThat(middle.getStatus()).isEqualTo(206);
+        assertThat(middle.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/10000");
+        assertThat(middle.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(video, 100, 200));
+
+        MockHttpServletResponse tail = get("clip.mp4", HttpHeaders.RANGE, "bytes=-500");
+        assertThat(tail.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(video, 9_500, 10_000));
+
+        MockHttpServletResponse past = get("clip.mp4", HttpHeaders.RANGE, "bytes=20000-");
+        assertThat(past.getStatus()).isEqualTo(416);
+        assertThat(past.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10000");
+
+        MockHttpServletResponse stale = get("clip.mp4", HttpHeaders.RANGE, "bytes=0-9",
+                HttpHeaders.IF_RANGE, "\"old\"");
+        assertThat(stale.getStatus()).isEqualTo(200);
+        assertThat(stale.getContentLengthLong()).isEqualTo(video.length);
+
+        MockHttpServletRequest sendfile = new MockHttpServletRequest("GET", "/uploads/clip.mp4");
+        sendfile.setAttribute(LocalFileServer.SENDFILE_SUPPORT, Boolean.TRUE);
+        sendfile.addHeader(HttpHeaders.RANGE, "bytes=10-");
+        MockHttpServletResponse handedOff = new MockHttpServletResponse();
+        server.serve(index.lookup("clip.mp4"), sendfile, handedOff);
+        assertThat(handedOff.getContentAsByteArray()).isEmpty();
+        assertThat(sendfile.getAttribute(LocalFileServer.SENDFILE_START)).isEqualTo(10L);
+        assertThat(sendfile.getAttribute(LocalFileServer.SENDFILE_END)).isEqualTo(10_000L);
+    }
+}
@@ -3,13 +3,12 @@
 /**
  * NotificationListener — merchant-side SSE listener.
  *
- * Opens two connections:
- *   /stream/stock   — public broadcast, no auth required
+ * Opens one connection:
  *   /stream/private — merchant-authenticated, requires Bearer token
  *
  * Events handled:
- *   STOCK_ALERT  → toast.warning  (low-stock broadcast from /stream/stock)
- *   ORDER_UPDATE → toast.info     (per-merchant order updates from /stream/private)
+ *   STOCK_ALERT  → toast.warning  (low stock on the merchant's own products)
+ *   ORDER_UPDATE → toast.info     (per-merchant order updates)
  *
  * Renders nothing — side-effect only component.
  * Uses the existing useEventStream hook (fetch-based, supports auth headers,
@@ -43,15 +42,14 @@ export default function NotificationListener() {
     [enabled]
   )
 
-  // ── Stock broadcast — only when merchant is authenticated ──────────────────
-  // SEC-13: /stream/stock requires auth (anyRequest().authenticated()).
-  // With credentials:'include' in sse-client, the httpOnly cookie handles it.
+  // ── Merchant-authenticated private stream ──────────────────────────────────
   useEventStream({
-    url: `${BASE_URL}/stream/stock`,
+    url: `${BASE_URL}/stream/private`,
     headers,
     enabled,
     onError: handleSseAuthError,
     handlers: {
+      // Stock alerts go only to the merchant who owns the product
       STOCK_ALERT: (data) => {
         const d = data as { message?: string; productId?: number }
         toast.warning(d.message ?? 'Stock alert received', {
@@ -59,16 +57,6 @@ export default function NotificationListener() {
           duration: 6000,
         })
       },
-    },
-  })
-
-  // ── Merchant-authenticated private stream ──────────────────────────────────
-  useEventStream({
-    url: `${BASE_URL}/stream/private`,
-    headers,
-    enabled,
-    onError: handleSseAuthError,
-    handlers: {
       ORDER_UPDATE: (data) => {
         const d = data as { message?: string; orderId?: number; status?: string }
         toast.info(d.message ?? 'Order updated', {